@@ -0,0 +1,489 @@
+package com.proxy.benchmark;
+
+import com.proxy.network.HytalePlayerSession;
+import com.proxy.network.HytaleToMCConnector;
+import com.proxy.network.decoder.PacketFrameDecoder;
+import com.proxy.network.transport.Transport;
+import com.proxy.network.util.PacketDecoder;
+import com.proxy.network.util.PacketEncoder;
+import com.proxy.network.util.PacketWriter;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.InetSocketAddress;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Backend login, from connect() to the PLAY Login packet, against a
+ * scripted Paper on loopback TCP.
+ *
+ * The scripted backend plays the server side of an offline-mode 1.20.4
+ * login and nothing else: Login Success after Login Start, Finish
+ * Configuration after Login Acknowledged, PLAY Login after the finish is
+ * acknowledged.  No compression, no registry data, no chunks.
+ *
+ *   proxy      the proxy's own path: {@link HytaleToMCConnector} and
+ *              MCToHytaleTranslator, timed until the session is IN_GAME
+ *   pipelined  a bare client encoding the login the way that path does:
+ *              sizes computed up front, one pooled direct buffer per burst,
+ *              replies flushed once per read
+ *   legacy     a bare client with the old encoding: heap body buffers
+ *              copied into a second framed buffer, and every reply to the
+ *              backend flushed on its own
+ *
+ * pipelined against legacy is the before/after of the login change alone;
+ * proxy adds everything else a real login costs (session, routing,
+ * translator, metrics).  The old translator never answered Login Success
+ * (the session went IN_GAME there and Paper stalled in LOGIN), so there is
+ * no working "before" to run as-is; legacy is the old encoding with the
+ * acknowledgements a vanilla client sends, one flush each.
+ *
+ * Scores are per login.  Secondary scores: "backendReads", the reads the
+ * backend needed to receive everything, and "clientFlushes", flushes with
+ * data on the client side — write syscalls — for the bare clients only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BackendLoginBenchmark {
+
+    private static final int MC_PROTO = 765;
+    private static final String USERNAME = "bench";
+    private static final UUID PLAYER_UUID = HytalePlayerSession.deriveOfflineUUID(USERNAME);
+    private static final String LOCALE = "en_us";
+    private static final String BRAND_CHANNEL = "minecraft:brand";
+    private static final String BRAND = "hytalecraft";
+
+    // Serverbound
+    private static final int SB_LOGIN_START = 0x00;
+    private static final int SB_LOGIN_ACKNOWLEDGED = 0x03;
+    private static final int SB_CLIENT_INFORMATION = 0x00;
+    private static final int SB_PLUGIN_MESSAGE = 0x01;
+    private static final int SB_FINISH_CONFIGURATION_ACK = 0x02;
+    // Clientbound
+    private static final int LOGIN_SUCCESS = 0x02;
+    private static final int FINISH_CONFIGURATION = 0x02;
+    private static final int PLAY_LOGIN = 0x29;
+
+    @Param({"proxy", "pipelined", "legacy"})
+    public String mode;
+
+    private final LongAdder backendReads = new LongAdder();
+    private final LongAdder clientFlushes = new LongAdder();
+    private final BlockingQueue<Channel> accepted = new LinkedBlockingQueue<>();
+
+    private EventLoopGroup group;
+    private Channel paper;
+    private Channel hytaleListener;
+
+    /** Per invocation: the proxy end of a Hytale connection and the client end */
+    private Channel hytale;
+    private Channel hytaleClient;
+
+    @Setup
+    public void setup() throws Exception {
+        Transport transport = Transport.best();
+        group = transport.newEventLoopGroup(0, "bench-login");
+
+        paper = new ServerBootstrap()
+                .group(group)
+                .channel(transport.serverSocketChannelClass())
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline()
+                          .addLast(new PacketFrameDecoder())
+                          .addLast(new ScriptedPaper());
+                    }
+                })
+                .bind(new InetSocketAddress("127.0.0.1", 0)).sync().channel();
+
+        // Read once, when the connector first selects a backend
+        System.setProperty("hytalecraft.backends",
+                "bench=127.0.0.1:" + ((InetSocketAddress) paper.localAddress()).getPort());
+
+        hytaleListener = new ServerBootstrap()
+                .group(group)
+                .channel(transport.serverSocketChannelClass())
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(new Discard());
+                        accepted.add(ch);
+                    }
+                })
+                .bind(new InetSocketAddress("127.0.0.1", 0)).sync().channel();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        hytaleListener.close().sync();
+        paper.close().sync();
+        group.shutdownGracefully(0, 1, TimeUnit.SECONDS).sync();
+    }
+
+    @Setup(Level.Invocation)
+    public void connectHytale() throws Exception {
+        hytaleClient = new Bootstrap()
+                .group(group)
+                .channel(Transport.best().socketChannelClass())
+                .handler(new Discard())
+                .connect(hytaleListener.localAddress()).sync().channel();
+        hytale = accepted.take();
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeHytale() throws Exception {
+        hytaleClient.close().sync();
+        hytale.close().sync();
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long backendReads;
+        public long clientFlushes;
+    }
+
+    @Benchmark
+    public void login(Counters counters) throws Exception {
+        long readsBefore = backendReads.sum();
+        long flushesBefore = clientFlushes.sum();
+        Channel mc;
+        if (mode.equals("proxy")) {
+            HytalePlayerSession session = new HytalePlayerSession(hytale, USERNAME);
+            hytale.eventLoop().execute(() -> new HytaleToMCConnector(session).connect());
+            while (session.getState() != HytalePlayerSession.PlayerState.IN_GAME) {
+                LockSupport.parkNanos(1_000);
+            }
+            mc = session.getMcChannel();
+        } else {
+            ScriptedClient client = mode.equals("pipelined") ? new PipelinedClient() : new LegacyClient();
+            mc = new Bootstrap()
+                    .group(hytale.eventLoop())
+                    .channel(Transport.best().socketChannelClass())
+                    .option(ChannelOption.TCP_NODELAY, true)
+                    .handler(new ChannelInitializer<Channel>() {
+                        @Override
+                        protected void initChannel(Channel ch) {
+                            ch.pipeline()
+                              .addLast(new FlushCounter())
+                              .addLast(new PacketFrameDecoder())
+                              .addLast(client);
+                        }
+                    })
+                    .connect(paper.localAddress()).sync().channel();
+            while (!client.inGame) {
+                LockSupport.parkNanos(1_000);
+            }
+        }
+        counters.backendReads += backendReads.sum() - readsBefore;
+        counters.clientFlushes += clientFlushes.sum() - flushesBefore;
+        mc.close().sync();
+    }
+
+    // -------------------------------------------------------------------------
+    // Scripted backend
+    // -------------------------------------------------------------------------
+
+    /** Server side of an offline-mode login, one instance per connection. */
+    private class ScriptedPaper extends ChannelInboundHandlerAdapter {
+
+        private int state; // 0 handshake, 1 login, 2 configuration, 3 play
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ByteBuf frame = (ByteBuf) msg;
+            try {
+                int packetId = PacketDecoder.readVarInt(frame);
+                switch (state) {
+                    case 0 -> state = 1;
+                    case 1 -> {
+                        if (packetId == SB_LOGIN_START) {
+                            ctx.write(loginSuccess(ctx));
+                        } else if (packetId == SB_LOGIN_ACKNOWLEDGED) {
+                            state = 2;
+                            ctx.write(packet(ctx, FINISH_CONFIGURATION));
+                        }
+                    }
+                    case 2 -> {
+                        if (packetId == SB_FINISH_CONFIGURATION_ACK) {
+                            state = 3;
+                            ctx.write(playLogin(ctx));
+                        }
+                    }
+                    default -> { }
+                }
+            } finally {
+                frame.release();
+            }
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) {
+            backendReads.increment();
+            ctx.flush();
+        }
+
+        private ByteBuf loginSuccess(ChannelHandlerContext ctx) {
+            ByteBuf body = ctx.alloc().buffer();
+            PacketEncoder.writeVarInt(body, LOGIN_SUCCESS);
+            PacketEncoder.writeUUID(body, PLAYER_UUID);
+            PacketEncoder.writeString(body, USERNAME);
+            PacketEncoder.writeVarInt(body, 0);         // properties
+            return frame(ctx, body);
+        }
+
+        private ByteBuf playLogin(ChannelHandlerContext ctx) {
+            ByteBuf body = ctx.alloc().buffer();
+            PacketEncoder.writeVarInt(body, PLAY_LOGIN);
+            body.writeInt(1);                            // entity ID
+            body.writeBoolean(false);                    // hardcore
+            PacketEncoder.writeVarInt(body, 1);          // dimensions
+            PacketEncoder.writeString(body, "minecraft:overworld");
+            PacketEncoder.writeVarInt(body, 20);         // max players
+            PacketEncoder.writeVarInt(body, 8);          // view distance
+            PacketEncoder.writeVarInt(body, 8);          // simulation distance
+            body.writeBoolean(false);                    // reduced debug info
+            body.writeBoolean(true);                     // enable respawn screen
+            body.writeBoolean(false);                    // limited crafting
+            PacketEncoder.writeString(body, "minecraft:overworld"); // dimension type
+            PacketEncoder.writeString(body, "minecraft:overworld"); // dimension name
+            body.writeLong(0);                           // hashed seed
+            body.writeByte(0);                           // game mode
+            body.writeByte(-1);                          // previous game mode
+            body.writeBoolean(false);                    // debug
+            body.writeBoolean(false);                    // flat
+            body.writeBoolean(false);                    // death location
+            PacketEncoder.writeVarInt(body, 0);          // portal cooldown
+            return frame(ctx, body);
+        }
+
+        private ByteBuf packet(ChannelHandlerContext ctx, int packetId) {
+            ByteBuf body = ctx.alloc().buffer(1);
+            body.writeByte(packetId);
+            return frame(ctx, body);
+        }
+
+        private ByteBuf frame(ChannelHandlerContext ctx, ByteBuf body) {
+            ByteBuf frame = ctx.alloc().buffer(5 + body.readableBytes());
+            PacketEncoder.writeVarInt(frame, body.readableBytes());
+            frame.writeBytes(body);
+            body.release();
+            return frame;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Bare clients
+    // -------------------------------------------------------------------------
+
+    /** Client side of the login without the proxy around it; subclasses differ only in encoding and flushing. */
+    private abstract static class ScriptedClient extends ChannelInboundHandlerAdapter {
+
+        private int state; // 1 login, 2 configuration, 3 play
+        volatile boolean inGame;
+
+        /** Handshake and Login Start. */
+        abstract void start(ChannelHandlerContext ctx, InetSocketAddress remote);
+
+        /** Login Acknowledged, Client Information and brand. */
+        abstract void loginSuccess(ChannelHandlerContext ctx);
+
+        /** Acknowledge Finish Configuration. */
+        abstract void finishConfiguration(ChannelHandlerContext ctx);
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) throws Exception {
+            state = 1;
+            start(ctx, (InetSocketAddress) ctx.channel().remoteAddress());
+            super.channelActive(ctx);
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ByteBuf frame = (ByteBuf) msg;
+            try {
+                int packetId = PacketDecoder.readVarInt(frame);
+                if (state == 1 && packetId == LOGIN_SUCCESS) {
+                    state = 2;
+                    loginSuccess(ctx);
+                } else if (state == 2 && packetId == FINISH_CONFIGURATION) {
+                    state = 3;
+                    finishConfiguration(ctx);
+                } else if (state == 3 && packetId == PLAY_LOGIN) {
+                    inGame = true;
+                }
+            } finally {
+                frame.release();
+            }
+        }
+    }
+
+    /**
+     * The login as the connector encoded it before: every packet built in an
+     * unpooled heap buffer and copied into a framed one, replies flushed one
+     * by one.
+     */
+    private static class LegacyClient extends ScriptedClient {
+
+        @Override
+        void start(ChannelHandlerContext ctx, InetSocketAddress remote) {
+            ByteBuf handshake = Unpooled.buffer();
+            PacketEncoder.writeVarInt(handshake, 0x00);
+            PacketEncoder.writeVarInt(handshake, MC_PROTO);
+            PacketEncoder.writeString(handshake, remote.getHostString());
+            handshake.writeShort(remote.getPort());
+            PacketEncoder.writeVarInt(handshake, 2);
+            ctx.write(framedPacket(handshake));
+
+            ByteBuf loginStart = Unpooled.buffer();
+            PacketEncoder.writeVarInt(loginStart, SB_LOGIN_START);
+            PacketEncoder.writeString(loginStart, USERNAME);
+            PacketEncoder.writeUUID(loginStart, PLAYER_UUID);
+            ctx.write(framedPacket(loginStart));
+            ctx.flush();
+        }
+
+        @Override
+        void loginSuccess(ChannelHandlerContext ctx) {
+            ctx.writeAndFlush(framedPacket(body(SB_LOGIN_ACKNOWLEDGED)));
+
+            ByteBuf info = body(SB_CLIENT_INFORMATION);
+            PacketEncoder.writeString(info, LOCALE);
+            writeClientSettings(info);
+            ctx.writeAndFlush(framedPacket(info));
+
+            ByteBuf brand = body(SB_PLUGIN_MESSAGE);
+            PacketEncoder.writeString(brand, BRAND_CHANNEL);
+            PacketEncoder.writeString(brand, BRAND);
+            ctx.writeAndFlush(framedPacket(brand));
+        }
+
+        @Override
+        void finishConfiguration(ChannelHandlerContext ctx) {
+            ctx.writeAndFlush(framedPacket(body(SB_FINISH_CONFIGURATION_ACK)));
+        }
+
+        private static ByteBuf body(int packetId) {
+            ByteBuf body = Unpooled.buffer();
+            PacketEncoder.writeVarInt(body, packetId);
+            return body;
+        }
+
+        /** Wrap a packet body with its VarInt length prefix. */
+        private static ByteBuf framedPacket(ByteBuf body) {
+            ByteBuf frame = Unpooled.buffer();
+            PacketEncoder.writeVarInt(frame, body.readableBytes());
+            frame.writeBytes(body);
+            body.release();
+            return frame;
+        }
+    }
+
+    /**
+     * The login as the connector and translator encode it now: sizes
+     * computed up front, one pooled direct buffer per burst, replies flushed
+     * once per read.
+     */
+    private static class PipelinedClient extends ScriptedClient {
+
+        @Override
+        void start(ChannelHandlerContext ctx, InetSocketAddress remote) {
+            int handshakePayload = PacketEncoder.varIntSize(MC_PROTO)
+                    + PacketWriter.stringSize(remote.getHostString()) + 2 + 1;
+            int loginPayload = PacketWriter.stringSize(USERNAME) + 16;
+            ByteBuf buf = ctx.alloc().directBuffer(PacketWriter.frameSize(0x00, handshakePayload)
+                    + PacketWriter.frameSize(SB_LOGIN_START, loginPayload));
+            PacketWriter.prefix(buf, 0x00, handshakePayload);
+            PacketEncoder.writeVarInt(buf, MC_PROTO);
+            PacketEncoder.writeString(buf, remote.getHostString());
+            buf.writeShort(remote.getPort());
+            buf.writeByte(2);
+            PacketWriter.prefix(buf, SB_LOGIN_START, loginPayload);
+            PacketEncoder.writeString(buf, USERNAME);
+            PacketEncoder.writeUUID(buf, PLAYER_UUID);
+            ctx.writeAndFlush(buf, ctx.voidPromise());
+        }
+
+        @Override
+        void loginSuccess(ChannelHandlerContext ctx) {
+            int infoPayload = PacketWriter.stringSize(LOCALE) + 7;
+            int brandPayload = PacketWriter.stringSize(BRAND_CHANNEL) + PacketWriter.stringSize(BRAND);
+            ByteBuf buf = ctx.alloc().directBuffer(PacketWriter.frameSize(SB_LOGIN_ACKNOWLEDGED, 0)
+                    + PacketWriter.frameSize(SB_CLIENT_INFORMATION, infoPayload)
+                    + PacketWriter.frameSize(SB_PLUGIN_MESSAGE, brandPayload));
+            PacketWriter.prefix(buf, SB_LOGIN_ACKNOWLEDGED, 0);
+            PacketWriter.prefix(buf, SB_CLIENT_INFORMATION, infoPayload);
+            PacketEncoder.writeString(buf, LOCALE);
+            writeClientSettings(buf);
+            PacketWriter.prefix(buf, SB_PLUGIN_MESSAGE, brandPayload);
+            PacketEncoder.writeString(buf, BRAND_CHANNEL);
+            PacketEncoder.writeString(buf, BRAND);
+            ctx.write(buf, ctx.voidPromise());
+        }
+
+        @Override
+        void finishConfiguration(ChannelHandlerContext ctx) {
+            ctx.write(PacketWriter.allocate(ctx.alloc(), SB_FINISH_CONFIGURATION_ACK, 0), ctx.voidPromise());
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) {
+            ctx.flush();
+        }
+    }
+
+    /** Client Information after the locale: view distance 8, chat on, all skin parts, right hand. */
+    private static void writeClientSettings(ByteBuf buf) {
+        buf.writeByte(8);                                // view distance
+        PacketEncoder.writeVarInt(buf, 0);               // chat mode
+        buf.writeBoolean(true);                          // chat colors
+        buf.writeByte(0x7F);                             // skin parts
+        PacketEncoder.writeVarInt(buf, 1);               // main hand
+        buf.writeBoolean(false);                         // text filtering
+        buf.writeBoolean(true);                          // allow server listings
+    }
+
+    /** Counts flushes that have data to write, each of which costs a write syscall. */
+    private class FlushCounter extends ChannelOutboundHandlerAdapter {
+        @Override
+        public void flush(ChannelHandlerContext ctx) {
+            if (ctx.channel().unsafe().outboundBuffer() != null
+                    && ctx.channel().unsafe().outboundBuffer().totalPendingWriteBytes() > 0) {
+                clientFlushes.increment();
+            }
+            ctx.flush();
+        }
+    }
+
+    /** Drops whatever is written to a Hytale connection. */
+    private static class Discard extends ChannelOutboundHandlerAdapter {
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            ReferenceCountUtil.release(msg);
+            promise.trySuccess();
+        }
+    }
+}
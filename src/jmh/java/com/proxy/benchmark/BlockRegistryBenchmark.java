@@ -0,0 +1,82 @@
+package com.proxy.benchmark;
+
+import com.proxy.protocol.BlockRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link BlockRegistry} MC → Hytale translation: single lookups and the bulk
+ * array form, against a boxed {@code HashMap<Integer, Integer>} holding the
+ * same mappings (the registry's original representation).
+ *
+ * Scores are per block.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlockRegistryBenchmark {
+
+    /** One chunk section worth of block states */
+    private static final int BLOCKS = 4096;
+
+    private BlockRegistry registry;
+    private Map<Integer, Integer> baseline;
+    private int[] ids;
+    private int[] dst;
+
+    @Setup
+    public void setup() {
+        registry = BlockRegistry.getInstance();
+
+        // Recover the MC side of the mapping table through the public API
+        baseline = new HashMap<>();
+        List<Integer> known = new ArrayList<>();
+        for (int hytaleId = 0; hytaleId < 1 << 16; hytaleId++) {
+            int mc = registry.toMC(hytaleId);
+            if (mc != 0 && baseline.putIfAbsent(mc, registry.toHytale(mc)) == null) {
+                known.add(mc);
+            }
+        }
+        if (known.isEmpty()) known.add(0);
+
+        // Mostly mapped states with a sprinkling of unmapped ones, like real terrain
+        SplittableRandom random = new SplittableRandom(42);
+        ids = new int[BLOCKS];
+        for (int i = 0; i < BLOCKS; i++) {
+            ids[i] = random.nextInt(16) == 0 ? random.nextInt(1, 30000) : known.get(random.nextInt(known.size()));
+        }
+        dst = new int[BLOCKS];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BLOCKS)
+    public int lookup() {
+        int sum = 0;
+        for (int id : ids) sum += registry.toHytale(id);
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BLOCKS)
+    public int[] bulk() {
+        registry.toHytale(ids, dst);
+        return dst;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BLOCKS)
+    public int hashMapBaseline() {
+        int sum = 0;
+        for (int id : ids) sum += baseline.getOrDefault(id, 0);
+        return sum;
+    }
+}
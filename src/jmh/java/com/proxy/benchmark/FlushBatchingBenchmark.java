@@ -0,0 +1,225 @@
+package com.proxy.benchmark;
+
+import com.proxy.network.decoder.PacketFrameDecoder;
+import com.proxy.network.transport.Transport;
+import com.proxy.network.util.PacketEncoder;
+import com.proxy.network.util.WriteBatcher;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Flush strategies of the relay under a simulated {@value #PLAYERS}-player
+ * load, over real loopback TCP so every flush is a write syscall.
+ *
+ * Each simulated player has a client connection to a relay listener, and
+ * the relay opens one backend connection per player to a sink, on the
+ * player channel's event loop — the proxy's topology.  The relay frames
+ * what the player sends and forwards it frame by frame:
+ *
+ *   perWrite      writeAndFlush per frame (hytalecraft.flush.batching=false)
+ *   readComplete  {@link WriteBatcher}, flushed on read-complete (the default)
+ *   window        {@link WriteBatcher} with a 200 µs batch window
+ *
+ * One operation is one tick: every player sends a burst of {@value #BURST}
+ * 32-byte frames, and the tick ends when the sink has received all of them.
+ * Scores are per frame.  The secondary "flushes" score counts backend
+ * flushes that carry data — write syscalls on the relay's backend side — at
+ * the same time unit; divided by the primary score it gives syscalls per
+ * frame.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlushBatchingBenchmark {
+
+    private static final int PLAYERS = 500;
+    private static final int BURST = 8;
+    private static final int FRAME_BODY = 32;
+    private static final long WINDOW_MICROS = 200;
+
+    @Param({"perWrite", "readComplete", "window"})
+    public String mode;
+
+    private final LongAdder backendFlushes = new LongAdder();
+    private final AtomicLong sinkBytes = new AtomicLong();
+
+    private EventLoopGroup group;
+    private Channel sink;
+    private Channel relay;
+    private final List<Channel> clients = new ArrayList<>();
+    private ByteBuf burst;
+    private long expected;
+
+    @Setup
+    public void setup() throws Exception {
+        Transport transport = Transport.best();
+        group = transport.newEventLoopGroup(0, "bench-flush");
+
+        sink = new ServerBootstrap()
+                .group(group)
+                .channel(transport.serverSocketChannelClass())
+                .childHandler(new Sink())
+                .bind(new InetSocketAddress("127.0.0.1", 0)).sync().channel();
+
+        relay = new ServerBootstrap()
+                .group(group)
+                .channel(transport.serverSocketChannelClass())
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline()
+                          .addLast(new PacketFrameDecoder(PacketFrameDecoder.DEFAULT_MAX_FRAME_LENGTH, true, false))
+                          .addLast(new Relay(ch));
+                    }
+                })
+                .bind(new InetSocketAddress("127.0.0.1", 0)).sync().channel();
+
+        Bootstrap players = new Bootstrap()
+                .group(group)
+                .channel(transport.socketChannelClass())
+                .option(ChannelOption.TCP_NODELAY, true)
+                .handler(new Sink());
+        for (int i = 0; i < PLAYERS; i++) {
+            clients.add(players.connect(relay.localAddress()).sync().channel());
+        }
+
+        burst = PooledByteBufAllocator.DEFAULT.directBuffer();
+        for (int i = 0; i < BURST; i++) {
+            PacketEncoder.writeVarInt(burst, FRAME_BODY);
+            burst.writeZero(FRAME_BODY);
+        }
+        expected = 0;
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        for (Channel c : clients) c.close();
+        relay.close().sync();
+        sink.close().sync();
+        group.shutdownGracefully(0, 1, TimeUnit.SECONDS).sync();
+        burst.release();
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long flushes;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PLAYERS * BURST)
+    public void tick(Counters counters) {
+        long flushesBefore = backendFlushes.sum();
+        for (Channel c : clients) {
+            c.writeAndFlush(burst.retainedDuplicate(), c.voidPromise());
+        }
+        expected += (long) PLAYERS * burst.readableBytes();
+        while (sinkBytes.get() < expected) {
+            LockSupport.parkNanos(10_000);
+        }
+        counters.flushes += backendFlushes.sum() - flushesBefore;
+    }
+
+    // -------------------------------------------------------------------------
+    // Relay
+    // -------------------------------------------------------------------------
+
+    /** Player → sink half of a relayed connection, with the benchmarked flush strategy. */
+    private class Relay extends ChannelInboundHandlerAdapter {
+
+        private final Channel player;
+        private Channel backend;
+        private WriteBatcher out;
+
+        Relay(Channel player) {
+            this.player = player;
+        }
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) throws Exception {
+            player.config().setAutoRead(false);
+            new Bootstrap()
+                    .group(player.eventLoop())
+                    .channel(Transport.best().socketChannelClass())
+                    .option(ChannelOption.TCP_NODELAY, true)
+                    .handler(new FlushCounter())
+                    .connect(sink.localAddress())
+                    .addListener((ChannelFutureListener) f -> {
+                        if (!f.isSuccess()) {
+                            player.close();
+                            return;
+                        }
+                        backend = f.channel();
+                        out = new WriteBatcher(backend, mode.equals("window") ? WINDOW_MICROS : 0);
+                        player.config().setAutoRead(true);
+                    });
+            super.channelActive(ctx);
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            if (mode.equals("perWrite")) {
+                backend.writeAndFlush(msg, backend.voidPromise());
+            } else {
+                out.write(msg);
+            }
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) {
+            if (out != null) out.flush();
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) {
+            if (backend != null) backend.close();
+        }
+    }
+
+    /** Counts and discards what it receives. */
+    @ChannelHandler.Sharable
+    private class Sink extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            sinkBytes.addAndGet(((ByteBuf) msg).readableBytes());
+            ReferenceCountUtil.release(msg);
+        }
+    }
+
+    /** Counts flushes that have data to write, each of which costs a write syscall. */
+    private class FlushCounter extends ChannelOutboundHandlerAdapter {
+        @Override
+        public void flush(ChannelHandlerContext ctx) {
+            if (ctx.channel().unsafe().outboundBuffer() != null
+                    && ctx.channel().unsafe().outboundBuffer().totalPendingWriteBytes() > 0) {
+                backendFlushes.increment();
+            }
+            ctx.flush();
+        }
+    }
+}
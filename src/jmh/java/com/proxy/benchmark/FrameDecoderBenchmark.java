@@ -0,0 +1,66 @@
+package com.proxy.benchmark;
+
+import com.proxy.network.decoder.PacketFrameDecoder;
+import com.proxy.network.util.PacketEncoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PacketFrameDecoder} splitting a read of {@value #FRAMES} back-to-back
+ * MC frames, in zero-copy (retained slice) and copy mode.
+ *
+ * Scores are per frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrameDecoderBenchmark {
+
+    private static final int FRAMES = 64;
+
+    @Param({"true", "false"})
+    public boolean zeroCopy;
+
+    /** Frame body size in bytes (32 ≈ movement, 4096 ≈ small chunk) */
+    @Param({"32", "4096"})
+    public int frameSize;
+
+    private ByteBuf stream;
+    private EmbeddedChannel channel;
+
+    @Setup
+    public void setup() {
+        stream = PooledByteBufAllocator.DEFAULT.directBuffer();
+        for (int i = 0; i < FRAMES; i++) {
+            PacketEncoder.writeVarInt(stream, frameSize);
+            PacketEncoder.writeVarInt(stream, 0x25);
+            stream.writeZero(frameSize - 1);
+        }
+        channel = new EmbeddedChannel(new PacketFrameDecoder(PacketFrameDecoder.DEFAULT_MAX_FRAME_LENGTH, zeroCopy));
+    }
+
+    @TearDown
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+        stream.release();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public void decode(Blackhole bh) {
+        channel.writeInbound(stream.retainedDuplicate());
+        ByteBuf frame;
+        while ((frame = channel.readInbound()) != null) {
+            bh.consume(frame.getByte(frame.readerIndex()));
+            frame.release();
+        }
+    }
+}
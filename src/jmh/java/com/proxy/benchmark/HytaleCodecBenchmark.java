@@ -0,0 +1,92 @@
+package com.proxy.benchmark;
+
+import com.proxy.network.HytaleCodec;
+import com.proxy.protocol.HytalePacket;
+import com.proxy.protocol.packet.BlockResponsePacket;
+import com.proxy.protocol.packet.ChatPacket;
+import com.proxy.protocol.packet.PositionPacket;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HytaleCraft payload decoding and encoding, v1 JSON against v2 binary.
+ *
+ * The JSON reads exercise the single-pass reader that replaced the old
+ * extractString / extractDouble helpers of HytaleSessionHandler: a
+ * position frame is all doubles, a chat frame is one escaped string.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HytaleCodecBenchmark {
+
+    @Param({"1", "2"})
+    public int protocol;
+
+    private HytaleCodec codec;
+    private ByteBuf position;
+    private ByteBuf chat;
+    private ByteBuf blockQuery;
+    private ByteBuf out;
+
+    private final PositionPacket positionPacket = new PositionPacket(1024.5, 71.0, -387.25, 183.5f, -12.0f, true);
+    private final BlockResponsePacket blockResponse = new BlockResponsePacket(1024, 70, -388, 4, 1);
+
+    @Setup
+    public void setup() {
+        codec = HytaleCodec.forVersion(protocol);
+        out = Unpooled.buffer(256);
+
+        position = encode(positionPacket);
+        chat = encode(new ChatPacket("Anyone up for the \"sky temple\" run? Meet at spawn\tin 5"));
+        if (protocol == HytaleCodec.PROTOCOL_V1) {
+            blockQuery = Unpooled.copiedBuffer(
+                    "{\"type\":\"BLOCK_QUERY\",\"x\":1024,\"y\":70,\"z\":-388}", StandardCharsets.UTF_8);
+        } else {
+            long pos = ((long) (1024 & 0x3FFFFFF) << 38) | ((long) (-388 & 0x3FFFFFF) << 12) | (70 & 0xFFF);
+            blockQuery = Unpooled.buffer(9).writeByte(0x04).writeLong(pos);
+        }
+    }
+
+    private ByteBuf encode(HytalePacket packet) {
+        ByteBuf buf = Unpooled.buffer(128);
+        codec.write(packet, buf);
+        return buf;
+    }
+
+    @Benchmark
+    public HytalePacket readPosition() {
+        return codec.read(position.duplicate());
+    }
+
+    @Benchmark
+    public HytalePacket readChat() {
+        return codec.read(chat.duplicate());
+    }
+
+    @Benchmark
+    public HytalePacket readBlockQuery() {
+        return codec.read(blockQuery.duplicate());
+    }
+
+    @Benchmark
+    public int writePosition() {
+        out.clear();
+        codec.write(positionPacket, out);
+        return out.writerIndex();
+    }
+
+    @Benchmark
+    public int writeBlockResponse() {
+        out.clear();
+        codec.write(blockResponse, out);
+        return out.writerIndex();
+    }
+}
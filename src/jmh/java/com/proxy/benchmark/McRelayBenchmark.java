@@ -0,0 +1,94 @@
+package com.proxy.benchmark;
+
+import com.proxy.network.decoder.MinecraftPacketDecoder;
+import com.proxy.network.decoder.PacketFrameDecoder;
+import com.proxy.network.packet.PacketType;
+import com.proxy.network.util.PacketEncoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The serverbound Minecraft pipeline over a read of {@value #FRAMES} play
+ * frames (protocol 765): every other frame is Set Player Position, the rest
+ * a 256-byte packet the proxy does not know.
+ *
+ *   relay        frame decoder only, length prefix kept (the plain relay)
+ *   passThrough  + MinecraftPacketDecoder forwarding raw frames, nothing inspected
+ *   inspect      + MinecraftPacketDecoder forwarding raw frames, positions decoded
+ *   full         frame decoder (prefix stripped) + full-decode MinecraftPacketDecoder
+ *
+ * Scores are per frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class McRelayBenchmark {
+
+    private static final int FRAMES = 64;
+    private static final int POSITION_765 = 0x17;
+
+    @Param({"relay", "passThrough", "inspect", "full"})
+    public String mode;
+
+    private ByteBuf stream;
+    private EmbeddedChannel channel;
+
+    @Setup
+    public void setup() {
+        stream = PooledByteBufAllocator.DEFAULT.directBuffer();
+        for (int i = 0; i < FRAMES; i++) {
+            if ((i & 1) == 0) {
+                PacketEncoder.writeVarInt(stream, 1 + 8 * 3 + 1);
+                PacketEncoder.writeVarInt(stream, POSITION_765);
+                stream.writeDouble(100.5 + i).writeDouble(64.0).writeDouble(-20.25).writeByte(1);
+            } else {
+                PacketEncoder.writeVarInt(stream, 1 + 255);
+                PacketEncoder.writeVarInt(stream, 0x40);
+                stream.writeZero(255);
+            }
+        }
+
+        boolean strip = mode.equals("full");
+        PacketFrameDecoder frames = new PacketFrameDecoder(PacketFrameDecoder.DEFAULT_MAX_FRAME_LENGTH, true, !strip);
+        MinecraftPacketDecoder decoder = switch (mode) {
+            case "passThrough" -> new MinecraftPacketDecoder(EnumSet.noneOf(PacketType.class));
+            case "inspect" -> new MinecraftPacketDecoder(EnumSet.of(PacketType.PLAYER_POSITION));
+            case "full" -> new MinecraftPacketDecoder();
+            default -> null;
+        };
+        if (decoder == null) {
+            channel = new EmbeddedChannel(frames);
+        } else {
+            decoder.setProtocolVersion(765);
+            decoder.setState(MinecraftPacketDecoder.ConnectionState.PLAY);
+            channel = new EmbeddedChannel(frames, decoder);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+        stream.release();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public void read(Blackhole bh) {
+        channel.writeInbound(stream.retainedDuplicate());
+        Object msg;
+        while ((msg = channel.readInbound()) != null) {
+            bh.consume(msg);
+            ReferenceCountUtil.release(msg);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.proxy.benchmark;
+
+import com.proxy.network.util.PacketEncoder;
+import com.proxy.network.util.PacketWriter;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding one serverbound Chat Message (protocol 765) into a pooled direct
+ * buffer, as the bridge does for every chat line from a Hytale client:
+ *
+ *   bodyThenFrame  body in one buffer, then a second buffer for the VarInt
+ *                  length and a copy of the body (the old pattern)
+ *   sized          {@link PacketWriter#allocate}: size computed up front,
+ *                  one buffer, one pass
+ *   reserved       {@link PacketWriter#begin}/{@link PacketWriter#end}:
+ *                  3-byte length reserved, filled in afterwards
+ *
+ * Scores are per packet.  Leaks are checked separately, by
+ * com.proxy.network.PacketWriterLeakCheck.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PacketWriterBenchmark {
+
+    private static final int CHAT_MESSAGE_765 = 0x05;
+
+    @Param({"8", "64", "256"})
+    public int chars;
+
+    private final ByteBufAllocator alloc = PooledByteBufAllocator.DEFAULT;
+    private String message;
+
+    @Setup
+    public void setup() {
+        message = "x".repeat(chars);
+    }
+
+    @Benchmark
+    public int bodyThenFrame() {
+        ByteBuf body = alloc.directBuffer();
+        PacketEncoder.writeVarInt(body, CHAT_MESSAGE_765);
+        writeChat(body);
+        ByteBuf frame = alloc.directBuffer();
+        PacketEncoder.writeVarInt(frame, body.readableBytes());
+        frame.writeBytes(body);
+        body.release();
+        return release(frame);
+    }
+
+    @Benchmark
+    public int sized() {
+        int payload = PacketWriter.stringSize(message) + 8 + 8 + 1 + 1 + 3;
+        ByteBuf frame = PacketWriter.allocate(alloc, CHAT_MESSAGE_765, payload);
+        writeChat(frame);
+        return release(frame);
+    }
+
+    @Benchmark
+    public int reserved() {
+        ByteBuf frame = alloc.directBuffer();
+        int start = PacketWriter.begin(frame, CHAT_MESSAGE_765);
+        writeChat(frame);
+        PacketWriter.end(frame, start);
+        return release(frame);
+    }
+
+    private void writeChat(ByteBuf buf) {
+        PacketEncoder.writeString(buf, message);
+        buf.writeLong(1_700_000_000_000L);
+        buf.writeLong(0L);
+        buf.writeBoolean(false);
+        buf.writeByte(0);
+        buf.writeMedium(0);
+    }
+
+    private static int release(ByteBuf frame) {
+        int bytes = frame.readableBytes();
+        frame.release();
+        return bytes;
+    }
+}
@@ -0,0 +1,93 @@
+package com.proxy.benchmark;
+
+import com.proxy.network.HytaleChannelPipeline;
+import com.proxy.network.HytaleCodec;
+import com.proxy.network.HytalePlayerSession;
+import com.proxy.network.SessionRegistry;
+import com.proxy.protocol.packet.PositionPacket;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A full pass through {@link HytaleChannelPipeline} on an EmbeddedChannel:
+ * one read of {@value #FRAMES} length-prefixed frames (alternating
+ * PLAYER_POSITION and BLOCK_QUERY) is framed, decoded, dispatched by the
+ * session handler, and every BLOCK_RESPONSE is encoded and length-prefixed
+ * on the way back out.
+ *
+ * The channel is logged in up front (without a backend connection), so
+ * queries are answered from the world cache — here always "unknown".
+ * Scores are per inbound frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipelineBenchmark {
+
+    private static final int FRAMES = 64;
+
+    @Param({"1", "2"})
+    public int protocol;
+
+    private EmbeddedChannel channel;
+    private ByteBuf batch;
+
+    @Setup
+    public void setup() {
+        SessionRegistry sessions = new SessionRegistry();
+        channel = new EmbeddedChannel(new HytaleChannelPipeline(sessions));
+
+        HytalePlayerSession session = new HytalePlayerSession(channel, "Bench");
+        session.setProtocolVersion(protocol);
+        session.setState(HytalePlayerSession.PlayerState.AUTHENTICATED);
+        sessions.register(session);
+        HytaleCodec codec = HytaleCodec.forVersion(protocol);
+        if (protocol != HytaleCodec.PROTOCOL_V1) {
+            channel.pipeline().replace(HytaleChannelPipeline.CODEC, HytaleChannelPipeline.CODEC, codec);
+        }
+
+        batch = PooledByteBufAllocator.DEFAULT.directBuffer();
+        ByteBuf payload = Unpooled.buffer(128);
+        for (int i = 0; i < FRAMES; i++) {
+            payload.clear();
+            if ((i & 1) == 0) {
+                codec.write(new PositionPacket(100.5 + i, 64.0, -20.25, i * 5.0f, 10.0f, true), payload);
+            } else if (protocol == HytaleCodec.PROTOCOL_V1) {
+                payload.writeCharSequence("{\"type\":\"BLOCK_QUERY\",\"x\":" + i + ",\"y\":64,\"z\":-21}",
+                        StandardCharsets.UTF_8);
+            } else {
+                long pos = ((long) i << 38) | ((long) (-21 & 0x3FFFFFF) << 12) | 64;
+                payload.writeByte(0x04).writeLong(pos);
+            }
+            batch.writeInt(payload.readableBytes()).writeBytes(payload);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+        batch.release();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public void roundTrip(Blackhole bh) {
+        channel.writeInbound(batch.retainedDuplicate());
+        Object msg;
+        while ((msg = channel.readOutbound()) != null) {
+            bh.consume(msg);
+            ReferenceCountUtil.release(msg);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.proxy.benchmark;
+
+import com.proxy.protocol.SkinTranslator;
+import org.openjdk.jmh.annotations.*;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SkinTranslator} on a 64x64 skin, fast path against the Java2D path.
+ *
+ *   mcToHytale, hytaleToMc, roundTrip  whole translations, PNG in and out
+ *                                      (SkinPng vs ImageIO)
+ *   resampleUp, resampleDown           the resampling step alone: raster
+ *                                      remap vs Graphics2D bilinear scaling
+ *
+ * Skins are either "noise" (random opaque pixels, the worst case for PNG)
+ * or "blocky" (flat 8x8 patches with light shading, like a real skin).
+ * Inputs are ImageIO-encoded PNGs, as another client would send them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SkinTranslatorBenchmark {
+
+    @Param({"true", "false"})
+    public boolean fastPath;
+
+    @Param({"noise", "blocky"})
+    public String skin;
+
+    private SkinTranslator translator;
+    private byte[] mcSkin;
+    private byte[] hytaleSkin;
+
+    private int[] mcPixels;
+    private int[] hytalePixels;
+    private BufferedImage mcImage;
+    private BufferedImage hytaleImage;
+
+    @Setup
+    public void setup() throws IOException {
+        translator = new SkinTranslator(fastPath);
+
+        BufferedImage image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB);
+        SplittableRandom random = new SplittableRandom(42);
+        int[] patches = new int[64];
+        for (int i = 0; i < patches.length; i++) {
+            patches[i] = 0xFF000000 | random.nextInt(0x1000000);
+        }
+        for (int y = 0; y < 64; y++) {
+            for (int x = 0; x < 64; x++) {
+                int argb = skin.equals("noise")
+                        ? 0xFF000000 | random.nextInt(0x1000000)
+                        : patches[(y / 8) * 8 + x / 8] ^ (random.nextInt(4) == 0 ? 0x080808 : 0);
+                image.setRGB(x, y, argb);
+            }
+        }
+        mcSkin = encodeImageIO(image);
+
+        // The Hytale skin comes from another encoder, the same bytes for both
+        // paths: feeding each path its own output would time its decoder on
+        // its own encoding.
+        BufferedImage upscaled = new BufferedImage(128, 128, BufferedImage.TYPE_INT_ARGB);
+        upscaled.setRGB(0, 0, 128, 128,
+                SkinTranslator.toHytale(image.getRGB(0, 0, 64, 64, null, 0, 64), 64), 0, 128);
+        hytaleSkin = encodeImageIO(upscaled);
+
+        // Inputs of the resampling step as each path sees them after decoding
+        mcImage = ImageIO.read(new ByteArrayInputStream(mcSkin));
+        hytaleImage = ImageIO.read(new ByteArrayInputStream(hytaleSkin));
+        mcPixels = mcImage.getRGB(0, 0, 64, 64, null, 0, 64);
+        hytalePixels = hytaleImage.getRGB(0, 0, 128, 128, null, 0, 128);
+    }
+
+    private static byte[] encodeImageIO(BufferedImage image) throws IOException {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+        return png.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] mcToHytale() throws IOException {
+        return translator.translateMcToHytale(mcSkin);
+    }
+
+    @Benchmark
+    public byte[] hytaleToMc() throws IOException {
+        return translator.translateHytaleToMc(hytaleSkin);
+    }
+
+    @Benchmark
+    public byte[] roundTrip() throws IOException {
+        return translator.translateHytaleToMc(translator.translateMcToHytale(mcSkin));
+    }
+
+    @Benchmark
+    public Object resampleUp() {
+        return fastPath
+                ? SkinTranslator.toHytale(mcPixels, 64)
+                : SkinTranslator.scaleJava2D(mcImage, 128, 128);
+    }
+
+    @Benchmark
+    public Object resampleDown() {
+        return fastPath
+                ? SkinTranslator.toMinecraft(hytalePixels)
+                : SkinTranslator.scaleJava2D(hytaleImage, 64, 64);
+    }
+}
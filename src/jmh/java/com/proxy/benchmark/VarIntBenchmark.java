@@ -0,0 +1,126 @@
+package com.proxy.benchmark;
+
+import com.proxy.network.decoder.MinecraftPacketDecoder;
+import com.proxy.network.util.PacketDecoder;
+import com.proxy.network.util.PacketEncoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * VarInt encoding and decoding: {@link PacketEncoder#writeVarInt},
+ * {@link PacketEncoder#varIntSize}, {@link PacketDecoder#readVarInt}, and
+ * {@link MinecraftPacketDecoder} decoding whole PLAY frames (packet ID VarInt,
+ * table dispatch and field reads).
+ *
+ * The VarInt scores are per value; the decoder score is per frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VarIntBenchmark {
+
+    private static final int VALUES = 1024;
+
+    /** Encoded length of every value, in bytes */
+    @Param({"1", "2", "3", "5"})
+    public int bytes;
+
+    private int[] values;
+    private ByteBuf encoded;
+    private ByteBuf scratch;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+        int min = bytes == 1 ? 0 : 1 << (7 * (bytes - 1));
+        int max = bytes >= 5 ? Integer.MAX_VALUE : (1 << (7 * bytes)) - 1;
+        values = new int[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            values[i] = bytes >= 5 && (i & 1) != 0 ? -random.nextInt(1, Integer.MAX_VALUE) : random.nextInt(min, max);
+        }
+        encoded = Unpooled.buffer(VALUES * 5);
+        for (int v : values) PacketEncoder.writeVarInt(encoded, v);
+        scratch = Unpooled.buffer(VALUES * 5);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public int write() {
+        scratch.clear();
+        for (int v : values) PacketEncoder.writeVarInt(scratch, v);
+        return scratch.writerIndex();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public int size() {
+        int sum = 0;
+        for (int v : values) sum += PacketEncoder.varIntSize(v);
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public int read() {
+        encoded.readerIndex(0);
+        int sum = 0;
+        for (int i = 0; i < VALUES; i++) sum += PacketDecoder.readVarInt(encoded);
+        return sum;
+    }
+
+    // -------------------------------------------------------------------------
+    // MinecraftPacketDecoder
+    // -------------------------------------------------------------------------
+
+    @State(Scope.Thread)
+    public static class DecoderState {
+
+        private static final int FRAMES = 64;
+
+        private EmbeddedChannel channel;
+        private ByteBuf[] frames;
+
+        @Setup
+        public void setup() {
+            MinecraftPacketDecoder decoder = new MinecraftPacketDecoder();
+            decoder.setProtocolVersion(765);
+            decoder.setState(MinecraftPacketDecoder.ConnectionState.PLAY);
+            channel = new EmbeddedChannel(decoder);
+
+            frames = new ByteBuf[FRAMES];
+            for (int i = 0; i < FRAMES; i++) {
+                ByteBuf frame = Unpooled.buffer(32);
+                PacketEncoder.writeVarInt(frame, 0x17); // Set Player Position (765)
+                frame.writeDouble(i).writeDouble(64.0).writeDouble(-i).writeBoolean(true);
+                frames[i] = frame;
+            }
+        }
+
+        @TearDown
+        public void tearDown() {
+            channel.finishAndReleaseAll();
+            for (ByteBuf frame : frames) frame.release();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DecoderState.FRAMES)
+    public void minecraftPacketDecoder(DecoderState state, Blackhole bh) {
+        for (ByteBuf frame : state.frames) {
+            state.channel.writeInbound(frame.retainedDuplicate());
+        }
+        Object packet;
+        while ((packet = state.channel.readInbound()) != null) {
+            bh.consume(packet);
+        }
+    }
+}
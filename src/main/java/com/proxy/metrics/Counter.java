@@ -0,0 +1,37 @@
+package com.proxy.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonic counter backed by a {@link LongAdder}: increments from many event
+ * loops land in separate cells instead of fighting over one cache line, and
+ * never allocate once the cells exist.
+ */
+public final class Counter implements Metric {
+
+    private final LongAdder value = new LongAdder();
+
+    Counter() {}
+
+    public void inc() {
+        value.increment();
+    }
+
+    public void add(long n) {
+        value.add(n);
+    }
+
+    public long get() {
+        return value.sum();
+    }
+
+    @Override
+    public void writePrometheus(String name, String labels, StringBuilder out) {
+        MetricsRegistry.appendSeries(out, name, labels).append(' ').append(value.sum()).append('\n');
+    }
+
+    @Override
+    public String summary() {
+        return Long.toString(value.sum());
+    }
+}
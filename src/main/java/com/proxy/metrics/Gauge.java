@@ -0,0 +1,27 @@
+package com.proxy.metrics;
+
+import java.util.function.LongSupplier;
+
+/** Point-in-time value read from its owner on every scrape. */
+final class Gauge implements Metric {
+
+    private volatile LongSupplier source;
+
+    Gauge(LongSupplier source) {
+        this.source = source;
+    }
+
+    void setSource(LongSupplier source) {
+        this.source = source;
+    }
+
+    @Override
+    public void writePrometheus(String name, String labels, StringBuilder out) {
+        MetricsRegistry.appendSeries(out, name, labels).append(' ').append(source.getAsLong()).append('\n');
+    }
+
+    @Override
+    public String summary() {
+        return Long.toString(source.getAsLong());
+    }
+}
@@ -0,0 +1,95 @@
+package com.proxy.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-bucket latency histogram.
+ *
+ * Bucket bounds are set at registration; {@link #observeNanos} finds the
+ * bucket with a short linear scan and bumps one {@link LongAdder}, so
+ * recording is lock-free and allocation-free.  Bounds are kept in
+ * nanoseconds and exported in seconds, as Prometheus expects.
+ */
+public final class Histogram implements Metric {
+
+    /** Upper bounds in nanoseconds, ascending; the +Inf bucket is implicit */
+    private final long[] bounds;
+    private final LongAdder[] buckets;
+    private final LongAdder sumNanos = new LongAdder();
+
+    Histogram(long[] bounds) {
+        for (int i = 1; i < bounds.length; i++) {
+            if (bounds[i] <= bounds[i - 1]) {
+                throw new IllegalArgumentException("Histogram bounds must be strictly ascending");
+            }
+        }
+        this.bounds = bounds.clone();
+        this.buckets = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < buckets.length; i++) buckets[i] = new LongAdder();
+    }
+
+    /** Bucket bounds given in milliseconds. */
+    public static long[] millis(double... boundsMillis) {
+        long[] nanos = new long[boundsMillis.length];
+        for (int i = 0; i < nanos.length; i++) nanos[i] = Math.round(boundsMillis[i] * 1_000_000.0);
+        return nanos;
+    }
+
+    public void observeNanos(long nanos) {
+        int i = 0;
+        while (i < bounds.length && nanos > bounds[i]) i++;
+        buckets[i].increment();
+        sumNanos.add(nanos);
+    }
+
+    /** Record the time since {@code startNanos} (a {@link System#nanoTime()} stamp). */
+    public void observeSince(long startNanos) {
+        observeNanos(System.nanoTime() - startNanos);
+    }
+
+    public long count() {
+        long n = 0;
+        for (LongAdder b : buckets) n += b.sum();
+        return n;
+    }
+
+    @Override
+    public void writePrometheus(String name, String labels, StringBuilder out) {
+        String sep = labels.isEmpty() ? "" : ",";
+        long cumulative = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            cumulative += buckets[i].sum();
+            out.append(name).append("_bucket{").append(labels).append(sep).append("le=\"");
+            if (i < bounds.length) {
+                out.append(bounds[i] / 1e9);
+            } else {
+                out.append("+Inf");
+            }
+            out.append("\"} ").append(cumulative).append('\n');
+        }
+        MetricsRegistry.appendSeries(out, name + "_sum", labels).append(' ').append(sumNanos.sum() / 1e9).append('\n');
+        MetricsRegistry.appendSeries(out, name + "_count", labels).append(' ').append(cumulative).append('\n');
+    }
+
+    @Override
+    public String summary() {
+        long n = count();
+        if (n == 0) return "count=0";
+        return String.format("count=%d mean=%.2fms p50<=%s p99<=%s",
+                n, sumNanos.sum() / 1e6 / n, bound(quantileBucket(n, 0.50)), bound(quantileBucket(n, 0.99)));
+    }
+
+    /** Index of the bucket holding the q-quantile of {@code n} observations. */
+    private int quantileBucket(long n, double q) {
+        long rank = (long) Math.ceil(q * n), cumulative = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            cumulative += buckets[i].sum();
+            if (cumulative >= rank) return i;
+        }
+        return buckets.length - 1;
+    }
+
+    private String bound(int bucket) {
+        return bucket < bounds.length ? (bounds[bucket] / 1e6) + "ms" : "+Inf";
+    }
+}
@@ -0,0 +1,18 @@
+package com.proxy.metrics;
+
+/**
+ * One time series (or, for histograms, one labelled set of series) in the
+ * {@link MetricsRegistry}.
+ */
+interface Metric {
+
+    /**
+     * Append the sample lines in Prometheus text format (0.0.4).
+     *
+     * @param labels preformatted label pairs without braces, possibly empty
+     */
+    void writePrometheus(String name, String labels, StringBuilder out);
+
+    /** Short human-readable value for the in-game command. */
+    String summary();
+}
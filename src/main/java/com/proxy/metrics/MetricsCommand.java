@@ -0,0 +1,46 @@
+package com.proxy.metrics;
+
+import com.velocitypowered.api.command.CommandSource;
+import com.velocitypowered.api.command.SimpleCommand;
+import net.kyori.adventure.text.Component;
+
+import java.util.List;
+
+/**
+ * {@code /hcmetrics [prefix]} — prints the bridge metrics in a compact form,
+ * optionally only those whose name starts with {@code hytalecraft_<prefix>}
+ * (e.g. {@code /hcmetrics skin}).
+ *
+ * Requires the {@code hytalecraft.metrics} permission; the console always has it.
+ */
+public final class MetricsCommand implements SimpleCommand {
+
+    public static final String PERMISSION = "hytalecraft.metrics";
+
+    private final MetricsRegistry registry;
+
+    public MetricsCommand(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void execute(Invocation invocation) {
+        String[] args = invocation.arguments();
+        String prefix = "hytalecraft_" + (args.length > 0 ? args[0] : "");
+        List<String> lines = registry.summary(prefix);
+
+        CommandSource source = invocation.source();
+        if (lines.isEmpty()) {
+            source.sendMessage(Component.text("No metrics match " + prefix));
+            return;
+        }
+        for (String line : lines) {
+            source.sendMessage(Component.text(line));
+        }
+    }
+
+    @Override
+    public boolean hasPermission(Invocation invocation) {
+        return invocation.source().hasPermission(PERMISSION);
+    }
+}
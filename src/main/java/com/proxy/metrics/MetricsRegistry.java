@@ -0,0 +1,169 @@
+package com.proxy.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongSupplier;
+
+/**
+ * Process-wide registry of counters, gauges and histograms.
+ *
+ * Metrics are grouped into families (one name, one help text, one type) and
+ * told apart by their labels.  Registration is idempotent: asking again for
+ * the same name and labels returns the existing metric, so hot paths resolve
+ * their metric once (typically into a static final field) and afterwards
+ * only touch the metric itself — never this registry.
+ *
+ * Output is the Prometheus text exposition format, served by
+ * {@link MetricsServer} and summarised by {@link MetricsCommand}.
+ */
+public final class MetricsRegistry {
+
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+
+    public static MetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    private enum Type { COUNTER, GAUGE, HISTOGRAM }
+
+    private static final class Family {
+        final String name;
+        final String help;
+        final Type type;
+        final ConcurrentHashMap<String, Metric> children = new ConcurrentHashMap<>();
+
+        Family(String name, String help, Type type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Family> families = new ConcurrentHashMap<>();
+    /** Registration order, used for output */
+    private final List<Family> order = new CopyOnWriteArrayList<>();
+
+    MetricsRegistry() {}
+
+    // -------------------------------------------------------------------------
+    // Registration
+    // -------------------------------------------------------------------------
+
+    public Counter counter(String name, String help) {
+        return counter(name, help, "");
+    }
+
+    /** @param labels preformatted pairs, see {@link #labels(String...)} */
+    public Counter counter(String name, String help, String labels) {
+        return (Counter) family(name, help, Type.COUNTER).children.computeIfAbsent(labels, l -> new Counter());
+    }
+
+    public Histogram histogram(String name, String help, long[] boundsNanos) {
+        return histogram(name, help, "", boundsNanos);
+    }
+
+    public Histogram histogram(String name, String help, String labels, long[] boundsNanos) {
+        return (Histogram) family(name, help, Type.HISTOGRAM).children
+                .computeIfAbsent(labels, l -> new Histogram(boundsNanos));
+    }
+
+    /** Register (or re-point) a gauge that reads its value from {@code source} on every scrape. */
+    public void gauge(String name, String help, LongSupplier source) {
+        gauge(name, help, "", source);
+    }
+
+    public void gauge(String name, String help, String labels, LongSupplier source) {
+        Metric existing = family(name, help, Type.GAUGE).children.putIfAbsent(labels, new Gauge(source));
+        if (existing != null) {
+            ((Gauge) existing).setSource(source);
+        }
+    }
+
+    private Family family(String name, String help, Type type) {
+        Family family = families.get(name);
+        if (family == null) {
+            family = families.computeIfAbsent(name, n -> {
+                Family f = new Family(n, help, type);
+                order.add(f);
+                return f;
+            });
+        }
+        if (family.type != type) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as " + family.type);
+        }
+        return family;
+    }
+
+    /**
+     * Format label pairs ({@code "key1", "value1", "key2", "value2", ...})
+     * for registration, escaping the values.
+     */
+    public static String labels(String... pairs) {
+        if ((pairs.length & 1) != 0) {
+            throw new IllegalArgumentException("labels() takes key/value pairs");
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < pairs.length; i += 2) {
+            if (i > 0) sb.append(',');
+            sb.append(pairs[i]).append("=\"");
+            String v = pairs[i + 1];
+            for (int j = 0; j < v.length(); j++) {
+                char c = v.charAt(j);
+                switch (c) {
+                    case '\\' -> sb.append("\\\\");
+                    case '"'  -> sb.append("\\\"");
+                    case '\n' -> sb.append("\\n");
+                    default   -> sb.append(c);
+                }
+            }
+            sb.append('"');
+        }
+        return sb.toString();
+    }
+
+    // -------------------------------------------------------------------------
+    // Output
+    // -------------------------------------------------------------------------
+
+    /** Append every metric in Prometheus text format. */
+    public void writePrometheus(StringBuilder out) {
+        for (Family family : order) {
+            out.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ')
+               .append(family.type.name().toLowerCase()).append('\n');
+            for (Map.Entry<String, Metric> child : sorted(family)) {
+                child.getValue().writePrometheus(family.name, child.getKey(), out);
+            }
+        }
+    }
+
+    /**
+     * One line per metric whose name starts with {@code prefix}, in a compact
+     * form meant for chat / the console.
+     */
+    public List<String> summary(String prefix) {
+        List<String> lines = new ArrayList<>();
+        for (Family family : order) {
+            if (!family.name.startsWith(prefix)) continue;
+            for (Map.Entry<String, Metric> child : sorted(family)) {
+                StringBuilder line = appendSeries(new StringBuilder(), family.name, child.getKey());
+                lines.add(line.append(' ').append(child.getValue().summary()).toString());
+            }
+        }
+        return lines;
+    }
+
+    private static Iterable<Map.Entry<String, Metric>> sorted(Family family) {
+        return new TreeMap<>(family.children).entrySet();
+    }
+
+    static StringBuilder appendSeries(StringBuilder out, String name, String labels) {
+        out.append(name);
+        if (!labels.isEmpty()) out.append('{').append(labels).append('}');
+        return out;
+    }
+}
@@ -0,0 +1,122 @@
+package com.proxy.metrics;
+
+import com.proxy.network.transport.EventLoops;
+import com.proxy.network.transport.Transport;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Local HTTP endpoint serving {@link MetricsRegistry} in Prometheus text
+ * format at {@code GET /metrics}.
+ *
+ * Runs on the shared event loops; a scrape renders the registry straight
+ * into one pooled buffer.  Binds to loopback by default — put a reverse
+ * proxy in front if the scraper lives elsewhere.
+ *
+ * Tuning (system properties):
+ *   hytalecraft.metrics.host  bind address                  (default 127.0.0.1)
+ *   hytalecraft.metrics.port  listen port, 0 to disable     (default 9225)
+ */
+public final class MetricsServer {
+
+    private static final Logger log = LoggerFactory.getLogger(MetricsServer.class);
+
+    public static final String HOST = System.getProperty("hytalecraft.metrics.host", "127.0.0.1");
+    public static final int PORT = Integer.getInteger("hytalecraft.metrics.port", 9225);
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final MetricsRegistry registry;
+    private Channel serverChannel;
+
+    public MetricsServer(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    /** Bind the endpoint (blocking until bound).  Does nothing if the port is 0. */
+    public void start() throws InterruptedException {
+        if (PORT <= 0) {
+            log.info("[Metrics] Scrape endpoint disabled");
+            return;
+        }
+        ServerBootstrap sb = new ServerBootstrap();
+        sb.group(EventLoops.boss(), EventLoops.worker())
+          .channel(Transport.best().serverSocketChannelClass())
+          .childHandler(new ChannelInitializer<Channel>() {
+              @Override
+              protected void initChannel(Channel ch) {
+                  ch.pipeline()
+                    .addLast("http", new HttpServerCodec())
+                    .addLast("aggregator", new HttpObjectAggregator(8 * 1024))
+                    .addLast("scrape", new ScrapeHandler());
+              }
+          });
+        serverChannel = sb.bind(HOST, PORT).sync().channel();
+        log.info("[Metrics] Prometheus endpoint on http://{}:{}/metrics", HOST, PORT);
+    }
+
+    public void stop() {
+        if (serverChannel != null) {
+            serverChannel.close().syncUninterruptibly();
+            serverChannel = null;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Handler
+    // -------------------------------------------------------------------------
+
+    private final class ScrapeHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) {
+            FullHttpResponse response;
+            String path = new QueryStringDecoder(request.uri()).path();
+            if (!path.equals("/metrics") && !path.equals("/")) {
+                response = text(ctx, request, HttpResponseStatus.NOT_FOUND, "Not found\n");
+            } else if (request.method() != HttpMethod.GET && request.method() != HttpMethod.HEAD) {
+                response = text(ctx, request, HttpResponseStatus.METHOD_NOT_ALLOWED, "Method not allowed\n");
+                response.headers().set(HttpHeaderNames.ALLOW, "GET, HEAD");
+            } else {
+                StringBuilder body = new StringBuilder(4096);
+                registry.writePrometheus(body);
+                response = text(ctx, request, HttpResponseStatus.OK, body);
+                if (request.method() == HttpMethod.HEAD) {
+                    response.content().clear();
+                }
+            }
+
+            boolean keepAlive = HttpUtil.isKeepAlive(request);
+            HttpUtil.setKeepAlive(response, keepAlive);
+            if (keepAlive) {
+                ctx.writeAndFlush(response);
+            } else {
+                ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+            }
+        }
+
+        private FullHttpResponse text(ChannelHandlerContext ctx, FullHttpRequest request,
+                                      HttpResponseStatus status, CharSequence body) {
+            ByteBuf content = ByteBufUtil.writeUtf8(ctx.alloc(), body);
+            FullHttpResponse response = new DefaultFullHttpResponse(request.protocolVersion(), status, content);
+            response.headers().set(HttpHeaderNames.CONTENT_TYPE, CONTENT_TYPE);
+            HttpUtil.setContentLength(response, content.readableBytes());
+            return response;
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            log.debug("[Metrics] Scrape connection error: {}", cause.getMessage());
+            ctx.close();
+        }
+    }
+}
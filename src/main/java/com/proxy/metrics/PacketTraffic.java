@@ -0,0 +1,71 @@
+package com.proxy.metrics;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Packet and byte counters for one side of the bridge in one direction,
+ * broken down by packet type:
+ *
+ *   hytalecraft_packets_total{side, direction, type}
+ *   hytalecraft_packet_bytes_total{side, direction, type}
+ *
+ * HytaleCraft packets are keyed by their type name; MC packets by protocol
+ * state and packet ID (type="play:0x25").  The counter pair for a type is
+ * created on first sight; every later record is a lookup plus two
+ * LongAdder increments, with no allocation.
+ */
+public final class PacketTraffic {
+
+    private static final int MAX_STATES = 8;
+    private static final int MAX_ID = 0xFF;
+
+    private final String side;
+    private final String direction;
+
+    /** HytaleCraft type name → {packets, bytes} */
+    private final ConcurrentHashMap<String, Counter[]> byName = new ConcurrentHashMap<>();
+    /** (MC state ordinal × 256 + packet ID) → {packets, bytes}; the last slot of a state is "other" */
+    private final AtomicReferenceArray<Counter[]> byId = new AtomicReferenceArray<>(MAX_STATES * (MAX_ID + 1));
+
+    public PacketTraffic(String side, String direction) {
+        this.side = side;
+        this.direction = direction;
+    }
+
+    /** Count one HytaleCraft packet of {@code bytes} payload bytes. */
+    public void record(String type, int bytes) {
+        Counter[] c = byName.get(type);
+        if (c == null) {
+            c = byName.computeIfAbsent(type, this::register);
+        }
+        c[0].inc();
+        c[1].add(bytes);
+    }
+
+    /** Count one MC packet of {@code bytes} frame bytes (packet ID included). */
+    public void record(Enum<?> state, int packetId, int bytes) {
+        int id = packetId >= 0 && packetId < MAX_ID ? packetId : MAX_ID;
+        int slot = (state.ordinal() % MAX_STATES) * (MAX_ID + 1) + id;
+        Counter[] c = byId.get(slot);
+        if (c == null) {
+            String stateName = state.name().toLowerCase(Locale.ROOT);
+            c = register(id == MAX_ID ? stateName + ":other" : String.format("%s:0x%02x", stateName, id));
+            if (!byId.compareAndSet(slot, null, c)) {
+                c = byId.get(slot); // registration is idempotent, so both see the same counters
+            }
+        }
+        c[0].inc();
+        c[1].add(bytes);
+    }
+
+    private Counter[] register(String type) {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        String labels = MetricsRegistry.labels("side", side, "direction", direction, "type", type);
+        return new Counter[] {
+                registry.counter("hytalecraft_packets_total", "Packets seen by the bridge", labels),
+                registry.counter("hytalecraft_packet_bytes_total", "Packet bytes seen by the bridge", labels)
+        };
+    }
+}
@@ -0,0 +1,42 @@
+package com.proxy.metrics;
+
+/**
+ * The bridge's well-known metrics, resolved once so that recording sites
+ * only touch the metric objects.
+ *
+ * Session count is a gauge registered by HytaleMockServer when it starts;
+ * per-backend connect/login latency and connection counts are registered by
+ * each Backend, and relay queue depths by MinecraftProxyHandler.
+ */
+public final class ProxyMetrics {
+
+    private static final MetricsRegistry REGISTRY = MetricsRegistry.getInstance();
+
+    // -------------------------------------------------------------------------
+    // Traffic
+    // -------------------------------------------------------------------------
+
+    /** HytaleCraft frames decoded from / encoded to Hytale clients (payload bytes) */
+    public static final PacketTraffic HYTALE_IN  = new PacketTraffic("hytale", "in");
+    public static final PacketTraffic HYTALE_OUT = new PacketTraffic("hytale", "out");
+
+    /** MC frames received from / sent to the Paper backend (uncompressed frame bytes) */
+    public static final PacketTraffic MC_IN  = new PacketTraffic("minecraft", "in");
+    public static final PacketTraffic MC_OUT = new PacketTraffic("minecraft", "out");
+
+    // -------------------------------------------------------------------------
+    // Latency
+    // -------------------------------------------------------------------------
+
+    public static final Histogram LOGIN_TO_IN_GAME = REGISTRY.histogram(
+            "hytalecraft_login_seconds",
+            "Time from a HytaleCraft LOGIN to entering PLAY on the backend (IN_GAME)",
+            Histogram.millis(5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000));
+
+    public static final Histogram SKIN_TRANSLATION = REGISTRY.histogram(
+            "hytalecraft_skin_translation_seconds",
+            "Time spent translating one skin (cache misses only)",
+            Histogram.millis(0.5, 1, 2, 5, 10, 20, 50, 100, 250, 1000));
+
+    private ProxyMetrics() {}
+}
@@ -0,0 +1,180 @@
+package com.proxy.network;
+
+import com.proxy.metrics.ProxyMetrics;
+import com.proxy.protocol.HytalePacket;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Encode-once fan-out of one {@link HytalePacket} to many Hytale sessions.
+ *
+ * The packet is encoded up front into one pooled direct buffer per protocol
+ * version, 4-byte length prefix included.  Each recipient gets a
+ * {@code retainedDuplicate()} of the frame for its version, written from the
+ * length prepender's context so it bypasses the per-channel codec and
+ * framing — no recipient re-encodes anything.
+ *
+ * Work is grouped by {@link SessionRegistry.Stripe}: one task per event loop
+ * walks that loop's sessions, applies the recipient predicate, writes and
+ * flushes each target, so channel state is only touched on its own loop.
+ * The predicate therefore runs on event loop threads and must be
+ * thread-safe and cheap.
+ *
+ * A recipient whose channel is not writable (its outbound buffer is above
+ * the high-water mark) is skipped rather than queued further; the result
+ * reports how many were.
+ */
+public final class Broadcast {
+
+    private static final Logger log = LoggerFactory.getLogger(Broadcast.class);
+
+    /** Outcome of one broadcast. */
+    public record Result(int delivered, int skipped) {}
+
+    /** Stateless encoders, indexed by protocol version; only their write() is used */
+    private static final HytaleCodec[] ENCODERS = new HytaleCodec[HytaleCodec.MAX_PROTOCOL + 1];
+    static {
+        for (int v = HytaleCodec.PROTOCOL_V1; v <= HytaleCodec.MAX_PROTOCOL; v++) {
+            ENCODERS[v] = HytaleCodec.forVersion(v);
+        }
+    }
+
+    private Broadcast() {}
+
+    /**
+     * Send {@code packet} to every session in {@code sessions} accepted by
+     * {@code recipients}.  Returns immediately; the future completes once
+     * every event loop has written its share.
+     */
+    static CompletableFuture<Result> send(SessionRegistry sessions, HytalePacket packet,
+                                          Predicate<? super HytalePlayerSession> recipients) {
+        ByteBuf[] frames = encode(packet);
+        Fanout fanout = new Fanout(packet.getType(), frames, recipients);
+        try {
+            for (SessionRegistry.Stripe stripe : sessions.stripes()) {
+                if (!stripe.isEmpty()) {
+                    fanout.submit(stripe);
+                }
+            }
+        } finally {
+            for (ByteBuf frame : frames) {
+                if (frame != null) frame.release();
+            }
+            fanout.done();
+        }
+        return fanout.result;
+    }
+
+    private static ByteBuf[] encode(HytalePacket packet) {
+        ByteBuf[] frames = new ByteBuf[ENCODERS.length];
+        try {
+            for (int v = HytaleCodec.PROTOCOL_V1; v < ENCODERS.length; v++) {
+                ByteBuf frame = ByteBufAllocator.DEFAULT.directBuffer();
+                frames[v] = frame;
+                frame.writeInt(0);
+                ENCODERS[v].write(packet, frame);
+                frame.setInt(0, frame.readableBytes() - 4);
+            }
+        } catch (RuntimeException e) {
+            for (ByteBuf frame : frames) {
+                if (frame != null) frame.release();
+            }
+            throw e;
+        }
+        return frames;
+    }
+
+    // -------------------------------------------------------------------------
+    // Fan-out state shared by the per-loop tasks
+    // -------------------------------------------------------------------------
+
+    private static final class Fanout {
+        final String type;
+        final ByteBuf[] frames;
+        final Predicate<? super HytalePlayerSession> recipients;
+        final CompletableFuture<Result> result = new CompletableFuture<>();
+        final AtomicInteger delivered = new AtomicInteger();
+        final AtomicInteger skipped = new AtomicInteger();
+        /** Outstanding loop tasks, plus one for the submitting thread */
+        final AtomicInteger pending = new AtomicInteger(1);
+
+        Fanout(String type, ByteBuf[] frames, Predicate<? super HytalePlayerSession> recipients) {
+            this.type = type;
+            this.frames = frames;
+            this.recipients = recipients;
+        }
+
+        void submit(SessionRegistry.Stripe stripe) {
+            pending.incrementAndGet();
+            retainFrames();
+            try {
+                stripe.loop().execute(() -> {
+                    try {
+                        run(stripe);
+                    } finally {
+                        releaseFrames();
+                        done();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                log.debug("[Broadcast] Event loop rejected {} broadcast: {}", type, e.getMessage());
+                releaseFrames();
+                done();
+            }
+        }
+
+        /** On the stripe's event loop. */
+        private void run(SessionRegistry.Stripe stripe) {
+            int[] counts = new int[2];
+            stripe.forEach(session -> {
+                Channel ch = session.getHytaleChannel();
+                if (!ch.isActive() || !recipients.test(session)) {
+                    return;
+                }
+                if (!ch.isWritable()) {
+                    counts[1]++;
+                    return;
+                }
+                ChannelHandlerContext framer = ch.pipeline().context(HytaleChannelPipeline.FRAMER);
+                if (framer == null) {
+                    return;
+                }
+                ByteBuf frame = frames[session.getProtocolVersion() >= HytaleCodec.PROTOCOL_V2
+                        ? HytaleCodec.PROTOCOL_V2 : HytaleCodec.PROTOCOL_V1];
+                framer.write(frame.retainedDuplicate(), ch.voidPromise());
+                ch.flush();
+                ProxyMetrics.HYTALE_OUT.record(type, frame.readableBytes() - 4);
+                counts[0]++;
+            });
+            delivered.addAndGet(counts[0]);
+            skipped.addAndGet(counts[1]);
+        }
+
+        void done() {
+            if (pending.decrementAndGet() == 0) {
+                result.complete(new Result(delivered.get(), skipped.get()));
+            }
+        }
+
+        private void retainFrames() {
+            for (ByteBuf frame : frames) {
+                if (frame != null) frame.retain();
+            }
+        }
+
+        private void releaseFrames() {
+            for (ByteBuf frame : frames) {
+                if (frame != null) frame.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.proxy.network;
+
+import com.proxy.network.util.PacketDecoder;
+import com.proxy.network.util.PacketEncoder;
+import com.proxy.protocol.HytalePacket;
+import com.proxy.protocol.packet.*;
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.CorruptedFrameException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.UUID;
+
+/**
+ * HytaleCraft Protocol v2 — compact binary payloads.
+ *
+ * Every payload starts with a one-byte packet ID.  Strings are VarInt length
+ * + UTF-8; block IDs are VarInts; block positions are packed into one long
+ * (x:26 | z:26 | y:12, as in Minecraft); angles are quantized to 1/256 turn.
+ *
+ *   0x01 LOGIN           VarInt protocol, String username
+ *   0x02 LOGIN_ACK       bool success, String message, [UUID uuid if success]
+ *   0x03 PLAYER_POSITION double x, double y, double z, byte yaw, byte pitch, byte flags(bit0 onGround)
+ *   0x04 BLOCK_QUERY     long position
+ *   0x05 BLOCK_RESPONSE  long position, VarInt hytaleBlockId, VarInt mcBlockId
+ *   0x06 CHAT_MESSAGE    String message
+ *   0x07 DISCONNECT      String reason
+ *   0x08 REGION_QUERY    long origin, VarInt sizeX, VarInt sizeY, VarInt sizeZ
+ *   0x09 REGION_RESPONSE long origin, VarInt sizeX, VarInt sizeY, VarInt sizeZ,
+ *                        VarInt paletteLength, VarInt[] palette, VarInt runCount, (VarInt index, VarInt length)[]
+ *
+ * PLAYER_POSITION is 28 bytes, versus roughly 100 bytes of v1 JSON.
+ * LOGIN and LOGIN_ACK are defined for completeness; negotiation itself
+ * always happens in v1.
+ */
+public class HytaleBinaryCodec extends HytaleCodec {
+
+    private static final Logger log = LoggerFactory.getLogger(HytaleBinaryCodec.class);
+
+    public static final int ID_LOGIN           = 0x01;
+    public static final int ID_LOGIN_ACK       = 0x02;
+    public static final int ID_PLAYER_POSITION = 0x03;
+    public static final int ID_BLOCK_QUERY     = 0x04;
+    public static final int ID_BLOCK_RESPONSE  = 0x05;
+    public static final int ID_CHAT_MESSAGE    = 0x06;
+    public static final int ID_DISCONNECT      = 0x07;
+    public static final int ID_REGION_QUERY    = 0x08;
+    public static final int ID_REGION_RESPONSE = 0x09;
+
+    /** Longest string accepted in a v2 payload, in encoded bytes. */
+    private static final int MAX_STRING_BYTES = 32767;
+
+    @Override
+    public int version() {
+        return PROTOCOL_V2;
+    }
+
+    // -------------------------------------------------------------------------
+    // Decode
+    // -------------------------------------------------------------------------
+
+    @Override
+    public HytalePacket read(ByteBuf in) {
+        if (!in.isReadable()) return null;
+        int id = in.readUnsignedByte();
+        try {
+            switch (id) {
+                case ID_LOGIN: {
+                    int protocol = PacketDecoder.readVarInt(in);
+                    return new LoginPacket(PacketDecoder.readString(in, MAX_STRING_BYTES), null, protocol);
+                }
+                case ID_PLAYER_POSITION: {
+                    double x = in.readDouble();
+                    double y = in.readDouble();
+                    double z = in.readDouble();
+                    float yaw = unpackAngle(in.readByte());
+                    float pitch = unpackAngle(in.readByte());
+                    boolean onGround = (in.readByte() & 0x01) != 0;
+                    return new PositionPacket(x, y, z, yaw, pitch, onGround);
+                }
+                case ID_BLOCK_QUERY: {
+                    long pos = in.readLong();
+                    return new BlockQueryPacket(unpackX(pos), unpackY(pos), unpackZ(pos));
+                }
+                case ID_REGION_QUERY: {
+                    long pos = in.readLong();
+                    int sizeX = PacketDecoder.readVarInt(in);
+                    int sizeY = PacketDecoder.readVarInt(in);
+                    int sizeZ = PacketDecoder.readVarInt(in);
+                    return new RegionQueryPacket(unpackX(pos), unpackY(pos), unpackZ(pos), sizeX, sizeY, sizeZ);
+                }
+                case ID_CHAT_MESSAGE:
+                    return new ChatPacket(PacketDecoder.readString(in, MAX_STRING_BYTES));
+                case ID_DISCONNECT:
+                    return new DisconnectPacket(PacketDecoder.readString(in, MAX_STRING_BYTES));
+                default:
+                    log.warn("[HytaleBinary] Unknown packet id 0x{}", Integer.toHexString(id));
+                    return null;
+            }
+        } catch (CorruptedFrameException | IndexOutOfBoundsException e) {
+            log.warn("[HytaleBinary] Malformed packet 0x{}: {}", Integer.toHexString(id), e.getMessage());
+            return null;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Encode
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void write(HytalePacket packet, ByteBuf out) {
+        if (packet instanceof PositionPacket p) {
+            out.writeByte(ID_PLAYER_POSITION);
+            out.writeDouble(p.getX());
+            out.writeDouble(p.getY());
+            out.writeDouble(p.getZ());
+            out.writeByte(packAngle(p.getYaw()));
+            out.writeByte(packAngle(p.getPitch()));
+            out.writeByte(p.isOnGround() ? 0x01 : 0x00);
+        } else if (packet instanceof BlockResponsePacket r) {
+            out.writeByte(ID_BLOCK_RESPONSE);
+            out.writeLong(packPosition(r.getX(), r.getY(), r.getZ()));
+            PacketEncoder.writeVarInt(out, r.getHytaleBlockId());
+            PacketEncoder.writeVarInt(out, r.getMcBlockId());
+        } else if (packet instanceof RegionResponsePacket r) {
+            out.writeByte(ID_REGION_RESPONSE);
+            out.writeLong(packPosition(r.getX(), r.getY(), r.getZ()));
+            PacketEncoder.writeVarInt(out, r.getSizeX());
+            PacketEncoder.writeVarInt(out, r.getSizeY());
+            PacketEncoder.writeVarInt(out, r.getSizeZ());
+            int[] palette = r.getPalette();
+            PacketEncoder.writeVarInt(out, palette.length);
+            for (int id : palette) PacketEncoder.writeVarInt(out, id);
+            int[] runs = r.getRuns();
+            PacketEncoder.writeVarInt(out, runs.length / 2);
+            for (int v : runs) PacketEncoder.writeVarInt(out, v);
+        } else if (packet instanceof ChatPacket c) {
+            out.writeByte(ID_CHAT_MESSAGE);
+            PacketEncoder.writeString(out, c.getMessage());
+        } else if (packet instanceof DisconnectPacket d) {
+            out.writeByte(ID_DISCONNECT);
+            PacketEncoder.writeString(out, d.getReason() != null ? d.getReason() : "");
+        } else if (packet instanceof LoginAckPacket ack) {
+            out.writeByte(ID_LOGIN_ACK);
+            out.writeBoolean(ack.isSuccess());
+            PacketEncoder.writeString(out, ack.getMessage());
+            if (ack.isSuccess()) {
+                PacketEncoder.writeUUID(out, UUID.fromString(ack.getUuid()));
+            }
+        } else {
+            throw new IllegalArgumentException("No v2 encoding for " + packet.getType());
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Field packing
+    // -------------------------------------------------------------------------
+
+    static long packPosition(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    static int unpackX(long pos) { return (int) (pos >> 38); }
+    static int unpackY(long pos) { return (int) (pos << 52 >> 52); }
+    static int unpackZ(long pos) { return (int) (pos << 26 >> 38); }
+
+    static int packAngle(float degrees) {
+        return Math.round(degrees * 256.0f / 360.0f) & 0xFF;
+    }
+
+    static float unpackAngle(byte packed) {
+        return packed * 360.0f / 256.0f;
+    }
+}
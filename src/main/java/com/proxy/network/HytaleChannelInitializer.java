@@ -11,12 +11,12 @@ import java.nio.charset.StandardCharsets;
 /**
  * Channel initializer for Hytale UDP/QUIC connections.
  * 
- * Note: For UDP connections, you should use Netty's Bootstrap with NioDatagramChannel.
+ * Note: For UDP connections, you should use Netty's Bootstrap with a DatagramChannel.
  * Example server setup:
  * 
  * Bootstrap bootstrap = new Bootstrap();
- * bootstrap.group(new NioEventLoopGroup())
- *          .channel(NioDatagramChannel.class)
+ * bootstrap.group(EventLoops.worker())
+ *          .channel(Transport.best().datagramChannelClass())
  *          .handler(new HytaleChannelInitializer());
  * 
  * ChannelFuture future = bootstrap.bind(new InetSocketAddress(port)).sync();
@@ -4,34 +4,37 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelInitializer;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import io.netty.handler.codec.LengthFieldPrepender;
-import io.netty.handler.codec.string.StringDecoder;
-import io.netty.handler.codec.string.StringEncoder;
-
-import java.nio.charset.StandardCharsets;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * HytaleCraft Protocol v1 — TCP channel pipeline for the mock server.
+ * HytaleCraft TCP channel pipeline for the mock server.
  *
- * Wire format (inbound):
- *   [4-byte big-endian int: payload length] [UTF-8 JSON bytes]
+ * Wire format (both directions, every protocol version):
+ *   [4-byte big-endian int: payload length] [payload bytes]
  *
- * Wire format (outbound):
- *   Symmetric — LengthFieldPrepender prepends the 4-byte length automatically.
+ * The payload format depends on the negotiated protocol version and is
+ * handled by the pluggable "codec" handler (see {@link HytaleCodec}).  Every
+ * connection starts with the v1 JSON codec; HytaleSessionHandler swaps in
+ * the v2 binary codec after a LOGIN that negotiates it.
  *
  * Pipeline:
- *   LengthFieldBasedFrameDecoder → StringDecoder → HytaleSessionHandler
- *                                                → StringEncoder ← LengthFieldPrepender
+ *   frameDecoder → codec (decode) → sessionHandler
+ *   lengthPrepender ← codec (encode) ← sessionHandler
  *
- * Max frame size: 1 MB (should be more than enough for any HytaleCraft JSON packet)
+ * Max frame size: 1 MB (should be more than enough for any HytaleCraft packet)
  */
 public class HytaleChannelPipeline extends ChannelInitializer<Channel> {
 
+    /** Name of the replaceable payload codec in the pipeline */
+    public static final String CODEC = "codec";
+
+    /** Name of the length prepender; pre-framed writes start from its context (see {@link Broadcast}) */
+    public static final String FRAMER = "lengthPrepender";
+
     private static final int MAX_FRAME_BYTES = 1024 * 1024; // 1 MB
 
-    private final ConcurrentHashMap<Channel, HytalePlayerSession> sessions;
+    private final SessionRegistry sessions;
 
-    public HytaleChannelPipeline(ConcurrentHashMap<Channel, HytalePlayerSession> sessions) {
+    public HytaleChannelPipeline(SessionRegistry sessions) {
         this.sessions = sessions;
     }
 
@@ -47,16 +50,13 @@ public class HytaleChannelPipeline extends ChannelInitializer<Channel> {
                            0,               // length adjustment
                            4))              // strip the 4-byte length prefix
 
-          // Inbound: decode bytes → Java String (UTF-8)
-          .addLast("stringDecoder", new StringDecoder(StandardCharsets.UTF_8))
-
-          // Inbound + Outbound: game logic
-          .addLast("sessionHandler", new HytaleSessionHandler(sessions))
+          // Outbound: prepend 4-byte length before each payload
+          .addLast(FRAMER, new LengthFieldPrepender(4))
 
-          // Outbound: prepend 4-byte length before each string frame
-          .addLast("lengthPrepender", new LengthFieldPrepender(4))
+          // Inbound + Outbound: payload ↔ HytalePacket (v1 JSON until negotiated otherwise)
+          .addLast(CODEC, new HytaleJsonCodec())
 
-          // Outbound: encode Java String → bytes (UTF-8)
-          .addLast("stringEncoder", new StringEncoder(StandardCharsets.UTF_8));
+          // Inbound: game logic
+          .addLast("sessionHandler", new HytaleSessionHandler(sessions));
     }
 }
@@ -0,0 +1,74 @@
+package com.proxy.network;
+
+import com.proxy.metrics.ProxyMetrics;
+import com.proxy.protocol.HytalePacket;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageCodec;
+
+import java.util.List;
+
+/**
+ * Base class for the pluggable HytaleCraft payload codecs.
+ *
+ * A codec sits between the 4-byte length framing and HytaleSessionHandler:
+ * it turns frame payloads into {@link HytalePacket}s and back.  Framing is
+ * the same for every protocol version, so switching versions only means
+ * replacing the "codec" handler in the pipeline.
+ *
+ *   v1  UTF-8 JSON           — {@link HytaleJsonCodec}
+ *   v2  compact binary       — {@link HytaleBinaryCodec}
+ *
+ * Every decoded and encoded packet is counted in {@link ProxyMetrics}
+ * (payload bytes, by packet type).
+ *
+ * The version is negotiated during LOGIN, which is always v1 JSON.
+ */
+public abstract class HytaleCodec extends MessageToMessageCodec<ByteBuf, HytalePacket> {
+
+    public static final int PROTOCOL_V1 = 1;
+    public static final int PROTOCOL_V2 = 2;
+
+    /** Highest protocol version this bridge speaks. */
+    public static final int MAX_PROTOCOL = PROTOCOL_V2;
+
+    /** Returns a fresh codec for the given (already negotiated) version. */
+    public static HytaleCodec forVersion(int version) {
+        return version >= PROTOCOL_V2 ? new HytaleBinaryCodec() : new HytaleJsonCodec();
+    }
+
+    /** Protocol version implemented by this codec. */
+    public abstract int version();
+
+    /**
+     * Decode one frame payload.
+     *
+     * @return the packet, or null if the payload is malformed or of an unknown type
+     */
+    public abstract HytalePacket read(ByteBuf payload);
+
+    /** Encode a packet payload (without the length prefix) into {@code out}. */
+    public abstract void write(HytalePacket packet, ByteBuf out);
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) {
+        int bytes = msg.readableBytes();
+        HytalePacket packet = read(msg);
+        if (packet != null) {
+            ProxyMetrics.HYTALE_IN.record(packet.getType(), bytes);
+            out.add(packet);
+        }
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, HytalePacket packet, List<Object> out) {
+        ByteBuf buf = ctx.alloc().buffer();
+        try {
+            write(packet, buf);
+            ProxyMetrics.HYTALE_OUT.record(packet.getType(), buf.readableBytes());
+            out.add(buf.retain());
+        } finally {
+            buf.release();
+        }
+    }
+}
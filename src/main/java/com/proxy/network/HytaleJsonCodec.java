@@ -0,0 +1,143 @@
+package com.proxy.network;
+
+import com.proxy.protocol.HytalePacket;
+import com.proxy.protocol.packet.*;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.handler.codec.CorruptedFrameException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * HytaleCraft Protocol v1 — UTF-8 JSON payloads.
+ *
+ * Every payload is one JSON object with a "type" field:
+ *
+ *   LOGIN           { "type":"LOGIN", "username":"Steve", "uuid":"<optional>", "protocol":2 }
+ *   LOGIN_ACK       { "type":"LOGIN_ACK", "success":true, "message":"...", "uuid":"...", "protocol":2 }
+ *   PLAYER_POSITION { "type":"PLAYER_POSITION", "x":0.0,"y":64.0,"z":0.0,"yaw":0.0,"pitch":0.0,"onGround":true }
+ *   BLOCK_QUERY     { "type":"BLOCK_QUERY", "x":0, "y":64, "z":0 }
+ *   BLOCK_RESPONSE  { "type":"BLOCK_RESPONSE", "x":0,"y":64,"z":0,"hytaleBlockId":1,"mcBlockId":0 }
+ *   REGION_QUERY    { "type":"REGION_QUERY", "x":0,"y":60,"z":0,"sizeX":16,"sizeY":8,"sizeZ":16 }
+ *   REGION_RESPONSE { "type":"REGION_RESPONSE", "x":0,"y":60,"z":0,"sizeX":16,"sizeY":8,"sizeZ":16,
+ *                     "palette":[3,1], "runs":[0,1792,1,256] }
+ *   CHAT_MESSAGE    { "type":"CHAT_MESSAGE", "message":"hello" }
+ *   DISCONNECT      { "type":"DISCONNECT", "reason":"bye" }
+ *
+ * Inbound payloads are parsed in a single pass straight from the frame
+ * buffer by {@link HytaleJsonReader}; fields may come in any order.
+ */
+public class HytaleJsonCodec extends HytaleCodec {
+
+    private static final Logger log = LoggerFactory.getLogger(HytaleJsonCodec.class);
+
+    /** Streaming parser with per-frame scratch state; safe because a codec belongs to one channel */
+    private final HytaleJsonReader reader = new HytaleJsonReader();
+
+    @Override
+    public int version() {
+        return PROTOCOL_V1;
+    }
+
+    // -------------------------------------------------------------------------
+    // Decode
+    // -------------------------------------------------------------------------
+
+    @Override
+    public HytalePacket read(ByteBuf payload) {
+        try {
+            return reader.read(payload);
+        } catch (CorruptedFrameException e) {
+            log.warn("[HytaleJson] Dropping malformed packet ({}): {}",
+                    e.getMessage(), payload.toString(StandardCharsets.UTF_8));
+            return null;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Encode
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void write(HytalePacket packet, ByteBuf out) {
+        ByteBufUtil.writeUtf8(out, toJson(packet));
+    }
+
+    static String toJson(HytalePacket packet) {
+        if (packet instanceof LoginAckPacket ack) {
+            if (!ack.isSuccess()) {
+                return "{\"type\":\"LOGIN_ACK\",\"success\":false,\"message\":\"" + escape(ack.getMessage()) + "\"}";
+            }
+            return "{\"type\":\"LOGIN_ACK\",\"success\":true,\"message\":\"" + escape(ack.getMessage())
+                    + "\",\"uuid\":\"" + ack.getUuid() + "\",\"protocol\":" + ack.getProtocolVersion() + "}";
+        }
+        if (packet instanceof BlockResponsePacket r) {
+            return String.format(
+                    "{\"type\":\"BLOCK_RESPONSE\",\"x\":%d,\"y\":%d,\"z\":%d,\"hytaleBlockId\":%d,\"mcBlockId\":%d}",
+                    r.getX(), r.getY(), r.getZ(), r.getHytaleBlockId(), r.getMcBlockId());
+        }
+        if (packet instanceof RegionResponsePacket r) {
+            StringBuilder sb = new StringBuilder(96 + 8 * r.getRuns().length);
+            sb.append("{\"type\":\"REGION_RESPONSE\",\"x\":").append(r.getX())
+              .append(",\"y\":").append(r.getY())
+              .append(",\"z\":").append(r.getZ())
+              .append(",\"sizeX\":").append(r.getSizeX())
+              .append(",\"sizeY\":").append(r.getSizeY())
+              .append(",\"sizeZ\":").append(r.getSizeZ())
+              .append(",\"palette\":");
+            appendArray(sb, r.getPalette());
+            sb.append(",\"runs\":");
+            appendArray(sb, r.getRuns());
+            return sb.append('}').toString();
+        }
+        if (packet instanceof PositionPacket p) {
+            return "{\"type\":\"PLAYER_POSITION\",\"x\":" + p.getX() + ",\"y\":" + p.getY() + ",\"z\":" + p.getZ()
+                    + ",\"yaw\":" + p.getYaw() + ",\"pitch\":" + p.getPitch() + ",\"onGround\":" + p.isOnGround() + "}";
+        }
+        if (packet instanceof ChatPacket c) {
+            return "{\"type\":\"CHAT_MESSAGE\",\"message\":\"" + escape(c.getMessage()) + "\"}";
+        }
+        if (packet instanceof DisconnectPacket d) {
+            return "{\"type\":\"DISCONNECT\",\"reason\":\"" + escape(d.getReason()) + "\"}";
+        }
+        throw new IllegalArgumentException("No v1 encoding for " + packet.getType());
+    }
+
+    // -------------------------------------------------------------------------
+    // JSON helpers
+    // -------------------------------------------------------------------------
+
+    private static void appendArray(StringBuilder sb, int[] values) {
+        sb.append('[');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(values[i]);
+        }
+        sb.append(']');
+    }
+
+    /** Escape a value for use inside a JSON string literal. */
+    static String escape(String s) {
+        if (s == null) return "";
+        StringBuilder sb = null;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\' || c < 0x20) {
+                if (sb == null) sb = new StringBuilder(s.length() + 8).append(s, 0, i);
+                switch (c) {
+                    case '"'  -> sb.append("\\\"");
+                    case '\\' -> sb.append("\\\\");
+                    case '\n' -> sb.append("\\n");
+                    case '\r' -> sb.append("\\r");
+                    case '\t' -> sb.append("\\t");
+                    default   -> sb.append(String.format("\\u%04x", (int) c));
+                }
+            } else if (sb != null) {
+                sb.append(c);
+            }
+        }
+        return sb != null ? sb.toString() : s;
+    }
+}
@@ -0,0 +1,492 @@
+package com.proxy.network;
+
+import com.proxy.protocol.HytalePacket;
+import com.proxy.protocol.packet.*;
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.CorruptedFrameException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Single-pass JSON reader for HytaleCraft v1 payloads.
+ *
+ * Walks the top-level object of a frame once, directly on the ByteBuf:
+ *  - keys are matched byte-for-byte against the known field names, so no
+ *    key strings are created
+ *  - "type" is matched the same way against the known packet types
+ *  - numbers are accumulated into a long mantissa and scaled by an exact
+ *    power of ten; only numbers with a mantissa of 2^53 or more or a
+ *    decimal exponent beyond ±22 fall back to Double.parseDouble
+ *  - string fields are recorded as index ranges and only turned into
+ *    Strings if the packet type actually needs them
+ *
+ * Fields may appear in any order; unknown fields (including nested objects
+ * and arrays) are skipped.  Escapes inside strings are honoured.
+ *
+ * Holds per-frame scratch state, so one instance belongs to one codec
+ * (and therefore one channel / event loop).
+ */
+final class HytaleJsonReader {
+
+    // Packet types
+    private static final int T_MISSING         = -2;
+    private static final int T_UNKNOWN         = -1;
+    private static final int T_LOGIN           = 0;
+    private static final int T_PLAYER_POSITION = 1;
+    private static final int T_BLOCK_QUERY     = 2;
+    private static final int T_CHAT_MESSAGE    = 3;
+    private static final int T_DISCONNECT      = 4;
+    private static final int T_REGION_QUERY    = 5;
+
+    private static final byte[][] TYPES = {
+            ascii("LOGIN"), ascii("PLAYER_POSITION"), ascii("BLOCK_QUERY"),
+            ascii("CHAT_MESSAGE"), ascii("DISCONNECT"), ascii("REGION_QUERY")
+    };
+
+    // Fields; string fields come first so they double as indices into the range arrays
+    private static final int F_UNKNOWN   = -1;
+    private static final int F_USERNAME  = 0;
+    private static final int F_UUID      = 1;
+    private static final int F_MESSAGE   = 2;
+    private static final int F_REASON    = 3;
+    private static final int F_TYPE      = 4;
+    private static final int F_PROTOCOL  = 5;
+    private static final int F_X         = 6;
+    private static final int F_Y         = 7;
+    private static final int F_Z         = 8;
+    private static final int F_YAW       = 9;
+    private static final int F_PITCH     = 10;
+    private static final int F_ON_GROUND = 11;
+    private static final int F_SIZE_X    = 12;
+    private static final int F_SIZE_Y    = 13;
+    private static final int F_SIZE_Z    = 14;
+
+    private static final int STRING_FIELDS = 4;
+
+    private static final byte[][] KEYS = {
+            ascii("username"), ascii("uuid"), ascii("message"), ascii("reason"), ascii("type"),
+            ascii("protocol"), ascii("x"), ascii("y"), ascii("z"), ascii("yaw"), ascii("pitch"),
+            ascii("onGround"), ascii("sizeX"), ascii("sizeY"), ascii("sizeZ")
+    };
+
+    private static final byte[] TRUE = ascii("true");
+
+    /** Powers of ten that are exactly representable as doubles */
+    private static final double[] POW10 = new double[23];
+    static {
+        POW10[0] = 1.0;
+        for (int i = 1; i < POW10.length; i++) POW10[i] = POW10[i - 1] * 10.0;
+    }
+
+    // -------------------------------------------------------------------------
+    // Per-frame scratch state
+    // -------------------------------------------------------------------------
+
+    private ByteBuf buf;
+    private int pos;
+    private int end;
+
+    /** Set by scanString(): whether the string just scanned contained a backslash */
+    private boolean lastEscaped;
+
+    private int type;
+    private int typeStart, typeEnd;
+    private boolean typeEscaped;
+
+    private final int[] strStart = new int[STRING_FIELDS];
+    private final int[] strEnd = new int[STRING_FIELDS];
+    private final boolean[] strEscaped = new boolean[STRING_FIELDS];
+
+    private double x, y, z, yaw, pitch;
+    private double sizeX, sizeY, sizeZ;
+    private boolean onGround;
+    private int protocol;
+
+    // -------------------------------------------------------------------------
+    // Entry point
+    // -------------------------------------------------------------------------
+
+    /**
+     * Parse one JSON payload.  The buffer's reader index is not moved.
+     *
+     * @return the decoded packet
+     * @throws CorruptedFrameException if the payload is not a well-formed JSON object
+     *                                 or has a missing or unknown "type"
+     */
+    HytalePacket read(ByteBuf in) {
+        reset(in);
+        try {
+            parseObject();
+            return build();
+        } finally {
+            buf = null;
+        }
+    }
+
+    private void reset(ByteBuf in) {
+        buf = in;
+        pos = in.readerIndex();
+        end = in.writerIndex();
+        type = T_MISSING;
+        for (int i = 0; i < STRING_FIELDS; i++) strStart[i] = -1;
+        x = y = z = yaw = pitch = 0.0;
+        sizeX = sizeY = sizeZ = 0.0;
+        onGround = false;
+        protocol = 0;
+    }
+
+    private HytalePacket build() {
+        switch (type) {
+            case T_PLAYER_POSITION:
+                return new PositionPacket(x, y, z, (float) yaw, (float) pitch, onGround);
+            case T_BLOCK_QUERY:
+                return new BlockQueryPacket((int) x, (int) y, (int) z);
+            case T_REGION_QUERY:
+                return new RegionQueryPacket((int) x, (int) y, (int) z, (int) sizeX, (int) sizeY, (int) sizeZ);
+            case T_CHAT_MESSAGE:
+                return new ChatPacket(string(F_MESSAGE));
+            case T_LOGIN:
+                return new LoginPacket(string(F_USERNAME), string(F_UUID),
+                        protocol > 0 ? protocol : HytaleCodec.PROTOCOL_V1);
+            case T_DISCONNECT:
+                return new DisconnectPacket(string(F_REASON));
+            case T_MISSING:
+                throw new CorruptedFrameException("no 'type' field");
+            default:
+                throw new CorruptedFrameException("unknown type '" + decode(typeStart, typeEnd, typeEscaped) + "'");
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Grammar
+    // -------------------------------------------------------------------------
+
+    private void parseObject() {
+        skipWhitespace();
+        expect('{');
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+            return;
+        }
+        while (true) {
+            expect('"');
+            int keyStart = pos;
+            int keyEnd = scanString();
+            int field = lastEscaped ? F_UNKNOWN : matchKey(keyStart, keyEnd);
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            readValue(field);
+            skipWhitespace();
+            byte c = next();
+            if (c == '}') return;
+            if (c != ',') throw new CorruptedFrameException("expected ',' or '}' at " + (pos - 1));
+            skipWhitespace();
+        }
+    }
+
+    private void readValue(int field) {
+        byte c = peek();
+        switch (field) {
+            case F_TYPE:
+                expect('"');
+                typeStart = pos;
+                typeEnd = scanString();
+                typeEscaped = lastEscaped;
+                type = typeEscaped ? T_UNKNOWN : matchType(typeStart, typeEnd);
+                return;
+            case F_USERNAME:
+            case F_UUID:
+            case F_MESSAGE:
+            case F_REASON:
+                if (c == '"') {
+                    pos++;
+                    strStart[field] = pos;
+                    strEnd[field] = scanString();
+                    strEscaped[field] = lastEscaped;
+                    return;
+                }
+                break;
+            case F_PROTOCOL:
+                if (isNumberStart(c)) { protocol = (int) readNumber(); return; }
+                break;
+            case F_X:
+                if (isNumberStart(c)) { x = readNumber(); return; }
+                break;
+            case F_Y:
+                if (isNumberStart(c)) { y = readNumber(); return; }
+                break;
+            case F_Z:
+                if (isNumberStart(c)) { z = readNumber(); return; }
+                break;
+            case F_YAW:
+                if (isNumberStart(c)) { yaw = readNumber(); return; }
+                break;
+            case F_PITCH:
+                if (isNumberStart(c)) { pitch = readNumber(); return; }
+                break;
+            case F_SIZE_X:
+                if (isNumberStart(c)) { sizeX = readNumber(); return; }
+                break;
+            case F_SIZE_Y:
+                if (isNumberStart(c)) { sizeY = readNumber(); return; }
+                break;
+            case F_SIZE_Z:
+                if (isNumberStart(c)) { sizeZ = readNumber(); return; }
+                break;
+            case F_ON_GROUND:
+                if (c == 't' && regionEquals(pos, pos + TRUE.length, TRUE)) {
+                    pos += TRUE.length;
+                    onGround = true;
+                    return;
+                }
+                break;
+            default:
+                break;
+        }
+        skipValue();
+    }
+
+    /**
+     * Scan a string body starting just after the opening quote.
+     * Leaves pos after the closing quote and returns the index of that quote.
+     */
+    private int scanString() {
+        boolean escaped = false;
+        while (pos < end) {
+            byte b = buf.getByte(pos++);
+            if (b == '"') {
+                lastEscaped = escaped;
+                return pos - 1;
+            }
+            if (b == '\\') {
+                escaped = true;
+                pos++; // the escaped character can never terminate the string
+            }
+        }
+        throw new CorruptedFrameException("unterminated string");
+    }
+
+    /** Skip any JSON value, including nested objects and arrays. */
+    private void skipValue() {
+        byte c = peek();
+        if (c == '"') {
+            pos++;
+            scanString();
+            return;
+        }
+        if (c == '{' || c == '[') {
+            int depth = 0;
+            while (pos < end) {
+                byte b = buf.getByte(pos++);
+                if (b == '"') {
+                    scanString();
+                } else if (b == '{' || b == '[') {
+                    depth++;
+                } else if (b == '}' || b == ']') {
+                    if (--depth == 0) return;
+                }
+            }
+            throw new CorruptedFrameException("unterminated " + (char) c);
+        }
+        // number / true / false / null
+        int start = pos;
+        while (pos < end) {
+            byte b = buf.getByte(pos);
+            if (b == ',' || b == '}' || b == ']' || isWhitespace(b)) break;
+            pos++;
+        }
+        if (pos == start) throw new CorruptedFrameException("expected value at " + start);
+    }
+
+    // -------------------------------------------------------------------------
+    // Numbers
+    // -------------------------------------------------------------------------
+
+    private static boolean isNumberStart(byte c) {
+        return c == '-' || (c >= '0' && c <= '9');
+    }
+
+    /**
+     * Parse a JSON number in place.  When the mantissa is below 2^53 and the
+     * decimal exponent within ±22, both operands are exact doubles and one
+     * multiply or divide gives the correctly rounded result; anything else
+     * is handed to Double.parseDouble.
+     */
+    private double readNumber() {
+        int start = pos;
+        boolean negative = false;
+        if (peek() == '-') {
+            negative = true;
+            pos++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean sawDigit = false;
+        byte b;
+
+        while (pos < end && (b = buf.getByte(pos)) >= '0' && b <= '9') {
+            sawDigit = true;
+            if (digits < 18) {
+                if (mantissa != 0 || b != '0') digits++;
+                mantissa = mantissa * 10 + (b - '0');
+            } else {
+                scale++;
+            }
+            pos++;
+        }
+        if (pos < end && buf.getByte(pos) == '.') {
+            pos++;
+            while (pos < end && (b = buf.getByte(pos)) >= '0' && b <= '9') {
+                sawDigit = true;
+                if (digits < 18) {
+                    if (mantissa != 0 || b != '0') digits++;
+                    mantissa = mantissa * 10 + (b - '0');
+                    scale--;
+                }
+                pos++;
+            }
+        }
+        if (!sawDigit) throw new CorruptedFrameException("malformed number at " + start);
+
+        if (pos < end && ((b = buf.getByte(pos)) == 'e' || b == 'E')) {
+            pos++;
+            boolean negExp = false;
+            if (pos < end && ((b = buf.getByte(pos)) == '-' || b == '+')) {
+                negExp = b == '-';
+                pos++;
+            }
+            int exp = 0;
+            boolean sawExpDigit = false;
+            while (pos < end && (b = buf.getByte(pos)) >= '0' && b <= '9') {
+                sawExpDigit = true;
+                if (exp < 10000) exp = exp * 10 + (b - '0');
+                pos++;
+            }
+            if (!sawExpDigit) throw new CorruptedFrameException("malformed exponent at " + start);
+            scale += negExp ? -exp : exp;
+        }
+
+        double value;
+        if (mantissa < (1L << 53) && scale >= -22 && scale <= 22) {
+            value = scale < 0 ? mantissa / POW10[-scale] : mantissa * POW10[scale];
+        } else {
+            return Double.parseDouble(buf.toString(start, pos - start, StandardCharsets.US_ASCII));
+        }
+        return negative ? -value : value;
+    }
+
+    // -------------------------------------------------------------------------
+    // Strings
+    // -------------------------------------------------------------------------
+
+    private String string(int field) {
+        int start = strStart[field];
+        return start < 0 ? null : decode(start, strEnd[field], strEscaped[field]);
+    }
+
+    /** Decode the body of a string literal, processing escapes if any. */
+    private String decode(int start, int stop, boolean escaped) {
+        if (!escaped) {
+            return buf.toString(start, stop - start, StandardCharsets.UTF_8);
+        }
+        StringBuilder sb = new StringBuilder(stop - start);
+        int run = start;
+        int i = start;
+        while (i < stop) {
+            if (buf.getByte(i) != '\\') {
+                i++;
+                continue;
+            }
+            if (i > run) sb.append(buf.toString(run, i - run, StandardCharsets.UTF_8));
+            byte e = i + 1 < stop ? buf.getByte(i + 1) : 0;
+            i += 2;
+            switch (e) {
+                case '"':  sb.append('"');  break;
+                case '\\': sb.append('\\'); break;
+                case '/':  sb.append('/');  break;
+                case 'b':  sb.append('\b'); break;
+                case 'f':  sb.append('\f'); break;
+                case 'n':  sb.append('\n'); break;
+                case 'r':  sb.append('\r'); break;
+                case 't':  sb.append('\t'); break;
+                case 'u':
+                    if (i + 4 > stop) throw new CorruptedFrameException("truncated \\u escape");
+                    sb.append((char) hex4(i));
+                    i += 4;
+                    break;
+                default:
+                    throw new CorruptedFrameException("invalid escape \\" + (char) e);
+            }
+            run = i;
+        }
+        if (stop > run) sb.append(buf.toString(run, stop - run, StandardCharsets.UTF_8));
+        return sb.toString();
+    }
+
+    private int hex4(int at) {
+        int v = 0;
+        for (int k = 0; k < 4; k++) {
+            int d = Character.digit(buf.getByte(at + k), 16);
+            if (d < 0) throw new CorruptedFrameException("invalid \\u escape");
+            v = (v << 4) | d;
+        }
+        return v;
+    }
+
+    // -------------------------------------------------------------------------
+    // Matching / low level
+    // -------------------------------------------------------------------------
+
+    private int matchKey(int start, int stop) {
+        for (int i = 0; i < KEYS.length; i++) {
+            if (regionEquals(start, stop, KEYS[i])) return i;
+        }
+        return F_UNKNOWN;
+    }
+
+    private int matchType(int start, int stop) {
+        for (int i = 0; i < TYPES.length; i++) {
+            if (regionEquals(start, stop, TYPES[i])) return i;
+        }
+        return T_UNKNOWN;
+    }
+
+    private boolean regionEquals(int start, int stop, byte[] expected) {
+        if (stop - start != expected.length || stop > end) return false;
+        for (int i = 0; i < expected.length; i++) {
+            if (buf.getByte(start + i) != expected[i]) return false;
+        }
+        return true;
+    }
+
+    private byte peek() {
+        if (pos >= end) throw new CorruptedFrameException("unexpected end of payload");
+        return buf.getByte(pos);
+    }
+
+    private byte next() {
+        byte b = peek();
+        pos++;
+        return b;
+    }
+
+    private void expect(char c) {
+        if (next() != c) throw new CorruptedFrameException("expected '" + c + "' at " + (pos - 1));
+    }
+
+    private void skipWhitespace() {
+        while (pos < end && isWhitespace(buf.getByte(pos))) pos++;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -1,27 +1,33 @@
 package com.proxy.network;
 
+import com.proxy.metrics.MetricsRegistry;
+import com.proxy.network.transport.EventLoops;
+import com.proxy.network.transport.Transport;
+import com.proxy.protocol.HytalePacket;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
-import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
 
 /**
  * HytaleCraft Mock Server — listens on TCP port 5521 for Hytale client connections.
  *
  * Responsibilities:
  *  - Boot a Netty TCP ServerBootstrap on port 5521
- *  - Maintain the live session map (channel → HytalePlayerSession)
+ *  - Own the live {@link SessionRegistry} (by UUID, by username, per event loop)
  *  - Clean up sessions when a channel closes (handled by HytaleSessionHandler)
+ *  - Broadcast packets to many sessions, encoded once (see {@link Broadcast})
  *  - Provide a clean shutdown path (called from CodeNinjaBridge shutdown hook)
  *
+ * Event loops are the shared ones from {@link EventLoops}; the mock server
+ * does not own them and leaves their shutdown to the plugin lifecycle.
+ *
  * Thread safety:
- *  - sessions map is ConcurrentHashMap — safe for Netty's multi-threaded I/O
+ *  - SessionRegistry lookups and iteration are safe from any thread
  *  - Server lifecycle methods (start/stop) must be called from a single controlling thread
  */
 public class HytaleMockServer {
@@ -30,10 +36,8 @@ public class HytaleMockServer {
 
     public static final int HYTALE_TCP_PORT = 5521;
 
-    private final ConcurrentHashMap<Channel, HytalePlayerSession> sessions = new ConcurrentHashMap<>();
+    private final SessionRegistry sessions = new SessionRegistry();
 
-    private EventLoopGroup bossGroup;
-    private EventLoopGroup workerGroup;
     private Channel serverChannel;
 
     // -------------------------------------------------------------------------
@@ -42,45 +46,44 @@ public class HytaleMockServer {
 
     /**
      * Start the mock server.  Blocks briefly to bind the port, then returns.
-     * The Netty event loops continue running in background daemon threads.
+     * The shared Netty event loops continue running in background daemon threads.
      *
      * @throws Exception if the port cannot be bound
      */
     public void start() throws Exception {
-        bossGroup   = new NioEventLoopGroup(1);
-        workerGroup = new NioEventLoopGroup();
-
         ServerBootstrap sb = new ServerBootstrap();
-        sb.group(bossGroup, workerGroup)
-          .channel(NioServerSocketChannel.class)
+        sb.group(EventLoops.boss(), EventLoops.worker())
+          .channel(Transport.best().serverSocketChannelClass())
           .childHandler(new HytaleChannelPipeline(sessions));
 
         ChannelFuture future = sb.bind(HYTALE_TCP_PORT).sync();
         serverChannel = future.channel();
 
+        MetricsRegistry.getInstance().gauge("hytalecraft_sessions_active",
+                "Logged-in HytaleCraft sessions", sessions::size);
+
         log.info("========================================");
         log.info("  HytaleCraft Mock Server ONLINE");
         log.info("  TCP port {} ready for Hytale clients", HYTALE_TCP_PORT);
-        log.info("  Protocol: HytaleCraft v1 (JSON/length-framed)");
+        log.info("  Protocol: HytaleCraft v1 (JSON) / v2 (binary), length-framed");
         log.info("========================================");
     }
 
     /**
      * Shut down the mock server gracefully.
-     * Closes all active sessions first, then tears down the Netty event loops.
+     * Closes all active sessions first, then the listening channel.
      */
     public void stop() {
         log.info("[HytaleMockServer] Shutting down...");
 
-        // Close all active sessions
-        sessions.values().forEach(session -> {
+        // Close all active sessions; each unregisters itself as its channel goes inactive
+        sessions.forEach(session -> {
             try {
                 session.close();
             } catch (Exception e) {
                 log.debug("[HytaleMockServer] Error closing session {}: {}", session, e.getMessage());
             }
         });
-        sessions.clear();
 
         // Stop the server channel
         if (serverChannel != null) {
@@ -91,19 +94,36 @@ public class HytaleMockServer {
             }
         }
 
-        // Shut down event loop groups
-        if (workerGroup != null) workerGroup.shutdownGracefully();
-        if (bossGroup   != null) bossGroup.shutdownGracefully();
-
         log.info("[HytaleMockServer] Stopped.");
     }
 
+    // -------------------------------------------------------------------------
+    // Broadcast
+    // -------------------------------------------------------------------------
+
+    /** Send {@code packet} to every logged-in session. */
+    public CompletableFuture<Broadcast.Result> broadcast(HytalePacket packet) {
+        return broadcast(packet, session -> true);
+    }
+
+    /**
+     * Send {@code packet} to the logged-in sessions accepted by
+     * {@code recipients}, encoding it once per protocol version.  The
+     * predicate runs on each session's event loop.  The result counts the
+     * deliveries and the recipients skipped because their channel was not
+     * writable.
+     */
+    public CompletableFuture<Broadcast.Result> broadcast(HytalePacket packet,
+                                                         Predicate<? super HytalePlayerSession> recipients) {
+        return Broadcast.send(sessions, packet, recipients);
+    }
+
     // -------------------------------------------------------------------------
     // Accessors
     // -------------------------------------------------------------------------
 
-    /** Returns a snapshot view of active sessions (for diagnostics/commands). */
-    public ConcurrentHashMap<Channel, HytalePlayerSession> getSessions() {
+    /** Live registry of logged-in sessions (for diagnostics/commands). */
+    public SessionRegistry getSessions() {
         return sessions;
     }
 
@@ -1,7 +1,10 @@
 package com.proxy.network;
 
+import com.proxy.network.util.WriteBatcher;
 import com.proxy.protocol.BlockRegistry;
+import com.proxy.world.WorldTracker;
 import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
 
 import java.util.UUID;
 
@@ -13,7 +16,13 @@ import java.util.UUID;
  *  - The MC-side TCP channel (talk to the Paper backend, via HytaleToMCConnector)
  *  - Player identity (username + UUID derived from name for offline-mode compat)
  *  - Current lifecycle state
+ *  - Negotiated HytaleCraft protocol version
  *  - Reference to the shared BlockRegistry for ID translation
+ *  - The player's view of the shared world cache (fed by the MC stream)
+ *  - The per-tick movement aggregator for PLAYER_POSITION updates
+ *
+ * While logged in, the session is bound to its Hytale channel under
+ * {@link #KEY} (see {@link SessionRegistry}); {@link #of(Channel)} reads it back.
  */
 public class HytalePlayerSession {
 
@@ -28,6 +37,14 @@ public class HytalePlayerSession {
         DISCONNECTING
     }
 
+    /** Channel attribute holding the logged-in session, set by {@link SessionRegistry#register} */
+    public static final AttributeKey<HytalePlayerSession> KEY = AttributeKey.valueOf("hytalecraft.session");
+
+    /** The session bound to a Hytale channel, or null before LOGIN / after close. */
+    public static HytalePlayerSession of(Channel hytaleChannel) {
+        return hytaleChannel.attr(KEY).get();
+    }
+
     // -------------------------------------------------------------------------
     // Fields
     // -------------------------------------------------------------------------
@@ -38,13 +55,28 @@ public class HytalePlayerSession {
     /** TCP channel to the Paper MC backend (set after successful MC handshake) */
     private volatile Channel mcChannel;
 
+    /** Batched writes to mcChannel — flushed by the Hytale handler on read-complete */
+    private volatile WriteBatcher mcWrites;
+
     private final String username;
     private final UUID   uuid;
 
     private volatile PlayerState state;
 
+    /** HytaleCraft protocol version agreed at LOGIN (1 = JSON, 2 = binary) */
+    private volatile int protocolVersion = 1;
+
     private final BlockRegistry registry;
 
+    /** Dimension + loaded chunks; only touched on the session's event loop */
+    private final WorldTracker world = new WorldTracker();
+
+    /** Latest-wins position forwarding to the backend */
+    private final MovementAggregator movement;
+
+    /** System.nanoTime() when the session was created, i.e. at LOGIN */
+    private final long loginNanos = System.nanoTime();
+
     // -------------------------------------------------------------------------
     // Constructor
     // -------------------------------------------------------------------------
@@ -55,6 +87,7 @@ public class HytalePlayerSession {
         this.uuid     = deriveOfflineUUID(username);
         this.state    = PlayerState.CONNECTING;
         this.registry = BlockRegistry.getInstance();
+        this.movement = new MovementAggregator(this);
     }
 
     // -------------------------------------------------------------------------
@@ -78,7 +111,13 @@ public class HytalePlayerSession {
     public Channel getHytaleChannel() { return hytaleChannel; }
 
     public Channel getMcChannel()     { return mcChannel; }
-    public void    setMcChannel(Channel ch) { this.mcChannel = ch; }
+    public void    setMcChannel(Channel ch) {
+        this.mcChannel = ch;
+        this.mcWrites  = ch != null ? new WriteBatcher(ch) : null;
+    }
+
+    /** Batched writer for mcChannel, or null before the backend connects. */
+    public WriteBatcher getMcWrites() { return mcWrites; }
 
     public String  getUsername()      { return username; }
     public UUID    getUuid()          { return uuid; }
@@ -86,8 +125,17 @@ public class HytalePlayerSession {
     public PlayerState getState()     { return state; }
     public void        setState(PlayerState s) { this.state = s; }
 
+    public int  getProtocolVersion()  { return protocolVersion; }
+    public void setProtocolVersion(int v) { this.protocolVersion = v; }
+
     public BlockRegistry getRegistry() { return registry; }
 
+    public WorldTracker getWorld()    { return world; }
+
+    public MovementAggregator getMovement() { return movement; }
+
+    public long getLoginNanos()       { return loginNanos; }
+
     // -------------------------------------------------------------------------
     // Helpers
     // -------------------------------------------------------------------------
@@ -95,6 +143,7 @@ public class HytalePlayerSession {
     /** Cleanly close both sides of the bridge. */
     public void close() {
         state = PlayerState.DISCONNECTING;
+        movement.stop();
         if (mcChannel != null && mcChannel.isActive()) {
             mcChannel.close();
         }
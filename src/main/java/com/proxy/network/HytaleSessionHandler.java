@@ -1,37 +1,64 @@
 package com.proxy.network;
 
+import com.proxy.network.util.PacketEncoder;
+import com.proxy.network.util.PacketWriter;
+import com.proxy.network.util.WriteBatcher;
+import com.proxy.protocol.HytalePacket;
+import com.proxy.protocol.packet.*;
+import com.proxy.world.WorldStore;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.ConcurrentHashMap;
-
 /**
- * HytaleCraft Protocol v1 — per-channel session handler.
+ * HytaleCraft per-channel session handler.
+ *
+ * Receives decoded {@link HytalePacket}s from the pipeline codec, dispatches
+ * on packet class, and drives the HytalePlayerSession state machine.  Wire
+ * formats are described in {@link HytaleJsonCodec} (v1) and
+ * {@link HytaleBinaryCodec} (v2).
  *
- * Receives decoded JSON strings from the pipeline, dispatches on "type" field,
- * and drives the HytalePlayerSession state machine.
+ * Protocol negotiation:
+ *   LOGIN and LOGIN_ACK are always v1 JSON.  LOGIN may carry "protocol", the
+ *   highest version the client speaks; LOGIN_ACK answers with the version
+ *   chosen (the lower of the two), and the pipeline codec is replaced right
+ *   after LOGIN_ACK is written.  Clients that send no "protocol" stay on v1.
  *
- * Packet formats (all JSON, length-prefixed by HytaleChannelPipeline):
+ * Replies to the Hytale client and packets forwarded to Paper are written
+ * without flushing; both channels are flushed once per read-complete.
+ * Position updates are the exception: they go through the session's
+ * {@link MovementAggregator}, which sends at most one per tick.
  *
- *   LOGIN           { "type":"LOGIN", "username":"Steve", "uuid":"<optional>" }
- *   LOGIN_ACK       { "type":"LOGIN_ACK", "success":true, "message":"..." }
- *   PLAYER_POSITION { "type":"PLAYER_POSITION", "x":0.0,"y":64.0,"z":0.0,"yaw":0.0,"pitch":0.0,"onGround":true }
- *   BLOCK_QUERY     { "type":"BLOCK_QUERY", "x":0, "y":64, "z":0 }
- *   BLOCK_RESPONSE  { "type":"BLOCK_RESPONSE", "x":0,"y":64,"z":0,"hytaleBlockId":1,"mcBlockId":0 }
- *   CHAT_MESSAGE    { "type":"CHAT_MESSAGE", "message":"hello" }
- *   DISCONNECT      { "type":"DISCONNECT", "reason":"bye" }
+ * The session is found through the channel ({@link HytalePlayerSession#of});
+ * the shared {@link SessionRegistry} is only touched at LOGIN and on close.
+ * A LOGIN for a username that is already logged in replaces the old
+ * session: it is sent a DISCONNECT and closed, so a client whose previous
+ * connection is half-open can log straight back in.
  */
-public class HytaleSessionHandler extends SimpleChannelInboundHandler<String> {
+public class HytaleSessionHandler extends SimpleChannelInboundHandler<HytalePacket> {
 
     private static final Logger log = LoggerFactory.getLogger(HytaleSessionHandler.class);
 
-    /** Shared session map owned by HytaleMockServer */
-    private final ConcurrentHashMap<Channel, HytalePlayerSession> sessions;
+    /** Serverbound Chat Message, protocol 765 (the version the bridge logs in with) */
+    private static final int MC_CHAT_MESSAGE = 0x05;
+
+    /** Largest REGION_QUERY box, in blocks (default 32×32×32) */
+    private static final int MAX_REGION_VOLUME = Integer.getInteger("hytalecraft.region.maxVolume", 32 * 32 * 32);
+
+    /** Shared session registry owned by HytaleMockServer */
+    private final SessionRegistry sessions;
 
-    public HytaleSessionHandler(ConcurrentHashMap<Channel, HytalePlayerSession> sessions) {
+    /** Batched replies to the Hytale client */
+    private WriteBatcher clientWrites;
+
+    /** Reused REGION_QUERY buffer, grown on demand up to MAX_REGION_VOLUME */
+    private int[] regionBlocks = new int[0];
+
+    public HytaleSessionHandler(SessionRegistry sessions) {
         this.sessions = sessions;
     }
 
@@ -39,15 +66,30 @@ public class HytaleSessionHandler extends SimpleChannelInboundHandler<String> {
     // Lifecycle
     // -------------------------------------------------------------------------
 
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        clientWrites = new WriteBatcher(ctx.channel());
+    }
+
     @Override
     public void channelActive(ChannelHandlerContext ctx) {
         log.info("[HytaleSession] New connection from {}", ctx.channel().remoteAddress());
     }
 
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) {
+        clientWrites.flush();
+        HytalePlayerSession session = HytalePlayerSession.of(ctx.channel());
+        if (session != null && session.getMcWrites() != null) {
+            session.getMcWrites().flush();
+        }
+    }
+
     @Override
     public void channelInactive(ChannelHandlerContext ctx) {
-        HytalePlayerSession session = sessions.remove(ctx.channel());
+        HytalePlayerSession session = HytalePlayerSession.of(ctx.channel());
         if (session != null) {
+            sessions.unregister(session);
             log.info("[HytaleSession] Channel closed — cleaning up session for {}", session.getUsername());
             session.close();
         }
@@ -64,20 +106,21 @@ public class HytaleSessionHandler extends SimpleChannelInboundHandler<String> {
     // -------------------------------------------------------------------------
 
     @Override
-    protected void channelRead0(ChannelHandlerContext ctx, String json) {
-        String type = extractString(json, "type");
-        if (type == null) {
-            log.warn("[HytaleSession] Received packet with no 'type' field: {}", json);
-            return;
-        }
-
-        switch (type) {
-            case "LOGIN"           -> handleLogin(ctx, json);
-            case "PLAYER_POSITION" -> handlePosition(ctx, json);
-            case "BLOCK_QUERY"     -> handleBlockQuery(ctx, json);
-            case "CHAT_MESSAGE"    -> handleChat(ctx, json);
-            case "DISCONNECT"      -> handleDisconnect(ctx, json);
-            default -> log.warn("[HytaleSession] Unknown packet type '{}': {}", type, json);
+    protected void channelRead0(ChannelHandlerContext ctx, HytalePacket packet) {
+        if (packet instanceof PositionPacket p) {
+            handlePosition(ctx, p);
+        } else if (packet instanceof BlockQueryPacket q) {
+            handleBlockQuery(ctx, q);
+        } else if (packet instanceof RegionQueryPacket r) {
+            handleRegionQuery(ctx, r);
+        } else if (packet instanceof ChatPacket c) {
+            handleChat(ctx, c);
+        } else if (packet instanceof LoginPacket l) {
+            handleLogin(ctx, l);
+        } else if (packet instanceof DisconnectPacket d) {
+            handleDisconnect(ctx, d);
+        } else {
+            log.warn("[HytaleSession] Unexpected packet type '{}' from client", packet.getType());
         }
     }
 
@@ -85,109 +128,140 @@ public class HytaleSessionHandler extends SimpleChannelInboundHandler<String> {
     // Handlers
     // -------------------------------------------------------------------------
 
-    private void handleLogin(ChannelHandlerContext ctx, String json) {
-        String username = extractString(json, "username");
+    private void handleLogin(ChannelHandlerContext ctx, LoginPacket login) {
+        if (HytalePlayerSession.of(ctx.channel()) != null) {
+            log.warn("[HytaleSession] Duplicate LOGIN on {}", ctx.channel().remoteAddress());
+            return;
+        }
+        String username = login.getUsername();
         if (username == null || username.isBlank()) {
-            sendJson(ctx, "{\"type\":\"LOGIN_ACK\",\"success\":false,\"message\":\"Username is required\"}");
-            ctx.close();
+            sendAndClose(ctx, LoginAckPacket.failure("Username is required"));
             return;
         }
         // Sanitise username (MC allows 16 chars, alphanumeric + underscore)
         if (!username.matches("[a-zA-Z0-9_]{1,16}")) {
-            sendJson(ctx, "{\"type\":\"LOGIN_ACK\",\"success\":false,\"message\":\"Invalid username\"}");
-            ctx.close();
+            sendAndClose(ctx, LoginAckPacket.failure("Invalid username"));
             return;
         }
 
         HytalePlayerSession session = new HytalePlayerSession(ctx.channel(), username);
-        sessions.put(ctx.channel(), session);
+        int protocol = Math.max(HytaleCodec.PROTOCOL_V1,
+                Math.min(login.getProtocolVersion(), HytaleCodec.MAX_PROTOCOL));
+        session.setProtocolVersion(protocol);
+        HytalePlayerSession stale = sessions.replace(session);
+        if (stale != null) {
+            // Most often the same player whose old connection has not timed out yet
+            log.info("[HytaleSession] {} logged in again from {} — closing session on {}",
+                    username, ctx.channel().remoteAddress(), stale.getHytaleChannel().remoteAddress());
+            stale.getHytaleChannel()
+                 .writeAndFlush(new DisconnectPacket("Logged in from another location"))
+                 .addListener(f -> stale.close());
+        }
         session.setState(HytalePlayerSession.PlayerState.AUTHENTICATED);
+        session.getMovement().start();
 
-        log.info("[HytaleSession] LOGIN from {} (uuid={})", username, session.getUuid());
+        log.info("[HytaleSession] LOGIN from {} (uuid={}, protocol=v{})", username, session.getUuid(), protocol);
 
-        // Acknowledge immediately
-        sendJson(ctx, String.format(
-                "{\"type\":\"LOGIN_ACK\",\"success\":true,\"message\":\"Welcome to HytaleCraft, %s!\",\"uuid\":\"%s\"}",
-                username, session.getUuid()));
+        // Acknowledge immediately — encoded by the current (v1) codec on write
+        send(new LoginAckPacket(true, "Welcome to HytaleCraft, " + username + "!",
+                session.getUuid().toString(), protocol));
+
+        // Everything after LOGIN_ACK uses the negotiated codec
+        if (protocol != HytaleCodec.PROTOCOL_V1) {
+            ctx.pipeline().replace(HytaleChannelPipeline.CODEC, HytaleChannelPipeline.CODEC,
+                    HytaleCodec.forVersion(protocol));
+        }
 
         // Connect to the Paper backend asynchronously
         new HytaleToMCConnector(session).connect();
     }
 
-    private void handlePosition(ChannelHandlerContext ctx, String json) {
-        HytalePlayerSession session = sessions.get(ctx.channel());
+    private void handlePosition(ChannelHandlerContext ctx, PositionPacket pos) {
+        HytalePlayerSession session = HytalePlayerSession.of(ctx.channel());
         if (session == null) { log.warn("[HytaleSession] PLAYER_POSITION from unauthenticated channel"); return; }
 
-        double x     = extractDouble(json, "x");
-        double y     = extractDouble(json, "y");
-        double z     = extractDouble(json, "z");
-        float  yaw   = (float) extractDouble(json, "yaw");
-        float  pitch = (float) extractDouble(json, "pitch");
-        boolean onGround = json.contains("\"onGround\":true");
-
         log.debug("[HytaleSession] POSITION {} → ({},{},{}) yaw={} pitch={} ground={}",
-                session.getUsername(), x, y, z, yaw, pitch, onGround);
+                session.getUsername(), pos.getX(), pos.getY(), pos.getZ(),
+                pos.getYaw(), pos.getPitch(), pos.isOnGround());
 
-        // Forward to MC as a raw position update (0x17 Set Player Position And Rotation)
-        // This is simplified — a full impl would encode a proper MC packet here.
-        Channel mc = session.getMcChannel();
-        if (mc != null && mc.isActive()) {
-            sendMcPositionPacket(mc, x, y, z, yaw, pitch, onGround);
-        }
+        // Coalesced and forwarded once per tick by the session's MovementAggregator
+        session.getMovement().update(pos);
     }
 
-    private void handleBlockQuery(ChannelHandlerContext ctx, String json) {
-        HytalePlayerSession session = sessions.get(ctx.channel());
+    private void handleBlockQuery(ChannelHandlerContext ctx, BlockQueryPacket query) {
+        HytalePlayerSession session = HytalePlayerSession.of(ctx.channel());
         if (session == null) { log.warn("[HytaleSession] BLOCK_QUERY from unauthenticated channel"); return; }
 
-        int x = (int) extractDouble(json, "x");
-        int y = (int) extractDouble(json, "y");
-        int z = (int) extractDouble(json, "z");
-
-        // In a full impl we'd query the MC world state cache here.
-        // For now we return a placeholder: grass_block at y≥64, stone below.
-        int hytaleBlockId;
-        int mcStateId;
-        if (y >= 64) {
-            hytaleBlockId = 1;  // hytale:grass_block
-            mcStateId     = 0;  // minecraft:grass_block
-        } else if (y > 0) {
-            hytaleBlockId = 3;  // hytale:stone
-            mcStateId     = 1;  // minecraft:stone
-        } else {
-            hytaleBlockId = 9;  // hytale:bedrock
-            mcStateId     = 33; // minecraft:bedrock
-        }
+        int x = query.getX();
+        int y = query.getY();
+        int z = query.getZ();
+
+        // Answered from the shared world cache; -1 means the chunk is not cached
+        int mcStateId = session.getWorld().getBlock(x, y, z);
+        int hytaleBlockId = mcStateId == WorldStore.UNKNOWN
+                ? WorldStore.UNKNOWN
+                : session.getRegistry().toHytale(mcStateId);
 
         log.debug("[HytaleSession] BLOCK_QUERY ({},{},{}) → hytale={} mc={}",
                 x, y, z, hytaleBlockId, mcStateId);
 
-        sendJson(ctx, String.format(
-                "{\"type\":\"BLOCK_RESPONSE\",\"x\":%d,\"y\":%d,\"z\":%d,\"hytaleBlockId\":%d,\"mcBlockId\":%d}",
-                x, y, z, hytaleBlockId, mcStateId));
+        send(new BlockResponsePacket(x, y, z, hytaleBlockId, mcStateId));
+    }
+
+    private void handleRegionQuery(ChannelHandlerContext ctx, RegionQueryPacket query) {
+        HytalePlayerSession session = HytalePlayerSession.of(ctx.channel());
+        if (session == null) { log.warn("[HytaleSession] REGION_QUERY from unauthenticated channel"); return; }
+
+        long volume = query.volume();
+        if (volume > MAX_REGION_VOLUME || !WorldStore.isValidRegion(query.getX(), query.getY(), query.getZ(),
+                query.getSizeX(), query.getSizeY(), query.getSizeZ())) {
+            log.debug("[HytaleSession] REGION_QUERY refused for {}: {}x{}x{} at ({},{},{}) (max volume {})",
+                    session.getUsername(), query.getSizeX(), query.getSizeY(), query.getSizeZ(),
+                    query.getX(), query.getY(), query.getZ(), MAX_REGION_VOLUME);
+            send(RegionResponsePacket.refused(query.getX(), query.getY(), query.getZ()));
+            return;
+        }
+
+        int count = (int) volume;
+        if (regionBlocks.length < count) {
+            regionBlocks = new int[count];
+        }
+        session.getWorld().readRegion(query.getX(), query.getY(), query.getZ(),
+                query.getSizeX(), query.getSizeY(), query.getSizeZ(), regionBlocks);
+
+        RegionResponsePacket response = RegionResponsePacket.encode(
+                query.getX(), query.getY(), query.getZ(), query.getSizeX(), query.getSizeY(), query.getSizeZ(),
+                regionBlocks, count, session.getRegistry()::toHytale);
+
+        log.debug("[HytaleSession] REGION_QUERY {} blocks → {} runs, palette {}",
+                count, response.getRuns().length / 2, response.getPalette().length);
+
+        send(response);
     }
 
-    private void handleChat(ChannelHandlerContext ctx, String json) {
-        HytalePlayerSession session = sessions.get(ctx.channel());
+    private void handleChat(ChannelHandlerContext ctx, ChatPacket chat) {
+        HytalePlayerSession session = HytalePlayerSession.of(ctx.channel());
         if (session == null) { log.warn("[HytaleSession] CHAT_MESSAGE from unauthenticated channel"); return; }
 
-        String message = extractString(json, "message");
+        String message = chat.getMessage();
         log.info("[HytaleSession] CHAT from {}: {}", session.getUsername(), message);
 
-        // Forward to MC backend (Chat Command packet 0x05 / Chat Message 0x06 in 1.20.x)
+        // Forward to MC backend as an unsigned Chat Message
         Channel mc = session.getMcChannel();
-        if (mc != null && mc.isActive() && message != null && !message.isBlank()) {
-            sendMcChatPacket(mc, message);
+        if (mc != null && mc.isActive() && session.getState() == HytalePlayerSession.PlayerState.IN_GAME
+                && message != null && !message.isBlank()) {
+            sendMcChatPacket(session.getMcWrites(), message);
         }
     }
 
-    private void handleDisconnect(ChannelHandlerContext ctx, String json) {
-        String reason = extractString(json, "reason");
-        HytalePlayerSession session = sessions.get(ctx.channel());
+    private void handleDisconnect(ChannelHandlerContext ctx, DisconnectPacket disconnect) {
+        HytalePlayerSession session = HytalePlayerSession.of(ctx.channel());
         String name = session != null ? session.getUsername() : "unknown";
-        log.info("[HytaleSession] DISCONNECT from {} — reason: {}", name, reason);
-        sessions.remove(ctx.channel());
-        if (session != null) session.close();
+        log.info("[HytaleSession] DISCONNECT from {} — reason: {}", name, disconnect.getReason());
+        if (session != null) {
+            sessions.unregister(session);
+            session.close();
+        }
         ctx.close();
     }
 
@@ -196,102 +270,45 @@ public class HytaleSessionHandler extends SimpleChannelInboundHandler<String> {
     // -------------------------------------------------------------------------
 
     /**
-     * Sends a MC "Set Player Position And Rotation" packet (0x17 in 1.20.4 play state).
-     * Framing: VarInt(len) | VarInt(0x17) | double x | double y | double z |
-     *           float yaw | float pitch | byte flags | VarInt teleportId
+     * Sends a MC "Chat Message" packet (0x05 in 1.20.3–1.20.4 play state).
+     * Framing: VarInt(len) | VarInt(0x05) | String(message) | long timestamp |
+     *           long salt | bool has_sig(false) | VarInt message count |
+     *           20-bit acknowledged set (3 bytes)
      */
-    private void sendMcPositionPacket(Channel mc, double x, double y, double z,
-                                       float yaw, float pitch, boolean onGround) {
-        io.netty.buffer.ByteBuf buf = mc.alloc().buffer(32);
+    private void sendMcChatPacket(WriteBatcher out, String message) {
+        int payload = PacketWriter.stringSize(message)
+                + 8                                     // timestamp
+                + 8                                     // salt
+                + 1                                     // has_signature
+                + 1                                     // message count
+                + 3;                                    // acknowledged
+        ByteBuf buf = PacketWriter.allocate(out.channel().alloc(), MC_CHAT_MESSAGE, payload);
         try {
-            io.netty.buffer.ByteBuf body = mc.alloc().buffer(32);
-            HytaleToMCConnector.writeVarInt(body, 0x17);
-            body.writeDouble(x);
-            body.writeDouble(y);
-            body.writeDouble(z);
-            body.writeFloat(yaw);
-            body.writeFloat(pitch);
-            body.writeByte(0x00); // flags (absolute)
-            HytaleToMCConnector.writeVarInt(body, 1); // teleport ID
-
-            HytaleToMCConnector.writeVarInt(buf, body.readableBytes());
-            buf.writeBytes(body);
-            body.release();
-
-            mc.writeAndFlush(buf.retain());
-        } finally {
-            buf.release();
-        }
-    }
-
-    /**
-     * Sends a MC "Chat Message" packet (0x06 in 1.20.4 play state).
-     * Framing: VarInt(len) | VarInt(0x06) | String(message) | long timestamp |
-     *           long salt | bool has_sig(false)
-     */
-    private void sendMcChatPacket(Channel mc, String message) {
-        io.netty.buffer.ByteBuf buf = mc.alloc().buffer();
-        try {
-            io.netty.buffer.ByteBuf body = mc.alloc().buffer();
-            HytaleToMCConnector.writeVarInt(body, 0x06);
-            HytaleToMCConnector.writeString(body, message);
-            body.writeLong(System.currentTimeMillis()); // timestamp
-            body.writeLong(0L);                         // salt
-            body.writeBoolean(false);                   // has_signature = false
-            HytaleToMCConnector.writeVarInt(body, 0);  // message count
-            // Last seen messages (20 bits / 3 bytes of zeroes — simplified)
-            body.writeBytes(new byte[3]);
-
-            HytaleToMCConnector.writeVarInt(buf, body.readableBytes());
-            buf.writeBytes(body);
-            body.release();
-
-            mc.writeAndFlush(buf.retain());
-        } finally {
+            PacketEncoder.writeString(buf, message);
+            buf.writeLong(System.currentTimeMillis());  // timestamp
+            buf.writeLong(0L);                          // salt
+            buf.writeBoolean(false);                    // has_signature = false
+            buf.writeByte(0);                           // message count
+            buf.writeMedium(0);                         // last seen messages: none
+        } catch (RuntimeException e) {
             buf.release();
+            throw e;
         }
+        out.write(buf);
     }
 
     // -------------------------------------------------------------------------
-    // JSON helpers (no external library)
+    // Outbound
     // -------------------------------------------------------------------------
 
-    /** Extract a JSON string field value. Returns null if not found. */
-    static String extractString(String json, String key) {
-        String search = "\"" + key + "\"";
-        int idx = json.indexOf(search);
-        if (idx < 0) return null;
-        int colon = json.indexOf(':', idx + search.length());
-        if (colon < 0) return null;
-        int q1 = json.indexOf('"', colon + 1);
-        if (q1 < 0) return null;
-        int q2 = json.indexOf('"', q1 + 1);
-        if (q2 < 0) return null;
-        return json.substring(q1 + 1, q2);
+    /** Queue a reply; it is flushed with the rest of the batch on read-complete. */
+    private void send(HytalePacket packet) {
+        clientWrites.write(packet);
     }
 
-    /** Extract a JSON number field as a double. Returns 0.0 if not found. */
-    static double extractDouble(String json, String key) {
-        String search = "\"" + key + "\"";
-        int idx = json.indexOf(search);
-        if (idx < 0) return 0.0;
-        int colon = json.indexOf(':', idx + search.length());
-        if (colon < 0) return 0.0;
-        int i = colon + 1;
-        while (i < json.length() && (json.charAt(i) == ' ' || json.charAt(i) == '\t')) i++;
-        int numStart = i;
-        if (i < json.length() && json.charAt(i) == '-') i++;
-        while (i < json.length() && (Character.isDigit(json.charAt(i)) || json.charAt(i) == '.')) i++;
-        if (i == numStart) return 0.0;
-        try { return Double.parseDouble(json.substring(numStart, i).trim()); }
-        catch (NumberFormatException e) { return 0.0; }
-    }
-
-    // -------------------------------------------------------------------------
-    // Outbound
-    // -------------------------------------------------------------------------
-
-    private void sendJson(ChannelHandlerContext ctx, String json) {
-        ctx.writeAndFlush(json);
+    /** Flush a final reply (and anything queued before it), then close. */
+    private void sendAndClose(ChannelHandlerContext ctx, HytalePacket packet) {
+        clientWrites.flush();
+        ctx.channel().writeAndFlush(packet).addListener(ChannelFutureListener.CLOSE);
     }
 }
@@ -0,0 +1,521 @@
+package com.proxy.network;
+
+import com.proxy.metrics.ProxyMetrics;
+import com.proxy.network.backend.Backend;
+import com.proxy.network.backend.BackendConnectionPool;
+import com.proxy.network.compression.CompressionHandlers;
+import com.proxy.network.compression.PacketDecompressor;
+import com.proxy.network.compression.ZlibContexts;
+import com.proxy.network.decoder.PacketFrameDecoder;
+import com.proxy.network.util.NbtText;
+import com.proxy.network.util.PacketDecoder;
+import com.proxy.network.util.PacketEncoder;
+import com.proxy.network.util.PacketWriter;
+import com.proxy.network.util.WriteBatcher;
+import com.proxy.protocol.HytalePacket;
+import com.proxy.protocol.packet.BlockResponsePacket;
+import com.proxy.protocol.packet.ChatPacket;
+import com.proxy.protocol.packet.DisconnectPacket;
+import com.proxy.protocol.packet.PositionPacket;
+import com.proxy.world.WorldTracker;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.TooLongFrameException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * The Paper→Hytale half of a bridged session: one stateful stage that
+ * frames, filters and translates everything the backend sends.
+ *
+ * Frames are cut straight from the cumulation buffer, across as many TCP
+ * reads as they take.  For each frame only the packet ID is peeked — after
+ * the Data Length field once compression is on, and by inflating just the
+ * first bytes when the frame is compressed — and looked up in the current
+ * phase's table of wanted IDs.  Everything Hytale has no use for
+ * (particles, sounds, entities, advancements, recipes, ...) is skipped in
+ * place: no slice, no decompression, no decode.
+ *
+ * Wanted packets are decoded and turned into Hytale messages:
+ *
+ *   Login Disconnect / Disconnect     → DISCONNECT
+ *   System, Player and Disguised Chat → CHAT_MESSAGE (plain text)
+ *   Synchronize Player Position       → PLAYER_POSITION (absolute only)
+ *   Block Update                      → BLOCK_RESPONSE
+ *
+ * World packets (chunks, block changes, dimension changes) also feed the
+ * session's {@link WorldTracker}.  Messages for the Hytale client are
+ * batched and flushed once per backend read; both channels run on the same
+ * event loop.  Keep-alives, teleport confirmations and chunk batch
+ * acknowledgements are answered so the backend keeps the player connected
+ * and streaming.
+ *
+ * Login is completed without waiting on anything of our own: Login Success
+ * is answered with Login Acknowledged, Client Information and the brand in
+ * one buffer, and Finish Configuration with its acknowledgement, each in the
+ * flush that ends the read which carried the server's packet.  Login plugin
+ * requests are declined the same way.  The session becomes IN_GAME when the
+ * backend enters PLAY; the time from connect() to that point is recorded per
+ * backend (hytalecraft_backend_join_seconds).
+ *
+ * Compression is tracked here instead of by a {@link PacketDecompressor}:
+ * Set Compression only installs the outbound compressor.
+ *
+ * Clientbound IDs are those of protocol 765 (1.20.3–1.20.4), the version
+ * the bridge logs in with.
+ *
+ * Tuning (system properties):
+ *   hytalecraft.backend.viewDistance  view distance sent in Client Information (default 8)
+ */
+public class MCToHytaleTranslator extends ByteToMessageDecoder {
+
+    private static final Logger log = LoggerFactory.getLogger(MCToHytaleTranslator.class);
+
+    /** Pipeline names of this stage and of its outbound counter */
+    public static final String NAME = "mcTranslator";
+    public static final String OUTBOUND = "mcOutbound";
+
+    private enum Phase { LOGIN, CONFIGURATION, PLAY }
+
+    // Clientbound, LOGIN
+    private static final int LOGIN_DISCONNECT       = 0x00;
+    private static final int LOGIN_SUCCESS          = 0x02;
+    private static final int SET_COMPRESSION        = 0x03;
+    private static final int LOGIN_PLUGIN_REQUEST   = 0x04;
+    // Clientbound, CONFIGURATION
+    private static final int CONFIG_DISCONNECT      = 0x01;
+    private static final int FINISH_CONFIGURATION   = 0x02;
+    private static final int CONFIG_KEEP_ALIVE      = 0x03;
+    private static final int CONFIG_PING            = 0x04;
+    // Clientbound, PLAY (world packets are listed in WorldTracker)
+    private static final int CHUNK_BATCH_FINISHED   = 0x0C;
+    private static final int DISCONNECT             = 0x1B;
+    private static final int DISGUISED_CHAT         = 0x1C;
+    private static final int KEEP_ALIVE             = 0x24;
+    private static final int PLAYER_CHAT            = 0x37;
+    private static final int SYNC_POSITION          = 0x3E;
+    private static final int SYSTEM_CHAT            = 0x69;
+
+    // Serverbound replies
+    private static final int SB_LOGIN_PLUGIN_RESPONSE = 0x02;
+    private static final int SB_LOGIN_ACKNOWLEDGED  = 0x03;
+    private static final int SB_CLIENT_INFORMATION  = 0x00;
+    private static final int SB_CONFIG_PLUGIN_MESSAGE = 0x01;
+    private static final int SB_FINISH_CONFIGURATION_ACK = 0x02;
+    private static final int SB_CONFIG_PONG         = 0x04;
+    private static final int SB_CONFIRM_TELEPORT    = 0x00;
+    private static final int SB_CHUNK_BATCH_RECEIVED = 0x07;
+    private static final int SB_KEEP_ALIVE          = 0x15;
+    private static final int SB_CONFIG_KEEP_ALIVE   = 0x03;
+
+    /** Chunks per tick reported in Chunk Batch Received — the most vanilla accepts */
+    private static final float CHUNKS_PER_TICK = 64.0f;
+
+    private static final int VIEW_DISTANCE =
+            Math.max(2, Math.min(Integer.getInteger("hytalecraft.backend.viewDistance", 8), 32));
+    private static final String LOCALE = "en_us";
+    private static final String BRAND_CHANNEL = "minecraft:brand";
+    private static final String BRAND = "hytalecraft";
+
+    private static final int MAX_CHAT_BYTES = 4 * 256;
+    private static final int MAX_JSON_BYTES = 262144;
+
+    /** Wanted packet IDs by phase ordinal; anything else is dropped before decoding */
+    private static final boolean[][] WANTED = new boolean[Phase.values().length][0x80];
+    static {
+        want(Phase.LOGIN, LOGIN_DISCONNECT, LOGIN_SUCCESS, SET_COMPRESSION, LOGIN_PLUGIN_REQUEST);
+        want(Phase.CONFIGURATION, CONFIG_DISCONNECT, FINISH_CONFIGURATION, CONFIG_KEEP_ALIVE, CONFIG_PING);
+        want(Phase.PLAY,
+                WorldTracker.LOGIN, WorldTracker.RESPAWN, WorldTracker.CHUNK_DATA, WorldTracker.UNLOAD_CHUNK,
+                WorldTracker.BLOCK_UPDATE, WorldTracker.UPDATE_SECTION_BLOCKS,
+                CHUNK_BATCH_FINISHED, DISCONNECT, DISGUISED_CHAT, KEEP_ALIVE, PLAYER_CHAT,
+                SYNC_POSITION, SYSTEM_CHAT);
+    }
+
+    private static void want(Phase phase, int... ids) {
+        for (int id : ids) WANTED[phase.ordinal()][id] = true;
+    }
+
+    private final HytalePlayerSession session;
+    private final Backend backend;
+    /** System.nanoTime() when the backend connection was requested */
+    private final long connectStart;
+    /** Translated messages for the Hytale client, flushed on read-complete */
+    private final WriteBatcher hytaleWrites;
+
+    private Phase phase = Phase.LOGIN;
+    private boolean[] wanted = WANTED[Phase.LOGIN.ordinal()];
+    /** -1 while compression is off */
+    private int compressionThreshold = -1;
+    /** Replies written to the backend since the last flush */
+    private boolean repliesPending;
+
+    MCToHytaleTranslator(HytalePlayerSession session, Backend backend, long connectStart) {
+        this.session = session;
+        this.backend = backend;
+        this.connectStart = connectStart;
+        this.hytaleWrites = new WriteBatcher(session.getHytaleChannel());
+        session.getWorld().setBackend(backend.name());
+    }
+
+    /**
+     * Put this stage on a backend channel: appended to a fresh pipeline, or
+     * in place of the pool's handler and frame decoder on a pooled one (any
+     * bytes the frame decoder still holds are handed on to this stage).
+     */
+    void install(ChannelPipeline pipeline) {
+        if (pipeline.get(BackendConnectionPool.POOL_HANDLER) != null) {
+            pipeline.replace(BackendConnectionPool.POOL_HANDLER, NAME, this);
+            pipeline.addBefore(NAME, OUTBOUND, new Outbound());
+            if (pipeline.get(PacketFrameDecoder.class) != null) {
+                pipeline.remove(PacketFrameDecoder.class);
+            }
+        } else {
+            pipeline.addLast(OUTBOUND, new Outbound());
+            pipeline.addLast(NAME, this);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Framing and filtering
+    // -------------------------------------------------------------------------
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+        while (in.isReadable()) {
+            int start = in.readerIndex();
+            int length = readFrameLength(in);
+            if (length > PacketFrameDecoder.DEFAULT_MAX_FRAME_LENGTH) {
+                in.skipBytes(in.readableBytes());
+                throw new TooLongFrameException("Frame length " + length + " exceeds maximum "
+                        + PacketFrameDecoder.DEFAULT_MAX_FRAME_LENGTH);
+            }
+            if (length == -1 || in.readableBytes() < length) {
+                in.readerIndex(start);
+                return;
+            }
+            int body = in.readerIndex();
+            in.skipBytes(length);
+            if (length > 0) {
+                frame(ctx, in, body, length);
+            }
+        }
+    }
+
+    /** One frame at {@code in[index, index + length)}; the reader index is already past it. */
+    private void frame(ChannelHandlerContext ctx, ByteBuf in, int index, int length) {
+        int end = index + length;
+        int dataLength = 0;
+        if (compressionThreshold >= 0) {
+            dataLength = PacketDecoder.getVarInt(in, index);
+            index += PacketDecoder.varIntLength(in, index);
+            if (dataLength < 0 || dataLength > PacketDecompressor.MAX_DECOMPRESSED_LENGTH) {
+                throw new CorruptedFrameException("Bad compressed packet length " + dataLength);
+            }
+        }
+
+        int packetId = dataLength == 0
+                ? PacketDecoder.getVarInt(in, index)
+                : ZlibContexts.peekPacketId(in, index, end - index);
+        ProxyMetrics.MC_IN.record(phase, packetId, length);
+        if (packetId < 0 || packetId >= wanted.length || !wanted[packetId]) {
+            return;
+        }
+
+        ByteBuf packet = dataLength == 0
+                ? in.slice(index, end - index)
+                : ZlibContexts.inflate(ctx.alloc(), in, index, end - index, dataLength);
+        try {
+            PacketDecoder.readVarInt(packet); // packet ID
+            dispatch(ctx, packetId, packet);
+        } catch (RuntimeException e) {
+            // A packet we cannot decode costs us the translation, not the connection
+            log.debug("[MCToHytale] Could not decode {} packet 0x{} for {}: {}",
+                    phase, Integer.toHexString(packetId), session.getUsername(), e.getMessage());
+        } finally {
+            if (dataLength != 0) packet.release();
+        }
+    }
+
+    /** Frame length VarInt, or -1 if it is not complete yet. */
+    private static int readFrameLength(ByteBuf in) {
+        int value = 0;
+        for (int shift = 0; shift < 21; shift += 7) {
+            if (!in.isReadable()) return -1;
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new CorruptedFrameException("Frame length VarInt too long");
+    }
+
+    // -------------------------------------------------------------------------
+    // Translation
+    // -------------------------------------------------------------------------
+
+    private void dispatch(ChannelHandlerContext ctx, int packetId, ByteBuf buf) {
+        switch (phase) {
+            case LOGIN -> onLogin(ctx, packetId, buf);
+            case CONFIGURATION -> onConfiguration(ctx, packetId, buf);
+            case PLAY -> onPlay(ctx, packetId, buf);
+        }
+    }
+
+    private void onLogin(ChannelHandlerContext ctx, int packetId, ByteBuf buf) {
+        switch (packetId) {
+            case SET_COMPRESSION -> {
+                compressionThreshold = PacketDecoder.readVarInt(buf);
+                CompressionHandlers.enableOutbound(ctx.pipeline(), compressionThreshold);
+                log.info("[MCToHytale] Compression threshold {} for {}", compressionThreshold, session.getUsername());
+            }
+            case LOGIN_SUCCESS -> {
+                reply(ctx, emptyPacket(ctx, SB_LOGIN_ACKNOWLEDGED));
+                setPhase(Phase.CONFIGURATION);
+                reply(ctx, configurationStart(ctx));
+                backend.loginCompleted(connectStart);
+                log.info("[MCToHytale] Login success for {}", session.getUsername());
+            }
+            case LOGIN_PLUGIN_REQUEST -> {
+                // Not understood: message ID, successful = false
+                int messageId = PacketDecoder.readVarInt(buf);
+                ByteBuf reply = PacketWriter.allocate(ctx.alloc(), SB_LOGIN_PLUGIN_RESPONSE,
+                        PacketEncoder.varIntSize(messageId) + 1);
+                PacketEncoder.writeVarInt(reply, messageId);
+                reply.writeBoolean(false);
+                reply(ctx, reply);
+            }
+            case LOGIN_DISCONNECT -> disconnected(PacketDecoder.readString(buf, MAX_JSON_BYTES));
+            default -> { }
+        }
+    }
+
+    private void onConfiguration(ChannelHandlerContext ctx, int packetId, ByteBuf buf) {
+        switch (packetId) {
+            case FINISH_CONFIGURATION -> {
+                reply(ctx, emptyPacket(ctx, SB_FINISH_CONFIGURATION_ACK));
+                setPhase(Phase.PLAY);
+                session.setState(HytalePlayerSession.PlayerState.IN_GAME);
+                ProxyMetrics.LOGIN_TO_IN_GAME.observeSince(session.getLoginNanos());
+                backend.joinCompleted(connectStart);
+                log.info("[MCToHytale] {} is in game on {}", session.getUsername(), backend);
+            }
+            case CONFIG_KEEP_ALIVE -> replyLong(ctx, SB_CONFIG_KEEP_ALIVE, buf.readLong());
+            case CONFIG_PING -> {
+                ByteBuf reply = PacketWriter.allocate(ctx.alloc(), SB_CONFIG_PONG, 4);
+                reply.writeInt(buf.readInt());
+                reply(ctx, reply);
+            }
+            case CONFIG_DISCONNECT -> disconnected(NbtText.read(buf));
+            default -> { }
+        }
+    }
+
+    private void onPlay(ChannelHandlerContext ctx, int packetId, ByteBuf buf) {
+        switch (packetId) {
+            case KEEP_ALIVE -> replyLong(ctx, SB_KEEP_ALIVE, buf.readLong());
+            case SYSTEM_CHAT -> {
+                String text = NbtText.read(buf);
+                boolean overlay = buf.readBoolean();
+                if (!overlay && !text.isEmpty()) toHytale(new ChatPacket(text));
+            }
+            case PLAYER_CHAT -> onPlayerChat(buf);
+            case DISGUISED_CHAT -> {
+                String text = NbtText.read(buf);
+                PacketDecoder.readVarInt(buf);                   // chat type
+                toHytale(new ChatPacket("<" + NbtText.read(buf) + "> " + text));
+            }
+            case SYNC_POSITION -> onSyncPosition(ctx, buf);
+            case CHUNK_BATCH_FINISHED -> replyChunkBatchReceived(ctx);
+            case DISCONNECT -> disconnected(NbtText.read(buf));
+            case WorldTracker.BLOCK_UPDATE -> {
+                long position = buf.getLong(buf.readerIndex());
+                int state = PacketDecoder.getVarInt(buf, buf.readerIndex() + 8);
+                session.getWorld().handle(packetId, buf);
+                int x = (int) (position >> 38);
+                int y = (int) (position << 52 >> 52);
+                int z = (int) (position << 26 >> 38);
+                toHytale(new BlockResponsePacket(x, y, z, session.getRegistry().toHytale(state), state));
+            }
+            default -> session.getWorld().handle(packetId, buf);
+        }
+    }
+
+    /** Player Chat Message: the plain (or unsigned replacement) body, prefixed with the sender's name. */
+    private void onPlayerChat(ByteBuf buf) {
+        buf.skipBytes(16);                                       // sender UUID
+        PacketDecoder.readVarInt(buf);                           // index
+        if (buf.readBoolean()) buf.skipBytes(256);               // signature
+        String message = PacketDecoder.readString(buf, MAX_CHAT_BYTES);
+        buf.skipBytes(16);                                       // timestamp, salt
+        int previous = PacketDecoder.readVarInt(buf);
+        for (int i = 0; i < previous; i++) {
+            if (PacketDecoder.readVarInt(buf) == 0) buf.skipBytes(256);
+        }
+        if (buf.readBoolean()) message = NbtText.read(buf);     // unsigned content
+        if (PacketDecoder.readVarInt(buf) == 2) {                // filter type: partially filtered
+            buf.skipBytes(PacketDecoder.readVarInt(buf) * 8);
+        }
+        PacketDecoder.readVarInt(buf);                           // chat type
+        toHytale(new ChatPacket("<" + NbtText.read(buf) + "> " + message));
+    }
+
+    /** Synchronize Player Position: confirmed always, forwarded when it is fully absolute. */
+    private void onSyncPosition(ChannelHandlerContext ctx, ByteBuf buf) {
+        double x = buf.readDouble();
+        double y = buf.readDouble();
+        double z = buf.readDouble();
+        float yaw = buf.readFloat();
+        float pitch = buf.readFloat();
+        int relative = buf.readByte();
+        int teleportId = PacketDecoder.readVarInt(buf);
+
+        ByteBuf reply = PacketWriter.allocate(ctx.alloc(), SB_CONFIRM_TELEPORT, PacketEncoder.varIntSize(teleportId));
+        PacketEncoder.writeVarInt(reply, teleportId);
+        reply(ctx, reply);
+
+        if (relative == 0) {
+            toHytale(new PositionPacket(x, y, z, yaw, pitch, false));
+        } else {
+            log.debug("[MCToHytale] Relative teleport (flags {}) for {} not forwarded", relative, session.getUsername());
+        }
+    }
+
+    private void disconnected(String reason) {
+        log.info("[MCToHytale] {} disconnected by {}: {}", session.getUsername(), backend, reason);
+        toHytale(new DisconnectPacket(reason));
+    }
+
+    private void setPhase(Phase phase) {
+        this.phase = phase;
+        this.wanted = WANTED[phase.ordinal()];
+    }
+
+    // -------------------------------------------------------------------------
+    // Output
+    // -------------------------------------------------------------------------
+
+    private void toHytale(HytalePacket packet) {
+        if (session.getHytaleChannel().isActive()) {
+            hytaleWrites.write(packet);
+        }
+    }
+
+    /** A packet that is only its ID. */
+    private static ByteBuf emptyPacket(ChannelHandlerContext ctx, int packetId) {
+        return PacketWriter.allocate(ctx.alloc(), packetId, 0);
+    }
+
+    /**
+     * What a vanilla client sends on entering CONFIGURATION: Client
+     * Information and its brand, two frames in one buffer sized up front.
+     */
+    private static ByteBuf configurationStart(ChannelHandlerContext ctx) {
+        int infoPayload = PacketWriter.stringSize(LOCALE) + 1 + 1 + 1 + 1 + 1 + 1 + 1;
+        int brandPayload = PacketWriter.stringSize(BRAND_CHANNEL) + PacketWriter.stringSize(BRAND);
+        ByteBuf buf = ctx.alloc().directBuffer(PacketWriter.frameSize(SB_CLIENT_INFORMATION, infoPayload)
+                + PacketWriter.frameSize(SB_CONFIG_PLUGIN_MESSAGE, brandPayload));
+
+        PacketWriter.prefix(buf, SB_CLIENT_INFORMATION, infoPayload);
+        PacketEncoder.writeString(buf, LOCALE);
+        buf.writeByte(VIEW_DISTANCE);
+        buf.writeByte(0);                                 // chat mode: enabled
+        buf.writeBoolean(true);                           // chat colors
+        buf.writeByte(0x7F);                              // displayed skin parts: all
+        buf.writeByte(1);                                 // main hand: right
+        buf.writeBoolean(false);                          // text filtering
+        buf.writeBoolean(true);                           // allow server listings
+
+        PacketWriter.prefix(buf, SB_CONFIG_PLUGIN_MESSAGE, brandPayload);
+        PacketEncoder.writeString(buf, BRAND_CHANNEL);
+        PacketEncoder.writeString(buf, BRAND);
+        return buf;
+    }
+
+    /** A keep-alive style reply: packet ID then one long. */
+    private void replyLong(ChannelHandlerContext ctx, int packetId, long value) {
+        ByteBuf reply = PacketWriter.allocate(ctx.alloc(), packetId, 8);
+        reply.writeLong(value);
+        reply(ctx, reply);
+    }
+
+    private void replyChunkBatchReceived(ChannelHandlerContext ctx) {
+        ByteBuf reply = PacketWriter.allocate(ctx.alloc(), SB_CHUNK_BATCH_RECEIVED, 4);
+        reply.writeFloat(CHUNKS_PER_TICK);
+        reply(ctx, reply);
+    }
+
+    /** Queue a framed reply to the backend; it leaves with the read-complete flush. */
+    private void reply(ChannelHandlerContext ctx, ByteBuf frame) {
+        ctx.write(frame, ctx.voidPromise());
+        repliesPending = true;
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+        hytaleWrites.flush();
+        if (repliesPending) {
+            repliesPending = false;
+            ctx.flush();
+        }
+        super.channelReadComplete(ctx);
+    }
+
+    // -------------------------------------------------------------------------
+    // Lifecycle
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        super.channelInactive(ctx);
+        log.info("[MCToHytale] MC channel closed for {}", session.getUsername());
+        hytaleWrites.flush();
+        session.getWorld().releaseAll();
+        session.close();
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        log.debug("[MCToHytale] MC channel error for {}: {}", session.getUsername(), cause.getMessage());
+        ctx.close();
+    }
+
+    // -------------------------------------------------------------------------
+    // Outbound counting
+    // -------------------------------------------------------------------------
+
+    /**
+     * Counts framed packets written to the backend in {@link ProxyMetrics}
+     * under the translator's current phase.  Sits in front of the
+     * translator so its replies are counted too.
+     */
+    private final class Outbound extends ChannelOutboundHandlerAdapter {
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            if (msg instanceof ByteBuf frame && frame.isReadable()) {
+                // Writers hand us whole frames, possibly several back to back:
+                // VarInt length, then VarInt packet ID
+                int start = frame.readerIndex();
+                try {
+                    while (frame.isReadable()) {
+                        int length = PacketDecoder.readVarInt(frame);
+                        int next = frame.readerIndex() + length;
+                        ProxyMetrics.MC_OUT.record(phase, PacketDecoder.readVarInt(frame), length);
+                        frame.readerIndex(next);
+                    }
+                } catch (RuntimeException ignored) {
+                    // Not a frame we can parse; it is forwarded unchanged and simply not counted
+                } finally {
+                    frame.readerIndex(start);
+                }
+            }
+            ctx.write(msg, promise);
+        }
+    }
+}
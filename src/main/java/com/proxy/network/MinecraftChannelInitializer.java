@@ -3,27 +3,64 @@ package com.proxy.network;
 import com.proxy.network.decoder.PacketFrameDecoder;
 import com.proxy.network.decoder.MinecraftPacketDecoder;
 import com.proxy.network.handler.MinecraftProxyHandler;
+import com.proxy.network.packet.PacketType;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.socket.SocketChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
 
 /**
  * Channel initializer for Minecraft TCP connections.
  * Sets up the pipeline: FrameDecoder -> PacketDecoder -> Handler
+ *
+ * Frames keep their length prefix and are forwarded to the backend
+ * byte-for-byte; only the packet types listed in hytalecraft.mc.decode are
+ * decoded on the side for inspection.  Keep LOGIN_START in the decode set:
+ * its UUID is what routes the player to a backend (see
+ * MinecraftProxyHandler).
+ *
+ * Tuning (system properties):
+ *   hytalecraft.mc.decode       PacketTypes to decode, comma-separated
+ *                               (default HANDSHAKE,LOGIN_START)
  */
 public class MinecraftChannelInitializer extends ChannelInitializer<SocketChannel> {
 
+    private static final Logger log = LoggerFactory.getLogger(MinecraftChannelInitializer.class);
+
+    private static final Set<PacketType> DECODE =
+            parseTypes(System.getProperty("hytalecraft.mc.decode", "HANDSHAKE,LOGIN_START"));
+
     @Override
     protected void initChannel(SocketChannel ch) throws Exception {
         ChannelPipeline pipeline = ch.pipeline();
-        
-        // First, decode the variable-length packet frames
-        pipeline.addLast("frameDecoder", new PacketFrameDecoder());
-        
-        // Then, decode the Minecraft protocol packets
-        pipeline.addLast("packetDecoder", new MinecraftPacketDecoder());
-        
+
+        // Keep the length prefix so frames can be forwarded untouched
+        pipeline.addLast("frameDecoder", new PacketFrameDecoder(
+                PacketFrameDecoder.DEFAULT_MAX_FRAME_LENGTH, true, false));
+
+        // Decode the inspected packet types on the side
+        pipeline.addLast("packetDecoder", new MinecraftPacketDecoder(DECODE));
+
         // Finally, handle the decoded packets
         pipeline.addLast("handler", new MinecraftProxyHandler());
     }
+
+    private static Set<PacketType> parseTypes(String spec) {
+        Set<PacketType> types = EnumSet.noneOf(PacketType.class);
+        for (String name : spec.split(",")) {
+            name = name.trim();
+            if (name.isEmpty()) continue;
+            try {
+                types.add(PacketType.valueOf(name.toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                log.warn("[MCPipeline] Ignoring unknown packet type '{}' in hytalecraft.mc.decode", name);
+            }
+        }
+        return types;
+    }
 }
@@ -0,0 +1,134 @@
+package com.proxy.network;
+
+import com.proxy.network.util.PacketWriter;
+import com.proxy.network.util.WriteBatcher;
+import com.proxy.protocol.packet.PositionPacket;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces a session's PLAYER_POSITION frames into at most one MC movement
+ * packet per tick.
+ *
+ * Only the latest position and rotation are kept.  On each tick the pending
+ * update is compared with what was last sent and the smallest serverbound
+ * packet that carries the change is written (protocol 765):
+ *
+ *   0x17 Set Player Position               x, y, z, onGround
+ *   0x18 Set Player Position And Rotation  x, y, z, yaw, pitch, onGround
+ *   0x19 Set Player Rotation               yaw, pitch, onGround
+ *   0x1A Set Player On Ground              onGround
+ *
+ * Nothing is sent if nothing changed.  While the backend channel is not
+ * writable the pending update simply keeps being overwritten, so a stalled
+ * backend never accumulates stale positions.
+ *
+ * Runs entirely on the Hytale channel's event loop (which also owns the
+ * backend channel).
+ *
+ * Tuning (system properties):
+ *   hytalecraft.movement.tickMillis  flush interval in ms (default 50 = 20 TPS)
+ */
+public final class MovementAggregator {
+
+    private static final long TICK_MILLIS = Long.getLong("hytalecraft.movement.tickMillis", 50L);
+
+    private static final int SET_POSITION              = 0x17;
+    private static final int SET_POSITION_AND_ROTATION = 0x18;
+    private static final int SET_ROTATION              = 0x19;
+    private static final int SET_ON_GROUND             = 0x1A;
+
+    private final HytalePlayerSession session;
+    private ScheduledFuture<?> tick;
+
+    // Latest update from the client
+    private double x, y, z;
+    private float yaw, pitch;
+    private boolean onGround;
+    private boolean pending;
+
+    // Last state sent to the backend
+    private double sentX, sentY, sentZ;
+    private float sentYaw, sentPitch;
+    private boolean sentOnGround;
+    private boolean sentAny;
+
+    public MovementAggregator(HytalePlayerSession session) {
+        this.session = session;
+    }
+
+    /** Start ticking on the session's event loop. */
+    public void start() {
+        if (tick == null) {
+            tick = session.getHytaleChannel().eventLoop()
+                    .scheduleAtFixedRate(this::flush, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** Stop ticking; the pending update (if any) is dropped. Safe from any thread. */
+    public void stop() {
+        ScheduledFuture<?> t = tick;
+        if (t != null) {
+            t.cancel(false);
+        }
+    }
+
+    /** Record the latest client position, replacing any update not yet sent. */
+    public void update(PositionPacket p) {
+        x = p.getX();
+        y = p.getY();
+        z = p.getZ();
+        yaw = p.getYaw();
+        pitch = p.getPitch();
+        onGround = p.isOnGround();
+        pending = true;
+    }
+
+    /** One tick: send the pending update if the backend can take it. */
+    void flush() {
+        if (!pending) return;
+        WriteBatcher out = session.getMcWrites();
+        if (out == null || session.getState() != HytalePlayerSession.PlayerState.IN_GAME) return;
+        Channel mc = out.channel();
+        if (!mc.isActive() || !mc.isWritable()) return; // keep only the latest until it drains
+
+        pending = false;
+        boolean moved  = !sentAny || x != sentX || y != sentY || z != sentZ;
+        boolean turned = !sentAny || yaw != sentYaw || pitch != sentPitch;
+        if (!moved && !turned && onGround == sentOnGround) return;
+
+        out.write(encode(mc, moved, turned));
+        out.flush();
+
+        sentX = x;
+        sentY = y;
+        sentZ = z;
+        sentYaw = yaw;
+        sentPitch = pitch;
+        sentOnGround = onGround;
+        sentAny = true;
+    }
+
+    /** Fixed layout: sized up front and written in one pass. */
+    private ByteBuf encode(Channel mc, boolean moved, boolean turned) {
+        int id = moved ? (turned ? SET_POSITION_AND_ROTATION : SET_POSITION)
+                       : (turned ? SET_ROTATION : SET_ON_GROUND);
+        int payload = (moved ? 24 : 0) + (turned ? 8 : 0) + 1;
+
+        ByteBuf buf = PacketWriter.allocate(mc.alloc(), id, payload);
+        if (moved) {
+            buf.writeDouble(x);
+            buf.writeDouble(y);
+            buf.writeDouble(z);
+        }
+        if (turned) {
+            buf.writeFloat(yaw);
+            buf.writeFloat(pitch);
+        }
+        buf.writeBoolean(onGround);
+        return buf;
+    }
+}
@@ -1,16 +1,14 @@
 package com.proxy.network;
 
-import com.proxy.network.handler.MinecraftProxyHandler;
 import com.proxy.network.handler.HytaleHandler; // Import your new handler
+import com.proxy.network.transport.EventLoops;
+import com.proxy.network.transport.Transport;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
-import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.channel.socket.DatagramChannel;
 
 public class ProxyServer {
     private final int mcPort;
@@ -21,39 +19,35 @@ public class ProxyServer {
     }
 
     public void start() throws Exception {
-        // Boss handles incoming connections, Workers handle the data
-        final EventLoopGroup bossGroup = new NioEventLoopGroup(1);
-        final EventLoopGroup workerGroup = new NioEventLoopGroup();
+        // Boss handles incoming connections, Workers handle the data (shared topology)
+        final EventLoopGroup bossGroup = EventLoops.boss();
+        final EventLoopGroup workerGroup = EventLoops.worker();
+        final Transport transport = Transport.best();
 
         // Shutdown hook — closes both bootstraps cleanly on JVM exit
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             System.out.println(">>> [ProxyServer] Shutdown hook triggered — stopping event loops...");
-            workerGroup.shutdownGracefully();
-            bossGroup.shutdownGracefully();
+            EventLoops.shutdownGracefully();
             System.out.println(">>> [ProxyServer] Event loops stopped.");
         }, "proxy-shutdown"));
 
         try {
             // 1. MINECRAFT (TCP) SETUP
-            // This is the bridge you already built that connects to Paper
+            // This is the bridge you already built that connects to Paper.
+            // Framed pass-through pipeline, so Login Start's UUID routes the player
             ServerBootstrap mcBootstrap = new ServerBootstrap();
             mcBootstrap.group(bossGroup, workerGroup)
-             .channel(NioServerSocketChannel.class)
-             .childHandler(new ChannelInitializer<SocketChannel>() {
-                 @Override
-                 public void initChannel(SocketChannel ch) {
-                     ch.pipeline().addLast(new MinecraftProxyHandler());
-                 }
-             });
+             .channel(transport.serverSocketChannelClass())
+             .childHandler(new MinecraftChannelInitializer());
 
             // 2. HYTALE (UDP) SETUP
             // This is the new "Hytale lane" using your new HytaleHandler
             Bootstrap hytaleBootstrap = new Bootstrap();
             hytaleBootstrap.group(workerGroup)
-             .channel(NioDatagramChannel.class)
-             .handler(new ChannelInitializer<NioDatagramChannel>() {
+             .channel(transport.datagramChannelClass())
+             .handler(new ChannelInitializer<DatagramChannel>() {
                  @Override
-                 public void initChannel(NioDatagramChannel ch) {
+                 public void initChannel(DatagramChannel ch) {
                      ch.pipeline().addLast(new HytaleHandler());
                  }
              });
@@ -61,6 +55,7 @@ public class ProxyServer {
             System.out.println("==========================================");
             System.out.println("   CodeNinja Proxy - System Starting      ");
             System.out.println("==========================================");
+            System.out.println(">>> [NET] Transport: " + transport);
             System.out.println(">>> [TCP] Minecraft listening on: " + mcPort);
             System.out.println(">>> [UDP] Hytale listening on: " + hytalePort);
             System.out.println("==========================================");
@@ -74,8 +69,7 @@ public class ProxyServer {
             hytaleFuture.channel().closeFuture().sync();
         } finally {
             // Graceful shutdown (also reached if shutdown hook hasn't fired yet)
-            workerGroup.shutdownGracefully();
-            bossGroup.shutdownGracefully();
+            EventLoops.shutdownGracefully();
         }
     }
 
@@ -0,0 +1,160 @@
+package com.proxy.network;
+
+import io.netty.channel.EventLoop;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Every logged-in HytaleCraft session, for admin commands and broadcasts.
+ *
+ * The per-packet path never comes here: a session is bound to its Hytale
+ * channel under {@link HytalePlayerSession#KEY} when it is registered, and
+ * the session handler reads it back from the channel.  This registry adds
+ * what the channel cannot answer:
+ *
+ *   - lookup by UUID and by username (case-insensitive), both O(1);
+ *   - iteration over all sessions, grouped into one stripe per event loop,
+ *     so work for a set of players can be handed to each loop once instead
+ *     of once per player.
+ *
+ * Iteration walks the live maps — no snapshot is copied — and is weakly
+ * consistent: sessions registered or removed while it runs may or may not
+ * be seen, and each is seen at most once.
+ *
+ * A session is added and removed on its own channel's event loop, so each
+ * stripe has a single writer — except when {@link #replace} displaces a
+ * session from another loop, which the concurrent sets tolerate.  Lookups and iteration are safe from any
+ * thread.  Stripes are kept for the life of the registry (one per event
+ * loop that has ever hosted a session).
+ */
+public final class SessionRegistry {
+
+    /** The sessions whose Hytale channel is on one event loop. */
+    public static final class Stripe {
+        private final EventLoop loop;
+        private final Set<HytalePlayerSession> sessions = ConcurrentHashMap.newKeySet();
+
+        private Stripe(EventLoop loop) {
+            this.loop = loop;
+        }
+
+        public EventLoop loop() { return loop; }
+
+        public int size() { return sessions.size(); }
+
+        public boolean isEmpty() { return sessions.isEmpty(); }
+
+        public void forEach(Consumer<? super HytalePlayerSession> action) {
+            sessions.forEach(action);
+        }
+    }
+
+    private final ConcurrentHashMap<UUID, HytalePlayerSession> byUuid = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, HytalePlayerSession> byName = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<EventLoop, Stripe> stripes = new ConcurrentHashMap<>();
+
+    // -------------------------------------------------------------------------
+    // Membership
+    // -------------------------------------------------------------------------
+
+    /**
+     * Index {@code session} and bind it to its channel.  Returns false — and
+     * changes nothing — if a session with the same UUID or username is
+     * already registered.  Call on the session's event loop.
+     */
+    public boolean register(HytalePlayerSession session) {
+        if (byUuid.putIfAbsent(session.getUuid(), session) != null) {
+            return false;
+        }
+        if (byName.putIfAbsent(nameKey(session.getUsername()), session) != null) {
+            byUuid.remove(session.getUuid(), session);
+            return false;
+        }
+        stripe(session.getHytaleChannel().eventLoop()).sessions.add(session);
+        session.getHytaleChannel().attr(HytalePlayerSession.KEY).set(session);
+        return true;
+    }
+
+    /**
+     * Register {@code session}, first unregistering whatever session holds
+     * its username (and with it its UUID, which is derived from the name).
+     * Returns the displaced session, or null; the caller closes it — once
+     * unregistered it is no longer bound to its channel, so channelInactive
+     * will not clean it up.  Call on {@code session}'s event loop.
+     */
+    public HytalePlayerSession replace(HytalePlayerSession session) {
+        HytalePlayerSession displaced = null;
+        while (!register(session)) {
+            HytalePlayerSession old = byName.get(nameKey(session.getUsername()));
+            if (old == null) old = byUuid.get(session.getUuid());
+            if (old != null) {
+                unregister(old);
+                displaced = old;
+            }
+        }
+        return displaced;
+    }
+
+    /** Undo {@link #register}; a no-op for a session that is not registered.  Call on its event loop. */
+    public void unregister(HytalePlayerSession session) {
+        session.getHytaleChannel().attr(HytalePlayerSession.KEY).compareAndSet(session, null);
+        byUuid.remove(session.getUuid(), session);
+        byName.remove(nameKey(session.getUsername()), session);
+        Stripe stripe = stripes.get(session.getHytaleChannel().eventLoop());
+        if (stripe != null) {
+            stripe.sessions.remove(session);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Lookup
+    // -------------------------------------------------------------------------
+
+    public HytalePlayerSession byUuid(UUID uuid) {
+        return byUuid.get(uuid);
+    }
+
+    /** Case-insensitive. */
+    public HytalePlayerSession byName(String username) {
+        return byName.get(nameKey(username));
+    }
+
+    public int size() {
+        return byUuid.size();
+    }
+
+    // -------------------------------------------------------------------------
+    // Iteration
+    // -------------------------------------------------------------------------
+
+    /** Every registered session, stripe by stripe. */
+    public void forEach(Consumer<? super HytalePlayerSession> action) {
+        for (Stripe stripe : stripes.values()) {
+            stripe.forEach(action);
+        }
+    }
+
+    /** Live, read-only view of the per-event-loop stripes. */
+    public Collection<Stripe> stripes() {
+        return Collections.unmodifiableCollection(stripes.values());
+    }
+
+    // -------------------------------------------------------------------------
+    // Helpers
+    // -------------------------------------------------------------------------
+
+    private Stripe stripe(EventLoop loop) {
+        Stripe stripe = stripes.get(loop);
+        return stripe != null ? stripe : stripes.computeIfAbsent(loop, Stripe::new);
+    }
+
+    private static String nameKey(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+}
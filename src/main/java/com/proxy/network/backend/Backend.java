@@ -0,0 +1,159 @@
+package com.proxy.network.backend;
+
+import com.proxy.metrics.Counter;
+import com.proxy.metrics.Histogram;
+import com.proxy.metrics.MetricsRegistry;
+import io.netty.channel.Channel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One Paper backend: its address and weight, its connection pool, and what
+ * the proxy has observed about it.
+ *
+ * Health is passive.  Every connect attempt reports back; after
+ * failureThreshold consecutive failures the backend is skipped by the
+ * {@link BackendRegistry} for retryMs, after which the next attempt is let
+ * through — a success makes it available again, a failure starts another
+ * retry period.  Connect, login and join (connect to PLAY) latencies are
+ * recorded per backend.
+ */
+public final class Backend {
+
+    private static final Logger log = LoggerFactory.getLogger(Backend.class);
+
+    private static final int FAILURE_THRESHOLD = Integer.getInteger("hytalecraft.backends.failureThreshold", 3);
+    private static final long RETRY_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Long.getLong("hytalecraft.backends.retryMs", 10_000));
+
+    private final String name;
+    private final String host;
+    private final int port;
+    private final int weight;
+    private final BackendConnectionPool pool;
+
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    /** System.nanoTime() until which the backend is skipped; 0 while healthy */
+    private volatile long downUntil;
+
+    private final Histogram connectTime;
+    private final Counter connectFailures;
+    private final Counter pooledConnects;
+    private final Histogram loginTime;
+    private final Histogram joinTime;
+
+    Backend(String name, String host, int port, int weight, int poolProtocol) {
+        this.name = name;
+        this.host = host;
+        this.port = port;
+        this.weight = weight;
+        this.pool = new BackendConnectionPool(name, host, port, poolProtocol);
+
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        String labels = MetricsRegistry.labels("backend", name);
+        this.connectTime = registry.histogram("hytalecraft_backend_connect_seconds",
+                "Time to open the TCP connection to a Paper backend", labels,
+                Histogram.millis(0.5, 1, 2.5, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000));
+        this.connectFailures = registry.counter("hytalecraft_backend_connect_failures_total",
+                "Failed connection attempts to a Paper backend", labels);
+        this.pooledConnects = registry.counter("hytalecraft_backend_pooled_connects_total",
+                "Player connections served from the pre-handshaken pool", labels);
+        this.loginTime = registry.histogram("hytalecraft_backend_login_seconds",
+                "Time from connecting to a Paper backend to its Login Success", labels,
+                Histogram.millis(5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000));
+        this.joinTime = registry.histogram("hytalecraft_backend_join_seconds",
+                "Time from connecting to a Paper backend to entering PLAY", labels,
+                Histogram.millis(5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000));
+        registry.gauge("hytalecraft_backend_connections",
+                "Open player connections to a Paper backend", labels, connections::get);
+        registry.gauge("hytalecraft_backend_available",
+                "1 unless the backend is being skipped after connect failures", labels,
+                () -> isAvailable() ? 1 : 0);
+    }
+
+    // -------------------------------------------------------------------------
+    // Accessors
+    // -------------------------------------------------------------------------
+
+    public String name()   { return name; }
+    public String host()   { return host; }
+    public int port()      { return port; }
+    public int weight()    { return weight; }
+
+    /** Pre-handshaken connections for the Hytale login path */
+    public BackendConnectionPool pool() { return pool; }
+
+    /** Player connections currently open to this backend */
+    public int connections() { return connections.get(); }
+
+    /** False while the backend is being skipped after repeated connect failures. */
+    public boolean isAvailable() {
+        long until = downUntil;
+        return until == 0 || System.nanoTime() - until >= 0;
+    }
+
+    // -------------------------------------------------------------------------
+    // Observations
+    // -------------------------------------------------------------------------
+
+    /** A connect that began at {@code startNanos} succeeded. */
+    public void connectSucceeded(long startNanos) {
+        connectTime.observeSince(startNanos);
+        reachable();
+    }
+
+    /**
+     * A player was handed a pooled connection.  Counted apart from
+     * connectTime, which would otherwise fill with near-zero samples, but
+     * proves the backend reachable just the same.
+     */
+    public void pooledConnectUsed() {
+        pooledConnects.inc();
+        reachable();
+    }
+
+    private void reachable() {
+        consecutiveFailures.set(0);
+        if (downUntil != 0) {
+            downUntil = 0;
+            log.info("[Backends] {} is reachable again", name);
+        }
+    }
+
+    public void connectFailed() {
+        connectFailures.inc();
+        if (consecutiveFailures.incrementAndGet() >= FAILURE_THRESHOLD) {
+            boolean wasAvailable = downUntil == 0;
+            downUntil = System.nanoTime() + RETRY_NANOS;
+            if (wasAvailable) {
+                log.warn("[Backends] {} failed {} connects in a row; skipping it for {} ms",
+                        name, consecutiveFailures.get(), TimeUnit.NANOSECONDS.toMillis(RETRY_NANOS));
+            }
+        }
+    }
+
+    /** The backend sent Login Success for a connection that began at {@code startNanos}. */
+    public void loginCompleted(long startNanos) {
+        loginTime.observeSince(startNanos);
+    }
+
+    /** A connection that began at {@code startNanos} finished configuration and entered PLAY. */
+    public void joinCompleted(long startNanos) {
+        joinTime.observeSince(startNanos);
+    }
+
+    /** Count {@code ch} as a player connection until it closes. */
+    public void track(Channel ch) {
+        connections.incrementAndGet();
+        ch.closeFuture().addListener(f -> connections.decrementAndGet());
+    }
+
+    @Override
+    public String toString() {
+        return name + "(" + host + ":" + port + ")";
+    }
+}
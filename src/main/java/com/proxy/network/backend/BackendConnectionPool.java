@@ -0,0 +1,449 @@
+package com.proxy.network.backend;
+
+import com.proxy.metrics.Counter;
+import com.proxy.metrics.Histogram;
+import com.proxy.metrics.MetricsRegistry;
+import com.proxy.network.decoder.PacketFrameDecoder;
+import com.proxy.network.transport.EventLoops;
+import com.proxy.network.transport.Transport;
+import com.proxy.network.util.PacketDecoder;
+import com.proxy.network.util.PacketEncoder;
+import com.proxy.network.util.PacketWriter;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.*;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.ScheduledFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pre-opened, pre-handshaken connections to one Paper backend.
+ *
+ * Each idle connection has completed the TCP handshake and sent the MC
+ * Handshake (next state = LOGIN), so a session that takes one only has to
+ * send Login Start.  Idle connections are kept per worker event loop and
+ * handed out only to sessions on the same loop, so a session's two channels
+ * still share one thread and nothing here needs a lock.
+ *
+ * Sizing: each loop keeps between minIdle and maxIdle idle connections.  It
+ * starts at minIdle; every acquire that finds the loop empty raises its
+ * target by one (up to maxIdle) and every connection that expires unused
+ * lowers it again, so login storms grow the pool and quiet periods shrink
+ * it.  Refills run in the background on the loop after every acquire and
+ * on every maintenance tick.
+ *
+ * Health: a connection that has sent its handshake is in the LOGIN state
+ * and cannot answer a ping, so the backend is checked with a separate
+ * STATUS connection (Handshake(next=1), Status Request, Ping Request →
+ * Pong) every healthInterval.  The backend is down if that connection
+ * fails, times out, or closes without a Pong (a backend that accepts TCP
+ * and then hangs up, e.g. still starting).  While it is down the pool neither
+ * refills nor hands out connections, and callers fall back to a fresh
+ * connect.  Idle connections are replaced after maxAge — vanilla drops a
+ * login that has not progressed for 30 s — and dropped as soon as they
+ * close or receive anything (Paper only speaks after Login Start).
+ *
+ * Paper's connection throttle (bukkit.yml settings.connection-throttle)
+ * must be off, as for any proxy, or refills will be refused.
+ *
+ * Tuning (system properties):
+ *   hytalecraft.pool.minIdle           idle connections per event loop    (default 1)
+ *   hytalecraft.pool.maxIdle           upper bound per loop, 0 = no pool  (default 4)
+ *   hytalecraft.pool.maxAgeMs          idle connection lifetime           (default 20000)
+ *   hytalecraft.pool.healthIntervalMs  STATUS ping period                 (default 5000)
+ *   hytalecraft.pool.healthTimeoutMs   STATUS ping timeout                (default 2000)
+ */
+public final class BackendConnectionPool {
+
+    private static final Logger log = LoggerFactory.getLogger(BackendConnectionPool.class);
+
+    public static final int MIN_IDLE = Integer.getInteger("hytalecraft.pool.minIdle", 1);
+    public static final int MAX_IDLE = Math.max(Integer.getInteger("hytalecraft.pool.maxIdle", 4), 0);
+    private static final long MAX_AGE_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Long.getLong("hytalecraft.pool.maxAgeMs", 20_000));
+    private static final long HEALTH_INTERVAL_MS = Long.getLong("hytalecraft.pool.healthIntervalMs", 5_000);
+    private static final long HEALTH_TIMEOUT_MS = Long.getLong("hytalecraft.pool.healthTimeoutMs", 2_000);
+
+    /** Handler name of the idle-connection guard; acquirers replace it with their own handler. */
+    public static final String POOL_HANDLER = "pool";
+
+    private static final int HANDSHAKE      = 0x00;
+    private static final int STATUS_REQUEST = 0x00;
+    private static final int PING_REQUEST   = 0x01;
+    private static final int NEXT_STATUS = 1;
+    private static final int NEXT_LOGIN  = 2;
+
+    private final String host;
+    private final int port;
+    private final int protocol;
+
+    /** Stripes by event loop; written once by start() */
+    private volatile Map<EventExecutor, Stripe> stripes = Map.of();
+    private volatile boolean running;
+    private volatile boolean healthy;
+    private ScheduledFuture<?> healthTask;
+    private EventLoop healthLoop;
+
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final Counter hits;
+    private final Counter misses;
+    private final Histogram ping;
+
+    /**
+     * @param name     backend name, used as the metrics label
+     * @param protocol MC protocol version sent in the Handshake
+     */
+    public BackendConnectionPool(String name, String host, int port, int protocol) {
+        this.host = host;
+        this.port = port;
+        this.protocol = protocol;
+
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        String backend = MetricsRegistry.labels("backend", name);
+        this.hits = registry.counter("hytalecraft_backend_pool_acquire_total",
+                "Backend connection requests by result", MetricsRegistry.labels("backend", name, "result", "hit"));
+        this.misses = registry.counter("hytalecraft_backend_pool_acquire_total",
+                "Backend connection requests by result", MetricsRegistry.labels("backend", name, "result", "miss"));
+        this.ping = registry.histogram("hytalecraft_backend_ping_seconds",
+                "STATUS ping round trip to the Paper backend", backend,
+                Histogram.millis(0.25, 0.5, 1, 2.5, 5, 10, 25, 50, 100, 250, 1000));
+        registry.gauge("hytalecraft_backend_pool_idle",
+                "Pre-handshaken idle backend connections", backend, idleCount::get);
+        registry.gauge("hytalecraft_backend_up",
+                "1 if the last STATUS ping succeeded", backend, () -> healthy ? 1 : 0);
+    }
+
+    // -------------------------------------------------------------------------
+    // Lifecycle
+    // -------------------------------------------------------------------------
+
+    /** Create the per-loop stripes and start health checks; the first good ping fills the pool. */
+    public synchronized void start() {
+        if (running || MAX_IDLE == 0) return;
+        Map<EventExecutor, Stripe> map = new IdentityHashMap<>();
+        for (EventExecutor executor : EventLoops.worker()) {
+            if (executor instanceof EventLoop loop) {
+                map.put(loop, new Stripe(loop));
+            }
+        }
+        stripes = map;
+        running = true;
+        healthLoop = EventLoops.worker().next();
+        healthTask = healthLoop.scheduleWithFixedDelay(this::ping, 0, HEALTH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        for (Stripe stripe : map.values()) {
+            stripe.loop.execute(stripe::startMaintenance);
+        }
+        log.info("[BackendPool] {}:{} — {}–{} idle connections per event loop across {} loops",
+                host, port, Math.min(MIN_IDLE, MAX_IDLE), MAX_IDLE, map.size());
+    }
+
+    /** Stop refilling and close every idle connection. */
+    public synchronized void stop() {
+        if (!running) return;
+        running = false;
+        if (healthTask != null) healthTask.cancel(false);
+        for (Stripe stripe : stripes.values()) {
+            stripe.loop.execute(stripe::shutdown);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Acquire
+    // -------------------------------------------------------------------------
+
+    /**
+     * Take an idle connection registered on {@code loop}.  Must be called on
+     * that loop.  The connection has sent its Handshake; its pipeline holds
+     * a prefix-stripping "frameDecoder" and the {@value #POOL_HANDLER}
+     * guard, which the caller replaces with its own handler.
+     *
+     * @return a ready channel, or null if none is available (the caller connects itself)
+     */
+    public Channel acquire(EventLoop loop) {
+        Stripe stripe = stripes.get(loop);
+        if (stripe == null || !healthy || !loop.inEventLoop()) {
+            return null;
+        }
+        Channel ch = stripe.poll();
+        if (ch != null) {
+            hits.inc();
+        } else {
+            misses.inc();
+            stripe.grow();
+        }
+        loop.execute(stripe::refill);
+        return ch;
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    public int idleConnections() {
+        return idleCount.get();
+    }
+
+    public String host() { return host; }
+
+    public int port() { return port; }
+
+    // -------------------------------------------------------------------------
+    // Per-loop stripe (confined to its loop)
+    // -------------------------------------------------------------------------
+
+    private record Idle(Channel channel, long createdNanos) {}
+
+    private final class Stripe {
+        final EventLoop loop;
+        final ArrayDeque<Idle> idle = new ArrayDeque<>();
+        int opening;
+        int target = Math.min(MIN_IDLE, MAX_IDLE);
+        ScheduledFuture<?> maintenance;
+
+        Stripe(EventLoop loop) {
+            this.loop = loop;
+        }
+
+        /** Oldest usable connection, discarding dead and expired ones. */
+        Channel poll() {
+            long now = System.nanoTime();
+            Idle entry;
+            while ((entry = idle.pollFirst()) != null) {
+                idleCount.decrementAndGet();
+                if (entry.channel.isActive() && now - entry.createdNanos < MAX_AGE_NANOS) {
+                    return entry.channel;
+                }
+                entry.channel.close();
+            }
+            return null;
+        }
+
+        void grow() {
+            if (target < MAX_IDLE) target++;
+        }
+
+        void refill() {
+            while (running && healthy && idle.size() + opening < target) {
+                open();
+            }
+        }
+
+        void startMaintenance() {
+            maintenance = loop.scheduleWithFixedDelay(this::maintain,
+                    HEALTH_INTERVAL_MS, HEALTH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+
+        void maintain() {
+            if (!running) return;
+            long now = System.nanoTime();
+            for (Iterator<Idle> it = idle.iterator(); it.hasNext(); ) {
+                Idle entry = it.next();
+                if (now - entry.createdNanos >= MAX_AGE_NANOS) {
+                    it.remove();
+                    idleCount.decrementAndGet();
+                    entry.channel.close();
+                    // Expired without being used: the loop was over-provisioned
+                    if (target > MIN_IDLE) target--;
+                }
+            }
+            refill();
+        }
+
+        void open() {
+            opening++;
+            Bootstrap b = new Bootstrap();
+            b.group(loop)
+             .channel(Transport.best().socketChannelClass())
+             .option(ChannelOption.TCP_NODELAY, true)
+             .handler(new ChannelInitializer<Channel>() {
+                 @Override
+                 protected void initChannel(Channel ch) {
+                     ch.pipeline()
+                       .addLast("frameDecoder", new PacketFrameDecoder())
+                       .addLast(POOL_HANDLER, new IdleGuard());
+                 }
+             });
+            b.connect(host, port).addListener((ChannelFutureListener) future -> {
+                opening--;
+                if (!future.isSuccess()) {
+                    log.debug("[BackendPool] Refill connect to {}:{} failed: {}",
+                            host, port, future.cause().getMessage());
+                    return;
+                }
+                Channel ch = future.channel();
+                if (!running) {
+                    ch.close();
+                    return;
+                }
+                ByteBuf handshake = ch.alloc().directBuffer(handshakeSize(NEXT_LOGIN));
+                writeHandshake(handshake, NEXT_LOGIN);
+                ch.writeAndFlush(handshake);
+                Idle entry = new Idle(ch, System.nanoTime());
+                idle.addLast(entry);
+                idleCount.incrementAndGet();
+                ch.closeFuture().addListener(f -> {
+                    if (idle.remove(entry)) idleCount.decrementAndGet();
+                });
+            });
+        }
+
+        void shutdown() {
+            if (maintenance != null) maintenance.cancel(false);
+            closeAll();
+        }
+
+        void closeAll() {
+            Idle entry;
+            while ((entry = idle.pollFirst()) != null) {
+                idleCount.decrementAndGet();
+                entry.channel.close();
+            }
+        }
+    }
+
+    /** Sits in an idle connection's pipeline: anything Paper sends before Login Start means it is giving up. */
+    private static final class IdleGuard extends ChannelInboundHandlerAdapter {
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ReferenceCountUtil.release(msg);
+            ctx.close();
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            ctx.close();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Health check
+    // -------------------------------------------------------------------------
+
+    private void ping() {
+        if (!running) return;
+        long start = System.nanoTime();
+        Bootstrap b = new Bootstrap();
+        b.group(healthLoop)
+         .channel(Transport.best().socketChannelClass())
+         .option(ChannelOption.TCP_NODELAY, true)
+         .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) HEALTH_TIMEOUT_MS)
+         .handler(new ChannelInitializer<Channel>() {
+             @Override
+             protected void initChannel(Channel ch) {
+                 ch.pipeline()
+                   .addLast("frameDecoder", new PacketFrameDecoder())
+                   .addLast("ping", new StatusPing(start));
+             }
+         });
+        b.connect(host, port).addListener((ChannelFutureListener) future -> {
+            if (!future.isSuccess()) {
+                setHealthy(false, future.cause().getMessage());
+                return;
+            }
+            Channel ch = future.channel();
+            ByteBuf out = ch.alloc().directBuffer(handshakeSize(NEXT_STATUS)
+                    + PacketWriter.frameSize(STATUS_REQUEST, 0) + PacketWriter.frameSize(PING_REQUEST, 8));
+            writeHandshake(out, NEXT_STATUS);
+            PacketWriter.prefix(out, STATUS_REQUEST, 0);
+            PacketWriter.prefix(out, PING_REQUEST, 8);
+            out.writeLong(start);
+            ch.writeAndFlush(out);
+            ch.eventLoop().schedule(() -> {
+                if (ch.isActive()) {
+                    setHealthy(false, "ping timed out");
+                    ch.close();
+                }
+            }, HEALTH_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    private void setHealthy(boolean up, String reason) {
+        if (healthy == up) return;
+        healthy = up;
+        if (up) {
+            log.info("[BackendPool] {}:{} is up; filling the pool", host, port);
+            for (Stripe stripe : stripes.values()) {
+                stripe.loop.execute(stripe::refill);
+            }
+        } else {
+            log.warn("[BackendPool] {}:{} is down ({}); pooling paused", host, port, reason);
+            for (Stripe stripe : stripes.values()) {
+                stripe.loop.execute(stripe::closeAll);
+            }
+        }
+    }
+
+    /** Waits for the Pong of one STATUS ping; closing without one marks the backend down. */
+    private final class StatusPing extends ChannelInboundHandlerAdapter {
+        private final long start;
+        private boolean ponged;
+
+        StatusPing(long start) {
+            this.start = start;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            if (msg instanceof ByteBuf frame) {
+                try {
+                    if (PacketDecoder.readVarInt(frame) == 0x01) {   // Pong Response
+                        ponged = true;
+                        ping.observeSince(start);
+                        setHealthy(true, null);
+                        ctx.close();
+                    }
+                } finally {
+                    frame.release();
+                }
+            }
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            if (!ponged) {
+                setHealthy(false, "closed without pong");
+            }
+            super.channelInactive(ctx);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            setHealthy(false, cause.getMessage());
+            ctx.close();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Encoding
+    // -------------------------------------------------------------------------
+
+    private int handshakePayload(int nextState) {
+        return PacketEncoder.varIntSize(protocol)
+                + PacketWriter.stringSize(host)
+                + 2
+                + PacketEncoder.varIntSize(nextState);
+    }
+
+    private int handshakeSize(int nextState) {
+        return PacketWriter.frameSize(HANDSHAKE, handshakePayload(nextState));
+    }
+
+    /** Append a framed Handshake packet. */
+    private void writeHandshake(ByteBuf buf, int nextState) {
+        PacketWriter.prefix(buf, HANDSHAKE, handshakePayload(nextState));
+        PacketEncoder.writeVarInt(buf, protocol);
+        PacketEncoder.writeString(buf, host);
+        buf.writeShort(port);
+        PacketEncoder.writeVarInt(buf, nextState);
+    }
+}
@@ -0,0 +1,246 @@
+package com.proxy.network.backend;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The Paper backends and the routing of players onto them.
+ *
+ * Routing is by player UUID on a weighted consistent-hash ring: every
+ * backend owns {@code weight × vnodes} points, and a player goes to the
+ * owner of the first point at or after the hash of their UUID, skipping
+ * backends that are currently unavailable (see {@link Backend}).  Adding or
+ * removing a backend therefore only moves the players whose points it
+ * takes over or gives up.
+ *
+ * With strategy=leastConnections the player instead goes to the available
+ * backend with the fewest open connections per unit of weight.
+ *
+ * Assignments are sticky: once a UUID has been placed, it keeps going to the
+ * same backend while that backend is available, even if the ring would now
+ * say otherwise (e.g. after a failover and recovery, or with
+ * leastConnections).  Up to stickyMax assignments are remembered; past
+ * that, the player routed least recently is forgotten first.
+ *
+ * Connections without a player UUID (status pings) are routed by
+ * select(null), which uses least connections.
+ *
+ * Tuning (system properties):
+ *   hytalecraft.backends                   name=host:port[*weight],...  (default paper=127.0.0.1:25566)
+ *   hytalecraft.backends.strategy          hash | leastConnections      (default hash)
+ *   hytalecraft.backends.vnodes            ring points per unit of weight (default 160)
+ *   hytalecraft.backends.stickyMax         remembered assignments       (default 100000)
+ *   hytalecraft.backends.failureThreshold  connect failures before a backend is skipped (default 3)
+ *   hytalecraft.backends.retryMs           how long it is skipped       (default 10000)
+ */
+public final class BackendRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(BackendRegistry.class);
+
+    /** MC protocol used by the Hytale login path, and so by the connection pools */
+    public static final int POOL_PROTOCOL = 765;
+
+    private static final String SPEC = System.getProperty("hytalecraft.backends", "paper=127.0.0.1:25566");
+    private static final boolean LEAST_CONNECTIONS =
+            System.getProperty("hytalecraft.backends.strategy", "hash").equalsIgnoreCase("leastConnections");
+    private static final int VNODES = Math.max(Integer.getInteger("hytalecraft.backends.vnodes", 160), 1);
+    private static final int STICKY_MAX = Integer.getInteger("hytalecraft.backends.stickyMax", 100_000);
+
+    private static final BackendRegistry INSTANCE = new BackendRegistry(parse(SPEC));
+
+    public static BackendRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    private final Backend[] backends;
+    /** Ring point hashes, ascending */
+    private final long[] points;
+    /** Owner of each ring point */
+    private final Backend[] owners;
+    /** Sticky assignments, access-ordered LRU bounded by STICKY_MAX; guarded by itself */
+    private final LinkedHashMap<UUID, Backend> sticky = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, Backend> eldest) {
+            return size() > STICKY_MAX;
+        }
+    };
+
+    private BackendRegistry(Backend[] backends) {
+        this.backends = backends;
+
+        int total = 0;
+        for (Backend b : backends) total += b.weight() * VNODES;
+        long[] hashes = new long[total];
+        Backend[] byPoint = new Backend[total];
+        int n = 0;
+        for (Backend b : backends) {
+            for (int i = 0; i < b.weight() * VNODES; i++) {
+                UUID point = UUID.nameUUIDFromBytes((b.name() + "#" + i).getBytes(StandardCharsets.UTF_8));
+                hashes[n] = mix(point.getMostSignificantBits() ^ point.getLeastSignificantBits());
+                byPoint[n] = b;
+                n++;
+            }
+        }
+        // Sort points and their owners together
+        Integer[] idx = new Integer[total];
+        for (int i = 0; i < total; i++) idx[i] = i;
+        Arrays.sort(idx, (a, b) -> Long.compare(hashes[a], hashes[b]));
+        this.points = new long[total];
+        this.owners = new Backend[total];
+        for (int i = 0; i < total; i++) {
+            points[i] = hashes[idx[i]];
+            owners[i] = byPoint[idx[i]];
+        }
+
+        log.info("[Backends] {} backend(s), {} routing: {}", backends.length,
+                LEAST_CONNECTIONS ? "least-connections" : "consistent-hash", Arrays.toString(backends));
+    }
+
+    // -------------------------------------------------------------------------
+    // Routing
+    // -------------------------------------------------------------------------
+
+    /**
+     * The backend for a player, or for an anonymous connection if
+     * {@code player} is null.  If every backend is unavailable the one the
+     * player would normally get is returned anyway.
+     */
+    public Backend select(UUID player) {
+        if (backends.length == 1) {
+            return backends[0];
+        }
+        if (player == null) {
+            return leastConnections(null);
+        }
+
+        Backend assigned;
+        synchronized (sticky) {
+            assigned = sticky.get(player);
+        }
+        if (assigned != null && assigned.isAvailable()) {
+            return assigned;
+        }
+        Backend chosen = LEAST_CONNECTIONS ? leastConnections(ringOwner(player)) : ringWalk(player);
+        synchronized (sticky) {
+            sticky.put(player, chosen);
+        }
+        return chosen;
+    }
+
+    /** First available backend clockwise from the player's point. */
+    private Backend ringWalk(UUID player) {
+        int start = pointIndex(player);
+        for (int i = 0; i < points.length; i++) {
+            Backend b = owners[(start + i) % points.length];
+            if (b.isAvailable()) return b;
+        }
+        return owners[start];
+    }
+
+    private Backend ringOwner(UUID player) {
+        return owners[pointIndex(player)];
+    }
+
+    private int pointIndex(UUID player) {
+        long h = mix(player.getMostSignificantBits() ^ player.getLeastSignificantBits());
+        int i = Arrays.binarySearch(points, h);
+        if (i < 0) i = -i - 1;
+        return i == points.length ? 0 : i;
+    }
+
+    /** Available backend with the fewest connections per unit of weight; {@code fallback} if none is. */
+    private Backend leastConnections(Backend fallback) {
+        Backend best = null;
+        double bestLoad = Double.MAX_VALUE;
+        for (Backend b : backends) {
+            if (!b.isAvailable()) continue;
+            double load = (double) b.connections() / b.weight();
+            if (load < bestLoad) {
+                best = b;
+                bestLoad = load;
+            }
+        }
+        if (best != null) return best;
+        return fallback != null ? fallback : backends[0];
+    }
+
+    /** Forget a player's sticky assignment. */
+    public void unassign(UUID player) {
+        synchronized (sticky) {
+            sticky.remove(player);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Lifecycle / accessors
+    // -------------------------------------------------------------------------
+
+    /** Start every backend's connection pool. */
+    public void start() {
+        for (Backend b : backends) b.pool().start();
+    }
+
+    public void stop() {
+        for (Backend b : backends) b.pool().stop();
+    }
+
+    public List<Backend> backends() {
+        return List.of(backends);
+    }
+
+    // -------------------------------------------------------------------------
+    // Helpers
+    // -------------------------------------------------------------------------
+
+    /** MurmurHash3 fmix64 — spreads UUID bits over the ring */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static Backend[] parse(String spec) {
+        List<Backend> list = new ArrayList<>();
+        for (String item : spec.split(",")) {
+            item = item.trim();
+            if (item.isEmpty()) continue;
+            try {
+                int eq = item.indexOf('=');
+                String name = eq > 0 ? item.substring(0, eq) : item;
+                String address = eq > 0 ? item.substring(eq + 1) : item;
+                int weight = 1;
+                int star = address.indexOf('*');
+                if (star > 0) {
+                    weight = Integer.parseInt(address.substring(star + 1));
+                    address = address.substring(0, star);
+                }
+                int colon = address.lastIndexOf(':');
+                String host = address.substring(0, colon);
+                int port = Integer.parseInt(address.substring(colon + 1));
+                if (weight < 1 || port < 1 || port > 65535) {
+                    throw new IllegalArgumentException("bad port or weight");
+                }
+                list.add(new Backend(name.toLowerCase(Locale.ROOT), host, port, weight, POOL_PROTOCOL));
+            } catch (RuntimeException e) {
+                log.warn("[Backends] Ignoring malformed backend '{}' in hytalecraft.backends ({})", item, e.getMessage());
+            }
+        }
+        if (list.isEmpty()) {
+            log.warn("[Backends] No usable backends configured; using 127.0.0.1:25566");
+            list.add(new Backend("paper", "127.0.0.1", 25566, 1, POOL_PROTOCOL));
+        }
+        return list.toArray(new Backend[0]);
+    }
+}
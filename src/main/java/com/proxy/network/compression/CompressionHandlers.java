@@ -0,0 +1,54 @@
+package com.proxy.network.compression;
+
+import io.netty.channel.ChannelPipeline;
+
+/**
+ * Installs the compression stage into a Minecraft pipeline when a Set
+ * Compression packet (login state, 0x03) is seen.
+ *
+ * The decompressor is placed right after the "frameDecoder" handler; the
+ * compressor is placed at the head so it sees every framed packet written to
+ * the channel.  Calling enable() again only updates the threshold, and a
+ * negative threshold removes the stage — matching vanilla semantics.
+ */
+public final class CompressionHandlers {
+
+    public static final String DECOMPRESSOR = "decompress";
+    public static final String COMPRESSOR   = "compress";
+
+    private CompressionHandlers() {}
+
+    /** Enable compression in both directions (bridge-owned connections). */
+    public static void enable(ChannelPipeline pipeline, int threshold) {
+        enableInbound(pipeline, threshold);
+        enableOutbound(pipeline, threshold);
+    }
+
+    /**
+     * Enable decompression of inbound frames only.  Used on relayed client
+     * connections, where everything written back is already-compressed
+     * backend traffic.
+     */
+    public static void enableInbound(ChannelPipeline pipeline, int threshold) {
+        PacketDecompressor existing = pipeline.get(PacketDecompressor.class);
+        if (threshold < 0) {
+            if (existing != null) pipeline.remove(existing);
+        } else if (existing != null) {
+            existing.setThreshold(threshold);
+        } else {
+            pipeline.addAfter("frameDecoder", DECOMPRESSOR, new PacketDecompressor(threshold));
+        }
+    }
+
+    /** Enable compression of outbound framed packets only. */
+    public static void enableOutbound(ChannelPipeline pipeline, int threshold) {
+        PacketCompressor existing = pipeline.get(PacketCompressor.class);
+        if (threshold < 0) {
+            if (existing != null) pipeline.remove(existing);
+        } else if (existing != null) {
+            existing.setThreshold(threshold);
+        } else {
+            pipeline.addFirst(COMPRESSOR, new PacketCompressor(threshold));
+        }
+    }
+}
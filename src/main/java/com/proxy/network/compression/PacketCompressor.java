@@ -0,0 +1,80 @@
+package com.proxy.network.compression;
+
+import com.proxy.network.util.PacketDecoder;
+import com.proxy.network.util.PacketEncoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageEncoder;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * Outbound half of the Minecraft compression stage.
+ *
+ * Accepts already-framed packets (VarInt length | packet) — the format every
+ * writer in the bridge produces — and re-frames them in the compressed format:
+ *   VarInt packetLength | VarInt dataLength | zlib(packet) or raw packet
+ *
+ * Packets below the threshold keep their original bytes: the new header and
+ * a retained slice of the body are joined in a composite buffer.  Larger
+ * packets are deflated into a pooled direct buffer using the event loop's
+ * shared Deflater (see {@link ZlibContexts}).
+ */
+public class PacketCompressor extends MessageToMessageEncoder<ByteBuf> {
+
+    private int threshold;
+
+    public PacketCompressor(int threshold) {
+        this.threshold = threshold;
+    }
+
+    public void setThreshold(int threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws Exception {
+        // A single buffer may carry several frames back to back
+        while (msg.isReadable()) {
+            int length = PacketDecoder.readVarInt(msg);
+            ByteBuf body = msg.readSlice(length);
+            out.add(length < threshold ? passThrough(ctx, body) : compress(ctx, body));
+        }
+    }
+
+    private ByteBuf passThrough(ChannelHandlerContext ctx, ByteBuf body) {
+        int length = body.readableBytes();
+        ByteBuf header = ctx.alloc().directBuffer(PacketEncoder.varIntSize(length + 1) + 1);
+        PacketEncoder.writeVarInt(header, length + 1);
+        header.writeByte(0); // dataLength 0 = uncompressed
+        return ctx.alloc().compositeDirectBuffer(2).addComponents(true, header, body.retain());
+    }
+
+    private ByteBuf compress(ChannelHandlerContext ctx, ByteBuf body) {
+        int dataLength = body.readableBytes();
+        Deflater deflater = ZlibContexts.deflater();
+        ByteBuf compressed = ctx.alloc().directBuffer(dataLength / 2 + 64);
+        try {
+            deflater.setInput(body.nioBuffer());
+            deflater.finish();
+            while (!deflater.finished()) {
+                compressed.ensureWritable(8192);
+                ByteBuffer dst = compressed.internalNioBuffer(compressed.writerIndex(), compressed.writableBytes());
+                compressed.writerIndex(compressed.writerIndex() + deflater.deflate(dst));
+            }
+        } catch (RuntimeException e) {
+            compressed.release();
+            throw e;
+        } finally {
+            deflater.reset();
+        }
+
+        int packetLength = PacketEncoder.varIntSize(dataLength) + compressed.readableBytes();
+        ByteBuf header = ctx.alloc().directBuffer(PacketEncoder.varIntSize(packetLength) + PacketEncoder.varIntSize(dataLength));
+        PacketEncoder.writeVarInt(header, packetLength);
+        PacketEncoder.writeVarInt(header, dataLength);
+        return ctx.alloc().compositeDirectBuffer(2).addComponents(true, header, compressed);
+    }
+}
@@ -0,0 +1,54 @@
+package com.proxy.network.compression;
+
+import com.proxy.network.util.PacketDecoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.MessageToMessageDecoder;
+
+import java.util.List;
+
+/**
+ * Inbound half of the Minecraft compression stage.
+ *
+ * Sits directly after the frame decoder and receives frame bodies (length
+ * prefix already stripped) in the compressed format:
+ *   VarInt dataLength | dataLength == 0 ? raw packet : zlib(packet)
+ *
+ * Uncompressed packets are passed on as retained slices — no copy.
+ * Compressed packets are inflated into a pooled direct buffer using the
+ * event loop's shared Inflater (see {@link ZlibContexts#inflate}).
+ */
+public class PacketDecompressor extends MessageToMessageDecoder<ByteBuf> {
+
+    /** Vanilla refuses to inflate packets larger than 8 MiB. */
+    public static final int MAX_DECOMPRESSED_LENGTH = 8 * 1024 * 1024;
+
+    private int threshold;
+
+    public PacketDecompressor(int threshold) {
+        this.threshold = threshold;
+    }
+
+    public void setThreshold(int threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        int dataLength = PacketDecoder.readVarInt(in);
+        if (dataLength == 0) {
+            out.add(in.retainedSlice());
+            return;
+        }
+        if (dataLength < threshold) {
+            throw new CorruptedFrameException("Compressed packet of " + dataLength
+                    + " bytes is below the threshold of " + threshold);
+        }
+        if (dataLength > MAX_DECOMPRESSED_LENGTH) {
+            throw new CorruptedFrameException("Compressed packet of " + dataLength + " bytes is too large");
+        }
+
+        out.add(ZlibContexts.inflate(ctx.alloc(), in, dataLength));
+    }
+}
@@ -0,0 +1,145 @@
+package com.proxy.network.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.DecoderException;
+import io.netty.util.concurrent.FastThreadLocal;
+
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Per-event-loop zlib contexts for the Minecraft compression stage.
+ *
+ * Every Netty event loop is a single thread, so one Inflater and one Deflater
+ * per thread is enough for all the connections that loop serves.  Callers
+ * must reset() the context before returning from the handler that used it
+ * (the helpers in this package do so in a finally block).
+ *
+ * Compression level: -Dhytalecraft.mc.compressionLevel (default: zlib default)
+ */
+public final class ZlibContexts {
+
+    private static final int COMPRESSION_LEVEL =
+            Integer.getInteger("hytalecraft.mc.compressionLevel", Deflater.DEFAULT_COMPRESSION);
+
+    private static final FastThreadLocal<Inflater> INFLATER = new FastThreadLocal<>() {
+        @Override
+        protected Inflater initialValue() {
+            return new Inflater();
+        }
+
+        @Override
+        protected void onRemoval(Inflater inflater) {
+            inflater.end();
+        }
+    };
+
+    private static final FastThreadLocal<Deflater> DEFLATER = new FastThreadLocal<>() {
+        @Override
+        protected Deflater initialValue() {
+            return new Deflater(COMPRESSION_LEVEL);
+        }
+
+        @Override
+        protected void onRemoval(Deflater deflater) {
+            deflater.end();
+        }
+    };
+
+    /** Scratch space for peekPacketId() — a packet ID VarInt is at most 5 bytes. */
+    private static final FastThreadLocal<byte[]> PEEK_SCRATCH = new FastThreadLocal<>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[5];
+        }
+    };
+
+    private ZlibContexts() {}
+
+    /** The calling event loop's Inflater, in reset state. */
+    public static Inflater inflater() {
+        return INFLATER.get();
+    }
+
+    /** The calling event loop's Deflater, in reset state. */
+    public static Deflater deflater() {
+        return DEFLATER.get();
+    }
+
+    /**
+     * Inflates just enough of a compressed packet body to read its leading
+     * VarInt packet ID.  The reader index of {@code compressed} is not moved.
+     *
+     * @param compressed zlib stream of a packet whose Data Length was non-zero
+     * @return the packet ID, or -1 if the stream is truncated or corrupt
+     */
+    public static int peekPacketId(ByteBuf compressed) {
+        return peekPacketId(compressed, compressed.readerIndex(), compressed.readableBytes());
+    }
+
+    /** {@link #peekPacketId(ByteBuf)} for the {@code length} bytes of {@code buf} at {@code index}. */
+    public static int peekPacketId(ByteBuf buf, int index, int length) {
+        Inflater inflater = inflater();
+        byte[] head = PEEK_SCRATCH.get();
+        try {
+            inflater.setInput(buf.nioBuffer(index, length));
+            int n = inflater.inflate(head);
+            int value = 0;
+            for (int i = 0; i < n; i++) {
+                value |= (head[i] & 0x7F) << (7 * i);
+                if ((head[i] & 0x80) == 0) return value;
+            }
+            return -1;
+        } catch (DataFormatException e) {
+            return -1;
+        } finally {
+            inflater.reset();
+        }
+    }
+
+    /**
+     * Inflates a whole compressed packet body into a new pooled direct buffer
+     * of exactly {@code dataLength} bytes.  The reader index of
+     * {@code compressed} is not moved.
+     *
+     * @throws CorruptedFrameException if the stream does not inflate to {@code dataLength} bytes
+     * @throws DecoderException        if the zlib stream is corrupt
+     */
+    public static ByteBuf inflate(ByteBufAllocator alloc, ByteBuf compressed, int dataLength) {
+        return inflate(alloc, compressed, compressed.readerIndex(), compressed.readableBytes(), dataLength);
+    }
+
+    /** {@link #inflate(ByteBufAllocator, ByteBuf, int)} for the {@code length} bytes of {@code buf} at {@code index}. */
+    public static ByteBuf inflate(ByteBufAllocator alloc, ByteBuf buf, int index, int length, int dataLength) {
+        Inflater inflater = inflater();
+        ByteBuf decompressed = alloc.directBuffer(dataLength, dataLength);
+        try {
+            inflater.setInput(buf.nioBuffer(index, length));
+            ByteBuffer dst = decompressed.internalNioBuffer(0, dataLength);
+            int written = 0;
+            while (written < dataLength && !inflater.finished()) {
+                int n = inflater.inflate(dst);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                written += n;
+            }
+            if (written != dataLength) {
+                throw new CorruptedFrameException("Inflated " + written + " bytes, expected " + dataLength);
+            }
+            decompressed.writerIndex(dataLength);
+            ByteBuf result = decompressed;
+            decompressed = null;
+            return result;
+        } catch (DataFormatException e) {
+            throw new DecoderException("Corrupt zlib stream", e);
+        } finally {
+            inflater.reset();
+            if (decompressed != null) decompressed.release();
+        }
+    }
+}
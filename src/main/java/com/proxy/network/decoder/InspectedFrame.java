@@ -0,0 +1,29 @@
+package com.proxy.network.decoder;
+
+import com.proxy.network.packet.MinecraftPacket;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.DefaultByteBufHolder;
+
+/**
+ * A serverbound frame in pass-through mode that was also decoded.
+ *
+ * {@link #content()} is the original wire frame (length prefix included,
+ * compressed if compression is on), to be forwarded as-is; {@link #packet()}
+ * is the read-only packet for inspection — usually a
+ * {@link com.proxy.network.packet.PacketView}, valid only until the
+ * channelRead that delivered it returns.  Releasing the holder releases the
+ * frame, not the packet.
+ */
+public final class InspectedFrame extends DefaultByteBufHolder {
+
+    private final MinecraftPacket packet;
+
+    public InspectedFrame(ByteBuf frame, MinecraftPacket packet) {
+        super(frame);
+        this.packet = packet;
+    }
+
+    public MinecraftPacket packet() {
+        return packet;
+    }
+}
@@ -1,153 +1,300 @@
 package com.proxy.network.decoder;
 
+import com.proxy.network.compression.PacketDecompressor;
+import com.proxy.network.compression.ZlibContexts;
 import com.proxy.network.packet.MinecraftPacket;
+import com.proxy.network.packet.PacketType;
+import com.proxy.network.packet.PacketView;
 import com.proxy.network.packet.handshake.HandshakePacket;
-import com.proxy.network.packet.play.ChatMessagePacket;
-import com.proxy.network.packet.play.PlayerPositionPacket;
-import com.proxy.network.packet.play.PlayerRotationPacket;
+import com.proxy.network.packet.handshake.HandshakeView;
+import com.proxy.network.packet.play.ChatMessageView;
+import com.proxy.network.packet.play.PlayerPositionRotationView;
+import com.proxy.network.packet.play.PlayerPositionView;
+import com.proxy.network.packet.play.PlayerRotationView;
+import com.proxy.network.util.PacketDecoder;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.CorruptedFrameException;
 import io.netty.handler.codec.MessageToMessageDecoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.EnumSet;
 import java.util.List;
-import java.util.UUID;
+import java.util.Set;
 
+/**
+ * Decodes serverbound Minecraft frames into {@link MinecraftPacket}s.
+ *
+ * Dispatch is table-driven: the handshake selects the
+ * {@link MinecraftProtocol} for the client's protocol version, and each
+ * packet costs one array load in the current state's table followed by the
+ * field reads.  Table entries also drive the state machine:
+ *
+ *   HANDSHAKING --Handshake(next=1)--> STATUS
+ *   HANDSHAKING --Handshake(next=2|3)--> LOGIN
+ *   LOGIN --Login Acknowledged--> CONFIGURATION
+ *   CONFIGURATION --Acknowledge Finish Configuration--> PLAY
+ *   PLAY --Acknowledge Configuration--> CONFIGURATION
+ *
+ * Two modes:
+ *  - full decode (no-arg constructor): input frames have the length prefix
+ *    stripped and are already decompressed.  Packets with a reader are
+ *    emitted as MinecraftPackets; everything else produces no output.
+ *  - pass-through (constructed with a set of {@link PacketType}s): input
+ *    frames still carry their length prefix and compression header.  Every
+ *    frame is forwarded as the original retained bytes; frames whose type is
+ *    in the set are also emitted as an {@link InspectedFrame} carrying a
+ *    {@link PacketView} over the frame.  Only the packet ID is read from the
+ *    rest, so the per-byte cost is the same as a plain relay.  Compression is tracked here rather than by a
+ *    PacketDecompressor (see {@link #setCompressionThreshold}); compressed
+ *    frames are inflated only when they are to be decoded, and otherwise
+ *    only far enough to read the packet ID.
+ *
+ * Pass-through views are flyweights: one per type per channel, rebound for
+ * every matching frame and released when this handler's channelRead
+ * returns, i.e. after the downstream handlers have seen the frame.  Login
+ * Start has no view and is decoded into a LoginStartPacket (once per
+ * connection).  The handshake is always read, since it selects the
+ * protocol version.
+ */
 public class MinecraftPacketDecoder extends MessageToMessageDecoder<ByteBuf> {
 
+    private static final Logger log = LoggerFactory.getLogger(MinecraftPacketDecoder.class);
+
     public enum ConnectionState {
         HANDSHAKING,
         STATUS,
         LOGIN,
+        CONFIGURATION,
         PLAY
     }
 
+    private static final int NEXT_STATUS   = 1;
+    private static final int NEXT_LOGIN    = 2;
+    private static final int NEXT_TRANSFER = 3;
+
     private ConnectionState state = ConnectionState.HANDSHAKING;
+    private MinecraftProtocol protocol = MinecraftProtocol.UNKNOWN;
+    /** protocol.table(state), cached for the hot path */
+    private MinecraftProtocol.Entry[] table = protocol.table(state);
+
+    /** Types decoded in pass-through mode; null in full-decode mode */
+    private final Set<PacketType> inspect;
+    /** Compression threshold in pass-through mode, -1 while compression is off */
+    private int compressionThreshold = -1;
+    /** Reused views by PacketType ordinal (pass-through mode); null where the type is decoded eagerly */
+    private final PacketView[] views = new PacketView[PacketType.values().length];
+    /** View bound to the frame being read, released when channelRead returns */
+    private PacketView bound;
+
+    /** Full-decode mode. */
+    public MinecraftPacketDecoder() {
+        this.inspect = null;
+    }
+
+    /**
+     * Pass-through mode.
+     *
+     * @param inspect packet types to decode alongside forwarding
+     */
+    public MinecraftPacketDecoder(Set<PacketType> inspect) {
+        this.inspect = inspect.isEmpty() ? EnumSet.noneOf(PacketType.class) : EnumSet.copyOf(inspect);
+        // Always read: it selects the protocol version
+        views[PacketType.HANDSHAKE.ordinal()] = new HandshakeView();
+        for (PacketType type : this.inspect) {
+            views[type.ordinal()] = newView(type);
+        }
+    }
 
     @Override
     protected void decode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws Exception {
-        if (msg.readableBytes() <= 0) return;
-
-        // 1. Read Packet ID
-        int packetId = readVarInt(msg);
-        
-        // 2. Log basic info for debugging
-        System.out.println(">>> [DEBUG] Packet ID: 0x" + Integer.toHexString(packetId) + " | State: " + state);
-
-        // 3. Decode based on current state
-        MinecraftPacket packet = decodePacket(packetId, msg, state);
-        
-        if (packet != null) {
-            out.add(packet);
-        }
-    }
-
-    private MinecraftPacket decodePacket(int packetId, ByteBuf buf, ConnectionState state) {
-        switch (state) {
-            case HANDSHAKING:
-                return decodeHandshakePacket(packetId, buf);
-                
-            case STATUS:
-                if (packetId == 0x00) {
-                    System.out.println(">>> [STATUS] Minecraft 1.21.11 is pinging for server info...");
-                }
-                return null;
-
-            case LOGIN:
-                if (packetId == 0x00) { // Login Start
-                    String username = readString(buf);
-                    
-                    // In 1.21.11, a UUID follows the username
-                    if (buf.readableBytes() >= 16) {
-                        long mostSig = buf.readLong();
-                        long leastSig = buf.readLong();
-                        UUID playerUuid = new UUID(mostSig, leastSig);
-                        System.out.println(">>> [LOGIN] Player: " + username + " (UUID: " + playerUuid + ") is joining!");
-                    } else {
-                        System.out.println(">>> [LOGIN] Player: " + username + " is joining!");
-                    }
-                }
-                return null;
+        if (!msg.isReadable()) return;
+        if (inspect != null) {
+            passThrough(ctx, msg, out);
+            return;
+        }
 
-            case PLAY:
-                return decodePlayPacket(packetId, buf);
+        int packetId = PacketDecoder.readVarInt(msg);
+        MinecraftProtocol.Entry entry = lookup(packetId);
+        if (entry == null) return;
 
-            default:
-                return null;
+        if (entry.reader != null) {
+            out.add(read(ctx, entry, msg));
+        }
+        if (entry.next != null) {
+            setState(entry.next);
         }
     }
 
-    private MinecraftPacket decodeHandshakePacket(int packetId, ByteBuf buf) {
-        if (packetId == 0x00) {
-            int protocolVersion = readVarInt(buf);
-            String serverAddress = readString(buf);
-            int serverPort = buf.readUnsignedShort();
-            int nextStateInt = readVarInt(buf);
+    // -------------------------------------------------------------------------
+    // Pass-through
+    // -------------------------------------------------------------------------
 
-            System.out.println(">>> [HANDSHAKE] Protocol: " + protocolVersion + " | Address: " + serverAddress);
+    private void passThrough(ChannelHandlerContext ctx, ByteBuf frame, List<Object> out) {
+        ByteBuf in = frame.duplicate();
+        PacketDecoder.readVarInt(in); // frame length
+        int dataLength = compressionThreshold >= 0 ? PacketDecoder.readVarInt(in) : 0;
+        if (dataLength < 0 || dataLength > PacketDecompressor.MAX_DECOMPRESSED_LENGTH) {
+            throw new CorruptedFrameException("Bad compressed packet length " + dataLength);
+        }
 
-            // Update state for the next packets
-            if (nextStateInt == 1) state = ConnectionState.STATUS;
-            if (nextStateInt == 2) state = ConnectionState.LOGIN;
+        // Uncompressed: the ID is right here.  Compressed: inflate just the ID.
+        MinecraftProtocol.Entry entry = lookup(dataLength == 0
+                ? PacketDecoder.readVarInt(in)
+                : ZlibContexts.peekPacketId(in));
 
-            return new HandshakePacket(protocolVersion, serverAddress, serverPort, nextStateInt);
+        MinecraftPacket packet = null;
+        if (entry != null) {
+            boolean handshake = state == ConnectionState.HANDSHAKING;
+            if (entry.reader != null && (inspect.contains(entry.type) || handshake)) {
+                PacketView view = views[entry.type.ordinal()];
+                packet = view != null
+                        ? bindView(ctx, view, frame, in, dataLength)
+                        : readEager(ctx, entry, in, dataLength);
+                if (handshake && !inspect.contains(entry.type)) {
+                    packet = null;
+                    releaseBound();
+                }
+            }
+            if (entry.next != null) {
+                setState(entry.next);
+            }
         }
-        return null;
+
+        frame.retain();
+        out.add(packet != null ? new InspectedFrame(frame, packet) : frame);
     }
 
-    private int readVarInt(ByteBuf buf) {
-        int value = 0;
-        int position = 0;
-        byte currentByte;
-        while (true) {
-            if (buf.readableBytes() < 1) return -1;
-            currentByte = buf.readByte();
-            value |= (currentByte & 0x7F) << position;
-            if ((currentByte & 0x80) == 0) break;
-            position += 7;
-            if (position >= 32) throw new RuntimeException("VarInt too long");
+    /** Bind a view to the packet body; it stays bound until channelRead returns. */
+    private PacketView bindView(ChannelHandlerContext ctx, PacketView view, ByteBuf frame,
+                                ByteBuf in, int dataLength) {
+        if (dataLength == 0) {
+            view.bind(frame.retain(), in.readerIndex());
+        } else {
+            ByteBuf body = ZlibContexts.inflate(ctx.alloc(), in, dataLength);
+            int start;
+            try {
+                start = body.readerIndex() + PacketDecoder.varIntLength(body, body.readerIndex());
+            } catch (RuntimeException e) {
+                body.release();
+                throw e;
+            }
+            view.bind(body, start);
+        }
+        bound = view;
+        if (view instanceof HandshakeView handshake) {
+            onHandshake(ctx, handshake.getProtocolVersion(), handshake.getNextState());
         }
-        return value;
+        return view;
     }
 
-    private String readString(ByteBuf buf) {
-        int length = readVarInt(buf);
-        byte[] bytes = new byte[length];
-        buf.readBytes(bytes);
-        return new String(bytes, java.nio.charset.StandardCharsets.UTF_8);
+    /** Decode a packet that has no view into a regular packet object. */
+    private MinecraftPacket readEager(ChannelHandlerContext ctx, MinecraftProtocol.Entry entry,
+                                      ByteBuf in, int dataLength) {
+        if (dataLength == 0) {
+            return read(ctx, entry, in);
+        }
+        ByteBuf body = ZlibContexts.inflate(ctx.alloc(), in, dataLength);
+        try {
+            PacketDecoder.readVarInt(body); // packet ID, already known
+            return read(ctx, entry, body);
+        } finally {
+            body.release();
+        }
     }
 
-    private MinecraftPacket decodePlayPacket(int packetId, ByteBuf buf) {
-        switch (packetId) {
-            case 0x05: {
-                // Chat message
-                return new ChatMessagePacket(readString(buf), buf.readLong(), buf.readLong(), null, buf.readBoolean());
-            }
-            case 0x11: {
-                // Player Position (client -> server)
-                if (buf.readableBytes() < 25) return null; // 3 doubles (24) + 1 bool
-                double x = buf.readDouble();
-                double y = buf.readDouble();
-                double z = buf.readDouble();
-                boolean onGround = buf.readBoolean();
-                PlayerPositionPacket posPacket = new PlayerPositionPacket(x, y, z, onGround);
-                System.out.println(">>> [PLAY] PlayerPosition x=" + x + " y=" + y + " z=" + z + " onGround=" + onGround);
-                return posPacket;
-            }
-            case 0x12: {
-                // Player Rotation (client -> server)
-                if (buf.readableBytes() < 9) return null; // 2 floats (8) + 1 bool
-                float yaw = buf.readFloat();
-                float pitch = buf.readFloat();
-                boolean onGround = buf.readBoolean();
-                PlayerRotationPacket rotPacket = new PlayerRotationPacket(yaw, pitch, onGround);
-                System.out.println(">>> [PLAY] PlayerRotation yaw=" + yaw + " pitch=" + pitch + " onGround=" + onGround);
-                return rotPacket;
-            }
-            default:
-                return null;
+    /**
+     * Runs decode() and the downstream handlers for one frame, then releases
+     * the view that frame was bound to.
+     */
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        try {
+            super.channelRead(ctx, msg);
+        } finally {
+            releaseBound();
         }
     }
 
-    public void setState(ConnectionState newState) { this.state = newState; }
+    private void releaseBound() {
+        PacketView view = bound;
+        if (view != null) {
+            bound = null;
+            view.release();
+        }
+    }
+
+    private static PacketView newView(PacketType type) {
+        return switch (type) {
+            case HANDSHAKE -> new HandshakeView();
+            case CHAT_MESSAGE -> new ChatMessageView();
+            case PLAYER_POSITION -> new PlayerPositionView();
+            case PLAYER_POSITION_ROTATION -> new PlayerPositionRotationView();
+            case PLAYER_ROTATION -> new PlayerRotationView();
+            default -> null;
+        };
+    }
+
+    // -------------------------------------------------------------------------
+    // Shared
+    // -------------------------------------------------------------------------
+
+    private MinecraftProtocol.Entry lookup(int packetId) {
+        MinecraftProtocol.Entry[] t = table;
+        if (packetId < 0 || packetId >= t.length) return null;
+        return t[packetId];
+    }
+
+    private MinecraftPacket read(ChannelHandlerContext ctx, MinecraftProtocol.Entry entry, ByteBuf body) {
+        MinecraftPacket packet = entry.reader.read(body);
+        if (packet instanceof HandshakePacket handshake) {
+            onHandshake(ctx, handshake.getProtocolVersion(), handshake.getNextState());
+        }
+        return packet;
+    }
+
+    private void onHandshake(ChannelHandlerContext ctx, int protocolVersion, int nextState) {
+        setProtocolVersion(protocolVersion);
+        if (!protocol.isSupported()) {
+            log.debug("[MCDecoder] Protocol {} from {} is not supported; play packets will not be decoded",
+                    protocolVersion, ctx.channel().remoteAddress());
+        }
+        switch (nextState) {
+            case NEXT_STATUS -> setState(ConnectionState.STATUS);
+            case NEXT_LOGIN, NEXT_TRANSFER -> setState(ConnectionState.LOGIN);
+            default -> log.debug("[MCDecoder] Unknown next state {} in handshake from {}",
+                    nextState, ctx.channel().remoteAddress());
+        }
+    }
+
+    /** Select the dispatch tables for a protocol version (normally done by the handshake). */
+    public void setProtocolVersion(int version) {
+        protocol = MinecraftProtocol.forVersion(version);
+        table = protocol.table(state);
+    }
+
+    public int getProtocolVersion() { return protocol.version(); }
+
+    public void setState(ConnectionState newState) {
+        this.state = newState;
+        this.table = protocol.table(newState);
+    }
+
     public ConnectionState getState() { return state; }
-}
\ No newline at end of file
+
+    /** True if this decoder forwards raw frames (see the class comment). */
+    public boolean isPassThrough() { return inspect != null; }
+
+    /**
+     * Set Compression threshold seen on the connection (pass-through mode
+     * only; full-decode pipelines get a PacketDecompressor instead).  A
+     * negative value turns compression off.
+     */
+    public void setCompressionThreshold(int threshold) {
+        if (inspect == null) {
+            throw new IllegalStateException("Compression is handled by a PacketDecompressor in full-decode mode");
+        }
+        this.compressionThreshold = threshold < 0 ? -1 : threshold;
+    }
+}
@@ -0,0 +1,188 @@
+package com.proxy.network.decoder;
+
+import com.proxy.network.decoder.MinecraftPacketDecoder.ConnectionState;
+import com.proxy.network.packet.PacketType;
+import com.proxy.network.packet.handshake.HandshakePacket;
+import com.proxy.network.packet.login.LoginStartPacket;
+import com.proxy.network.packet.play.ChatMessagePacket;
+import com.proxy.network.packet.play.PlayerPositionPacket;
+import com.proxy.network.packet.play.PlayerPositionRotationPacket;
+import com.proxy.network.packet.play.PlayerRotationPacket;
+import com.proxy.network.util.PacketDecoder;
+import io.netty.buffer.ByteBuf;
+
+import java.util.UUID;
+
+/**
+ * Serverbound packet dispatch tables for one Minecraft protocol version.
+ *
+ * For every connection state there is one array indexed by packet ID.  An
+ * entry names the packet ({@link PacketType}), says how to decode it (if
+ * the proxy cares about it) and which state the connection moves to once
+ * it has been sent.  IDs without an entry are not decoded.
+ *
+ * Supported versions (serverbound IDs that move between them):
+ *
+ *   protocol  release         finish-config ack  chat  play config ack  position
+ *   764       1.20.2          0x02               0x05  0x0B             0x16
+ *   765       1.20.3–1.20.4   0x02               0x05  0x0B             0x17
+ *   766       1.20.5–1.20.6   0x03               0x06  0x0C             0x1A
+ *   767       1.21–1.21.1     0x03               0x06  0x0C             0x1A
+ *   768       1.21.2–1.21.3   0x03               0x07  0x0E             0x1C
+ *
+ * Position And Rotation and Rotation always follow Position.  Handshake,
+ * status and login IDs are the same for all of them (Login Acknowledged is
+ * 0x03).  For any other version only the handshake, status and login states
+ * are decoded; configuration and play packets are left alone rather than
+ * guessed at.
+ */
+public final class MinecraftProtocol {
+
+    /** One dispatch-table slot */
+    public static final class Entry {
+        public final PacketType type;
+        /** Decoder for the packet body, or null if the packet is not decoded */
+        public final PacketReader reader;
+        /** State after this packet, or null if it does not change the state */
+        public final ConnectionState next;
+
+        Entry(PacketType type, PacketReader reader, ConnectionState next) {
+            this.type = type;
+            this.reader = reader;
+            this.next = next;
+        }
+    }
+
+    private static final int MAX_ADDRESS_BYTES  = 255 * 4;
+    private static final int MAX_USERNAME_BYTES = 16 * 4;
+    private static final int MAX_CHAT_BYTES     = 256 * 4;
+    private static final int SIGNATURE_BYTES    = 256;
+
+    private static final int LOGIN_START        = 0x00;
+    private static final int LOGIN_ACKNOWLEDGED = 0x03;
+
+    /** Tables before the handshake has told us the version */
+    public static final MinecraftProtocol UNKNOWN = new MinecraftProtocol(-1);
+
+    private static final MinecraftProtocol[] SUPPORTED = {
+            new MinecraftProtocol(764, 0x02, 0x05, 0x0B, 0x16),
+            new MinecraftProtocol(765, 0x02, 0x05, 0x0B, 0x17),
+            new MinecraftProtocol(766, 0x03, 0x06, 0x0C, 0x1A),
+            new MinecraftProtocol(767, 0x03, 0x06, 0x0C, 0x1A),
+            new MinecraftProtocol(768, 0x03, 0x07, 0x0E, 0x1C),
+    };
+
+    private final int version;
+    private final boolean supported;
+    /** [state ordinal][packet ID] */
+    private final Entry[][] tables = new Entry[ConnectionState.values().length][];
+
+    /** The tables for {@code version}; unsupported versions get handshake/status/login only. */
+    public static MinecraftProtocol forVersion(int version) {
+        for (MinecraftProtocol p : SUPPORTED) {
+            if (p.version == version) return p;
+        }
+        return new MinecraftProtocol(version);
+    }
+
+    /** Handshake, status and login only */
+    private MinecraftProtocol(int version) {
+        this.version = version;
+        this.supported = false;
+        buildCommon();
+        tables[ConnectionState.CONFIGURATION.ordinal()] = new Entry[0];
+        tables[ConnectionState.PLAY.ordinal()] = new Entry[0];
+    }
+
+    private MinecraftProtocol(int version, int finishConfigAck, int chat, int playConfigAck, int position) {
+        this.version = version;
+        this.supported = true;
+        buildCommon();
+
+        Entry[] configuration = new Entry[finishConfigAck + 1];
+        configuration[finishConfigAck] = new Entry(PacketType.FINISH_CONFIGURATION_ACK, null, ConnectionState.PLAY);
+        tables[ConnectionState.CONFIGURATION.ordinal()] = configuration;
+
+        Entry[] play = new Entry[position + 3];
+        play[chat]          = new Entry(PacketType.CHAT_MESSAGE, MinecraftProtocol::readChat, null);
+        play[playConfigAck] = new Entry(PacketType.CONFIGURATION_ACK, null, ConnectionState.CONFIGURATION);
+        play[position]      = new Entry(PacketType.PLAYER_POSITION, MinecraftProtocol::readPosition, null);
+        play[position + 1]  = new Entry(PacketType.PLAYER_POSITION_ROTATION,
+                MinecraftProtocol::readPositionRotation, null);
+        play[position + 2]  = new Entry(PacketType.PLAYER_ROTATION, MinecraftProtocol::readRotation, null);
+        tables[ConnectionState.PLAY.ordinal()] = play;
+    }
+
+    private void buildCommon() {
+        // The decoder handles the handshake's state change itself (it depends on a field)
+        tables[ConnectionState.HANDSHAKING.ordinal()] = new Entry[] {
+                new Entry(PacketType.HANDSHAKE, MinecraftProtocol::readHandshake, null)
+        };
+        tables[ConnectionState.STATUS.ordinal()] = new Entry[0];
+
+        Entry[] login = new Entry[LOGIN_ACKNOWLEDGED + 1];
+        login[LOGIN_START] = new Entry(PacketType.LOGIN_START, MinecraftProtocol::readLoginStart, null);
+        login[LOGIN_ACKNOWLEDGED] = new Entry(PacketType.LOGIN_ACKNOWLEDGED, null, ConnectionState.CONFIGURATION);
+        tables[ConnectionState.LOGIN.ordinal()] = login;
+    }
+
+    public int version() {
+        return version;
+    }
+
+    /** True if configuration and play packets are decoded for this version. */
+    public boolean isSupported() {
+        return supported;
+    }
+
+    /** Dispatch table of one state, indexed by packet ID.  Shared; do not modify. */
+    public Entry[] table(ConnectionState state) {
+        return tables[state.ordinal()];
+    }
+
+    // -------------------------------------------------------------------------
+    // Readers
+    // -------------------------------------------------------------------------
+
+    private static HandshakePacket readHandshake(ByteBuf buf) {
+        int protocolVersion = PacketDecoder.readVarInt(buf);
+        String serverAddress = PacketDecoder.readString(buf, MAX_ADDRESS_BYTES);
+        int serverPort = buf.readUnsignedShort();
+        int nextState = PacketDecoder.readVarInt(buf);
+        return new HandshakePacket(protocolVersion, serverAddress, serverPort, nextState);
+    }
+
+    private static LoginStartPacket readLoginStart(ByteBuf buf) {
+        String username = PacketDecoder.readString(buf, MAX_USERNAME_BYTES);
+        return new LoginStartPacket(username, new UUID(buf.readLong(), buf.readLong()));
+    }
+
+    private static ChatMessagePacket readChat(ByteBuf buf) {
+        String message = PacketDecoder.readString(buf, MAX_CHAT_BYTES);
+        long timestamp = buf.readLong();
+        long salt = buf.readLong();
+        byte[] signature = null;
+        if (buf.readBoolean()) {
+            signature = new byte[SIGNATURE_BYTES];
+            buf.readBytes(signature);
+        }
+        // Acknowledgement fields (message count, bitset) are not needed
+        return new ChatMessagePacket(message, timestamp, salt, signature, false);
+    }
+
+    // On-ground is a boolean up to 767 and bit 0 of a flags byte from 768 on; (b & 1) reads both
+
+    private static PlayerPositionPacket readPosition(ByteBuf buf) {
+        return new PlayerPositionPacket(buf.readDouble(), buf.readDouble(), buf.readDouble(),
+                (buf.readByte() & 0x01) != 0);
+    }
+
+    private static PlayerPositionRotationPacket readPositionRotation(ByteBuf buf) {
+        return new PlayerPositionRotationPacket(buf.readDouble(), buf.readDouble(), buf.readDouble(),
+                buf.readFloat(), buf.readFloat(), (buf.readByte() & 0x01) != 0);
+    }
+
+    private static PlayerRotationPacket readRotation(ByteBuf buf) {
+        return new PlayerRotationPacket(buf.readFloat(), buf.readFloat(), (buf.readByte() & 0x01) != 0);
+    }
+}
@@ -3,50 +3,108 @@ package com.proxy.network.decoder;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.TooLongFrameException;
 
 import java.util.List;
 
 /**
  * Decodes Minecraft protocol variable-length packet frames.
- * 
+ *
  * Minecraft uses a VarInt length prefix before each packet.
  * This decoder reads the VarInt length and extracts the complete packet frame.
+ *
+ * Two framing modes are supported:
+ *  - zero-copy (default): each frame is emitted as a retained slice of the
+ *    cumulation buffer, so no bytes are copied on the way to the packet decoder
+ *  - copy: each frame is copied into a freshly allocated buffer (the original
+ *    behaviour, kept for comparison)
+ *
+ * Every complete frame in the cumulation buffer is emitted in a single
+ * decode() call.  Frames longer than the configured maximum are rejected.
+ *
+ * By default the VarInt length prefix is stripped.  Relay pipelines that only
+ * peek at packets can keep it, so each emitted frame is the exact original
+ * wire bytes and can be forwarded untouched.
  */
 public class PacketFrameDecoder extends ByteToMessageDecoder {
 
+    /** Largest length a 3-byte VarInt prefix can express — the vanilla limit. */
+    public static final int DEFAULT_MAX_FRAME_LENGTH =
+            Integer.getInteger("hytalecraft.mc.maxFrameLength", (1 << 21) - 1);
+
+    private final int maxFrameLength;
+    private final boolean zeroCopy;
+    private final boolean stripLengthPrefix;
+
+    public PacketFrameDecoder() {
+        this(DEFAULT_MAX_FRAME_LENGTH, true, true);
+    }
+
+    /**
+     * @param maxFrameLength Largest accepted frame body, in bytes
+     * @param zeroCopy       Emit retained slices instead of copies
+     */
+    public PacketFrameDecoder(int maxFrameLength, boolean zeroCopy) {
+        this(maxFrameLength, zeroCopy, true);
+    }
+
+    /**
+     * @param maxFrameLength    Largest accepted frame body, in bytes
+     * @param zeroCopy          Emit retained slices instead of copies
+     * @param stripLengthPrefix Drop the VarInt length prefix from emitted frames
+     */
+    public PacketFrameDecoder(int maxFrameLength, boolean zeroCopy, boolean stripLengthPrefix) {
+        if (maxFrameLength <= 0) {
+            throw new IllegalArgumentException("maxFrameLength must be positive: " + maxFrameLength);
+        }
+        this.maxFrameLength = maxFrameLength;
+        this.zeroCopy = zeroCopy;
+        this.stripLengthPrefix = stripLengthPrefix;
+    }
+
     @Override
     protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
-        // Check if we have enough bytes to read the VarInt length
-        if (in.readableBytes() < 1) {
-            return; // Not enough data yet
-        }
+        while (in.isReadable()) {
+            // Read VarInt length (Minecraft protocol format)
+            int readerIndex = in.readerIndex();
+            int length = readVarInt(in);
 
-        // Read VarInt length (Minecraft protocol format)
-        int readerIndex = in.readerIndex();
-        int length = readVarInt(in);
-        
-        if (length == -1) {
-            // VarInt was incomplete, reset reader index
-            in.readerIndex(readerIndex);
-            return;
-        }
+            if (length == -1) {
+                // VarInt was incomplete, reset reader index
+                in.readerIndex(readerIndex);
+                return;
+            }
 
-        // Check if we have the complete packet
-        if (in.readableBytes() < length) {
-            // Not enough data for the complete packet, reset to before VarInt
-            in.readerIndex(readerIndex);
-            return;
-        }
+            if (length > maxFrameLength) {
+                in.skipBytes(in.readableBytes());
+                throw new TooLongFrameException("Frame length " + length + " exceeds maximum " + maxFrameLength);
+            }
 
-        // Extract the complete packet frame
-        ByteBuf frame = in.readBytes(length);
-        out.add(frame);
+            // Check if we have the complete packet
+            if (in.readableBytes() < length) {
+                // Not enough data for the complete packet, reset to before VarInt
+                in.readerIndex(readerIndex);
+                return;
+            }
+
+            if (length == 0) {
+                continue; // Empty frame carries no packet ID — nothing to emit
+            }
+
+            // Extract the complete packet frame
+            if (!stripLengthPrefix) {
+                length += in.readerIndex() - readerIndex;
+                in.readerIndex(readerIndex);
+            }
+            out.add(zeroCopy ? in.readRetainedSlice(length) : in.readBytes(length));
+        }
     }
 
     /**
      * Reads a VarInt from the ByteBuf.
      * Returns -1 if the VarInt is incomplete.
-     * 
+     *
      * @param buf The ByteBuf to read from
      * @return The VarInt value, or -1 if incomplete
      */
@@ -69,8 +127,9 @@ public class PacketFrameDecoder extends ByteToMessageDecoder {
 
             position += 7;
 
-            if (position >= 32) {
-                throw new RuntimeException("VarInt too long");
+            if (position >= 21) {
+                // Frame lengths never need more than 3 VarInt bytes
+                throw new CorruptedFrameException("Frame length VarInt too long");
             }
         }
 
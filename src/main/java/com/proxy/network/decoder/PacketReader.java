@@ -0,0 +1,15 @@
+package com.proxy.network.decoder;
+
+import com.proxy.network.packet.MinecraftPacket;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Decodes the body of one serverbound packet; {@code buf} is positioned just
+ * after the packet ID.  Entries of the {@link MinecraftProtocol} dispatch
+ * tables.
+ */
+@FunctionalInterface
+public interface PacketReader {
+
+    MinecraftPacket read(ByteBuf buf);
+}
@@ -0,0 +1,85 @@
+package com.proxy.network.handler;
+
+import com.proxy.network.backend.Backend;
+import com.proxy.network.compression.CompressionHandlers;
+import com.proxy.network.compression.ZlibContexts;
+import com.proxy.network.decoder.MinecraftPacketDecoder;
+import com.proxy.network.util.PacketDecoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+
+/**
+ * Watches the Paper → client login sequence of a relayed connection.
+ *
+ * Frames arrive with their length prefix intact (PacketFrameDecoder in
+ * prefix-keeping mode) and are passed on unchanged.  When Set Compression
+ * (0x03) goes by, the client pipeline is told about it so the packet
+ * decoder keeps working once the client starts compressing: a pass-through
+ * decoder tracks the threshold itself, a full-decode pipeline gets a
+ * PacketDecompressor.  Once
+ * Login Success (0x02) has been relayed the login time is reported to the
+ * {@link Backend} and the watcher removes itself.
+ *
+ * A frame too short for the header it claims is released and the
+ * {@link io.netty.handler.codec.CorruptedFrameException} passed on to
+ * exceptionCaught, which closes the connection.
+ */
+public class BackendLoginWatcher extends ChannelInboundHandlerAdapter {
+
+    private final Channel clientChannel;
+    private final Backend backend;
+    /** System.nanoTime() when the backend connection was started */
+    private final long connectStart;
+    private int threshold = -1;
+
+    public BackendLoginWatcher(Channel clientChannel, Backend backend, long connectStart) {
+        this.clientChannel = clientChannel;
+        this.backend = backend;
+        this.connectStart = connectStart;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (msg instanceof ByteBuf frame && frame.isReadable()) {
+            int start = frame.readerIndex();
+            try {
+                PacketDecoder.readVarInt(frame); // frame length
+                int packetId = readPacketId(frame);
+                if (packetId == 0x03 && threshold < 0) {
+                    threshold = PacketDecoder.readVarInt(frame);
+                    enableClientCompression();
+                } else if (packetId == 0x02) {
+                    backend.loginCompleted(connectStart);
+                    ctx.pipeline().remove(this);
+                }
+                frame.readerIndex(start);
+            } catch (RuntimeException e) {
+                frame.release();
+                throw e;
+            }
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    private void enableClientCompression() {
+        MinecraftPacketDecoder decoder = clientChannel.pipeline().get(MinecraftPacketDecoder.class);
+        if (decoder != null && decoder.isPassThrough()) {
+            decoder.setCompressionThreshold(threshold);
+        } else {
+            CompressionHandlers.enableInbound(clientChannel.pipeline(), threshold);
+        }
+    }
+
+    /** Packet ID of the frame body, looking through the compression header if enabled. */
+    private int readPacketId(ByteBuf frame) {
+        if (threshold >= 0) {
+            int dataLength = PacketDecoder.readVarInt(frame);
+            if (dataLength != 0) {
+                return ZlibContexts.peekPacketId(frame);
+            }
+        }
+        return PacketDecoder.readVarInt(frame);
+    }
+}
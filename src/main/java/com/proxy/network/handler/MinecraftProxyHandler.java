@@ -1,59 +1,262 @@
 package com.proxy.network.handler;
 
+import com.proxy.metrics.MetricsRegistry;
+import com.proxy.network.decoder.InspectedFrame;
+import com.proxy.network.backend.Backend;
+import com.proxy.network.backend.BackendRegistry;
+import com.proxy.network.decoder.PacketFrameDecoder;
+import com.proxy.network.packet.MinecraftPacket;
+import com.proxy.network.packet.login.LoginStartPacket;
+import com.proxy.network.transport.Transport;
+import com.proxy.network.util.WriteBatcher;
 import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
 import io.netty.channel.*;
-import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.ReferenceCountUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * Relays a Minecraft client connection to a Paper backend.
+ *
+ * Routing: the backend is picked by {@link BackendRegistry} from the
+ * player's UUID, so on a framed pipeline the connection is only opened once
+ * the frame after the handshake has arrived — Login Start, whose UUID is
+ * read if LOGIN_START is in hytalecraft.mc.decode, or Status Request.
+ * Without a UUID (status pings, Login Start not decoded, unframed relay) the
+ * registry routes by least connections.
+ *
+ * Flow control:
+ *  - Packets that arrive before the backend connection is up are queued in a
+ *    bounded buffer and written in order once it connects.  When the buffer
+ *    fills, reading from the client is paused until the backend is ready.
+ *  - Both channels use the same write-buffer water marks.  When one side
+ *    stops being writable, auto-read is switched off on the opposite side
+ *    and switched back on once it drains below the low water mark.
+ *  - Queue depths are exported as gauges summed over open relays:
+ *    hytalecraft_relay_pending_packets / _pending_bytes (pre-connect queue)
+ *    and hytalecraft_relay_queued_bytes{direction} (outbound buffers).
+ *
+ * Relayed packets are written without flushing and flushed once per
+ * read-complete of the side they came from (see {@link WriteBatcher}).
+ *
+ * Client messages:
+ *  - ByteBuf: a raw frame, forwarded as-is
+ *  - InspectedFrame: a raw frame plus its decoded packet; the packet is
+ *    handed to {@link #onPacket} and the frame forwarded
+ *  - MinecraftPacket (full-decode pipeline): cannot be forwarded, so the
+ *    connection is refused — the relay needs a pass-through decoder
+ *
+ * Tuning (system properties):
+ *   hytalecraft.relay.maxPendingPackets  pre-connect queue, packets (default 256)
+ *   hytalecraft.relay.maxPendingBytes    pre-connect queue, bytes   (default 256 KiB)
+ *   hytalecraft.relay.lowWaterMark       write buffer low mark      (default 32 KiB)
+ *   hytalecraft.relay.highWaterMark      write buffer high mark     (default 64 KiB)
+ */
 public class MinecraftProxyHandler extends ChannelInboundHandlerAdapter {
 
+    private static final Logger log = LoggerFactory.getLogger(MinecraftProxyHandler.class);
+
+    private static final int MAX_PENDING_PACKETS =
+            Integer.getInteger("hytalecraft.relay.maxPendingPackets", 256);
+    private static final int MAX_PENDING_BYTES =
+            Integer.getInteger("hytalecraft.relay.maxPendingBytes", 256 * 1024);
+    private static final WriteBufferWaterMark WATER_MARK = new WriteBufferWaterMark(
+            Integer.getInteger("hytalecraft.relay.lowWaterMark", 32 * 1024),
+            Integer.getInteger("hytalecraft.relay.highWaterMark", 64 * 1024));
+
+    /** Open relays, summed by the queue-depth gauges */
+    private static final Set<MinecraftProxyHandler> RELAYS = ConcurrentHashMap.newKeySet();
+
+    static {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        registry.gauge("hytalecraft_relay_pending_packets",
+                "Client packets queued while waiting for the backend connection",
+                () -> sum(MinecraftProxyHandler::getPendingPackets));
+        registry.gauge("hytalecraft_relay_pending_bytes",
+                "Client bytes queued while waiting for the backend connection",
+                () -> sum(MinecraftProxyHandler::getPendingBytes));
+        registry.gauge("hytalecraft_relay_queued_bytes",
+                "Bytes in relay outbound buffers", MetricsRegistry.labels("direction", "to_backend"),
+                () -> sum(MinecraftProxyHandler::getBackendQueuedBytes));
+        registry.gauge("hytalecraft_relay_queued_bytes",
+                "Bytes in relay outbound buffers", MetricsRegistry.labels("direction", "to_client"),
+                () -> sum(MinecraftProxyHandler::getClientQueuedBytes));
+    }
+
+    private Channel clientChannel;
     private Channel backendChannel;
     private boolean isConnecting = false;
+    /** Player UUID from Login Start, used to pick the backend */
+    private UUID routingKey;
+
+    /** client → Paper writes, flushed on client read-complete */
+    private WriteBatcher toBackend;
+    /** Paper → client writes, flushed on backend read-complete */
+    private WriteBatcher toClient;
+
+    /** Packets received before the backend connected, in arrival order */
+    private final ArrayDeque<Object> pending = new ArrayDeque<>();
+    /** pending.size() and its bytes, volatile for the metrics scrape */
+    private volatile int pendingPackets;
+    private volatile long pendingBytes;
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        ctx.channel().config().setWriteBufferWaterMark(WATER_MARK);
+        clientChannel = ctx.channel();
+        RELAYS.add(this);
+        super.channelActive(ctx);
+    }
 
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (msg instanceof InspectedFrame inspected) {
+            if (inspected.packet() instanceof LoginStartPacket login) {
+                routingKey = login.getUuid();
+            }
+            onPacket(ctx, inspected.packet());
+            msg = inspected.content();
+        } else if (msg instanceof MinecraftPacket packet) {
+            if (ctx.channel().isActive()) {
+                log.warn("[MCRelay] Closing {}: got decoded {} from a full-decode pipeline, which cannot be relayed",
+                        ctx.channel().remoteAddress(), packet);
+            }
+            ReferenceCountUtil.release(msg);
+            ctx.close();
+            return;
+        }
+
         // If the bridge is already alive, just send the data!
         if (backendChannel != null && backendChannel.isActive()) {
-            backendChannel.writeAndFlush(msg);
+            toBackend.write(msg);
             return;
         }
 
-        // If we are not connected yet, start the connection ONCE
-        if (!isConnecting) {
+        // Not connected yet — hold on to the packet instead of dropping it
+        enqueue(ctx, msg);
+
+        // If we are not connected yet, start the connection ONCE — on a framed
+        // pipeline, once the packet after the handshake has told us who this is
+        if (!isConnecting && (pending.size() >= 2 || ctx.pipeline().get("frameDecoder") == null)) {
             isConnecting = true;
-            final Channel clientChannel = ctx.channel();
-
-            Bootstrap b = new Bootstrap();
-            b.group(clientChannel.eventLoop())
-             .channel(NioSocketChannel.class)
-             .handler(new ChannelInboundHandlerAdapter() {
-                 @Override
-                 public void channelRead(ChannelHandlerContext ctx, Object msg) {
-                     // Data coming from Paper -> Client
-                     clientChannel.writeAndFlush(msg);
-                 }
+            connectBackend(ctx);
+        }
+    }
 
-                 @Override
-                 public void channelInactive(ChannelHandlerContext ctx) {
-                     clientChannel.close();
+    /**
+     * Called for every decoded client packet, before its frame (if any) is
+     * forwarded.  The packet is read-only; in pass-through mode it is a
+     * PacketView that is rebound after this call returns, so copy out any
+     * fields that have to be kept.
+     */
+    protected void onPacket(ChannelHandlerContext ctx, MinecraftPacket packet) {
+        if (log.isDebugEnabled()) {
+            log.debug("[MCRelay] {} from {}", packet, ctx.channel().remoteAddress());
+        }
+    }
+
+    private void enqueue(ChannelHandlerContext ctx, Object msg) {
+        pending.add(msg);
+        pendingPackets = pending.size();
+        pendingBytes += sizeOf(msg);
+        if (pending.size() >= MAX_PENDING_PACKETS || pendingBytes >= MAX_PENDING_BYTES) {
+            // Buffer is full: stop reading until the backend can take the backlog
+            ctx.channel().config().setAutoRead(false);
+        }
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) {
+        if (toBackend != null) {
+            toBackend.flush();
+        }
+    }
+
+    private void connectBackend(ChannelHandlerContext ctx) {
+        clientChannel = ctx.channel();
+        toClient = new WriteBatcher(clientChannel);
+        // A framed client pipeline needs to learn about Set Compression
+        final boolean decodingClient = clientChannel.pipeline().get("frameDecoder") != null;
+        final Backend backend = BackendRegistry.getInstance().select(routingKey);
+        final long connectStart = System.nanoTime();
+
+        Bootstrap b = new Bootstrap();
+        b.group(clientChannel.eventLoop())
+         .channel(Transport.best().socketChannelClass())
+         .option(ChannelOption.WRITE_BUFFER_WATER_MARK, WATER_MARK)
+         .handler(new ChannelInitializer<Channel>() {
+             @Override
+             protected void initChannel(Channel ch) {
+                 if (decodingClient) {
+                     ch.pipeline()
+                       .addLast("frameDecoder", new PacketFrameDecoder(
+                               PacketFrameDecoder.DEFAULT_MAX_FRAME_LENGTH, true, false))
+                       .addLast("loginWatcher", new BackendLoginWatcher(clientChannel, backend, connectStart));
                  }
-             });
+                 ch.pipeline().addLast("relay", new BackendRelayHandler());
+             }
+         });
+
+        b.connect(backend.host(), backend.port()).addListener((ChannelFutureListener) future -> {
+            if (future.isSuccess()) {
+                backend.connectSucceeded(connectStart);
+                backendChannel = future.channel();
+                backend.track(backendChannel);
+                toBackend = new WriteBatcher(backendChannel);
+                log.debug("[MCRelay] {} relayed to {}", clientChannel.remoteAddress(), backend);
+                // Send everything that arrived while we were connecting
+                drainPending();
+                clientChannel.config().setAutoRead(backendChannel.isWritable());
+            } else {
+                backend.connectFailed();
+                log.warn("[MCRelay] Could not reach {} for {}: {}",
+                        backend, clientChannel.remoteAddress(), future.cause().getMessage());
+                releasePending();
+                clientChannel.close();
+            }
+        });
+    }
+
+    private void drainPending() {
+        Object msg;
+        while ((msg = pending.poll()) != null) {
+            toBackend.write(msg);
+        }
+        pendingPackets = 0;
+        pendingBytes = 0;
+        toBackend.flush();
+    }
 
-            b.connect("127.0.0.1", 25566).addListener((ChannelFutureListener) future -> {
-                if (future.isSuccess()) {
-                    backendChannel = future.channel();
-                    System.out.println(">>> [SINGLE BRIDGE] Connected to Paper on 25566!");
-                    // Send the very first packet that triggered this
-                    backendChannel.writeAndFlush(msg);
-                } else {
-                    System.out.println(">>> [ERROR] Paper Server is Offline!");
-                    clientChannel.close();
-                }
-            });
+    private void releasePending() {
+        Object msg;
+        while ((msg = pending.poll()) != null) {
+            ReferenceCountUtil.release(msg);
         }
+        pendingPackets = 0;
+        pendingBytes = 0;
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        // Client can't keep up → stop pulling from Paper until it drains
+        if (backendChannel != null) {
+            backendChannel.config().setAutoRead(ctx.channel().isWritable());
+        }
+        super.channelWritabilityChanged(ctx);
     }
 
     @Override
     public void channelInactive(ChannelHandlerContext ctx) {
+        RELAYS.remove(this);
+        releasePending();
         if (backendChannel != null) {
             backendChannel.close();
         }
@@ -64,4 +267,85 @@ public class MinecraftProxyHandler extends ChannelInboundHandlerAdapter {
         // Silently close on errors to prevent log spam
         ctx.close();
     }
-}
\ No newline at end of file
+
+    // -------------------------------------------------------------------------
+    // Queue depth (metrics)
+    // -------------------------------------------------------------------------
+
+    /** Packets waiting for the backend connection to come up. */
+    public int getPendingPackets() {
+        return pendingPackets;
+    }
+
+    /** Bytes waiting for the backend connection to come up. */
+    public long getPendingBytes() {
+        return pendingBytes;
+    }
+
+    /** Bytes queued in the backend channel's outbound buffer (client → Paper). */
+    public long getBackendQueuedBytes() {
+        return queuedBytes(backendChannel);
+    }
+
+    /** Bytes queued in the client channel's outbound buffer (Paper → client). */
+    public long getClientQueuedBytes() {
+        return queuedBytes(clientChannel);
+    }
+
+    private static long sum(ToLongFunction<MinecraftProxyHandler> depth) {
+        long total = 0;
+        for (MinecraftProxyHandler relay : RELAYS) {
+            total += depth.applyAsLong(relay);
+        }
+        return total;
+    }
+
+    private static long queuedBytes(Channel ch) {
+        if (ch == null) return 0;
+        ChannelOutboundBuffer buffer = ch.unsafe().outboundBuffer();
+        return buffer != null ? buffer.totalPendingWriteBytes() : 0;
+    }
+
+    private static int sizeOf(Object msg) {
+        if (msg instanceof ByteBuf buf) return buf.readableBytes();
+        if (msg instanceof ByteBufHolder holder) return holder.content().readableBytes();
+        return 0;
+    }
+
+    // -------------------------------------------------------------------------
+    // Backend side
+    // -------------------------------------------------------------------------
+
+    /** Paper → client half of the relay. */
+    private class BackendRelayHandler extends ChannelInboundHandlerAdapter {
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            // Data coming from Paper -> Client
+            toClient.write(msg);
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) {
+            toClient.flush();
+        }
+
+        @Override
+        public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+            // Paper can't keep up → stop pulling from the client until it drains
+            clientChannel.config().setAutoRead(ctx.channel().isWritable());
+            super.channelWritabilityChanged(ctx);
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) {
+            clientChannel.close();
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            // e.g. a corrupt frame seen by the login watcher; channelInactive closes the client
+            ctx.close();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.proxy.network.packet;
+
+/**
+ * Serverbound packets the proxy knows by meaning rather than by ID.
+ *
+ * Packet IDs move between protocol versions; a PacketType does not, so it is
+ * what configuration refers to (see MinecraftChannelInitializer).  The
+ * per-version IDs live in MinecraftProtocol.
+ */
+public enum PacketType {
+
+    // Decodable
+    HANDSHAKE,
+    LOGIN_START,
+    CHAT_MESSAGE,
+    PLAYER_POSITION,
+    PLAYER_POSITION_ROTATION,
+    PLAYER_ROTATION,
+
+    // State transitions only (no body of interest)
+    LOGIN_ACKNOWLEDGED,
+    FINISH_CONFIGURATION_ACK,
+    CONFIGURATION_ACK
+}
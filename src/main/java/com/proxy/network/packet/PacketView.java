@@ -0,0 +1,85 @@
+package com.proxy.network.packet;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.util.IllegalReferenceCountException;
+
+/**
+ * Flyweight packet: a read-only view over the body of a received frame.
+ *
+ * Nothing is decoded up front.  Fixed-layout fields are absolute reads at a
+ * known offset; variable-length fields are located when the view is bound
+ * (a VarInt read each) but only turned into objects such as Strings on
+ * first access, and cached until the view is rebound.
+ *
+ * One view per packet type is kept per channel (see MinecraftPacketDecoder)
+ * and rebound for every matching frame, so steady-state traffic allocates
+ * nothing for its packets.  A bound view holds one reference to the frame
+ * buffer; the decoder releases it as soon as the frame's channelRead has
+ * returned.  Consequently a view is only valid inside the channelRead that
+ * delivered it — copy out whatever has to outlive it.
+ */
+public abstract class PacketView extends MinecraftPacket {
+
+    private ByteBuf buf;
+    /** Absolute index of the first byte after the packet ID */
+    protected int body;
+
+    /**
+     * Bind the view to a packet body, taking over one reference to
+     * {@code buf}.  A previous binding is released first.
+     *
+     * @param buf  buffer holding the packet
+     * @param body absolute index of the first byte after the packet ID
+     */
+    public final void bind(ByteBuf buf, int body) {
+        release();
+        this.buf = buf;
+        this.body = body;
+        try {
+            onBind();
+        } catch (RuntimeException e) {
+            release();
+            throw e;
+        }
+    }
+
+    /** Drop the binding and its buffer reference.  Safe to call when unbound. */
+    public final void release() {
+        ByteBuf b = buf;
+        if (b != null) {
+            buf = null;
+            onRelease();
+            b.release();
+        }
+    }
+
+    public final boolean isBound() {
+        return buf != null;
+    }
+
+    /** The bound buffer; throws if the view has been released. */
+    protected final ByteBuf buf() {
+        ByteBuf b = buf;
+        if (b == null) {
+            throw new IllegalReferenceCountException("Packet view used outside its channelRead");
+        }
+        return b;
+    }
+
+    /** Throws CorruptedFrameException unless {@code bytes} bytes follow {@code index}. */
+    protected final void require(int index, int bytes) {
+        if (bytes < 0 || buf().writerIndex() - index < bytes) {
+            throw new CorruptedFrameException(getClass().getSimpleName() + " truncated");
+        }
+    }
+
+    /**
+     * Validate the new binding (throw CorruptedFrameException if the body is
+     * too short) and reset cached fields.
+     */
+    protected abstract void onBind();
+
+    /** Drop cached fields that reference the old binding.  Default: nothing. */
+    protected void onRelease() {}
+}
@@ -0,0 +1,74 @@
+package com.proxy.network.packet.handshake;
+
+import com.proxy.network.packet.PacketView;
+import com.proxy.network.util.PacketDecoder;
+import io.netty.handler.codec.CorruptedFrameException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Flyweight Handshake (see {@link HandshakePacket}).
+ *
+ * Layout: protocol version (VarInt), server address (String), port
+ * (unsigned short), next state (VarInt).  The numeric fields are read when
+ * the view is bound — the decoder needs them straight away — and the
+ * address String is only built on request.
+ */
+public final class HandshakeView extends PacketView {
+
+    private static final int MAX_ADDRESS_BYTES = 255 * 4;
+
+    private int protocolVersion;
+    private int addressStart;
+    private int addressBytes;
+    private int serverPort;
+    private int nextState;
+    private String serverAddress;
+
+    @Override
+    protected void onBind() {
+        protocolVersion = PacketDecoder.getVarInt(buf(), body);
+        int index = body + PacketDecoder.varIntLength(buf(), body);
+
+        int length = PacketDecoder.getVarInt(buf(), index);
+        if (length < 0 || length > MAX_ADDRESS_BYTES) {
+            throw new CorruptedFrameException("Bad string length " + length);
+        }
+        addressStart = index + PacketDecoder.varIntLength(buf(), index);
+        addressBytes = length;
+        index = addressStart + length;
+
+        require(index, 2);
+        serverPort = buf().getUnsignedShort(index);
+        nextState = PacketDecoder.getVarInt(buf(), index + 2);
+        serverAddress = null;
+    }
+
+    @Override
+    protected void onRelease() {
+        serverAddress = null;
+    }
+
+    public int getProtocolVersion() {
+        buf();
+        return protocolVersion;
+    }
+
+    public String getServerAddress() {
+        String a = serverAddress;
+        if (a == null) {
+            a = serverAddress = buf().toString(addressStart, addressBytes, StandardCharsets.UTF_8);
+        }
+        return a;
+    }
+
+    public int getServerPort() {
+        buf();
+        return serverPort;
+    }
+
+    public int getNextState() {
+        buf();
+        return nextState;
+    }
+}
@@ -0,0 +1,35 @@
+package com.proxy.network.packet.login;
+
+import com.proxy.network.packet.MinecraftPacket;
+
+import java.util.UUID;
+
+/**
+ * Represents a Login Start packet (0x00 in LOGIN state).
+ *
+ * Sent by the client right after the handshake.  Since 1.20.2 the player
+ * UUID always follows the name.
+ */
+public class LoginStartPacket extends MinecraftPacket {
+
+    private final String username;
+    private final UUID uuid;
+
+    public LoginStartPacket(String username, UUID uuid) {
+        this.username = username;
+        this.uuid = uuid;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LoginStartPacket{username='%s', uuid=%s}", username, uuid);
+    }
+}
@@ -3,7 +3,8 @@ package com.proxy.network.packet.play;
 import com.proxy.network.packet.MinecraftPacket;
 
 /**
- * Represents a Chat Message packet (0x05 in PLAY state for 1.20.4).
+ * Represents a Chat Message packet (PLAY state; the ID depends on the
+ * protocol version, see MinecraftProtocol).
  * 
  * This packet is sent by the client when a player types a message in chat.
  */
@@ -0,0 +1,87 @@
+package com.proxy.network.packet.play;
+
+import com.proxy.network.packet.PacketView;
+import com.proxy.network.util.PacketDecoder;
+import io.netty.handler.codec.CorruptedFrameException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Flyweight Chat Message (see {@link ChatMessagePacket}).
+ *
+ * Layout: message (String), timestamp, salt (long), has signature (boolean),
+ * signature (256 bytes, if present), then acknowledgement fields that are
+ * not exposed.  The message String is only built if {@link #getMessage()}
+ * is called; {@link #getMessageBytes()} gives its encoded length for free.
+ */
+public final class ChatMessageView extends PacketView {
+
+    private static final int MAX_CHAT_BYTES  = 256 * 4;
+    private static final int SIGNATURE_BYTES = 256;
+
+    private int messageStart;
+    private int messageBytes;
+    /** Index of the timestamp */
+    private int tail;
+    private String message;
+
+    @Override
+    protected void onBind() {
+        int length = PacketDecoder.getVarInt(buf(), body);
+        if (length < 0 || length > MAX_CHAT_BYTES) {
+            throw new CorruptedFrameException("Bad string length " + length);
+        }
+        messageStart = body + PacketDecoder.varIntLength(buf(), body);
+        messageBytes = length;
+        tail = messageStart + length;
+        require(tail, 8 + 8 + 1);
+        if (hasSignature()) {
+            require(tail + 17, SIGNATURE_BYTES);
+        }
+        message = null;
+    }
+
+    @Override
+    protected void onRelease() {
+        message = null;
+    }
+
+    public String getMessage() {
+        String m = message;
+        if (m == null) {
+            m = message = buf().toString(messageStart, messageBytes, StandardCharsets.UTF_8);
+        }
+        return m;
+    }
+
+    /** UTF-8 length of the message */
+    public int getMessageBytes() {
+        buf();
+        return messageBytes;
+    }
+
+    public long getTimestamp() {
+        return buf().getLong(tail);
+    }
+
+    public long getSalt() {
+        return buf().getLong(tail + 8);
+    }
+
+    public boolean hasSignature() {
+        return buf().getBoolean(tail + 16);
+    }
+
+    /** A copy of the signature, or null for unsigned messages */
+    public byte[] getSignature() {
+        if (!hasSignature()) return null;
+        byte[] signature = new byte[SIGNATURE_BYTES];
+        buf().getBytes(tail + 17, signature);
+        return signature;
+    }
+
+    @Override
+    public String toString() {
+        return isBound() ? String.format("ChatMessageView{message='%s'}", getMessage()) : "ChatMessageView{released}";
+    }
+}
@@ -3,7 +3,8 @@ package com.proxy.network.packet.play;
 import com.proxy.network.packet.MinecraftPacket;
 
 /**
- * Represents a Player Position packet (0x18 in PLAY state for 1.20.4).
+ * Represents a Set Player Position packet (PLAY state; the ID depends on the
+ * protocol version, see MinecraftProtocol).
  * 
  * This packet is sent by the client to update the server about the player's position.
  */
@@ -0,0 +1,52 @@
+package com.proxy.network.packet.play;
+
+import com.proxy.network.packet.MinecraftPacket;
+
+/**
+ * Represents a Set Player Position And Rotation packet (PLAY state; the ID
+ * depends on the protocol version, see MinecraftProtocol).
+ *
+ * Sent by the client when the player both moves and turns in one tick.
+ */
+public class PlayerPositionRotationPacket extends MinecraftPacket {
+
+    private final double x;
+    private final double y;
+    private final double z;
+    private final float yaw;
+    private final float pitch;
+    private final boolean onGround;
+
+    public PlayerPositionRotationPacket(double x, double y, double z, float yaw, float pitch, boolean onGround) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.yaw = yaw;
+        this.pitch = pitch;
+        this.onGround = onGround;
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public double getZ() {
+        return z;
+    }
+
+    public float getYaw() {
+        return yaw;
+    }
+
+    public float getPitch() {
+        return pitch;
+    }
+
+    public boolean isOnGround() {
+        return onGround;
+    }
+}
@@ -0,0 +1,42 @@
+package com.proxy.network.packet.play;
+
+import com.proxy.network.packet.PacketView;
+
+/**
+ * Flyweight Set Player Position and Rotation (see {@link PlayerPositionRotationPacket}).
+ *
+ * Layout: x, y, z (double), yaw, pitch (float), flags (byte; bit 0 = on ground).
+ */
+public final class PlayerPositionRotationView extends PacketView {
+
+    private static final int SIZE = 8 * 3 + 4 * 2 + 1;
+
+    @Override
+    protected void onBind() {
+        require(body, SIZE);
+    }
+
+    public double getX() {
+        return buf().getDouble(body);
+    }
+
+    public double getY() {
+        return buf().getDouble(body + 8);
+    }
+
+    public double getZ() {
+        return buf().getDouble(body + 16);
+    }
+
+    public float getYaw() {
+        return buf().getFloat(body + 24);
+    }
+
+    public float getPitch() {
+        return buf().getFloat(body + 28);
+    }
+
+    public boolean isOnGround() {
+        return (buf().getByte(body + 32) & 0x01) != 0;
+    }
+}
@@ -0,0 +1,34 @@
+package com.proxy.network.packet.play;
+
+import com.proxy.network.packet.PacketView;
+
+/**
+ * Flyweight Set Player Position (see {@link PlayerPositionPacket}).
+ *
+ * Layout: x, y, z (double), flags (byte; bit 0 = on ground).
+ */
+public final class PlayerPositionView extends PacketView {
+
+    private static final int SIZE = 8 * 3 + 1;
+
+    @Override
+    protected void onBind() {
+        require(body, SIZE);
+    }
+
+    public double getX() {
+        return buf().getDouble(body);
+    }
+
+    public double getY() {
+        return buf().getDouble(body + 8);
+    }
+
+    public double getZ() {
+        return buf().getDouble(body + 16);
+    }
+
+    public boolean isOnGround() {
+        return (buf().getByte(body + 24) & 0x01) != 0;
+    }
+}
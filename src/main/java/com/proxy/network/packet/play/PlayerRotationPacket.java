@@ -3,7 +3,8 @@ package com.proxy.network.packet.play;
 import com.proxy.network.packet.MinecraftPacket;
 
 /**
- * Represents a Player Rotation packet (0x1A in PLAY state for 1.20.4).
+ * Represents a Set Player Rotation packet (PLAY state; the ID depends on the
+ * protocol version, see MinecraftProtocol).
  * 
  * This packet is sent by the client to update the server about the player's rotation.
  */
@@ -0,0 +1,30 @@
+package com.proxy.network.packet.play;
+
+import com.proxy.network.packet.PacketView;
+
+/**
+ * Flyweight Set Player Rotation (see {@link PlayerRotationPacket}).
+ *
+ * Layout: yaw, pitch (float), flags (byte; bit 0 = on ground).
+ */
+public final class PlayerRotationView extends PacketView {
+
+    private static final int SIZE = 4 * 2 + 1;
+
+    @Override
+    protected void onBind() {
+        require(body, SIZE);
+    }
+
+    public float getYaw() {
+        return buf().getFloat(body);
+    }
+
+    public float getPitch() {
+        return buf().getFloat(body + 4);
+    }
+
+    public boolean isOnGround() {
+        return (buf().getByte(body + 8) & 0x01) != 0;
+    }
+}
@@ -0,0 +1,50 @@
+package com.proxy.network.transport;
+
+import io.netty.channel.EventLoopGroup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The process-wide event loop topology.
+ *
+ * One boss group accepts connections for every listener; one worker group
+ * runs every accepted channel, the UDP listener and all backend connections.
+ * Backend connections are registered on the event loop of the client channel
+ * that owns them, so relaying between the two never crosses threads.
+ *
+ * Worker thread count: -Dhytalecraft.workerThreads (default 0 = 2 × cores)
+ */
+public final class EventLoops {
+
+    private static final Logger log = LoggerFactory.getLogger(EventLoops.class);
+
+    private static final int WORKER_THREADS = Integer.getInteger("hytalecraft.workerThreads", 0);
+
+    private static EventLoopGroup bossGroup;
+    private static EventLoopGroup workerGroup;
+
+    private EventLoops() {}
+
+    public static synchronized EventLoopGroup boss() {
+        if (bossGroup == null) {
+            bossGroup = Transport.best().newEventLoopGroup(1, "hytalecraft-boss");
+        }
+        return bossGroup;
+    }
+
+    public static synchronized EventLoopGroup worker() {
+        if (workerGroup == null) {
+            workerGroup = Transport.best().newEventLoopGroup(WORKER_THREADS, "hytalecraft-worker");
+            log.info("[EventLoops] Using {} transport", Transport.best());
+        }
+        return workerGroup;
+    }
+
+    /** Shut down both groups.  Called once by whoever owns the process lifecycle. */
+    public static synchronized void shutdownGracefully() {
+        if (workerGroup != null) workerGroup.shutdownGracefully();
+        if (bossGroup   != null) bossGroup.shutdownGracefully();
+        workerGroup = null;
+        bossGroup   = null;
+    }
+}
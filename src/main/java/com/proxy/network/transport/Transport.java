@@ -0,0 +1,93 @@
+package com.proxy.network.transport;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Netty transport flavours the bridge can run on.
+ *
+ * Native epoll is used when the platform supports it; everything else falls
+ * back to NIO.  The choice can be forced with -Dhytalecraft.transport=nio|epoll;
+ * forcing epoll where it cannot load fails startup with the reason Netty
+ * gives (missing native library, not Linux, ...) instead of quietly running
+ * on NIO.
+ * All bootstraps must take their channel classes from the same Transport as
+ * the event loop group they are registered with.
+ */
+public enum Transport {
+
+    EPOLL(EpollSocketChannel.class, EpollServerSocketChannel.class, EpollDatagramChannel.class) {
+        @Override
+        public EventLoopGroup newEventLoopGroup(int threads, String name) {
+            return new EpollEventLoopGroup(threads, new DefaultThreadFactory(name, true));
+        }
+    },
+
+    NIO(NioSocketChannel.class, NioServerSocketChannel.class, NioDatagramChannel.class) {
+        @Override
+        public EventLoopGroup newEventLoopGroup(int threads, String name) {
+            return new NioEventLoopGroup(threads, new DefaultThreadFactory(name, true));
+        }
+    };
+
+    private static final Logger log = LoggerFactory.getLogger(Transport.class);
+
+    private static final Transport BEST = select();
+
+    private final Class<? extends SocketChannel> socketChannelClass;
+    private final Class<? extends ServerSocketChannel> serverSocketChannelClass;
+    private final Class<? extends DatagramChannel> datagramChannelClass;
+
+    Transport(Class<? extends SocketChannel> socketChannelClass,
+              Class<? extends ServerSocketChannel> serverSocketChannelClass,
+              Class<? extends DatagramChannel> datagramChannelClass) {
+        this.socketChannelClass = socketChannelClass;
+        this.serverSocketChannelClass = serverSocketChannelClass;
+        this.datagramChannelClass = datagramChannelClass;
+    }
+
+    /**
+     * @param threads Number of event loops, 0 for Netty's default (2 × cores)
+     * @param name    Thread name prefix
+     */
+    public abstract EventLoopGroup newEventLoopGroup(int threads, String name);
+
+    public Class<? extends SocketChannel> socketChannelClass() { return socketChannelClass; }
+    public Class<? extends ServerSocketChannel> serverSocketChannelClass() { return serverSocketChannelClass; }
+    public Class<? extends DatagramChannel> datagramChannelClass() { return datagramChannelClass; }
+
+    /** The transport this process runs on. */
+    public static Transport best() {
+        return BEST;
+    }
+
+    private static Transport select() {
+        String forced = System.getProperty("hytalecraft.transport", "auto");
+        if (forced.equalsIgnoreCase("nio")) return NIO;
+        if (forced.equalsIgnoreCase("epoll")) {
+            // Throws with Epoll.unavailabilityCause() attached
+            Epoll.ensureAvailability();
+            return EPOLL;
+        }
+        if (!forced.equalsIgnoreCase("auto")) {
+            log.warn("[Transport] Unknown hytalecraft.transport '{}', expected nio|epoll|auto", forced);
+        }
+        if (Epoll.isAvailable()) return EPOLL;
+        log.debug("[Transport] Native epoll unavailable, using NIO: {}", String.valueOf(Epoll.unavailabilityCause()));
+        return NIO;
+    }
+}
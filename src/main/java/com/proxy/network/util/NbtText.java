@@ -0,0 +1,148 @@
+package com.proxy.network.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.CorruptedFrameException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads a chat component sent as network NBT (1.20.3+) and renders it as
+ * plain text, for relaying to clients that have no notion of components.
+ *
+ * The root tag is nameless.  A string tag is its own text; a compound
+ * contributes its "text" followed by its "extra" children, or, when it is a
+ * translatable component, its key followed by its "with" arguments.  Styling
+ * and every other field are skipped.
+ */
+public final class NbtText {
+
+    private static final int TAG_END        = 0;
+    private static final int TAG_BYTE       = 1;
+    private static final int TAG_SHORT      = 2;
+    private static final int TAG_INT        = 3;
+    private static final int TAG_LONG       = 4;
+    private static final int TAG_FLOAT      = 5;
+    private static final int TAG_DOUBLE     = 6;
+    private static final int TAG_BYTE_ARRAY = 7;
+    private static final int TAG_STRING     = 8;
+    private static final int TAG_LIST       = 9;
+    private static final int TAG_COMPOUND   = 10;
+    private static final int TAG_INT_ARRAY  = 11;
+    private static final int TAG_LONG_ARRAY = 12;
+
+    /** Same nesting limit as vanilla */
+    private static final int MAX_DEPTH = 512;
+
+    private NbtText() {}
+
+    /**
+     * Read one component and return its plain text.
+     *
+     * @throws CorruptedFrameException if the NBT is malformed
+     */
+    public static String read(ByteBuf buf) {
+        StringBuilder out = new StringBuilder();
+        append(buf, buf.readUnsignedByte(), out, 0);
+        return out.toString();
+    }
+
+    /** Skip one nameless tag, e.g. an optional component that is not needed. */
+    public static void skip(ByteBuf buf) {
+        skip(buf, buf.readUnsignedByte(), 0);
+    }
+
+    private static void append(ByteBuf buf, int type, StringBuilder out, int depth) {
+        if (depth > MAX_DEPTH) throw new CorruptedFrameException("NBT nested too deeply");
+        switch (type) {
+            case TAG_STRING -> out.append(readString(buf));
+            case TAG_LIST -> {
+                int elementType = buf.readUnsignedByte();
+                int count = buf.readInt();
+                for (int i = 0; i < count; i++) append(buf, elementType, out, depth + 1);
+            }
+            case TAG_COMPOUND -> appendCompound(buf, out, depth);
+            default -> skip(buf, type, depth);
+        }
+    }
+
+    private static void appendCompound(ByteBuf buf, StringBuilder out, int depth) {
+        String text = null;
+        String translate = null;
+        StringBuilder with = null;
+        StringBuilder extra = null;
+        int type;
+        while ((type = buf.readUnsignedByte()) != TAG_END) {
+            String name = readString(buf);
+            if (type == TAG_STRING && name.equals("text")) {
+                text = readString(buf);
+            } else if (type == TAG_STRING && name.equals("translate")) {
+                translate = readString(buf);
+            } else if (type == TAG_LIST && name.equals("extra")) {
+                if (extra == null) extra = new StringBuilder();
+                append(buf, type, extra, depth + 1);
+            } else if (type == TAG_LIST && name.equals("with")) {
+                with = new StringBuilder();
+                int elementType = buf.readUnsignedByte();
+                int count = buf.readInt();
+                for (int i = 0; i < count; i++) {
+                    with.append(' ');
+                    append(buf, elementType, with, depth + 1);
+                }
+            } else {
+                skip(buf, type, depth + 1);
+            }
+        }
+        if (text != null) {
+            out.append(text);
+        } else if (translate != null) {
+            out.append(translate);
+            if (with != null) out.append(with);
+        }
+        if (extra != null) out.append(extra);
+    }
+
+    private static void skip(ByteBuf buf, int type, int depth) {
+        if (depth > MAX_DEPTH) throw new CorruptedFrameException("NBT nested too deeply");
+        switch (type) {
+            case TAG_END -> { }
+            case TAG_BYTE -> buf.skipBytes(1);
+            case TAG_SHORT -> buf.skipBytes(2);
+            case TAG_INT, TAG_FLOAT -> buf.skipBytes(4);
+            case TAG_LONG, TAG_DOUBLE -> buf.skipBytes(8);
+            case TAG_BYTE_ARRAY -> buf.skipBytes(length(buf, 1));
+            case TAG_INT_ARRAY -> buf.skipBytes(length(buf, 4));
+            case TAG_LONG_ARRAY -> buf.skipBytes(length(buf, 8));
+            case TAG_STRING -> buf.skipBytes(buf.readUnsignedShort());
+            case TAG_LIST -> {
+                int elementType = buf.readUnsignedByte();
+                int count = buf.readInt();
+                for (int i = 0; i < count; i++) skip(buf, elementType, depth + 1);
+            }
+            case TAG_COMPOUND -> {
+                int t;
+                while ((t = buf.readUnsignedByte()) != TAG_END) {
+                    buf.skipBytes(buf.readUnsignedShort());
+                    skip(buf, t, depth + 1);
+                }
+            }
+            default -> throw new CorruptedFrameException("Unknown NBT tag type " + type);
+        }
+    }
+
+    /** Array length in bytes, checked against what is left in the buffer. */
+    private static int length(ByteBuf buf, int elementBytes) {
+        long bytes = (long) buf.readInt() * elementBytes;
+        if (bytes < 0 || bytes > buf.readableBytes()) {
+            throw new CorruptedFrameException("Bad NBT array length");
+        }
+        return (int) bytes;
+    }
+
+    /** Modified UTF-8; identical to UTF-8 for the text that appears in chat. */
+    private static String readString(ByteBuf buf) {
+        int length = buf.readUnsignedShort();
+        String s = buf.toString(buf.readerIndex(), length, StandardCharsets.UTF_8);
+        buf.skipBytes(length);
+        return s;
+    }
+}
@@ -0,0 +1,118 @@
+package com.proxy.network.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.CorruptedFrameException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Utility class for decoding Minecraft protocol data types.
+ * Counterpart of {@link PacketEncoder}, used when reading packets.
+ */
+public class PacketDecoder {
+
+    /**
+     * Reads a VarInt from the ByteBuf.
+     *
+     * @param buf The buffer to read from
+     * @return The decoded value
+     * @throws CorruptedFrameException if the VarInt is truncated or longer than 5 bytes
+     */
+    public static int readVarInt(ByteBuf buf) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (!buf.isReadable()) {
+                throw new CorruptedFrameException("Truncated VarInt");
+            }
+            byte b = buf.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new CorruptedFrameException("VarInt too long");
+    }
+
+    /**
+     * Reads a VarLong from the ByteBuf.
+     *
+     * @param buf The buffer to read from
+     * @return The decoded value
+     * @throws CorruptedFrameException if the VarLong is truncated or longer than 10 bytes
+     */
+    public static long readVarLong(ByteBuf buf) {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            if (!buf.isReadable()) {
+                throw new CorruptedFrameException("Truncated VarLong");
+            }
+            byte b = buf.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new CorruptedFrameException("VarLong too long");
+    }
+
+    /**
+     * Reads a Minecraft protocol string from the ByteBuf.
+     * Format: VarInt length + UTF-8 bytes
+     *
+     * @param buf      The buffer to read from
+     * @param maxBytes Largest accepted encoded length
+     * @return The decoded string
+     */
+    public static String readString(ByteBuf buf, int maxBytes) {
+        int length = readVarInt(buf);
+        if (length < 0 || length > maxBytes || length > buf.readableBytes()) {
+            throw new CorruptedFrameException("Bad string length " + length);
+        }
+        String s = buf.toString(buf.readerIndex(), length, StandardCharsets.UTF_8);
+        buf.skipBytes(length);
+        return s;
+    }
+
+    // -------------------------------------------------------------------------
+    // Absolute reads (reader index untouched) — used by the packet views
+    // -------------------------------------------------------------------------
+
+    /**
+     * Reads the VarInt starting at {@code index} without moving the reader index.
+     *
+     * @throws CorruptedFrameException if the VarInt runs past the writer index or is longer than 5 bytes
+     */
+    public static int getVarInt(ByteBuf buf, int index) {
+        int value = 0;
+        int end = buf.writerIndex();
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (index >= end) {
+                throw new CorruptedFrameException("Truncated VarInt");
+            }
+            byte b = buf.getByte(index++);
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new CorruptedFrameException("VarInt too long");
+    }
+
+    /**
+     * Number of bytes taken by the VarInt starting at {@code index}.
+     *
+     * @throws CorruptedFrameException if the VarInt runs past the writer index or is longer than 5 bytes
+     */
+    public static int varIntLength(ByteBuf buf, int index) {
+        int end = buf.writerIndex();
+        for (int i = 0; i < 5; i++) {
+            if (index + i >= end) {
+                throw new CorruptedFrameException("Truncated VarInt");
+            }
+            if ((buf.getByte(index + i) & 0x80) == 0) {
+                return i + 1;
+            }
+        }
+        throw new CorruptedFrameException("VarInt too long");
+    }
+}
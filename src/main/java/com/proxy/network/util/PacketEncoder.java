@@ -1,8 +1,7 @@
 package com.proxy.network.util;
 
 import io.netty.buffer.ByteBuf;
-
-import java.nio.charset.StandardCharsets;
+import io.netty.buffer.ByteBufUtil;
 
 /**
  * Utility class for encoding Minecraft protocol data types.
@@ -27,6 +26,20 @@ public class PacketEncoder {
         }
     }
 
+    /**
+     * Returns the number of bytes writeVarInt() emits for the given value.
+     *
+     * @param value The integer value to measure
+     * @return Encoded size, 1 to 5 bytes
+     */
+    public static int varIntSize(int value) {
+        if ((value & 0xFFFFFF80) == 0) return 1;
+        if ((value & 0xFFFFC000) == 0) return 2;
+        if ((value & 0xFFE00000) == 0) return 3;
+        if ((value & 0xF0000000) == 0) return 4;
+        return 5;
+    }
+
     /**
      * Writes a VarLong to the ByteBuf.
      * 
@@ -46,15 +59,14 @@ public class PacketEncoder {
 
     /**
      * Writes a Minecraft protocol string to the ByteBuf.
-     * Format: VarInt length + UTF-8 bytes
+     * Format: VarInt length + UTF-8 bytes, encoded straight into the buffer
      * 
      * @param buf The buffer to write to
      * @param str The string to encode
      */
-    public static void writeString(ByteBuf buf, String str) {
-        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
-        writeVarInt(buf, bytes.length);
-        buf.writeBytes(bytes);
+    public static void writeString(ByteBuf buf, CharSequence str) {
+        writeVarInt(buf, ByteBufUtil.utf8Bytes(str));
+        ByteBufUtil.writeUtf8(buf, str);
     }
 
     /**
@@ -0,0 +1,96 @@
+package com.proxy.network.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.handler.codec.EncoderException;
+
+/**
+ * Writes length-prefixed Minecraft packets into one buffer in a single pass.
+ *
+ * Two ways to get the VarInt length in front of a packet without building
+ * the body in a second buffer and copying it:
+ *
+ *  - fixed layouts: compute the packet size up front ({@link #frameSize},
+ *    {@link #stringSize}), allocate exactly that ({@link #allocate}) or
+ *    append to a larger buffer ({@link #prefix}), then write the body;
+ *  - variable layouts: {@link #begin} reserves a 3-byte length field,
+ *    {@link #end} fills it in once the body is written.  The length is
+ *    written as a zero-padded 3-byte VarInt, which covers the protocol's
+ *    2 MiB frame limit and is accepted by every Minecraft implementation.
+ *
+ * Every buffer comes from the channel's allocator as a pooled direct
+ * buffer.  On an exception the caller still owns the buffer and must
+ * release it.
+ */
+public final class PacketWriter {
+
+    /** Size of the length field reserved by {@link #begin} */
+    public static final int RESERVED_LENGTH_BYTES = 3;
+
+    /** Largest packet a 3-byte VarInt length can describe */
+    public static final int MAX_PACKET_LENGTH = (1 << 21) - 1;
+
+    private PacketWriter() {}
+
+    // -------------------------------------------------------------------------
+    // Fixed layouts
+    // -------------------------------------------------------------------------
+
+    /** Bytes taken by a whole frame: length prefix, packet ID and {@code payloadBytes}. */
+    public static int frameSize(int packetId, int payloadBytes) {
+        int length = PacketEncoder.varIntSize(packetId) + payloadBytes;
+        return PacketEncoder.varIntSize(length) + length;
+    }
+
+    /** Bytes taken by a protocol string: VarInt byte count, then UTF-8. */
+    public static int stringSize(CharSequence s) {
+        int bytes = ByteBufUtil.utf8Bytes(s);
+        return PacketEncoder.varIntSize(bytes) + bytes;
+    }
+
+    /**
+     * A buffer of exactly {@link #frameSize} bytes with the length prefix and
+     * packet ID already written; the caller writes the {@code payloadBytes}.
+     */
+    public static ByteBuf allocate(ByteBufAllocator alloc, int packetId, int payloadBytes) {
+        ByteBuf buf = alloc.directBuffer(frameSize(packetId, payloadBytes));
+        prefix(buf, packetId, payloadBytes);
+        return buf;
+    }
+
+    /** Append the length prefix and packet ID of a packet with a {@code payloadBytes} body. */
+    public static void prefix(ByteBuf buf, int packetId, int payloadBytes) {
+        PacketEncoder.writeVarInt(buf, PacketEncoder.varIntSize(packetId) + payloadBytes);
+        PacketEncoder.writeVarInt(buf, packetId);
+    }
+
+    // -------------------------------------------------------------------------
+    // Variable layouts
+    // -------------------------------------------------------------------------
+
+    /**
+     * Reserve the length field and write the packet ID.
+     *
+     * @return the index of the length field, to pass to {@link #end}
+     */
+    public static int begin(ByteBuf buf, int packetId) {
+        int start = buf.writerIndex();
+        buf.writeMedium(0);
+        PacketEncoder.writeVarInt(buf, packetId);
+        return start;
+    }
+
+    /**
+     * Fill in the length field reserved by {@link #begin} at {@code start}.
+     *
+     * @throws EncoderException if the packet is longer than {@link #MAX_PACKET_LENGTH}
+     */
+    public static void end(ByteBuf buf, int start) {
+        int length = buf.writerIndex() - start - RESERVED_LENGTH_BYTES;
+        if (length > MAX_PACKET_LENGTH) {
+            throw new EncoderException("Packet length " + length + " exceeds " + MAX_PACKET_LENGTH);
+        }
+        buf.setMedium(start, (length & 0x7F | 0x80) << 16 | ((length >>> 7) & 0x7F | 0x80) << 8 | length >>> 14);
+    }
+}
@@ -0,0 +1,97 @@
+package com.proxy.network.util;
+
+import io.netty.channel.Channel;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces writes to one channel so they leave in a single flush.
+ *
+ * Handlers call write() for every outbound message and flush() from
+ * channelReadComplete(), so a burst of inbound packets results in one
+ * write syscall instead of one per packet.  A batch is also flushed early
+ * once it reaches the configured size, bounding latency during long bursts.
+ *
+ * With a batch window configured, flush() does not flush right away: it
+ * schedules one flush on the channel's event loop that many microseconds
+ * later, and every write and flush() until then joins that batch.  This
+ * merges the output of several read-completes (or movement ticks) into one
+ * syscall at the cost of up to one window of added latency.  The batch-size
+ * cap still flushes immediately.
+ *
+ * Must only be used from the channel's event loop.
+ *
+ * Tuning (system properties):
+ *   hytalecraft.flush.batching      false = flush every write (default true)
+ *   hytalecraft.flush.maxBatch      writes per flush before an early flush (default 64)
+ *   hytalecraft.flush.windowMicros  batch window in µs, 0 = flush on read-complete (default 0)
+ */
+public final class WriteBatcher {
+
+    public static final boolean ENABLED =
+            Boolean.parseBoolean(System.getProperty("hytalecraft.flush.batching", "true"));
+    public static final int MAX_BATCH = Integer.getInteger("hytalecraft.flush.maxBatch", 64);
+    public static final long WINDOW_MICROS = Math.max(0L, Long.getLong("hytalecraft.flush.windowMicros", 0L));
+
+    private final Channel channel;
+    private final long windowMicros;
+    private final Runnable scheduledFlush = this::scheduledFlush;
+    private int unflushed;
+    /** A windowed flush is queued on the event loop */
+    private boolean flushScheduled;
+
+    public WriteBatcher(Channel channel) {
+        this(channel, WINDOW_MICROS);
+    }
+
+    /** @param windowMicros batch window overriding hytalecraft.flush.windowMicros, 0 for none */
+    public WriteBatcher(Channel channel, long windowMicros) {
+        this.channel = channel;
+        this.windowMicros = windowMicros;
+    }
+
+    public Channel channel() {
+        return channel;
+    }
+
+    /** Queue a message; flushes immediately when batching is disabled or the batch is full. */
+    public void write(Object msg) {
+        if (!ENABLED) {
+            channel.writeAndFlush(msg);
+            return;
+        }
+        channel.write(msg);
+        if (++unflushed >= MAX_BATCH) {
+            flushNow();
+        }
+    }
+
+    /**
+     * End of a batch: flush whatever has been written since the last flush,
+     * or, with a batch window, make sure a flush is scheduled for it.
+     */
+    public void flush() {
+        if (unflushed == 0) {
+            return;
+        }
+        if (windowMicros <= 0) {
+            flushNow();
+        } else if (!flushScheduled) {
+            flushScheduled = true;
+            channel.eventLoop().schedule(scheduledFlush, windowMicros, TimeUnit.MICROSECONDS);
+        }
+    }
+
+    /** Flush now, regardless of the batch window. */
+    public void flushNow() {
+        if (unflushed > 0) {
+            unflushed = 0;
+            channel.flush();
+        }
+    }
+
+    private void scheduledFlush() {
+        flushScheduled = false;
+        flushNow();
+    }
+}
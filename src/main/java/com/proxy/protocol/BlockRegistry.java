@@ -9,6 +9,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -19,15 +20,33 @@ import java.util.Map;
  *  2. External override at plugins/hytalecraft/block_mappings.json (if present)
  *
  * Fallback for unknown IDs: 0 (air in both systems)
+ *
+ * Lookups are served from dense int[] tables indexed by ID, sized to the
+ * largest ID seen while loading.  IDs that are negative or above
+ * hytalecraft.blocks.maxDenseId (default 65535 — well above the ~26k
+ * vanilla 1.20.4 block states) go to a small boxed fallback map instead,
+ * so one stray outlier cannot blow up the table size.  Use the bulk
+ * toMC(int[], int[]) / toHytale(int[], int[]) overloads for whole sections.
  */
 public class BlockRegistry {
 
     private static final Logger log = LoggerFactory.getLogger(BlockRegistry.class);
 
-    /** Hytale block ID → MC block state ID */
-    private final Map<Integer, Integer> hytaleToMC = new HashMap<>();
-    /** MC block state ID → Hytale block ID */
-    private final Map<Integer, Integer> mcToHytale = new HashMap<>();
+    /** Largest ID stored in the dense tables; anything above goes to the fallback maps */
+    private static final int MAX_DENSE_ID = Integer.getInteger("hytalecraft.blocks.maxDenseId", 0xFFFF);
+
+    /** Mappings as loaded (later sources override earlier ones); compiled by buildTables() */
+    private final Map<Integer, Integer> loadedHytaleToMC = new LinkedHashMap<>();
+    private final Map<Integer, Integer> loadedMCToHytale = new LinkedHashMap<>();
+
+    /** Hytale block ID → MC block state ID (dense, 0 = air/unknown) */
+    private int[] hytaleToMC = new int[0];
+    /** MC block state ID → Hytale block ID (dense, 0 = air/unknown) */
+    private int[] mcToHytale = new int[0];
+
+    /** Sparse outliers that do not fit the dense tables */
+    private final Map<Integer, Integer> hytaleToMCSparse = new HashMap<>();
+    private final Map<Integer, Integer> mcToHytaleSparse = new HashMap<>();
 
     /** Singleton */
     private static BlockRegistry INSTANCE;
@@ -37,6 +56,7 @@ public class BlockRegistry {
             INSTANCE = new BlockRegistry();
             INSTANCE.loadDefaults();
             INSTANCE.tryLoadExternal();
+            INSTANCE.buildTables();
         }
         return INSTANCE;
     }
@@ -53,7 +73,9 @@ public class BlockRegistry {
      * Returns 0 (air) if the mapping is unknown.
      */
     public int toMC(int hytaleId) {
-        return hytaleToMC.getOrDefault(hytaleId, 0);
+        int[] table = hytaleToMC;
+        if (hytaleId >= 0 && hytaleId < table.length) return table[hytaleId];
+        return sparse(hytaleToMCSparse, hytaleId);
     }
 
     /**
@@ -61,11 +83,49 @@ public class BlockRegistry {
      * Returns 0 (air) if the mapping is unknown.
      */
     public int toHytale(int mcStateId) {
-        return mcToHytale.getOrDefault(mcStateId, 0);
+        int[] table = mcToHytale;
+        if (mcStateId >= 0 && mcStateId < table.length) return table[mcStateId];
+        return sparse(mcToHytaleSparse, mcStateId);
+    }
+
+    /** Translate every Hytale ID in {@code src} into {@code dst} (may be the same array). */
+    public void toMC(int[] src, int[] dst) {
+        toMC(src, 0, dst, 0, src.length);
+    }
+
+    /** Translate {@code length} Hytale IDs from {@code src[srcOff]} into {@code dst[dstOff]}. */
+    public void toMC(int[] src, int srcOff, int[] dst, int dstOff, int length) {
+        translate(hytaleToMC, hytaleToMCSparse, src, srcOff, dst, dstOff, length);
+    }
+
+    /** Translate every MC state ID in {@code src} into {@code dst} (may be the same array). */
+    public void toHytale(int[] src, int[] dst) {
+        toHytale(src, 0, dst, 0, src.length);
+    }
+
+    /** Translate {@code length} MC state IDs from {@code src[srcOff]} into {@code dst[dstOff]}. */
+    public void toHytale(int[] src, int srcOff, int[] dst, int dstOff, int length) {
+        translate(mcToHytale, mcToHytaleSparse, src, srcOff, dst, dstOff, length);
     }
 
     public int size() {
-        return hytaleToMC.size();
+        return loadedHytaleToMC.size();
+    }
+
+    private static void translate(int[] table, Map<Integer, Integer> sparse,
+                                  int[] src, int srcOff, int[] dst, int dstOff, int length) {
+        if (length > src.length - srcOff || length > dst.length - dstOff || srcOff < 0 || dstOff < 0) {
+            throw new IndexOutOfBoundsException("range out of bounds: length=" + length);
+        }
+        final int limit = table.length;
+        for (int i = 0; i < length; i++) {
+            int id = src[srcOff + i];
+            dst[dstOff + i] = id >= 0 && id < limit ? table[id] : sparse(sparse, id);
+        }
+    }
+
+    private static int sparse(Map<Integer, Integer> sparse, int id) {
+        return sparse.isEmpty() ? 0 : sparse.getOrDefault(id, 0);
     }
 
     // -------------------------------------------------------------------------
@@ -159,8 +219,37 @@ public class BlockRegistry {
     }
 
     private void register(int hytaleId, int mcStateId) {
-        hytaleToMC.put(hytaleId, mcStateId);
-        mcToHytale.put(mcStateId, hytaleId);
+        loadedHytaleToMC.put(hytaleId, mcStateId);
+        loadedMCToHytale.put(mcStateId, hytaleId);
+    }
+
+    /** Compile the loaded mappings into the dense lookup tables (plus outliers). */
+    void buildTables() {
+        hytaleToMCSparse.clear();
+        mcToHytaleSparse.clear();
+        hytaleToMC = compile(loadedHytaleToMC, hytaleToMCSparse);
+        mcToHytale = compile(loadedMCToHytale, mcToHytaleSparse);
+        if (!hytaleToMCSparse.isEmpty() || !mcToHytaleSparse.isEmpty()) {
+            log.info("[BlockRegistry] {} Hytale / {} MC IDs outside the dense range (max {}) use the fallback map",
+                    hytaleToMCSparse.size(), mcToHytaleSparse.size(), MAX_DENSE_ID);
+        }
+    }
+
+    private static int[] compile(Map<Integer, Integer> mappings, Map<Integer, Integer> sparse) {
+        int max = -1;
+        for (int id : mappings.keySet()) {
+            if (id >= 0 && id <= MAX_DENSE_ID && id > max) max = id;
+        }
+        int[] table = new int[max + 1];
+        for (Map.Entry<Integer, Integer> e : mappings.entrySet()) {
+            int id = e.getKey();
+            if (id >= 0 && id <= MAX_DENSE_ID) {
+                table[id] = e.getValue();
+            } else {
+                sparse.put(id, e.getValue());
+            }
+        }
+        return table;
     }
 
     /** Hard-coded fallback in case the resource file is missing. */
@@ -175,6 +264,6 @@ public class BlockRegistry {
         register(8,  34);  // water
         register(9,  33);  // bedrock
         register(10, 17);  // oak_planks
-        log.info("[BlockRegistry] Seeded {} hardcoded default mappings", hytaleToMC.size());
+        log.info("[BlockRegistry] Seeded {} hardcoded default mappings", loadedHytaleToMC.size());
     }
 }
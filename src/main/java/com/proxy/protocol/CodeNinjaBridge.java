@@ -1,16 +1,22 @@
 package com.proxy.protocol;
 
 import com.google.inject.Inject;
+import com.proxy.metrics.MetricsCommand;
+import com.proxy.metrics.MetricsRegistry;
+import com.proxy.metrics.MetricsServer;
 import com.proxy.network.HytaleMockServer;
+import com.proxy.network.backend.BackendRegistry;
 import com.proxy.network.handler.HytaleHandler;
+import com.proxy.network.transport.EventLoops;
+import com.proxy.network.transport.Transport;
 import com.velocitypowered.api.event.Subscribe;
 import com.velocitypowered.api.event.proxy.ProxyInitializeEvent;
 import com.velocitypowered.api.event.proxy.ProxyShutdownEvent;
 import com.velocitypowered.api.plugin.Plugin;
+import com.velocitypowered.api.proxy.ProxyServer;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.ChannelInitializer;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.channel.socket.DatagramChannel;
 import org.slf4j.Logger;
 
 @Plugin(
@@ -21,6 +27,7 @@ import org.slf4j.Logger;
 )
 public class CodeNinjaBridge {
 
+    private final ProxyServer proxy;
     private final Logger logger;
 
     /** UDP legacy port — kept for heartbeat/presence pings */
@@ -29,8 +36,12 @@ public class CodeNinjaBridge {
     /** The new TCP mock server — primary session bridge */
     private HytaleMockServer mockServer;
 
+    /** Local Prometheus scrape endpoint */
+    private final MetricsServer metricsServer = new MetricsServer(MetricsRegistry.getInstance());
+
     @Inject
-    public CodeNinjaBridge(Logger logger) {
+    public CodeNinjaBridge(ProxyServer proxy, Logger logger) {
+        this.proxy = proxy;
         this.logger = logger;
     }
 
@@ -65,6 +76,19 @@ public class CodeNinjaBridge {
         // 3. Pre-warm the block registry so it logs on startup
         int mappings = BlockRegistry.getInstance().size();
         logger.info("CodeNinja: BlockRegistry loaded with {} block mappings.", mappings);
+
+        // 4. Pre-handshaken backend connections for Hytale logins
+        BackendRegistry.getInstance().start();
+
+        // 5. Metrics: local scrape endpoint + /hcmetrics
+        try {
+            metricsServer.start();
+        } catch (Exception e) {
+            logger.error("CodeNinja: Failed to start metrics endpoint!", e);
+        }
+        proxy.getCommandManager().register(
+                proxy.getCommandManager().metaBuilder("hcmetrics").plugin(this).build(),
+                new MetricsCommand(MetricsRegistry.getInstance()));
     }
 
     // -------------------------------------------------------------------------
@@ -77,6 +101,10 @@ public class CodeNinjaBridge {
         if (mockServer != null) {
             mockServer.stop();
         }
+        BackendRegistry.getInstance().stop();
+        metricsServer.stop();
+        EventLoops.shutdownGracefully();
+        SkinTranslationService.getInstance().shutdown();
         logger.info("CodeNinja: Shutdown complete.");
     }
 
@@ -92,22 +120,18 @@ public class CodeNinjaBridge {
     }
 
     private void startHytaleUdpListener() throws Exception {
-        NioEventLoopGroup group = new NioEventLoopGroup();
-        try {
-            Bootstrap b = new Bootstrap();
-            b.group(group)
-             .channel(NioDatagramChannel.class)
-             .handler(new ChannelInitializer<NioDatagramChannel>() {
-                 @Override
-                 protected void initChannel(NioDatagramChannel ch) {
-                     ch.pipeline().addLast(new HytaleHandler());
-                 }
-             });
-
-            logger.info(">>> [CodeNinja UDP] Hytale heartbeat listener active on port {}", hytaleUdpPort);
-            b.bind(hytaleUdpPort).sync().channel().closeFuture().await();
-        } finally {
-            group.shutdownGracefully();
-        }
+        // Runs on the shared worker group; EventLoops owns its shutdown
+        Bootstrap b = new Bootstrap();
+        b.group(EventLoops.worker())
+         .channel(Transport.best().datagramChannelClass())
+         .handler(new ChannelInitializer<DatagramChannel>() {
+             @Override
+             protected void initChannel(DatagramChannel ch) {
+                 ch.pipeline().addLast(new HytaleHandler());
+             }
+         });
+
+        logger.info(">>> [CodeNinja UDP] Hytale heartbeat listener active on port {}", hytaleUdpPort);
+        b.bind(hytaleUdpPort).sync().channel().closeFuture().await();
     }
 }
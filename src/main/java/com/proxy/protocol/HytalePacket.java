@@ -1,16 +1,20 @@
 package com.proxy.protocol;
 
 /**
- * HytaleCraft Protocol v1 — Marker interface for all Hytale protocol packets.
+ * Marker interface for all HytaleCraft protocol packets.
  *
- * Protocol framing:
- *   [4-byte big-endian int: payload length][payload bytes: UTF-8 JSON]
+ * Protocol framing (every version):
+ *   [4-byte big-endian int: payload length][payload bytes]
  *
- * Every JSON payload must include a "type" field identifying the packet type.
+ * Payload encodings:
+ *   v1  UTF-8 JSON with a "type" field   (com.proxy.network.HytaleJsonCodec)
+ *   v2  1-byte packet ID + binary fields (com.proxy.network.HytaleBinaryCodec)
+ *
+ * Concrete packet classes live in com.proxy.protocol.packet.
  *
  * Packet types:
  *   LOGIN, LOGIN_ACK, PLAYER_POSITION, BLOCK_QUERY, BLOCK_RESPONSE,
- *   CHAT_MESSAGE, DISCONNECT
+ *   REGION_QUERY, REGION_RESPONSE, CHAT_MESSAGE, DISCONNECT
  */
 public interface HytalePacket {
 
@@ -0,0 +1,237 @@
+package com.proxy.protocol;
+
+import java.util.Arrays;
+import java.util.zip.Adler32;
+
+/**
+ * zlib stream encoder for filtered PNG scanlines: zlib's Z_RLE strategy —
+ * the only matches are repeats of the previous byte (distance 1) — coded
+ * as a single dynamic-Huffman block.
+ *
+ * {@link SkinPng} filters rows so that the flat areas and doubled pixels
+ * and rows of a skin become runs of one byte, so run-length matching finds
+ * most of what a full LZ77 search would, at a fraction of the cost: there
+ * is no hash chain to build, and incompressible rows cost one pass.
+ * {@link java.util.zip.Deflater} offers no Z_RLE strategy, hence this class.
+ */
+final class RleDeflater {
+
+    private static final int MIN_MATCH = 3;
+    private static final int MAX_MATCH = 258;
+    private static final int END_OF_BLOCK = 256;
+    private static final int LITLEN_CODES = 286;
+    private static final int MAX_BITS = 15;
+    /** Bits per code length in the header: code-length symbols 0..15 all get 4-bit codes */
+    private static final int LENGTH_BITS = 4;
+    /** Order in which the code-length code lengths are sent (RFC 1951 3.2.7) */
+    private static final int[] CODE_LENGTH_ORDER = {16, 17, 18, 0, 8, 7, 9, 6, 10, 5, 11, 4, 12, 3, 13, 2, 14, 1, 15};
+
+    /** Length symbol (257..285), its extra bits and its base, per match length */
+    private static final int[] LENGTH_SYMBOL = new int[MAX_MATCH + 1];
+    private static final int[] LENGTH_EXTRA = new int[MAX_MATCH + 1];
+    private static final int[] LENGTH_BASE = new int[MAX_MATCH + 1];
+
+    static {
+        int[] base = {3, 4, 5, 6, 7, 8, 9, 10, 11, 13, 15, 17, 19, 23, 27, 31,
+                      35, 43, 51, 59, 67, 83, 99, 115, 131, 163, 195, 227, 258};
+        int[] extra = {0, 0, 0, 0, 0, 0, 0, 0, 1, 1, 1, 1, 2, 2, 2, 2,
+                       3, 3, 3, 3, 4, 4, 4, 4, 5, 5, 5, 5, 0};
+        for (int code = 0; code < base.length; code++) {
+            int end = code + 1 < base.length ? base[code + 1] : MAX_MATCH + 1;
+            for (int len = base[code]; len < end; len++) {
+                LENGTH_SYMBOL[len] = 257 + code;
+                LENGTH_EXTRA[len] = extra[code];
+                LENGTH_BASE[len] = base[code];
+            }
+        }
+    }
+
+    private RleDeflater() {}
+
+    /** Worst-case size of {@link #deflate}: every byte a literal of at most 15 bits, plus framing. */
+    static int bound(int n) {
+        return n * MAX_BITS / 8 + LITLEN_CODES * LENGTH_BITS / 8 + 64;
+    }
+
+    /**
+     * Compress {@code in[0..length)} as a zlib stream into {@code out} at
+     * {@code pos}, which must have {@link #bound} bytes free.
+     *
+     * @return the index after the stream
+     */
+    static int deflate(byte[] in, int length, byte[] out, int pos) {
+        // Tokens: a literal byte, or END_OF_BLOCK + run length for a distance-1 match
+        short[] tokens = new short[length + 1];
+        int[] freq = new int[LITLEN_CODES];
+        int count = 0;
+        for (int i = 0; i < length; ) {
+            int run = 0;
+            if (i > 0 && in[i] == in[i - 1]) {
+                byte b = in[i];
+                int max = Math.min(MAX_MATCH, length - i);
+                do run++; while (run < max && in[i + run] == b);
+            }
+            if (run >= MIN_MATCH) {
+                tokens[count++] = (short) (END_OF_BLOCK + run);
+                freq[LENGTH_SYMBOL[run]]++;
+                i += run;
+            } else {
+                int b = in[i++] & 0xFF;
+                tokens[count++] = (short) b;
+                freq[b]++;
+            }
+        }
+        tokens[count++] = END_OF_BLOCK;
+        freq[END_OF_BLOCK] = 1;
+
+        int[] lengths = huffmanLengths(freq);
+        long[] table = tokenCodes(lengths);
+        int used = LITLEN_CODES;
+        while (lengths[used - 1] == 0) used--;
+
+        long bits = 0x78 | 0x01 << 8;   // zlib header: deflate, 32K window, FLEVEL 0
+        int n = 16;
+        bits |= 1L << n++;              // BFINAL
+        bits |= 2L << n;                // BTYPE dynamic
+        n += 2;
+        bits |= (long) (used - 257) << n;                    // HLIT
+        n += 5 + 5;                                          // HDIST 0: one distance code
+        bits |= (long) (CODE_LENGTH_ORDER.length - 4) << n;  // HCLEN
+        n += 4;
+        for (int symbol : CODE_LENGTH_ORDER) {
+            bits |= (long) (symbol < 16 ? LENGTH_BITS : 0) << n;
+            n += 3;
+            if (n >= 32) { writeInt(out, pos, (int) bits); pos += 4; bits >>>= 32; n -= 32; }
+        }
+        for (int i = 0; i <= used; i++) {
+            // Literal/length code lengths, then distance code 0 with 1 bit
+            int len = i < used ? lengths[i] : 1;
+            bits |= (long) (Integer.reverse(len) >>> (32 - LENGTH_BITS)) << n;
+            n += LENGTH_BITS;
+            if (n >= 32) { writeInt(out, pos, (int) bits); pos += 4; bits >>>= 32; n -= 32; }
+        }
+
+        for (int t = 0; t < count; t++) {
+            long code = table[tokens[t]];
+            bits |= (code & 0xFFFFFFFFL) << n;
+            n += (int) (code >>> 32);
+            if (n >= 32) { writeInt(out, pos, (int) bits); pos += 4; bits >>>= 32; n -= 32; }
+        }
+        for (; n > 0; n -= 8) {
+            out[pos++] = (byte) bits;
+            bits >>>= 8;
+        }
+
+        Adler32 adler = new Adler32();
+        adler.update(in, 0, length);
+        writeIntBE(out, pos, (int) adler.getValue());
+        return pos + 4;
+    }
+
+    private static void writeInt(byte[] b, int off, int v) {
+        b[off]     = (byte) v;
+        b[off + 1] = (byte) (v >>> 8);
+        b[off + 2] = (byte) (v >>> 16);
+        b[off + 3] = (byte) (v >>> 24);
+    }
+
+    private static void writeIntBE(byte[] b, int off, int v) {
+        b[off]     = (byte) (v >>> 24);
+        b[off + 1] = (byte) (v >>> 16);
+        b[off + 2] = (byte) (v >>> 8);
+        b[off + 3] = (byte) v;
+    }
+
+    // -------------------------------------------------------------------------
+    // Huffman codes
+    // -------------------------------------------------------------------------
+
+    /**
+     * Huffman code lengths for {@code freq}, at most {@link #MAX_BITS}.  When
+     * the tree is too deep the frequencies are flattened and it is rebuilt.
+     */
+    private static int[] huffmanLengths(int[] freq) {
+        int n = freq.length;
+        int[] lengths = new int[n];
+        int[] f = freq.clone();
+        while (true) {
+            // Leaves sorted by frequency, then merged with the two-queue method
+            long[] leaves = new long[n];
+            int leafCount = 0;
+            for (int s = 0; s < n; s++) {
+                if (f[s] > 0) leaves[leafCount++] = (long) f[s] << 32 | s;
+            }
+            if (leafCount == 1) {
+                lengths[(int) leaves[0]] = 1;
+                return lengths;
+            }
+            Arrays.sort(leaves, 0, leafCount);
+
+            // Weights and parents of the leaves, then of the internal nodes
+            int nodes = leafCount - 1;
+            long[] weight = new long[leafCount + nodes];
+            int[] parent = new int[leafCount + nodes];
+            for (int i = 0; i < leafCount; i++) {
+                weight[i] = leaves[i] >>> 32;
+            }
+            int leaf = 0, node = leafCount;
+            for (int k = leafCount; k < leafCount + nodes; k++) {
+                int a = leaf < leafCount && (node == k || weight[leaf] <= weight[node]) ? leaf++ : node++;
+                int b = leaf < leafCount && (node == k || weight[leaf] <= weight[node]) ? leaf++ : node++;
+                weight[k] = weight[a] + weight[b];
+                parent[a] = parent[b] = k;
+            }
+
+            // Depths: the root is the last node, parents come after children
+            int[] depth = new int[leafCount + nodes];
+            int maxDepth = 0;
+            for (int i = leafCount + nodes - 2; i >= 0; i--) {
+                depth[i] = depth[parent[i]] + 1;
+            }
+            for (int i = 0; i < leafCount; i++) {
+                lengths[(int) leaves[i]] = depth[i];
+                maxDepth = Math.max(maxDepth, depth[i]);
+            }
+            if (maxDepth <= MAX_BITS) return lengths;
+            for (int s = 0; s < n; s++) {
+                if (f[s] > 0) f[s] = (f[s] >>> 1) + 1;
+            }
+        }
+    }
+
+    /**
+     * Canonical codes for {@code lengths}, bit-reversed for LSB-first output,
+     * per token: a literal or END_OF_BLOCK is its code; a run is its length
+     * code, extra bits and distance code together.  Each entry holds the
+     * bits in its low half and their count in its high half.
+     */
+    private static long[] tokenCodes(int[] lengths) {
+        int[] lengthCount = new int[MAX_BITS + 1];
+        for (int len : lengths) lengthCount[len]++;
+        lengthCount[0] = 0;
+        int[] next = new int[MAX_BITS + 1];
+        for (int bits = 1, code = 0; bits <= MAX_BITS; bits++) {
+            code = (code + lengthCount[bits - 1]) << 1;
+            next[bits] = code;
+        }
+        int[] codes = new int[LITLEN_CODES];
+        for (int s = 0; s < LITLEN_CODES; s++) {
+            int len = lengths[s];
+            if (len != 0) codes[s] = Integer.reverse(next[len]++) >>> (32 - len);
+        }
+
+        long[] table = new long[END_OF_BLOCK + MAX_MATCH + 1];
+        for (int s = 0; s <= END_OF_BLOCK; s++) {
+            table[s] = (long) lengths[s] << 32 | codes[s];
+        }
+        for (int run = MIN_MATCH; run <= MAX_MATCH; run++) {
+            int symbol = LENGTH_SYMBOL[run];
+            int len = lengths[symbol];
+            if (len == 0) continue;
+            // the distance code (0 = distance 1) is a single 0 bit after the extra bits
+            long bits = codes[symbol] | (long) (run - LENGTH_BASE[run]) << len;
+            table[END_OF_BLOCK + run] = (long) (len + LENGTH_EXTRA[run] + 1) << 32 | bits;
+        }
+        return table;
+    }
+}
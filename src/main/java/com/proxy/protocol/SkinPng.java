@@ -0,0 +1,412 @@
+package com.proxy.protocol;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Minimal PNG codec for the skin fast path, working straight on int[] ARGB
+ * pixels instead of going through ImageIO and a BufferedImage.
+ *
+ * Decoding handles what skin PNGs are in practice: 8-bit truecolour with or
+ * without alpha and 8-bit indexed colour (with tRNS), not interlaced, all
+ * five row filters.  Anything else — 16-bit, grey, sub-byte palettes,
+ * Adam7 — returns null so the caller can fall back to ImageIO.  Chunk CRCs
+ * are not verified; every length is bounds-checked.
+ *
+ * Encoding writes 8-bit indexed colour when the image has at most 256
+ * colours and 8-bit RGBA otherwise, in a single IDAT compressed by
+ * {@link RleDeflater}.  Rows are filtered so that the flat areas and
+ * doubled pixels and rows of a skin become runs of one byte.
+ *
+ * RGBA rows are filtered and unfiltered four bytes at a time, adding or
+ * subtracting the bytes of an int without carries between them.
+ *
+ * Inflaters are kept per thread and reset after every use.
+ */
+final class SkinPng {
+
+    /** Decoded image: packed ARGB pixels, row-major. */
+    record Image(int width, int height, int[] argb) {}
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private static final int IHDR = 0x49484452;
+    private static final int PLTE = 0x504C5445;
+    private static final int TRNS = 0x74524E53;
+    private static final int IDAT = 0x49444154;
+    private static final int IEND = 0x49454E44;
+
+    private static final int COLOR_RGB     = 2;
+    private static final int COLOR_INDEXED = 3;
+    private static final int COLOR_RGBA    = 6;
+
+    private static final int FILTER_NONE    = 0;
+    private static final int FILTER_SUB     = 1;
+    private static final int FILTER_UP      = 2;
+    private static final int FILTER_AVERAGE = 3;
+    private static final int FILTER_PAETH   = 4;
+
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+
+    /** Four bytes of a byte[] as one int, first byte highest: an RGBA pixel reads as 0xRRGGBBAA */
+    private static final VarHandle INT_BE =
+            MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    /** Top bit of every byte of an int */
+    private static final int HIGH_BITS = 0x80808080;
+
+    private SkinPng() {}
+
+    // -------------------------------------------------------------------------
+    // Decode
+    // -------------------------------------------------------------------------
+
+    /**
+     * Decode {@code png} to ARGB pixels.
+     *
+     * @param maxDimension largest accepted width/height; larger images are not decoded
+     * @return the image, or null if its format is not one this codec handles
+     *         or the data is malformed
+     */
+    static Image decode(byte[] png, int maxDimension) {
+        if (png.length < 33 || !hasSignature(png)) return null;
+        int pos = SIGNATURE.length;
+
+        int width = 0, height = 0, colorType = -1;
+        int[] palette = null;
+        Inflater inflater = INFLATER.get();
+        byte[] raw = null;
+        int inflated = 0;
+        try {
+            while (pos + 12 <= png.length) {
+                int length = readInt(png, pos);
+                int type = readInt(png, pos + 4);
+                int data = pos + 8;
+                if (length < 0 || length > png.length - data - 4) return null;
+
+                if (type == IHDR) {
+                    if (length != 13 || raw != null) return null;
+                    width = readInt(png, data);
+                    height = readInt(png, data + 4);
+                    int bitDepth = png[data + 8] & 0xFF;
+                    colorType = png[data + 9] & 0xFF;
+                    int interlace = png[data + 12] & 0xFF;
+                    if (width <= 0 || height <= 0 || width > maxDimension || height > maxDimension
+                            || bitDepth != 8 || interlace != 0
+                            || (colorType != COLOR_RGB && colorType != COLOR_INDEXED && colorType != COLOR_RGBA)) {
+                        return null;
+                    }
+                    raw = new byte[height * (1 + width * bytesPerPixel(colorType))];
+                } else if (type == PLTE) {
+                    if (length % 3 != 0 || length / 3 > 256) return null;
+                    palette = new int[256];
+                    for (int i = 0, j = data; i < length / 3; i++, j += 3) {
+                        palette[i] = 0xFF000000 | (png[j] & 0xFF) << 16 | (png[j + 1] & 0xFF) << 8 | (png[j + 2] & 0xFF);
+                    }
+                } else if (type == TRNS) {
+                    if (colorType != COLOR_INDEXED) return null; // colour-key transparency: leave to ImageIO
+                    if (palette == null || length > 256) return null;
+                    for (int i = 0; i < length; i++) {
+                        palette[i] = (png[data + i] & 0xFF) << 24 | (palette[i] & 0xFFFFFF);
+                    }
+                } else if (type == IDAT) {
+                    if (raw == null) return null;
+                    inflater.setInput(png, data, length);
+                    inflated += inflater.inflate(raw, inflated, raw.length - inflated);
+                } else if (type == IEND) {
+                    break;
+                }
+                pos = data + length + 4;
+            }
+            if (raw == null || inflated != raw.length || (colorType == COLOR_INDEXED && palette == null)) {
+                return null;
+            }
+        } catch (DataFormatException e) {
+            return null;
+        } finally {
+            inflater.reset();
+        }
+
+        int bpp = bytesPerPixel(colorType);
+        if (!unfilter(raw, width * bpp, height, bpp)) return null;
+        return new Image(width, height, toArgb(raw, width, height, colorType, palette));
+    }
+
+    /** Reverse the per-row filters in place.  False on an unknown filter type. */
+    private static boolean unfilter(byte[] raw, int rowBytes, int height, int bpp) {
+        int stride = rowBytes + 1;
+        for (int y = 0; y < height; y++) {
+            int row = y * stride + 1;
+            int prev = row - stride; // only read when y > 0
+            switch (raw[row - 1]) {
+                case FILTER_NONE -> { }
+                case FILTER_SUB -> {
+                    if (bpp == 4) {
+                        int left = 0;
+                        for (int i = row; i < row + rowBytes; i += 4) {
+                            left = addBytes((int) INT_BE.get(raw, i), left);
+                            INT_BE.set(raw, i, left);
+                        }
+                        break;
+                    }
+                    for (int i = bpp; i < rowBytes; i++) {
+                        raw[row + i] += raw[row + i - bpp];
+                    }
+                }
+                case FILTER_UP -> {
+                    if (y == 0) break;
+                    int i = 0;
+                    for (; i + 4 <= rowBytes; i += 4) {
+                        INT_BE.set(raw, row + i, addBytes((int) INT_BE.get(raw, row + i), (int) INT_BE.get(raw, prev + i)));
+                    }
+                    for (; i < rowBytes; i++) {
+                        raw[row + i] += raw[prev + i];
+                    }
+                }
+                case FILTER_AVERAGE -> {
+                    for (int i = 0; i < rowBytes; i++) {
+                        int left = i >= bpp ? raw[row + i - bpp] & 0xFF : 0;
+                        int up = y > 0 ? raw[prev + i] & 0xFF : 0;
+                        raw[row + i] += (byte) ((left + up) >>> 1);
+                    }
+                }
+                case FILTER_PAETH -> {
+                    for (int i = 0; i < rowBytes; i++) {
+                        int a = i >= bpp ? raw[row + i - bpp] & 0xFF : 0;
+                        int b = y > 0 ? raw[prev + i] & 0xFF : 0;
+                        int c = i >= bpp && y > 0 ? raw[prev + i - bpp] & 0xFF : 0;
+                        raw[row + i] += (byte) paeth(a, b, c);
+                    }
+                }
+                default -> {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static int paeth(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a), pb = Math.abs(p - b), pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc) return a;
+        return pb <= pc ? b : c;
+    }
+
+    private static int[] toArgb(byte[] raw, int width, int height, int colorType, int[] palette) {
+        int[] argb = new int[width * height];
+        int bpp = bytesPerPixel(colorType);
+        int stride = width * bpp + 1;
+        for (int y = 0, o = 0; y < height; y++) {
+            int j = y * stride + 1;
+            switch (colorType) {
+                case COLOR_RGBA -> {
+                    for (int x = 0; x < width; x++, j += 4) {
+                        argb[o++] = Integer.rotateRight((int) INT_BE.get(raw, j), 8);
+                    }
+                }
+                case COLOR_RGB -> {
+                    for (int x = 0; x < width; x++, j += 3) {
+                        argb[o++] = 0xFF000000 | (raw[j] & 0xFF) << 16 | (raw[j + 1] & 0xFF) << 8 | (raw[j + 2] & 0xFF);
+                    }
+                }
+                default -> {
+                    for (int x = 0; x < width; x++) {
+                        argb[o++] = palette[raw[j++] & 0xFF];
+                    }
+                }
+            }
+        }
+        return argb;
+    }
+
+    /** Bytewise a + b, each byte wrapping on its own. */
+    private static int addBytes(int a, int b) {
+        return ((a & ~HIGH_BITS) + (b & ~HIGH_BITS)) ^ ((a ^ b) & HIGH_BITS);
+    }
+
+    /** Bytewise a - b, each byte wrapping on its own. */
+    private static int subtractBytes(int a, int b) {
+        return ((a | HIGH_BITS) - (b & ~HIGH_BITS)) ^ ((a ^ ~b) & HIGH_BITS);
+    }
+
+    private static int bytesPerPixel(int colorType) {
+        return switch (colorType) {
+            case COLOR_RGBA -> 4;
+            case COLOR_RGB -> 3;
+            default -> 1;
+        };
+    }
+
+    // -------------------------------------------------------------------------
+    // Encode
+    // -------------------------------------------------------------------------
+
+    /**
+     * Encode ARGB pixels as an 8-bit indexed PNG if they use at most 256
+     * colours — nearly every skin does — and as 8-bit RGBA otherwise.
+     */
+    static byte[] encode(int[] argb, int width, int height) {
+        byte[] indices = new byte[argb.length];
+        int[] palette = palette(argb, indices);
+        byte[] raw = palette != null ? filterIndexed(indices, width, height) : filterRgba(argb, width, height);
+        int colors = palette != null ? palette.length : 0;
+
+        // Signature, IHDR, PLTE, tRNS, IDAT, IEND
+        byte[] out = new byte[SIGNATURE.length + 25 + (12 + colors * 3) + (12 + colors)
+                + 12 + RleDeflater.bound(raw.length) + 12];
+        int pos = 0;
+        System.arraycopy(SIGNATURE, 0, out, 0, SIGNATURE.length);
+        pos += SIGNATURE.length;
+
+        writeInt(out, pos, 13);
+        writeInt(out, pos + 4, IHDR);
+        writeInt(out, pos + 8, width);
+        writeInt(out, pos + 12, height);
+        out[pos + 16] = 8;          // bit depth
+        out[pos + 17] = (byte) (palette != null ? COLOR_INDEXED : COLOR_RGBA);
+        // compression, filter method, interlace: 0
+        pos = finishChunk(out, pos, 13);
+
+        if (palette != null) {
+            writeInt(out, pos, colors * 3);
+            writeInt(out, pos + 4, PLTE);
+            int alphas = 0;         // tRNS only needs to reach the last translucent entry
+            for (int i = 0, j = pos + 8; i < colors; i++, j += 3) {
+                int c = palette[i];
+                out[j] = (byte) (c >> 16);
+                out[j + 1] = (byte) (c >> 8);
+                out[j + 2] = (byte) c;
+                if (c >>> 24 != 0xFF) alphas = i + 1;
+            }
+            pos = finishChunk(out, pos, colors * 3);
+            if (alphas > 0) {
+                writeInt(out, pos, alphas);
+                writeInt(out, pos + 4, TRNS);
+                for (int i = 0; i < alphas; i++) {
+                    out[pos + 8 + i] = (byte) (palette[i] >>> 24);
+                }
+                pos = finishChunk(out, pos, alphas);
+            }
+        }
+
+        int idat = pos;
+        int compressed = RleDeflater.deflate(raw, raw.length, out, idat + 8) - (idat + 8);
+        writeInt(out, idat, compressed);
+        writeInt(out, idat + 4, IDAT);
+        pos = finishChunk(out, idat, compressed);
+
+        writeInt(out, pos, 0);
+        writeInt(out, pos + 4, IEND);
+        pos = finishChunk(out, pos, 0);
+
+        return Arrays.copyOf(out, pos);
+    }
+
+    /**
+     * The distinct colours of {@code argb} in order of first use, with the
+     * palette index of every pixel written to {@code indices}; null if there
+     * are more than 256.
+     */
+    private static int[] palette(int[] argb, byte[] indices) {
+        // Open addressing: colour → index + 1, 0 = empty
+        int[] keys = new int[1024];
+        int[] slots = new int[1024];
+        int[] colors = new int[256];
+        int count = 0;
+        int last = 0, lastIndex = -1;
+        for (int i = 0; i < argb.length; i++) {
+            int c = argb[i];
+            if (c != last || lastIndex < 0) {
+                int h = (c * 0x9E3779B9) >>> 22;
+                while (slots[h] != 0 && keys[h] != c) h = (h + 1) & 1023;
+                if (slots[h] == 0) {
+                    if (count == colors.length) return null;
+                    colors[count] = c;
+                    keys[h] = c;
+                    slots[h] = ++count;
+                }
+                last = c;
+                lastIndex = slots[h] - 1;
+            }
+            indices[i] = (byte) lastIndex;
+        }
+        return Arrays.copyOf(colors, count);
+    }
+
+    /**
+     * Indexed rows: None, so that flat areas are runs of one index, or Up
+     * when a row repeats the one above (every other row of an upscaled
+     * skin), which leaves all zeros.
+     */
+    private static byte[] filterIndexed(byte[] indices, int width, int height) {
+        byte[] raw = new byte[height * (width + 1)];
+        for (int y = 0, i = 0, j = 0; y < height; y++, i += width, j += width + 1) {
+            if (y > 0 && Arrays.equals(indices, i - width, i, indices, i, i + width)) {
+                raw[j] = FILTER_UP;
+            } else {
+                raw[j] = FILTER_NONE;
+                System.arraycopy(indices, i, raw, j + 1, width);
+            }
+        }
+        return raw;
+    }
+
+    /**
+     * RGBA rows: Sub, so that flat areas and doubled pixels are runs of
+     * zeros, or Up when a row repeats the one above.
+     */
+    private static byte[] filterRgba(int[] argb, int width, int height) {
+        int rowBytes = width * 4;
+        byte[] raw = new byte[height * (rowBytes + 1)];
+        for (int y = 0, i = 0, j = 0; y < height; y++) {
+            if (y > 0 && Arrays.equals(argb, i - width, i, argb, i, i + width)) {
+                raw[j] = FILTER_UP;
+                i += width;
+                j += rowBytes + 1;
+                continue;
+            }
+            raw[j++] = FILTER_SUB;
+            int left = 0;
+            for (int x = 0; x < width; x++, j += 4) {
+                int p = argb[i++];
+                INT_BE.set(raw, j, Integer.rotateLeft(subtractBytes(p, left), 8));
+                left = p;
+            }
+        }
+        return raw;
+    }
+
+    /** Append the CRC of the chunk at {@code start}; returns the index after it. */
+    private static int finishChunk(byte[] out, int start, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(out, start + 4, 4 + length);
+        int end = start + 8 + length;
+        writeInt(out, end, (int) crc.getValue());
+        return end + 4;
+    }
+
+    // -------------------------------------------------------------------------
+
+    private static boolean hasSignature(byte[] png) {
+        for (int i = 0; i < SIGNATURE.length; i++) {
+            if (png[i] != SIGNATURE[i]) return false;
+        }
+        return true;
+    }
+
+    private static int readInt(byte[] b, int off) {
+        return (b[off] & 0xFF) << 24 | (b[off + 1] & 0xFF) << 16 | (b[off + 2] & 0xFF) << 8 | (b[off + 3] & 0xFF);
+    }
+
+    private static void writeInt(byte[] b, int off, int v) {
+        b[off]     = (byte) (v >>> 24);
+        b[off + 1] = (byte) (v >>> 16);
+        b[off + 2] = (byte) (v >>> 8);
+        b[off + 3] = (byte) v;
+    }
+}
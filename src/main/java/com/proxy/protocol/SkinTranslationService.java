@@ -0,0 +1,274 @@
+package com.proxy.protocol;
+
+import com.proxy.metrics.ProxyMetrics;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Asynchronous, cached front end for {@link SkinTranslator}.
+ *
+ *  - Results are keyed by direction + SHA-256 of the input bytes, so an
+ *    identical skin is only translated once.
+ *  - The cache is an LRU bounded by the total size of the cached PNGs.
+ *  - Translations run on a small dedicated pool with a bounded queue;
+ *    callers get a CompletableFuture and never block.  When the queue is
+ *    full the future fails with RejectedExecutionException.
+ *  - Concurrent requests for the same skin share one in-flight future.
+ *
+ * Futures complete on a translation thread.  Netty handlers should hop
+ * back with e.g. {@code thenAcceptAsync(..., channel.eventLoop())}.
+ * Returned arrays are shared with the cache and must not be modified.
+ *
+ * Tuning (system properties):
+ *   hytalecraft.skins.cacheBytes  cache budget in bytes     (default 16 MiB)
+ *   hytalecraft.skins.threads     translation threads       (default 2)
+ *   hytalecraft.skins.queue       queued translations (max) (default 256)
+ */
+public final class SkinTranslationService {
+
+    private static final Logger log = LoggerFactory.getLogger(SkinTranslationService.class);
+
+    /** Per-entry bookkeeping cost added to the PNG size when accounting the cache */
+    private static final int ENTRY_OVERHEAD = 128;
+
+    public enum Direction { MC_TO_HYTALE, HYTALE_TO_MC }
+
+    private static final class Holder {
+        static final SkinTranslationService INSTANCE = new SkinTranslationService(
+                new SkinTranslator(),
+                Long.getLong("hytalecraft.skins.cacheBytes", 16L * 1024 * 1024),
+                Integer.getInteger("hytalecraft.skins.threads", 2),
+                Integer.getInteger("hytalecraft.skins.queue", 256));
+    }
+
+    public static SkinTranslationService getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    private final SkinTranslator translator;
+    private final ThreadPoolExecutor executor;
+    private final long maxCacheBytes;
+
+    /** Access-ordered LRU; guarded by itself */
+    private final LinkedHashMap<Key, byte[]> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private long cachedBytes;
+
+    private final ConcurrentHashMap<Key, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+
+    // Counters
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder deduplicated = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder translations = new LongAdder();
+    private final LongAdder translationNanos = new LongAdder();
+    private final LongAccumulator maxTranslationNanos = new LongAccumulator(Math::max, 0);
+
+    SkinTranslationService(SkinTranslator translator, long maxCacheBytes, int threads, int queueSize) {
+        this.translator = translator;
+        this.maxCacheBytes = maxCacheBytes;
+        this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                new DefaultThreadFactory("hytalecraft-skins", true),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    // -------------------------------------------------------------------------
+    // API
+    // -------------------------------------------------------------------------
+
+    /** Translate a 64x64 Minecraft skin PNG to the Hytale format. */
+    public CompletableFuture<byte[]> mcToHytale(byte[] mcSkin) {
+        return translate(Direction.MC_TO_HYTALE, mcSkin);
+    }
+
+    /** Translate a Hytale skin PNG to the 64x64 Minecraft format. */
+    public CompletableFuture<byte[]> hytaleToMc(byte[] hytaleSkin) {
+        return translate(Direction.HYTALE_TO_MC, hytaleSkin);
+    }
+
+    public CompletableFuture<byte[]> translate(Direction direction, byte[] input) {
+        if (input == null || input.length == 0) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Skin data is null or empty"));
+        }
+        Key key = new Key(direction, SHA256.get().digest(input));
+
+        byte[] cached = cacheGet(key);
+        if (cached != null) {
+            hits.increment();
+            return CompletableFuture.completedFuture(cached);
+        }
+        misses.increment();
+
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        CompletableFuture<byte[]> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            deduplicated.increment();
+            return existing;
+        }
+
+        // A translation may have finished between the cache check and the claim
+        cached = cacheGet(key);
+        if (cached != null) {
+            inFlight.remove(key, future);
+            future.complete(cached);
+            return future;
+        }
+
+        try {
+            executor.execute(() -> run(direction, input, key, future));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            inFlight.remove(key, future);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private void run(Direction direction, byte[] input, Key key, CompletableFuture<byte[]> future) {
+        long start = System.nanoTime();
+        try {
+            byte[] result = direction == Direction.MC_TO_HYTALE
+                    ? translator.translateMcToHytale(input)
+                    : translator.translateHytaleToMc(input);
+            cachePut(key, result);
+            inFlight.remove(key, future);
+            future.complete(result);
+        } catch (Throwable t) {
+            failures.increment();
+            inFlight.remove(key, future);
+            future.completeExceptionally(t);
+            log.debug("[Skins] {} translation failed: {}", direction, t.getMessage());
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            translations.increment();
+            translationNanos.add(elapsed);
+            maxTranslationNanos.accumulate(elapsed);
+            ProxyMetrics.SKIN_TRANSLATION.observeNanos(elapsed);
+        }
+    }
+
+    /** Stop the translation threads; queued translations are abandoned. */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // -------------------------------------------------------------------------
+    // Cache
+    // -------------------------------------------------------------------------
+
+    private byte[] cacheGet(Key key) {
+        synchronized (cache) {
+            return cache.get(key);
+        }
+    }
+
+    private void cachePut(Key key, byte[] value) {
+        long cost = value.length + ENTRY_OVERHEAD;
+        if (cost > maxCacheBytes) return;
+        synchronized (cache) {
+            byte[] old = cache.put(key, value);
+            if (old != null) cachedBytes -= old.length + ENTRY_OVERHEAD;
+            cachedBytes += cost;
+            Iterator<Map.Entry<Key, byte[]>> it = cache.entrySet().iterator();
+            while (cachedBytes > maxCacheBytes && it.hasNext()) {
+                Map.Entry<Key, byte[]> eldest = it.next();
+                cachedBytes -= eldest.getValue().length + ENTRY_OVERHEAD;
+                it.remove();
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Statistics
+    // -------------------------------------------------------------------------
+
+    public long getHits()          { return hits.sum(); }
+    public long getMisses()        { return misses.sum(); }
+    public long getDeduplicated()  { return deduplicated.sum(); }
+    public long getRejected()      { return rejected.sum(); }
+    public long getFailures()      { return failures.sum(); }
+    public long getTranslations()  { return translations.sum(); }
+
+    /** Fraction of requests answered from the cache (0 when nothing was requested). */
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    /** Mean translation time in nanoseconds. */
+    public long getMeanTranslationNanos() {
+        long n = translations.sum();
+        return n == 0 ? 0 : translationNanos.sum() / n;
+    }
+
+    public long getMaxTranslationNanos() {
+        return maxTranslationNanos.get();
+    }
+
+    public long getCachedBytes() {
+        synchronized (cache) {
+            return cachedBytes;
+        }
+    }
+
+    public int getCachedEntries() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    public int getQueuedTranslations() {
+        return executor.getQueue().size();
+    }
+
+    // -------------------------------------------------------------------------
+    // Key
+    // -------------------------------------------------------------------------
+
+    private static final class Key {
+        private final Direction direction;
+        private final byte[] digest;
+        private final int hash;
+
+        Key(Direction direction, byte[] digest) {
+            this.direction = direction;
+            this.digest = digest;
+            // SHA-256 output is uniformly distributed; the first four bytes make a fine hash
+            this.hash = ((digest[0] & 0xFF) << 24 | (digest[1] & 0xFF) << 16
+                    | (digest[2] & 0xFF) << 8 | (digest[3] & 0xFF)) * 31 + direction.ordinal();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key k && k.direction == direction && Arrays.equals(k.digest, digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
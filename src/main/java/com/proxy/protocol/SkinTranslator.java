@@ -3,6 +3,8 @@ package com.proxy.protocol;
 import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -20,6 +22,23 @@ import java.util.logging.Logger;
  * - May use different UV mapping or layout
  * 
  * This class handles pixel remapping and format conversion between the two.
+ *
+ * Two resampling paths exist:
+ * - fast (default): works on the int[] ARGB pixel arrays directly — exact 2x
+ *   nearest-neighbour upscaling for 64→128 and alpha-weighted 2x2 block
+ *   averaging for 128→64, copied body part by body part through the UV
+ *   region table.  Keeps pixel-art skins sharp.  PNGs are decoded and
+ *   encoded by {@link SkinPng} straight to and from those arrays; ImageIO is
+ *   only used for PNG variants SkinPng does not handle.
+ * - Java2D: ImageIO decode, Graphics2D bilinear scaling and ImageIO encode,
+ *   used for non-standard sizes or when the fast path is disabled.
+ *
+ * Every input is checked against its PNG header (IHDR) before it is decoded,
+ * so oversized images are rejected without allocating their pixels.
+ *
+ * Tuning (system properties):
+ *   hytalecraft.skins.fastPath      false = always use Java2D (default true)
+ *   hytalecraft.skins.maxDimension  largest accepted width/height (default 256)
  */
 public class SkinTranslator {
 
@@ -33,6 +52,48 @@ public class SkinTranslator {
     private static final int HYTALE_SKIN_WIDTH = 128;
     private static final int HYTALE_SKIN_HEIGHT = 128;
 
+    private static final boolean FAST_PATH =
+            Boolean.parseBoolean(System.getProperty("hytalecraft.skins.fastPath", "true"));
+    private static final int MAX_DIMENSION = Integer.getInteger("hytalecraft.skins.maxDimension", 256);
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    /**
+     * UV regions of a 64x64 Minecraft skin (bounding box of each body part,
+     * both layers) and where they go on the Hytale canvas, in Hytale pixels.
+     * Hytale currently uses the same layout at 2x, so every target is simply
+     * twice the source; moving a part only means editing its row here.
+     */
+    private static final Region[] REGIONS = {
+            new Region(0,  0,  32, 16,   0,   0), // head
+            new Region(32, 0,  32, 16,  64,   0), // hat (head overlay)
+            new Region(0,  16, 16, 16,   0,  32), // right leg
+            new Region(16, 16, 24, 16,  32,  32), // body
+            new Region(40, 16, 16, 16,  80,  32), // right arm
+            new Region(0,  32, 16, 16,   0,  64), // right leg overlay
+            new Region(16, 32, 24, 16,  32,  64), // body overlay
+            new Region(40, 32, 16, 16,  80,  64), // right arm overlay
+            new Region(0,  48, 16, 16,   0,  96), // left leg overlay
+            new Region(16, 48, 16, 16,  32,  96), // left leg
+            new Region(32, 48, 16, 16,  64,  96), // left arm
+            new Region(48, 48, 16, 16,  96,  96), // left arm overlay
+    };
+
+    private record Region(int mcX, int mcY, int width, int height, int hytaleX, int hytaleY) {}
+
+    private final boolean fastPath;
+
+    public SkinTranslator() {
+        this(FAST_PATH);
+    }
+
+    /**
+     * @param fastPath Use the int[] raster resampling when the sizes allow it
+     */
+    public SkinTranslator(boolean fastPath) {
+        this.fastPath = fastPath;
+    }
+
     /**
      * Translates a Minecraft 64x64 skin to Hytale format.
      * 
@@ -51,44 +112,29 @@ public class SkinTranslator {
             throw new IllegalArgumentException("Minecraft skin data is null or empty");
         }
 
+        checkPngHeader(mcSkin, "Minecraft");
+
+        if (fastPath) {
+            SkinPng.Image png = SkinPng.decode(mcSkin, MAX_DIMENSION);
+            if (png != null && isMinecraftSize(png.width(), png.height())) {
+                return SkinPng.encode(toHytale(png.argb(), png.height()), HYTALE_SKIN_WIDTH, HYTALE_SKIN_HEIGHT);
+            }
+        }
+
         // Load Minecraft skin image
         BufferedImage mcImage = ImageIO.read(new ByteArrayInputStream(mcSkin));
         if (mcImage == null) {
             throw new IOException("Failed to decode Minecraft skin image");
         }
 
-        logger.info(String.format("Translating MC skin: %dx%d -> Hytale format",
+        logger.fine(() -> String.format("Translating MC skin: %dx%d -> Hytale format",
                 mcImage.getWidth(), mcImage.getHeight()));
 
-        // Create Hytale-sized image
-        BufferedImage hytaleImage = new BufferedImage(
-                HYTALE_SKIN_WIDTH,
-                HYTALE_SKIN_HEIGHT,
-                BufferedImage.TYPE_INT_ARGB
-        );
-
-        Graphics2D g2d = hytaleImage.createGraphics();
-        try {
-            // Enable high-quality rendering
-            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-            g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-            // Scale the Minecraft skin to Hytale size
-            // Simple 2x upscale (64x64 -> 128x128)
-            g2d.drawImage(mcImage, 0, 0, HYTALE_SKIN_WIDTH, HYTALE_SKIN_HEIGHT, null);
-
-            // TODO: If Hytale uses different UV mapping, remap specific regions here
-            // Example remapping logic (if needed):
-            // remapHytaleRegions(hytaleImage, mcImage);
-        } finally {
-            g2d.dispose();
+        if (fastPath && isMinecraftSize(mcImage.getWidth(), mcImage.getHeight())) {
+            int[] hytale = toHytale(argbPixels(mcImage), mcImage.getHeight());
+            return SkinPng.encode(hytale, HYTALE_SKIN_WIDTH, HYTALE_SKIN_HEIGHT);
         }
-
-        // Convert to byte array (PNG format)
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ImageIO.write(hytaleImage, "PNG", baos);
-        return baos.toByteArray();
+        return encodePng(scaleJava2D(mcImage, HYTALE_SKIN_WIDTH, HYTALE_SKIN_HEIGHT));
     }
 
     /**
@@ -109,49 +155,79 @@ public class SkinTranslator {
             throw new IllegalArgumentException("Hytale skin data is null or empty");
         }
 
+        checkPngHeader(hytaleSkin, "Hytale");
+
+        if (fastPath) {
+            SkinPng.Image png = SkinPng.decode(hytaleSkin, MAX_DIMENSION);
+            if (png != null && png.width() == HYTALE_SKIN_WIDTH && png.height() == HYTALE_SKIN_HEIGHT) {
+                return SkinPng.encode(toMinecraft(png.argb()), MC_SKIN_WIDTH, MC_SKIN_HEIGHT);
+            }
+        }
+
         // Load Hytale skin image
         BufferedImage hytaleImage = ImageIO.read(new ByteArrayInputStream(hytaleSkin));
         if (hytaleImage == null) {
             throw new IOException("Failed to decode Hytale skin image");
         }
 
-        logger.info(String.format("Translating Hytale skin: %dx%d -> MC 64x64 format",
+        logger.fine(() -> String.format("Translating Hytale skin: %dx%d -> MC 64x64 format",
                 hytaleImage.getWidth(), hytaleImage.getHeight()));
 
-        // Create Minecraft-sized image
-        BufferedImage mcImage = new BufferedImage(
-                MC_SKIN_WIDTH,
-                MC_SKIN_HEIGHT,
-                BufferedImage.TYPE_INT_ARGB
-        );
+        if (fastPath && hytaleImage.getWidth() == HYTALE_SKIN_WIDTH && hytaleImage.getHeight() == HYTALE_SKIN_HEIGHT) {
+            return SkinPng.encode(toMinecraft(argbPixels(hytaleImage)), MC_SKIN_WIDTH, MC_SKIN_HEIGHT);
+        }
+        // This will crop/scale the image to fit 64x64
+        return encodePng(scaleJava2D(hytaleImage, MC_SKIN_WIDTH, MC_SKIN_HEIGHT));
+    }
+
+    private static boolean isMinecraftSize(int width, int height) {
+        return width == MC_SKIN_WIDTH && (height == MC_SKIN_HEIGHT || height == MC_SKIN_HEIGHT / 2);
+    }
+
+    /** Fast-path resampling: 64x64 or legacy 64x32 ARGB pixels → 128x128 Hytale layout. */
+    public static int[] toHytale(int[] mc, int mcHeight) {
+        if (mcHeight != MC_SKIN_HEIGHT) {
+            mc = expandLegacySkin(mc);
+        }
+        int[] hytale = new int[HYTALE_SKIN_WIDTH * HYTALE_SKIN_HEIGHT];
+        remapHytaleRegions(hytale, mc);
+        return hytale;
+    }
+
+    /** Fast-path resampling: 128x128 Hytale ARGB pixels → 64x64 Minecraft layout. */
+    public static int[] toMinecraft(int[] hytale) {
+        int[] mc = new int[MC_SKIN_WIDTH * MC_SKIN_HEIGHT];
+        remapMinecraftRegions(mc, hytale);
+        return mc;
+    }
 
-        Graphics2D g2d = mcImage.createGraphics();
+    /**
+     * Java2D resampling: bilinear, quality rendering.  Slow, and blurs pixel
+     * art, but handles any input size.
+     */
+    public static BufferedImage scaleJava2D(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = target.createGraphics();
         try {
-            // Enable high-quality downscaling
             g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
             g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
             g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-            // Scale down the Hytale skin to Minecraft size
-            // This will crop/scale the image to fit 64x64
-            g2d.drawImage(hytaleImage, 0, 0, MC_SKIN_WIDTH, MC_SKIN_HEIGHT, null);
-
-            // TODO: If Hytale uses different UV mapping, remap specific regions here
-            // Example remapping logic (if needed):
-            // remapMinecraftRegions(mcImage, hytaleImage);
+            g2d.drawImage(source, 0, 0, width, height, null);
         } finally {
             g2d.dispose();
         }
+        return target;
+    }
 
-        // Convert to byte array (PNG format)
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ImageIO.write(mcImage, "PNG", baos);
+    private static byte[] encodePng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(8 * 1024);
+        ImageIO.write(image, "PNG", baos);
         return baos.toByteArray();
     }
 
     /**
      * Remaps specific regions from Minecraft to Hytale format.
-     * 
+     *
      * Minecraft skin layout (64x64):
      * - Head: 8x8 at (8, 8)
      * - Body: 8x12 at (20, 20)
@@ -159,33 +235,178 @@ public class SkinTranslator {
      * - Left Arm: 4x12 at (36, 52) [on second layer]
      * - Right Leg: 4x12 at (4, 20)
      * - Left Leg: 4x12 at (20, 52) [on second layer]
-     * 
-     * This method can be extended to handle specific UV remapping if Hytale
-     * uses a different layout.
+     *
+     * Each body part in {@link #REGIONS} is upscaled 2x by pixel doubling:
+     * one doubled row is built and copied to both target rows.
+     *
+     * @param hytale 128x128 ARGB target
+     * @param mc     64x64 ARGB source
      */
-    private void remapHytaleRegions(BufferedImage hytaleImage, BufferedImage mcImage) {
-        // Example: If Hytale has different region positions, remap here
-        // For now, we assume 2x scaling maintains the same layout
-        
-        // If Hytale uses different coordinates, you would do:
-        // - Extract specific regions from mcImage
-        // - Place them at different coordinates in hytaleImage
-        // - Handle any rotation or mirroring if needed
+    private static void remapHytaleRegions(int[] hytale, int[] mc) {
+        for (Region r : REGIONS) {
+            for (int y = 0; y < r.height; y++) {
+                int src = (r.mcY + y) * MC_SKIN_WIDTH + r.mcX;
+                int dst = (r.hytaleY + 2 * y) * HYTALE_SKIN_WIDTH + r.hytaleX;
+                for (int x = 0; x < r.width; x++) {
+                    int p = mc[src + x];
+                    hytale[dst + 2 * x] = p;
+                    hytale[dst + 2 * x + 1] = p;
+                }
+                System.arraycopy(hytale, dst, hytale, dst + HYTALE_SKIN_WIDTH, 2 * r.width);
+            }
+        }
     }
 
     /**
      * Remaps specific regions from Hytale to Minecraft format.
-     * 
-     * Crops and scales specific body parts if Hytale uses a different layout.
+     *
+     * Each body part in {@link #REGIONS} is downscaled 2x by averaging every
+     * 2x2 block.  Colour is weighted by alpha so transparent pixels do not
+     * darken the edges of a part.
+     *
+     * @param mc     64x64 ARGB target
+     * @param hytale 128x128 ARGB source
      */
-    private void remapMinecraftRegions(BufferedImage mcImage, BufferedImage hytaleImage) {
-        // Example: If Hytale has different region positions, remap here
-        // Extract regions from hytaleImage and place them in correct MC positions
-        
-        // If Hytale uses different coordinates, you would do:
-        // - Extract specific regions from hytaleImage
-        // - Scale them down appropriately
-        // - Place them at Minecraft's standard coordinates
+    private static void remapMinecraftRegions(int[] mc, int[] hytale) {
+        for (Region r : REGIONS) {
+            for (int y = 0; y < r.height; y++) {
+                int src = (r.hytaleY + 2 * y) * HYTALE_SKIN_WIDTH + r.hytaleX;
+                int dst = (r.mcY + y) * MC_SKIN_WIDTH + r.mcX;
+                for (int x = 0; x < r.width; x++) {
+                    int i = src + 2 * x;
+                    mc[dst + x] = average(hytale[i], hytale[i + 1],
+                            hytale[i + HYTALE_SKIN_WIDTH], hytale[i + HYTALE_SKIN_WIDTH + 1]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Alpha-weighted average of four ARGB pixels.  Blocks of equal alpha —
+     * nearly all of them: opaque skin or fully transparent background — take
+     * a plain average, red and blue summed side by side in one int.
+     */
+    private static int average(int p0, int p1, int p2, int p3) {
+        int a0 = p0 >>> 24, a1 = p1 >>> 24, a2 = p2 >>> 24, a3 = p3 >>> 24;
+        if (a0 == a1 && a1 == a2 && a2 == a3) {
+            if (a0 == 0) return 0;
+            int rb = (p0 & 0xFF00FF) + (p1 & 0xFF00FF) + (p2 & 0xFF00FF) + (p3 & 0xFF00FF);
+            int g = (p0 & 0xFF00) + (p1 & 0xFF00) + (p2 & 0xFF00) + (p3 & 0xFF00);
+            return a0 << 24 | (rb >>> 2) & 0xFF00FF | (g >>> 2) & 0xFF00;
+        }
+        int alphaSum = a0 + a1 + a2 + a3;
+        if (alphaSum == 0) return 0;
+        int r = (((p0 >> 16) & 0xFF) * a0 + ((p1 >> 16) & 0xFF) * a1
+               + ((p2 >> 16) & 0xFF) * a2 + ((p3 >> 16) & 0xFF) * a3) / alphaSum;
+        int g = (((p0 >> 8) & 0xFF) * a0 + ((p1 >> 8) & 0xFF) * a1
+               + ((p2 >> 8) & 0xFF) * a2 + ((p3 >> 8) & 0xFF) * a3) / alphaSum;
+        int b = ((p0 & 0xFF) * a0 + (p1 & 0xFF) * a1 + (p2 & 0xFF) * a2 + (p3 & 0xFF) * a3) / alphaSum;
+        return ((alphaSum + 2) >> 2) << 24 | r << 16 | g << 8 | b;
+    }
+
+    /**
+     * Convert a legacy 64x32 skin to the 64x64 layout the way the vanilla
+     * client does: the left arm and leg are the right ones, mirrored.
+     */
+    private static int[] expandLegacySkin(int[] legacy) {
+        int[] skin = new int[MC_SKIN_WIDTH * MC_SKIN_HEIGHT];
+        System.arraycopy(legacy, 0, skin, 0, legacy.length);
+        mirrorLimb(skin, 0, 16, 16, 48);  // right leg → left leg
+        mirrorLimb(skin, 40, 16, 32, 48); // right arm → left arm
+        return skin;
+    }
+
+    /** Copy a 4x12x4 limb box from (u, v) to (du, dv), mirrored left-right. */
+    private static void mirrorLimb(int[] skin, int u, int v, int du, int dv) {
+        mirrorFace(skin, u + 4,  v,     du + 4,  dv,     4, 4);  // top
+        mirrorFace(skin, u + 8,  v,     du + 8,  dv,     4, 4);  // bottom
+        mirrorFace(skin, u + 8,  v + 4, du,      dv + 4, 4, 12); // left  → right
+        mirrorFace(skin, u + 4,  v + 4, du + 4,  dv + 4, 4, 12); // front
+        mirrorFace(skin, u,      v + 4, du + 8,  dv + 4, 4, 12); // right → left
+        mirrorFace(skin, u + 12, v + 4, du + 12, dv + 4, 4, 12); // back
+    }
+
+    private static void mirrorFace(int[] skin, int sx, int sy, int dx, int dy, int w, int h) {
+        for (int y = 0; y < h; y++) {
+            int src = (sy + y) * MC_SKIN_WIDTH + sx;
+            int dst = (dy + y) * MC_SKIN_WIDTH + dx;
+            for (int x = 0; x < w; x++) {
+                skin[dst + x] = skin[src + w - 1 - x];
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Raster access
+    // -------------------------------------------------------------------------
+
+    /**
+     * Pixels of a decoded image as packed ARGB, reading the raster directly
+     * for the layouts PNG decoding produces and falling back to getRGB.
+     */
+    private static int[] argbPixels(BufferedImage image) {
+        int w = image.getWidth();
+        int h = image.getHeight();
+        int n = w * h;
+        switch (image.getType()) {
+            case BufferedImage.TYPE_INT_ARGB: {
+                int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+                if (data.length == n) return data;
+                break;
+            }
+            case BufferedImage.TYPE_4BYTE_ABGR: {
+                byte[] data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+                if (data.length != n * 4) break;
+                int[] out = new int[n];
+                for (int i = 0, j = 0; i < n; i++, j += 4) {
+                    out[i] = (data[j] & 0xFF) << 24 | (data[j + 3] & 0xFF) << 16
+                           | (data[j + 2] & 0xFF) << 8 | (data[j + 1] & 0xFF);
+                }
+                return out;
+            }
+            case BufferedImage.TYPE_3BYTE_BGR: {
+                byte[] data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+                if (data.length != n * 3) break;
+                int[] out = new int[n];
+                for (int i = 0, j = 0; i < n; i++, j += 3) {
+                    out[i] = 0xFF000000 | (data[j + 2] & 0xFF) << 16
+                           | (data[j + 1] & 0xFF) << 8 | (data[j] & 0xFF);
+                }
+                return out;
+            }
+            default:
+                break;
+        }
+        return image.getRGB(0, 0, w, h, null, 0, w);
+    }
+
+    /**
+     * Validate the PNG signature and the IHDR dimensions before decoding, so
+     * a huge image is rejected without allocating its pixels.
+     */
+    static void checkPngHeader(byte[] png, String what) throws IOException {
+        if (png.length < 24) {
+            throw new IOException(what + " skin is too short to be a PNG");
+        }
+        for (int i = 0; i < PNG_SIGNATURE.length; i++) {
+            if (png[i] != PNG_SIGNATURE[i]) {
+                throw new IOException(what + " skin is not a PNG");
+            }
+        }
+        // The first chunk must be IHDR: length(4) "IHDR"(4) width(4) height(4)
+        if (png[12] != 'I' || png[13] != 'H' || png[14] != 'D' || png[15] != 'R') {
+            throw new IOException(what + " skin PNG has no IHDR chunk");
+        }
+        int width = readInt(png, 16);
+        int height = readInt(png, 20);
+        if (width <= 0 || height <= 0 || width > MAX_DIMENSION || height > MAX_DIMENSION) {
+            throw new IOException(String.format("%s skin is %dx%d; the limit is %dx%d",
+                    what, width, height, MAX_DIMENSION, MAX_DIMENSION));
+        }
+    }
+
+    private static int readInt(byte[] b, int off) {
+        return (b[off] & 0xFF) << 24 | (b[off + 1] & 0xFF) << 16 | (b[off + 2] & 0xFF) << 8 | (b[off + 3] & 0xFF);
     }
 
     /**
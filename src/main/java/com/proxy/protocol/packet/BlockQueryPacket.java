@@ -0,0 +1,36 @@
+package com.proxy.protocol.packet;
+
+import com.proxy.protocol.HytalePacket;
+
+/**
+ * BLOCK_QUERY (client → bridge) — asks for the block at one position.
+ */
+public class BlockQueryPacket implements HytalePacket {
+
+    private final int x;
+    private final int y;
+    private final int z;
+
+    public BlockQueryPacket(int x, int y, int z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getZ() {
+        return z;
+    }
+
+    @Override
+    public String getType() {
+        return "BLOCK_QUERY";
+    }
+}
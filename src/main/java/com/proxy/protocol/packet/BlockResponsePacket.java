@@ -0,0 +1,49 @@
+package com.proxy.protocol.packet;
+
+import com.proxy.protocol.HytalePacket;
+
+/**
+ * BLOCK_RESPONSE (bridge → client) — answer to a BLOCK_QUERY.
+ * Both IDs are -1 when the chunk holding the block is not cached.
+ */
+public class BlockResponsePacket implements HytalePacket {
+
+    private final int x;
+    private final int y;
+    private final int z;
+    private final int hytaleBlockId;
+    private final int mcBlockId;
+
+    public BlockResponsePacket(int x, int y, int z, int hytaleBlockId, int mcBlockId) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.hytaleBlockId = hytaleBlockId;
+        this.mcBlockId = mcBlockId;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getZ() {
+        return z;
+    }
+
+    public int getHytaleBlockId() {
+        return hytaleBlockId;
+    }
+
+    public int getMcBlockId() {
+        return mcBlockId;
+    }
+
+    @Override
+    public String getType() {
+        return "BLOCK_RESPONSE";
+    }
+}
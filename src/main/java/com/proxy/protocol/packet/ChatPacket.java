@@ -0,0 +1,24 @@
+package com.proxy.protocol.packet;
+
+import com.proxy.protocol.HytalePacket;
+
+/**
+ * CHAT_MESSAGE — a line of chat, in either direction.
+ */
+public class ChatPacket implements HytalePacket {
+
+    private final String message;
+
+    public ChatPacket(String message) {
+        this.message = message;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String getType() {
+        return "CHAT_MESSAGE";
+    }
+}
@@ -0,0 +1,24 @@
+package com.proxy.protocol.packet;
+
+import com.proxy.protocol.HytalePacket;
+
+/**
+ * DISCONNECT — either side is closing the session.
+ */
+public class DisconnectPacket implements HytalePacket {
+
+    private final String reason;
+
+    public DisconnectPacket(String reason) {
+        this.reason = reason;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String getType() {
+        return "DISCONNECT";
+    }
+}
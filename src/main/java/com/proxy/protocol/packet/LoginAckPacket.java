@@ -0,0 +1,49 @@
+package com.proxy.protocol.packet;
+
+import com.proxy.protocol.HytalePacket;
+
+/**
+ * LOGIN_ACK (bridge → client) — always sent in v1 JSON.
+ * "protocol" carries the negotiated version; every frame after this one
+ * uses that version's codec.
+ */
+public class LoginAckPacket implements HytalePacket {
+
+    private final boolean success;
+    private final String message;
+    private final String uuid; // null on failure
+    private final int protocolVersion;
+
+    public LoginAckPacket(boolean success, String message, String uuid, int protocolVersion) {
+        this.success = success;
+        this.message = message;
+        this.uuid = uuid;
+        this.protocolVersion = protocolVersion;
+    }
+
+    /** Convenience for rejected logins. */
+    public static LoginAckPacket failure(String message) {
+        return new LoginAckPacket(false, message, null, 1);
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    public int getProtocolVersion() {
+        return protocolVersion;
+    }
+
+    @Override
+    public String getType() {
+        return "LOGIN_ACK";
+    }
+}
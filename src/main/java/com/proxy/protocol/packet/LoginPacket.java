@@ -0,0 +1,38 @@
+package com.proxy.protocol.packet;
+
+import com.proxy.protocol.HytalePacket;
+
+/**
+ * LOGIN (client → bridge) — always sent in v1 JSON.
+ * The optional "protocol" field announces the highest protocol version the
+ * client speaks; clients that omit it are treated as v1.
+ */
+public class LoginPacket implements HytalePacket {
+
+    private final String username;
+    private final String uuid; // optional, may be null
+    private final int protocolVersion;
+
+    public LoginPacket(String username, String uuid, int protocolVersion) {
+        this.username = username;
+        this.uuid = uuid;
+        this.protocolVersion = protocolVersion;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    public int getProtocolVersion() {
+        return protocolVersion;
+    }
+
+    @Override
+    public String getType() {
+        return "LOGIN";
+    }
+}
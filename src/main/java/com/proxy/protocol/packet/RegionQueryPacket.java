@@ -0,0 +1,60 @@
+package com.proxy.protocol.packet;
+
+import com.proxy.protocol.HytalePacket;
+
+/**
+ * REGION_QUERY (client → bridge) — asks for every block in an axis-aligned
+ * box given by its minimum corner and its size along each axis.
+ */
+public class RegionQueryPacket implements HytalePacket {
+
+    private final int x;
+    private final int y;
+    private final int z;
+    private final int sizeX;
+    private final int sizeY;
+    private final int sizeZ;
+
+    public RegionQueryPacket(int x, int y, int z, int sizeX, int sizeY, int sizeZ) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getZ() {
+        return z;
+    }
+
+    public int getSizeX() {
+        return sizeX;
+    }
+
+    public int getSizeY() {
+        return sizeY;
+    }
+
+    public int getSizeZ() {
+        return sizeZ;
+    }
+
+    /** Number of blocks in the box, as a long so oversized requests cannot overflow. */
+    public long volume() {
+        return (long) sizeX * sizeY * sizeZ;
+    }
+
+    @Override
+    public String getType() {
+        return "REGION_QUERY";
+    }
+}
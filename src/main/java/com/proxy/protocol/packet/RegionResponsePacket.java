@@ -0,0 +1,142 @@
+package com.proxy.protocol.packet;
+
+import com.proxy.protocol.HytalePacket;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * REGION_RESPONSE (bridge → client) — all blocks of a REGION_QUERY box.
+ *
+ * Blocks are listed in y-z-x order (x varies fastest) and run-length
+ * encoded against a palette of Hytale block IDs:
+ *
+ *   palette = [ id0, id1, ... ]
+ *   runs    = [ paletteIndex, length, paletteIndex, length, ... ]
+ *
+ * A palette entry of -1 marks blocks whose chunk is not cached.  A refused
+ * query (box empty or above the volume cap) is answered with all sizes 0
+ * and no runs.
+ */
+public class RegionResponsePacket implements HytalePacket {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final int x;
+    private final int y;
+    private final int z;
+    private final int sizeX;
+    private final int sizeY;
+    private final int sizeZ;
+    private final int[] palette;
+    private final int[] runs;
+
+    public RegionResponsePacket(int x, int y, int z, int sizeX, int sizeY, int sizeZ, int[] palette, int[] runs) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        this.palette = palette;
+        this.runs = runs;
+    }
+
+    /** Answer for a refused query. */
+    public static RegionResponsePacket refused(int x, int y, int z) {
+        return new RegionResponsePacket(x, y, z, 0, 0, 0, EMPTY, EMPTY);
+    }
+
+    /**
+     * Run-length encode {@code blocks[0..count)} (MC block state IDs in y-z-x
+     * order).  Runs are cut on the MC IDs first, then the small MC palette is
+     * translated once and runs that end up with the same Hytale ID are merged.
+     *
+     * @param toHytale MC state → Hytale ID; negative (unknown) IDs are kept as -1
+     */
+    public static RegionResponsePacket encode(int x, int y, int z, int sizeX, int sizeY, int sizeZ,
+                                              int[] blocks, int count, IntUnaryOperator toHytale) {
+        // Pass 1: runs over MC state IDs
+        int[] runs = new int[16];
+        int runCount = 0;
+        int i = 0;
+        while (i < count) {
+            int state = blocks[i];
+            int start = i;
+            while (++i < count && blocks[i] == state) { }
+            if (runCount * 2 == runs.length) runs = Arrays.copyOf(runs, runs.length * 2);
+            runs[runCount * 2] = state;
+            runs[runCount * 2 + 1] = i - start;
+            runCount++;
+        }
+
+        // Pass 2: translate each run once, build the palette, merge equal neighbours
+        Map<Integer, Integer> index = new HashMap<>();
+        int[] palette = new int[8];
+        int paletteSize = 0;
+        int out = 0;
+        int prev = -1;
+        for (int r = 0; r < runCount; r++) {
+            int state = runs[r * 2];
+            int id = state < 0 ? -1 : toHytale.applyAsInt(state);
+            Integer p = index.get(id);
+            if (p == null) {
+                if (paletteSize == palette.length) palette = Arrays.copyOf(palette, paletteSize * 2);
+                palette[paletteSize] = id;
+                p = paletteSize++;
+                index.put(id, p);
+            }
+            if (p == prev) {
+                runs[out * 2 - 1] += runs[r * 2 + 1];
+            } else {
+                runs[out * 2] = p;
+                runs[out * 2 + 1] = runs[r * 2 + 1];
+                out++;
+                prev = p;
+            }
+        }
+        return new RegionResponsePacket(x, y, z, sizeX, sizeY, sizeZ,
+                Arrays.copyOf(palette, paletteSize), Arrays.copyOf(runs, out * 2));
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getZ() {
+        return z;
+    }
+
+    public int getSizeX() {
+        return sizeX;
+    }
+
+    public int getSizeY() {
+        return sizeY;
+    }
+
+    public int getSizeZ() {
+        return sizeZ;
+    }
+
+    /** Hytale block IDs referenced by the runs. */
+    public int[] getPalette() {
+        return palette;
+    }
+
+    /** Alternating palette index / run length pairs. */
+    public int[] getRuns() {
+        return runs;
+    }
+
+    @Override
+    public String getType() {
+        return "REGION_RESPONSE";
+    }
+}
@@ -0,0 +1,129 @@
+package com.proxy.world;
+
+import java.util.Arrays;
+
+/**
+ * A cached chunk column: the vertical stack of {@link ChunkSection}s at one
+ * chunk coordinate, shared by every player whose backend stream loaded it.
+ *
+ * Reads and writes are synchronized on the column — they are short, and
+ * contention only happens when players on different event loops touch the
+ * same chunk at the same moment.
+ */
+public final class ChunkColumn {
+
+    private final int chunkX;
+    private final int chunkZ;
+    private final int minSection;
+    private final ChunkSection[] sections;
+
+    /** Sessions that currently have this chunk loaded (guarded by this) */
+    private int viewers;
+    private long sizeBytes;
+
+    /** Approximate LRU stamp, see WorldStore */
+    volatile long lastAccess;
+
+    public ChunkColumn(int chunkX, int chunkZ, int minSection, ChunkSection[] sections) {
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+        this.minSection = minSection;
+        this.sections = sections;
+        long size = 64 + 16 + 8L * sections.length;
+        for (ChunkSection s : sections) size += s.sizeBytes();
+        this.sizeBytes = size;
+    }
+
+    public int getChunkX() { return chunkX; }
+    public int getChunkZ() { return chunkZ; }
+
+    /** Lowest section Y (e.g. -4 for an overworld starting at y = -64). */
+    public int getMinSection() { return minSection; }
+
+    public int getSectionCount() { return sections.length; }
+
+    /**
+     * Block state at world coordinates inside this column.
+     * Positions above or below the cached sections are air (0).
+     */
+    public synchronized int getBlock(int x, int y, int z) {
+        int s = (y >> 4) - minSection;
+        if (s < 0 || s >= sections.length) return 0;
+        return sections[s].get(ChunkSection.index(x, y, z));
+    }
+
+    /**
+     * Section at absolute section Y, or null if outside the column.
+     * Callers must hold the column's monitor while using it.
+     */
+    ChunkSection section(int sectionY) {
+        int s = sectionY - minSection;
+        return s < 0 || s >= sections.length ? null : sections[s];
+    }
+
+    /**
+     * Set a block state at world coordinates.
+     *
+     * @return the change in {@link #sizeBytes()} caused by palette growth
+     */
+    public synchronized long setBlock(int x, int y, int z, int state) {
+        int s = (y >> 4) - minSection;
+        if (s < 0 || s >= sections.length) return 0;
+        ChunkSection section = sections[s];
+        long before = section.sizeBytes();
+        section.set(ChunkSection.index(x, y, z), state);
+        long delta = section.sizeBytes() - before;
+        sizeBytes += delta;
+        return delta;
+    }
+
+    /**
+     * Copy the part of a y-z-x ordered box that falls inside this column.
+     * Each overlapping section is unpacked once into {@code scratch} and
+     * copied into {@code dst} row by row.
+     *
+     * @param scratch at least {@link ChunkSection#BLOCKS} ints
+     * @see WorldStore#isValidRegion
+     */
+    public synchronized void copyRegion(int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ,
+                                        int[] dst, int[] scratch) {
+        int x0 = Math.max(minX, chunkX << 4), x1 = Math.min(minX + sizeX, (chunkX << 4) + 16);
+        int z0 = Math.max(minZ, chunkZ << 4), z1 = Math.min(minZ + sizeZ, (chunkZ << 4) + 16);
+        int width = x1 - x0;
+        if (width <= 0 || z1 <= z0) return;
+
+        int maxY = minY + sizeY;
+        for (int sy = minY >> 4; sy <= (maxY - 1) >> 4; sy++) {
+            int y0 = Math.max(minY, sy << 4), y1 = Math.min(maxY, (sy << 4) + 16);
+            ChunkSection section = section(sy);
+            if (section != null) section.getAll(scratch, 0);
+            for (int y = y0; y < y1; y++) {
+                for (int z = z0; z < z1; z++) {
+                    int to = ((y - minY) * sizeZ + (z - minZ)) * sizeX + (x0 - minX);
+                    if (section == null) {
+                        Arrays.fill(dst, to, to + width, 0); // above/below the world: air
+                    } else {
+                        System.arraycopy(scratch, ChunkSection.index(x0, y, z), dst, to, width);
+                    }
+                }
+            }
+        }
+    }
+
+    public synchronized long sizeBytes() { return sizeBytes; }
+
+    synchronized int viewers() { return viewers; }
+
+    synchronized void addViewers(int n) { viewers += n; }
+
+    synchronized void removeViewer() {
+        if (viewers > 0) viewers--;
+    }
+
+    /** Increment the viewer count only if someone is already viewing (i.e. the copy is live). */
+    synchronized boolean retainIfLive() {
+        if (viewers == 0) return false;
+        viewers++;
+        return true;
+    }
+}
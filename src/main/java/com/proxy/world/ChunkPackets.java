@@ -0,0 +1,115 @@
+package com.proxy.world;
+
+import com.proxy.network.util.PacketDecoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.CorruptedFrameException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decoding helpers for the world-related parts of the MC PLAY protocol
+ * (1.20.4): chunk column data, network NBT skipping, and packed positions.
+ */
+public final class ChunkPackets {
+
+    private ChunkPackets() {}
+
+    /** Sections in a 384-block-tall overworld column starting at y = -64 */
+    private static final int OVERWORLD_SECTIONS = 24;
+
+    /**
+     * Decode the body of a Chunk Data and Update Light packet after the chunk
+     * coordinates: heightmaps, then the section data array.  Block entities and
+     * light data that follow are not needed and are left unread.
+     *
+     * @param minSection lowest section Y, or Integer.MIN_VALUE to infer it
+     *                   (24 sections → -4, otherwise 0)
+     */
+    static ChunkColumn readColumn(ByteBuf buf, int chunkX, int chunkZ, int minSection) {
+        skipNetworkNbt(buf); // heightmaps
+
+        int size = PacketDecoder.readVarInt(buf);
+        if (size < 0 || size > buf.readableBytes()) {
+            throw new CorruptedFrameException("Bad chunk data size " + size);
+        }
+        ByteBuf data = buf.readSlice(size);
+
+        List<ChunkSection> sections = new ArrayList<>(OVERWORLD_SECTIONS);
+        while (data.isReadable()) {
+            data.readShort(); // non-air block count
+            sections.add(ChunkSection.read(data));
+            ChunkSection.skipBiomes(data);
+        }
+
+        if (minSection == Integer.MIN_VALUE) {
+            minSection = sections.size() == OVERWORLD_SECTIONS ? -4 : 0;
+        }
+        return new ChunkColumn(chunkX, chunkZ, minSection, sections.toArray(new ChunkSection[0]));
+    }
+
+    // -------------------------------------------------------------------------
+    // Packed positions
+    // -------------------------------------------------------------------------
+
+    /** Block position: x 26 bits | z 26 bits | y 12 bits */
+    static int blockX(long pos) { return (int) (pos >> 38); }
+    static int blockY(long pos) { return (int) (pos << 52 >> 52); }
+    static int blockZ(long pos) { return (int) (pos << 26 >> 38); }
+
+    /** Section position: x 22 bits | z 22 bits | y 20 bits */
+    static int sectionX(long pos) { return (int) (pos >> 42); }
+    static int sectionY(long pos) { return (int) (pos << 44 >> 44); }
+    static int sectionZ(long pos) { return (int) (pos << 22 >> 42); }
+
+    // -------------------------------------------------------------------------
+    // NBT
+    // -------------------------------------------------------------------------
+
+    private static final int TAG_END = 0, TAG_BYTE = 1, TAG_SHORT = 2, TAG_INT = 3, TAG_LONG = 4,
+            TAG_FLOAT = 5, TAG_DOUBLE = 6, TAG_BYTE_ARRAY = 7, TAG_STRING = 8, TAG_LIST = 9,
+            TAG_COMPOUND = 10, TAG_INT_ARRAY = 11, TAG_LONG_ARRAY = 12;
+
+    private static final int MAX_NBT_DEPTH = 512;
+
+    /** Skip a network NBT tag (1.20.2+: unnamed root). */
+    static void skipNetworkNbt(ByteBuf buf) {
+        int type = buf.readUnsignedByte();
+        if (type != TAG_END) skipPayload(buf, type, 0);
+    }
+
+    private static void skipPayload(ByteBuf buf, int type, int depth) {
+        if (depth > MAX_NBT_DEPTH) throw new CorruptedFrameException("NBT nested too deeply");
+        switch (type) {
+            case TAG_BYTE -> buf.skipBytes(1);
+            case TAG_SHORT -> buf.skipBytes(2);
+            case TAG_INT, TAG_FLOAT -> buf.skipBytes(4);
+            case TAG_LONG, TAG_DOUBLE -> buf.skipBytes(8);
+            case TAG_BYTE_ARRAY -> buf.skipBytes(length(buf, 1));
+            case TAG_STRING -> buf.skipBytes(buf.readUnsignedShort());
+            case TAG_INT_ARRAY -> buf.skipBytes(length(buf, 4));
+            case TAG_LONG_ARRAY -> buf.skipBytes(length(buf, 8));
+            case TAG_LIST -> {
+                int elementType = buf.readUnsignedByte();
+                int count = buf.readInt();
+                for (int i = 0; i < count; i++) skipPayload(buf, elementType, depth + 1);
+            }
+            case TAG_COMPOUND -> {
+                int child;
+                while ((child = buf.readUnsignedByte()) != TAG_END) {
+                    buf.skipBytes(buf.readUnsignedShort()); // name
+                    skipPayload(buf, child, depth + 1);
+                }
+            }
+            default -> throw new CorruptedFrameException("Unknown NBT tag " + type);
+        }
+    }
+
+    private static int length(ByteBuf buf, int elementSize) {
+        int count = buf.readInt();
+        if (count < 0 || (long) count * elementSize > buf.readableBytes()) {
+            throw new CorruptedFrameException("Bad NBT array length " + count);
+        }
+        return count * elementSize;
+    }
+}
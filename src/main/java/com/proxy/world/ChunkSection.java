@@ -0,0 +1,232 @@
+package com.proxy.world;
+
+import com.proxy.network.util.PacketDecoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.CorruptedFrameException;
+
+import java.util.Arrays;
+
+/**
+ * One 16×16×16 section of MC block states, kept in the same
+ * palette-compressed layout the server sends:
+ *
+ *   single value — bits = 0, no data array
+ *   indirect     — 4..8 bits per block, index into a local palette
+ *   direct       — global block state IDs, no palette
+ *
+ * Entries never straddle two longs (1.16+ packing), so a lookup is one
+ * array read, a shift and a mask.  Block index order is y-z-x:
+ *   index = (y << 8) | (z << 4) | x
+ *
+ * Not thread-safe; {@link ChunkColumn} guards access.
+ */
+public final class ChunkSection {
+
+    public static final int BLOCKS = 4096;
+
+    private static final int MIN_INDIRECT_BITS = 4;
+    private static final int MAX_INDIRECT_BITS = 8;
+
+    /** Bits per block used once a section outgrows an 8-bit palette (26,684 states in 1.20.4) */
+    static final int DIRECT_BITS =
+            Math.max(MAX_INDIRECT_BITS + 1, Math.min(Integer.getInteger("hytalecraft.world.directBits", 15), 32));
+
+    private int bits;
+    private int entriesPerLong;
+    private long mask;
+    private long[] data;
+    private int[] palette;   // null in direct mode
+    private int paletteSize;
+    private int single;      // the only state when bits == 0
+
+    private ChunkSection() {}
+
+    /** A section filled with one block state. */
+    public static ChunkSection filled(int state) {
+        ChunkSection s = new ChunkSection();
+        s.single = state;
+        return s;
+    }
+
+    // -------------------------------------------------------------------------
+    // Wire format
+    // -------------------------------------------------------------------------
+
+    /**
+     * Read a block-state paletted container (the part of a chunk section
+     * after the block count).
+     *
+     * @throws CorruptedFrameException if the palette, the bits per entry
+     *         (at most the direct width) or the data length are invalid
+     */
+    public static ChunkSection read(ByteBuf buf) {
+        ChunkSection s = new ChunkSection();
+        int bpe = buf.readUnsignedByte();
+        if (bpe == 0) {
+            s.single = PacketDecoder.readVarInt(buf);
+            skipLongs(buf, PacketDecoder.readVarInt(buf));
+            return s;
+        }
+        if (bpe <= MAX_INDIRECT_BITS) {
+            int size = PacketDecoder.readVarInt(buf);
+            int bits = Math.max(bpe, MIN_INDIRECT_BITS);
+            if (size <= 0 || size > (1 << bits)) {
+                throw new CorruptedFrameException("Bad palette size " + size + " for " + bits + " bits");
+            }
+            int[] palette = new int[1 << bits];
+            for (int i = 0; i < size; i++) palette[i] = PacketDecoder.readVarInt(buf);
+            s.palette = palette;
+            s.paletteSize = size;
+            s.setBits(bits);
+        } else if (bpe <= DIRECT_BITS) {
+            s.setBits(bpe);
+        } else {
+            throw new CorruptedFrameException("Bad bits per entry " + bpe + " (direct palette is "
+                    + DIRECT_BITS + " bits, see hytalecraft.world.directBits)");
+        }
+
+        int longs = PacketDecoder.readVarInt(buf);
+        if (longs != longsFor(s.bits)) {
+            throw new CorruptedFrameException("Expected " + longsFor(s.bits) + " longs, got " + longs);
+        }
+        long[] data = new long[longs];
+        for (int i = 0; i < longs; i++) data[i] = buf.readLong();
+        s.data = data;
+        return s;
+    }
+
+    /** Skip a biome paletted container (only block states are cached). */
+    public static void skipBiomes(ByteBuf buf) {
+        int bpe = buf.readUnsignedByte();
+        if (bpe == 0) {
+            PacketDecoder.readVarInt(buf);
+        } else if (bpe <= 3) {
+            int size = PacketDecoder.readVarInt(buf);
+            for (int i = 0; i < size; i++) PacketDecoder.readVarInt(buf);
+        }
+        skipLongs(buf, PacketDecoder.readVarInt(buf));
+    }
+
+    private static void skipLongs(ByteBuf buf, int count) {
+        if (count < 0 || count > buf.readableBytes() / 8) {
+            throw new CorruptedFrameException("Bad data array length " + count);
+        }
+        buf.skipBytes(count * 8);
+    }
+
+    // -------------------------------------------------------------------------
+    // Access
+    // -------------------------------------------------------------------------
+
+    public static int index(int x, int y, int z) {
+        return ((y & 15) << 8) | ((z & 15) << 4) | (x & 15);
+    }
+
+    /** Block state at a section-local index. */
+    public int get(int index) {
+        if (bits == 0) return single;
+        int raw = raw(index);
+        return palette == null ? raw : palette[raw];
+    }
+
+    /** Copy all 4096 block states (y-z-x order) into {@code dst[off..off+4095]}. */
+    public void getAll(int[] dst, int off) {
+        if (bits == 0) {
+            Arrays.fill(dst, off, off + BLOCKS, single);
+            return;
+        }
+        int i = 0;
+        for (long word : data) {
+            for (int j = 0; j < entriesPerLong && i < BLOCKS; j++, i++) {
+                int raw = (int) ((word >>> (j * bits)) & mask);
+                dst[off + i] = palette == null ? raw : palette[raw];
+            }
+        }
+    }
+
+    /** Set the block state at a section-local index, growing the palette if needed. */
+    public void set(int index, int state) {
+        if (bits == 0) {
+            if (state == single) return;
+            palette = new int[1 << MIN_INDIRECT_BITS];
+            palette[0] = single;
+            paletteSize = 1;
+            setBits(MIN_INDIRECT_BITS);
+            data = new long[longsFor(bits)]; // all entries → palette[0]
+        }
+        if (palette == null) {
+            writeRaw(index, state);
+            return;
+        }
+        int p = indexOf(state);
+        if (p < 0) {
+            if (paletteSize == palette.length) {
+                grow();
+                set(index, state);
+                return;
+            }
+            p = paletteSize++;
+            palette[p] = state;
+        }
+        writeRaw(index, p);
+    }
+
+    /** Approximate heap footprint in bytes. */
+    public long sizeBytes() {
+        long size = 48;
+        if (data != null) size += 16 + 8L * data.length;
+        if (palette != null) size += 16 + 4L * palette.length;
+        return size;
+    }
+
+    // -------------------------------------------------------------------------
+    // Internals
+    // -------------------------------------------------------------------------
+
+    private int raw(int index) {
+        long word = data[index / entriesPerLong];
+        return (int) ((word >>> ((index % entriesPerLong) * bits)) & mask);
+    }
+
+    private void writeRaw(int index, int value) {
+        int li = index / entriesPerLong;
+        int shift = (index % entriesPerLong) * bits;
+        data[li] = (data[li] & ~(mask << shift)) | (((long) value & mask) << shift);
+    }
+
+    private int indexOf(int state) {
+        for (int i = 0; i < paletteSize; i++) {
+            if (palette[i] == state) return i;
+        }
+        return -1;
+    }
+
+    /** Re-pack with one more bit per entry, or switch to direct states past 8 bits. */
+    private void grow() {
+        int[] raw = new int[BLOCKS];
+        for (int i = 0; i < BLOCKS; i++) raw[i] = raw(i);
+
+        if (bits < MAX_INDIRECT_BITS) {
+            palette = Arrays.copyOf(palette, 1 << (bits + 1));
+            setBits(bits + 1);
+        } else {
+            for (int i = 0; i < BLOCKS; i++) raw[i] = palette[raw[i]];
+            palette = null;
+            paletteSize = 0;
+            setBits(DIRECT_BITS);
+        }
+        data = new long[longsFor(bits)];
+        for (int i = 0; i < BLOCKS; i++) writeRaw(i, raw[i]);
+    }
+
+    private void setBits(int bits) {
+        this.bits = bits;
+        this.entriesPerLong = 64 / bits;
+        this.mask = (1L << bits) - 1;
+    }
+
+    private static int longsFor(int bits) {
+        int perLong = 64 / bits;
+        return (BLOCKS + perLong - 1) / perLong;
+    }
+}
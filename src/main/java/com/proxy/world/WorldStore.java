@@ -0,0 +1,249 @@
+package com.proxy.world;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Shared cache of MC world state decoded from the backend streams.
+ *
+ * Chunk columns are keyed by world and chunk coordinate, so every player
+ * in the same area shares one copy.  World keys are "backend/dimension"
+ * (see {@link WorldTracker}): dimensions of the same name on different
+ * backends are different worlds.  Each column counts the
+ * sessions that have it loaded; a second player receiving the same chunk
+ * only bumps that count instead of decoding it again.
+ *
+ * Memory is bounded by an approximate LRU: every column is stamped on
+ * access, and when the estimated footprint exceeds the budget the least
+ * recently used columns are dropped — columns nobody has loaded first —
+ * until usage is back under 90% of the budget.
+ *
+ * Tuning (system properties):
+ *   hytalecraft.world.maxBytes   memory budget for cached chunks (default 256 MiB)
+ */
+public final class WorldStore {
+
+    private static final Logger log = LoggerFactory.getLogger(WorldStore.class);
+
+    private static final long DEFAULT_MAX_BYTES =
+            Long.getLong("hytalecraft.world.maxBytes", 256L * 1024 * 1024);
+
+    /** Returned by getBlock when the chunk is not cached */
+    public static final int UNKNOWN = -1;
+
+    /**
+     * Bound on region coordinates (exclusive, either sign): far beyond the
+     * 30M world border, and far enough from int overflow that the chunk and
+     * section arithmetic in readRegion cannot wrap.
+     */
+    public static final int MAX_REGION_COORD = 1 << 30;
+
+    private static final WorldStore INSTANCE = new WorldStore(DEFAULT_MAX_BYTES);
+
+    public static WorldStore getInstance() {
+        return INSTANCE;
+    }
+
+    private final ConcurrentHashMap<String, ConcurrentHashMap<Long, ChunkColumn>> worlds = new ConcurrentHashMap<>();
+    private final AtomicLong usedBytes = new AtomicLong();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final long maxBytes;
+
+    private WorldStore(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    // -------------------------------------------------------------------------
+    // Chunk lifecycle
+    // -------------------------------------------------------------------------
+
+    /**
+     * Register another viewer of a chunk that is already cached and live.
+     *
+     * @return true if the cached copy can be shared (the caller need not decode it)
+     */
+    public boolean retain(String world, int chunkX, int chunkZ) {
+        ChunkColumn column = column(world, chunkX, chunkZ);
+        if (column == null || !column.retainIfLive()) return false;
+        column.lastAccess = System.nanoTime();
+        return true;
+    }
+
+    /** Store a freshly decoded column, counting the caller as one viewer. */
+    public void put(String world, ChunkColumn column) {
+        ConcurrentHashMap<Long, ChunkColumn> chunks = worlds.computeIfAbsent(world, w -> new ConcurrentHashMap<>());
+        column.addViewers(1);
+        column.lastAccess = System.nanoTime();
+        ChunkColumn old = chunks.put(chunkKey(column.getChunkX(), column.getChunkZ()), column);
+        long delta = column.sizeBytes();
+        if (old != null) {
+            column.addViewers(old.viewers()); // sessions still holding the old copy now view this one
+            delta -= old.sizeBytes();
+        }
+        if (usedBytes.addAndGet(delta) > maxBytes) {
+            evict();
+        }
+    }
+
+    /** One viewer unloaded the chunk; the column stays cached until evicted. */
+    public void release(String world, int chunkX, int chunkZ) {
+        ChunkColumn column = column(world, chunkX, chunkZ);
+        if (column != null) column.removeViewer();
+    }
+
+    // -------------------------------------------------------------------------
+    // Block access
+    // -------------------------------------------------------------------------
+
+    /** MC block state at world coordinates, or {@link #UNKNOWN} if the chunk is not cached. */
+    public int getBlock(String world, int x, int y, int z) {
+        ChunkColumn column = column(world, x >> 4, z >> 4);
+        if (column == null) return UNKNOWN;
+        column.lastAccess = System.nanoTime();
+        return column.getBlock(x, y, z);
+    }
+
+    /** Cached column containing the block, or null. Stamps it as used. */
+    public ChunkColumn getColumn(String world, int chunkX, int chunkZ) {
+        ChunkColumn column = column(world, chunkX, chunkZ);
+        if (column != null) column.lastAccess = System.nanoTime();
+        return column;
+    }
+
+    /**
+     * Read every block state in a box into {@code dst}, in y-z-x order
+     * (index = ((y - minY) * sizeZ + (z - minZ)) * sizeX + (x - minX)).
+     * Works chunk by chunk and section by section; blocks in chunks that are
+     * not cached are set to {@link #UNKNOWN}.
+     *
+     * @throws IllegalArgumentException if the box is not {@link #isValidRegion valid}
+     */
+    public void readRegion(String world, int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ, int[] dst) {
+        if (!isValidRegion(minX, minY, minZ, sizeX, sizeY, sizeZ)) {
+            throw new IllegalArgumentException("Bad region " + minX + "," + minY + "," + minZ
+                    + " size " + sizeX + "x" + sizeY + "x" + sizeZ);
+        }
+        int[] scratch = new int[ChunkSection.BLOCKS];
+        int maxX = minX + sizeX - 1, maxZ = minZ + sizeZ - 1;
+        for (int cx = minX >> 4; cx <= maxX >> 4; cx++) {
+            for (int cz = minZ >> 4; cz <= maxZ >> 4; cz++) {
+                ChunkColumn column = getColumn(world, cx, cz);
+                if (column != null) {
+                    column.copyRegion(minX, minY, minZ, sizeX, sizeY, sizeZ, dst, scratch);
+                } else {
+                    fillUnknown(cx, cz, minX, minZ, sizeX, sizeY, sizeZ, dst);
+                }
+            }
+        }
+    }
+
+    /**
+     * True if every size is positive and the box lies within
+     * ±{@link #MAX_REGION_COORD}, so that every block of it is written by
+     * {@link #readRegion} — a box whose end overflows int would leave parts
+     * of a reused {@code dst} untouched.
+     */
+    public static boolean isValidRegion(int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ) {
+        return axisFits(minX, sizeX) && axisFits(minY, sizeY) && axisFits(minZ, sizeZ);
+    }
+
+    private static boolean axisFits(int min, int size) {
+        return size > 0 && min > -MAX_REGION_COORD && (long) min + size <= MAX_REGION_COORD;
+    }
+
+    private static void fillUnknown(int cx, int cz, int minX, int minZ, int sizeX, int sizeY, int sizeZ, int[] dst) {
+        int x0 = Math.max(minX, cx << 4), x1 = Math.min(minX + sizeX, (cx << 4) + 16);
+        int z0 = Math.max(minZ, cz << 4), z1 = Math.min(minZ + sizeZ, (cz << 4) + 16);
+        for (int y = 0; y < sizeY; y++) {
+            for (int z = z0; z < z1; z++) {
+                int row = (y * sizeZ + (z - minZ)) * sizeX;
+                Arrays.fill(dst, row + (x0 - minX), row + (x1 - minX), UNKNOWN);
+            }
+        }
+    }
+
+    /** Apply a block change from the backend; ignored if the chunk is not cached. */
+    public void setBlock(String world, int x, int y, int z, int state) {
+        ChunkColumn column = column(world, x >> 4, z >> 4);
+        if (column == null) return;
+        long delta = column.setBlock(x, y, z, state);
+        if (delta != 0 && usedBytes.addAndGet(delta) > maxBytes) {
+            evict();
+        }
+    }
+
+    private ChunkColumn column(String world, int chunkX, int chunkZ) {
+        if (world == null) return null;
+        ConcurrentHashMap<Long, ChunkColumn> chunks = worlds.get(world);
+        return chunks == null ? null : chunks.get(chunkKey(chunkX, chunkZ));
+    }
+
+    // -------------------------------------------------------------------------
+    // Eviction
+    // -------------------------------------------------------------------------
+
+    private void evict() {
+        if (!evictionLock.tryLock()) return; // someone else is already trimming
+        try {
+            long target = maxBytes / 10 * 9;
+            if (usedBytes.get() <= target) return;
+
+            List<Candidate> candidates = new ArrayList<>();
+            for (Map.Entry<String, ConcurrentHashMap<Long, ChunkColumn>> w : worlds.entrySet()) {
+                for (Map.Entry<Long, ChunkColumn> c : w.getValue().entrySet()) {
+                    ChunkColumn column = c.getValue();
+                    candidates.add(new Candidate(w.getValue(), c.getKey(), column,
+                            column.viewers() > 0, column.lastAccess));
+                }
+            }
+            candidates.sort(Comparator.comparing((Candidate c) -> c.live).thenComparingLong(c -> c.lastAccess));
+
+            int evicted = 0;
+            for (Candidate c : candidates) {
+                if (usedBytes.get() <= target) break;
+                if (c.chunks.remove(c.key, c.column)) {
+                    usedBytes.addAndGet(-c.column.sizeBytes());
+                    evicted++;
+                }
+            }
+            log.debug("[WorldStore] Evicted {} chunks, {} bytes cached", evicted, usedBytes.get());
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private record Candidate(ConcurrentHashMap<Long, ChunkColumn> chunks, Long key, ChunkColumn column,
+                             boolean live, long lastAccess) {}
+
+    // -------------------------------------------------------------------------
+    // Diagnostics
+    // -------------------------------------------------------------------------
+
+    /** Estimated bytes held by cached chunks. */
+    public long getUsedBytes() {
+        return usedBytes.get();
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public int getChunkCount() {
+        int n = 0;
+        for (ConcurrentHashMap<Long, ChunkColumn> chunks : worlds.values()) n += chunks.size();
+        return n;
+    }
+}
@@ -0,0 +1,210 @@
+package com.proxy.world;
+
+import com.proxy.network.util.PacketDecoder;
+import io.netty.buffer.ByteBuf;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Per-session view of the shared {@link WorldStore}.
+ *
+ * Fed with the clientbound PLAY packets of one backend connection, it
+ * tracks which dimension the player is in and which chunks the server has
+ * sent, and keeps the shared store up to date:
+ *
+ *   0x29 Login (play)               dimension name
+ *   0x45 Respawn                    dimension name (releases all chunks)
+ *   0x25 Chunk Data and Update Light  decode sections (unless already shared)
+ *   0x1F Unload Chunk               release
+ *   0x09 Block Update               single block change
+ *   0x47 Update Section Blocks      batched block changes in one section
+ *
+ * Worlds are keyed in the store as "backend/dimension": two backends may
+ * both call their overworld minecraft:overworld without sharing any terrain,
+ * so a tracker must be bound to its backend ({@link #setBackend}) before
+ * the Login packet arrives.
+ *
+ * Packet IDs are those of protocol 765 (1.20.4).  All calls happen on the
+ * backend channel's event loop, which also serves the Hytale channel, so
+ * no synchronization is needed here.
+ */
+public final class WorldTracker {
+
+    public static final int LOGIN                 = 0x29;
+    public static final int RESPAWN               = 0x45;
+    public static final int CHUNK_DATA            = 0x25;
+    public static final int UNLOAD_CHUNK          = 0x1F;
+    public static final int BLOCK_UPDATE          = 0x09;
+    public static final int UPDATE_SECTION_BLOCKS = 0x47;
+
+    private static final int MAX_IDENTIFIER = 32767;
+
+    private final WorldStore store;
+    private final Set<Long> loaded = new HashSet<>();
+    private String backend = "";
+    private String world;
+    private int minSection = Integer.MIN_VALUE; // unknown until Login / Respawn
+
+    public WorldTracker() {
+        this(WorldStore.getInstance());
+    }
+
+    public WorldTracker(WorldStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Scope world keys to {@code backendName}.  Switching to another backend
+     * drops every chunk loaded from the previous one; the new backend's
+     * Login packet sets the world again.
+     */
+    public void setBackend(String backendName) {
+        if (backendName.equals(backend)) return;
+        releaseAll();
+        backend = backendName;
+        world = null;
+    }
+
+    /** Store key of the current world ("backend/dimension"), or null before Login. */
+    public String getWorld() {
+        return world;
+    }
+
+    /** MC block state at world coordinates, or {@link WorldStore#UNKNOWN}. */
+    public int getBlock(int x, int y, int z) {
+        return store.getBlock(world, x, y, z);
+    }
+
+    /** Bulk read of a box in y-z-x order; see {@link WorldStore#readRegion}. */
+    public void readRegion(int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ, int[] dst) {
+        if (world == null) {
+            Arrays.fill(dst, 0, sizeX * sizeY * sizeZ, WorldStore.UNKNOWN);
+            return;
+        }
+        store.readRegion(world, minX, minY, minZ, sizeX, sizeY, sizeZ, dst);
+    }
+
+    public WorldStore getStore() {
+        return store;
+    }
+
+    // -------------------------------------------------------------------------
+    // Packet handling
+    // -------------------------------------------------------------------------
+
+    /**
+     * Inspect one clientbound PLAY packet; {@code buf} is positioned just
+     * after the packet ID.  Packets that are not about world state are ignored.
+     */
+    public void handle(int packetId, ByteBuf buf) {
+        switch (packetId) {
+            case CHUNK_DATA            -> onChunkData(buf);
+            case BLOCK_UPDATE          -> onBlockUpdate(buf);
+            case UPDATE_SECTION_BLOCKS -> onSectionBlocks(buf);
+            case UNLOAD_CHUNK          -> onUnload(buf);
+            case LOGIN                 -> onLogin(buf);
+            case RESPAWN               -> onRespawn(buf);
+            default -> { }
+        }
+    }
+
+    private void onLogin(ByteBuf buf) {
+        buf.readInt();                                   // entity ID
+        buf.readBoolean();                               // hardcore
+        int dimensions = PacketDecoder.readVarInt(buf);
+        for (int i = 0; i < dimensions; i++) {
+            PacketDecoder.readString(buf, MAX_IDENTIFIER);
+        }
+        PacketDecoder.readVarInt(buf);                   // max players
+        PacketDecoder.readVarInt(buf);                   // view distance
+        PacketDecoder.readVarInt(buf);                   // simulation distance
+        buf.readBoolean();                               // reduced debug info
+        buf.readBoolean();                               // enable respawn screen
+        buf.readBoolean();                               // limited crafting
+        changeWorld(PacketDecoder.readString(buf, MAX_IDENTIFIER),
+                    PacketDecoder.readString(buf, MAX_IDENTIFIER));
+    }
+
+    private void onRespawn(ByteBuf buf) {
+        changeWorld(PacketDecoder.readString(buf, MAX_IDENTIFIER),
+                    PacketDecoder.readString(buf, MAX_IDENTIFIER));
+    }
+
+    private void changeWorld(String dimensionType, String dimensionName) {
+        releaseAll();
+        world = backend + '/' + dimensionName;
+        minSection = minSectionOf(dimensionType);
+    }
+
+    private void onChunkData(ByteBuf buf) {
+        if (world == null) return;
+        int chunkX = buf.readInt();
+        int chunkZ = buf.readInt();
+        if (!loaded.add(WorldStore.chunkKey(chunkX, chunkZ))) {
+            // Re-sent without an unload in between — refresh the data
+            store.release(world, chunkX, chunkZ);
+        } else if (store.retain(world, chunkX, chunkZ)) {
+            return; // another session keeps this chunk live; share its copy
+        }
+        store.put(world, ChunkPackets.readColumn(buf, chunkX, chunkZ, minSection));
+    }
+
+    private void onUnload(ByteBuf buf) {
+        int chunkZ = buf.readInt(); // Z first since 1.20.2
+        int chunkX = buf.readInt();
+        if (world != null && loaded.remove(WorldStore.chunkKey(chunkX, chunkZ))) {
+            store.release(world, chunkX, chunkZ);
+        }
+    }
+
+    private void onBlockUpdate(ByteBuf buf) {
+        if (world == null) return;
+        long pos = buf.readLong();
+        int state = PacketDecoder.readVarInt(buf);
+        store.setBlock(world, ChunkPackets.blockX(pos), ChunkPackets.blockY(pos), ChunkPackets.blockZ(pos), state);
+    }
+
+    private void onSectionBlocks(ByteBuf buf) {
+        if (world == null) return;
+        long section = buf.readLong();
+        int baseX = ChunkPackets.sectionX(section) << 4;
+        int baseY = ChunkPackets.sectionY(section) << 4;
+        int baseZ = ChunkPackets.sectionZ(section) << 4;
+        int count = PacketDecoder.readVarInt(buf);
+        for (int i = 0; i < count; i++) {
+            long entry = PacketDecoder.readVarLong(buf);
+            int local = (int) (entry & 0xFFF);
+            store.setBlock(world,
+                    baseX + ((local >> 8) & 15),
+                    baseY + (local & 15),
+                    baseZ + ((local >> 4) & 15),
+                    (int) (entry >>> 12));
+        }
+    }
+
+    /** Drop this session's claim on every chunk it has loaded. */
+    public void releaseAll() {
+        if (world != null) {
+            for (long key : loaded) {
+                store.release(world, (int) (key >> 32), (int) key);
+            }
+        }
+        loaded.clear();
+    }
+
+    /**
+     * Lowest section Y of the vanilla dimension types.  Returns
+     * Integer.MIN_VALUE for custom types, in which case the column layout is
+     * inferred from the section count (see ChunkPackets).
+     */
+    static int minSectionOf(String dimensionType) {
+        if (dimensionType == null) return Integer.MIN_VALUE;
+        return switch (dimensionType) {
+            case "minecraft:overworld", "minecraft:overworld_caves" -> -4;
+            case "minecraft:the_nether", "minecraft:the_end" -> 0;
+            default -> Integer.MIN_VALUE;
+        };
+    }
+}
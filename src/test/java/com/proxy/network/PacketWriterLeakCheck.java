@@ -0,0 +1,282 @@
+package com.proxy.network;
+
+import com.proxy.network.backend.Backend;
+import com.proxy.network.backend.BackendRegistry;
+import com.proxy.network.util.PacketEncoder;
+import com.proxy.network.util.PacketWriter;
+import com.proxy.protocol.packet.ChatPacket;
+import com.proxy.protocol.packet.PositionPacket;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.EncoderException;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.ResourceLeakDetector;
+import io.netty.util.ResourceLeakDetectorFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * ByteBuf leak check of the MC packet writers, run in the test phase by
+ * exec-maven-plugin (see pom.xml).  Exits non-zero on a leak.
+ *
+ * Leak detection is PARANOID, so every buffer is tracked, and leaks are
+ * counted by a detector installed through {@link ResourceLeakDetectorFactory}
+ * rather than read back from the log.  A canary buffer is leaked first; if
+ * that is not reported the check itself is broken and fails.
+ *
+ * Then, many times over:
+ *   - {@link PacketWriter} directly: allocate, prefix, begin/end, and end
+ *     failing on an oversized packet with the caller releasing the buffer;
+ *   - a bridged session on EmbeddedChannels, with and without compression:
+ *     the backend's login, configuration and play packets through
+ *     MCToHytaleTranslator (every reply it encodes), a Hytale chat line
+ *     through HytaleSessionHandler, and a movement tick.
+ *
+ * Lives in com.proxy.network to reach the package-private translator and
+ * movement tick.
+ *
+ * Tuning (system properties):
+ *   leakcheck.rounds  sessions and writer passes to run (default 2000)
+ */
+public final class PacketWriterLeakCheck {
+
+    private static final int ROUNDS = Integer.getInteger("leakcheck.rounds", 2_000);
+    private static final long REPORT_WAIT_MILLIS = 5_000;
+
+    private static final AtomicInteger LEAKS = new AtomicInteger();
+    /** True while the canary is being detected; its report is expected and not printed */
+    private static volatile boolean canary = true;
+
+    private PacketWriterLeakCheck() {}
+
+    public static void main(String[] args) throws Exception {
+        // Before any ByteBuf class is initialised: AbstractByteBuf creates its
+        // detector in a static initializer
+        ResourceLeakDetectorFactory.setResourceLeakDetectorFactory(new CountingFactory());
+        ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.PARANOID);
+
+        leakCanary();
+        if (!awaitLeak()) {
+            System.err.println("[LeakCheck] FAILED: the canary leak was not reported, leaks cannot be detected");
+            System.exit(2);
+        }
+        System.out.println("[LeakCheck] Canary leak detected");
+        canary = false;
+        LEAKS.set(0);
+
+        oversizedPacket();
+        SessionRegistry sessions = new SessionRegistry();
+        Backend backend = BackendRegistry.getInstance().backends().get(0);
+        for (int i = 0; i < ROUNDS; i++) {
+            writers();
+            session(sessions, backend, i % 2 == 0 ? -1 : 64);
+        }
+
+        if (awaitLeak()) {
+            System.err.println("[LeakCheck] FAILED: " + LEAKS.get() + " leak(s) reported");
+            System.exit(1);
+        }
+        System.out.println("[LeakCheck] OK: " + ROUNDS + " rounds, no leaks (level "
+                + ResourceLeakDetector.getLevel() + ")");
+    }
+
+    // -------------------------------------------------------------------------
+    // Leak reporting
+    // -------------------------------------------------------------------------
+
+    private static void leakCanary() {
+        PooledByteBufAllocator.DEFAULT.directBuffer(16).writeLong(0);
+    }
+
+    /**
+     * Collect garbage and allocate until a leak is reported or the wait runs
+     * out.  Leaks are only reported from a later allocation.
+     */
+    private static boolean awaitLeak() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + REPORT_WAIT_MILLIS;
+        while (LEAKS.get() == 0 && System.currentTimeMillis() < deadline) {
+            System.gc();
+            Thread.sleep(50);
+            for (int i = 0; i < 64; i++) {
+                PooledByteBufAllocator.DEFAULT.directBuffer(1).release();
+            }
+        }
+        return LEAKS.get() != 0;
+    }
+
+    private static final class CountingFactory extends ResourceLeakDetectorFactory {
+        @Override
+        @SuppressWarnings("deprecation")
+        public <T> ResourceLeakDetector<T> newResourceLeakDetector(Class<T> resource, int samplingInterval, long maxActive) {
+            return new CountingDetector<>(resource, samplingInterval);
+        }
+    }
+
+    private static final class CountingDetector<T> extends ResourceLeakDetector<T> {
+
+        CountingDetector(Class<?> resourceType, int samplingInterval) {
+            super(resourceType, samplingInterval);
+        }
+
+        @Override
+        protected boolean needReport() {
+            return true; // regardless of whether a logger would print it
+        }
+
+        @Override
+        protected void reportTracedLeak(String resourceType, String records) {
+            LEAKS.incrementAndGet();
+            if (!canary) System.err.println("[LeakCheck] LEAK: " + resourceType + records);
+        }
+
+        @Override
+        protected void reportUntracedLeak(String resourceType) {
+            LEAKS.incrementAndGet();
+            if (!canary) System.err.println("[LeakCheck] LEAK: " + resourceType + " (no records)");
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // PacketWriter
+    // -------------------------------------------------------------------------
+
+    private static void writers() {
+        ByteBufAllocator alloc = PooledByteBufAllocator.DEFAULT;
+        String message = "leak check";
+
+        ByteBuf sized = PacketWriter.allocate(alloc, 0x05, PacketWriter.stringSize(message) + 8);
+        PacketEncoder.writeString(sized, message);
+        sized.writeLong(0L);
+        sized.release();
+
+        ByteBuf twoFrames = alloc.directBuffer(2 * PacketWriter.frameSize(0x15, 8));
+        PacketWriter.prefix(twoFrames, 0x15, 8);
+        twoFrames.writeLong(1L);
+        PacketWriter.prefix(twoFrames, 0x15, 8);
+        twoFrames.writeLong(2L);
+        twoFrames.release();
+
+        ByteBuf reserved = alloc.directBuffer();
+        int start = PacketWriter.begin(reserved, 0x05);
+        PacketEncoder.writeString(reserved, message);
+        PacketWriter.end(reserved, start);
+        reserved.release();
+    }
+
+    /** The exception path: end() refuses the packet and the caller still owns the buffer. */
+    private static void oversizedPacket() {
+        ByteBuf buf = PooledByteBufAllocator.DEFAULT.directBuffer();
+        try {
+            int start = PacketWriter.begin(buf, 0x05);
+            buf.writeZero(PacketWriter.MAX_PACKET_LENGTH + 1);
+            PacketWriter.end(buf, start);
+            throw new IllegalStateException("end() accepted an oversized packet");
+        } catch (EncoderException expected) {
+            // the buffer is released below, as callers do
+        } finally {
+            buf.release();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Bridged session
+    // -------------------------------------------------------------------------
+
+    /** One session from backend login to PLAY and back out; {@code threshold} -1 for no compression. */
+    private static void session(SessionRegistry sessions, Backend backend, int threshold) {
+        EmbeddedChannel hytale = new EmbeddedChannel(new HytaleSessionHandler(sessions));
+        HytalePlayerSession session = new HytalePlayerSession(hytale, "leakcheck");
+        sessions.register(session);
+
+        EmbeddedChannel mc = new EmbeddedChannel();
+        new MCToHytaleTranslator(session, backend, System.nanoTime()).install(mc.pipeline());
+        session.setMcChannel(mc);
+
+        boolean compressed = threshold >= 0;
+        if (compressed) {
+            mc.writeInbound(frame(false, 0x03, b -> PacketEncoder.writeVarInt(b, threshold))); // Set Compression
+        }
+        mc.writeInbound(
+                frame(compressed, 0x04, b -> {                           // Login Plugin Request
+                    PacketEncoder.writeVarInt(b, 7);
+                    PacketEncoder.writeString(b, "velocity:player_info");
+                    b.writeByte(1);
+                }),
+                frame(compressed, 0x02, b -> {                           // Login Success
+                    PacketEncoder.writeUUID(b, session.getUuid());
+                    PacketEncoder.writeString(b, session.getUsername());
+                    PacketEncoder.writeVarInt(b, 0);
+                }),
+                frame(compressed, 0x03, b -> b.writeLong(42L)),          // Keep Alive (configuration)
+                frame(compressed, 0x04, b -> b.writeInt(7)),             // Ping (configuration)
+                frame(compressed, 0x02, b -> { }),                       // Finish Configuration
+                frame(compressed, 0x29, PacketWriterLeakCheck::playLogin),
+                frame(compressed, 0x24, b -> b.writeLong(43L)),          // Keep Alive
+                frame(compressed, 0x3E, b -> {                           // Synchronize Player Position
+                    b.writeDouble(0.5).writeDouble(64).writeDouble(0.5);
+                    b.writeFloat(0f).writeFloat(0f);
+                    b.writeByte(0);
+                    PacketEncoder.writeVarInt(b, 1);
+                }),
+                frame(compressed, 0x0C, b -> PacketEncoder.writeVarInt(b, 1)), // Chunk Batch Finished
+                frame(compressed, 0x09, b -> {                           // Block Update
+                    b.writeLong(0L);
+                    PacketEncoder.writeVarInt(b, 1);
+                }));
+        if (session.getState() != HytalePlayerSession.PlayerState.IN_GAME) {
+            throw new IllegalStateException("Scripted login did not reach PLAY");
+        }
+
+        hytale.writeInbound(new ChatPacket("x".repeat(100)));            // over the threshold: deflated
+        session.getMovement().update(new PositionPacket(1, 64, 1, 90f, 0f, true));
+        session.getMovement().flush();
+
+        drain(mc);
+        drain(hytale);
+        mc.finishAndReleaseAll();
+        hytale.finishAndReleaseAll();
+        sessions.unregister(session);
+    }
+
+    private static void playLogin(ByteBuf b) {
+        b.writeInt(1);                                   // entity ID
+        b.writeBoolean(false);                           // hardcore
+        PacketEncoder.writeVarInt(b, 1);
+        PacketEncoder.writeString(b, "minecraft:overworld");
+        PacketEncoder.writeVarInt(b, 20);                // max players
+        PacketEncoder.writeVarInt(b, 8);                 // view distance
+        PacketEncoder.writeVarInt(b, 8);                 // simulation distance
+        b.writeBoolean(false);                           // reduced debug info
+        b.writeBoolean(true);                            // enable respawn screen
+        b.writeBoolean(false);                           // limited crafting
+        PacketEncoder.writeString(b, "minecraft:overworld");
+        PacketEncoder.writeString(b, "minecraft:overworld");
+        b.writeLong(0L);                                 // hashed seed
+        b.writeByte(0).writeByte(-1);                    // game mode, previous
+        b.writeBoolean(false).writeBoolean(false);       // debug, flat
+        b.writeBoolean(false);                           // death location
+        PacketEncoder.writeVarInt(b, 0);                 // portal cooldown
+    }
+
+    /** A clientbound frame as the backend sends it, uncompressed (Data Length 0) once compression is on. */
+    private static ByteBuf frame(boolean compressed, int packetId, Consumer<ByteBuf> body) {
+        ByteBuf packet = PooledByteBufAllocator.DEFAULT.directBuffer();
+        PacketEncoder.writeVarInt(packet, packetId);
+        body.accept(packet);
+        ByteBuf frame = PooledByteBufAllocator.DEFAULT.directBuffer();
+        PacketEncoder.writeVarInt(frame, packet.readableBytes() + (compressed ? 1 : 0));
+        if (compressed) frame.writeByte(0);
+        frame.writeBytes(packet);
+        packet.release();
+        return frame;
+    }
+
+    private static void drain(EmbeddedChannel ch) {
+        for (Object msg; (msg = ch.readOutbound()) != null; ) {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+}